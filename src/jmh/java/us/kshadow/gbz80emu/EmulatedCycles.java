@@ -0,0 +1,25 @@
+package us.kshadow.gbz80emu;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts emulated cycles alongside a benchmark's own score. JMH reports it as
+ * a rate in the benchmark's time unit, so cycles per microsecond is emulated
+ * MHz. Benchmarks add to the counter directly, as JMH takes every public
+ * method here to be a counter too.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class EmulatedCycles {
+
+	public long cycles;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		cycles = 0;
+	}
+}
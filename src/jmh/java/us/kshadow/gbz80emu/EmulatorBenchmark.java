@@ -0,0 +1,63 @@
+package us.kshadow.gbz80emu;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import us.kshadow.gbz80emu.graphics.DisplayCanvas;
+import us.kshadow.gbz80emu.graphics.GPU;
+
+/**
+ * Measures drawing a frame the way {@link DisplayCanvas} presents it, scaling
+ * it up to the window with a single drawImage(), in frames per second. Drawn
+ * into an image rather than a buffer strategy, so it runs headless. The frame
+ * comes from a bare {@link GameBoy}, as an {@link Emulator} would start a
+ * present thread that takes frames too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmulatorBenchmark {
+
+	@Param({"NEAREST", "INTEGER"})
+	private DisplayCanvas.Scaling scaling;
+
+	private BufferedImage frame;
+	private BufferedImage window;
+	private Graphics2D graphics;
+
+	@Setup
+	public void setup() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+		frame = new BufferedImage(GPU.SCREEN_WIDTH, GPU.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		gameBoy.getGPU().setDisplayImage(frame);
+		for (int i = 0; i < 60; i++) {
+			gameBoy.runFrame();
+		}
+		window = new BufferedImage(Emulator.WINDOW_WIDTH, Emulator.WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		graphics = window.createGraphics();
+	}
+
+	@Benchmark
+	public BufferedImage presentFrame() {
+		DisplayCanvas.drawScaled(graphics, frame, Emulator.WINDOW_WIDTH, Emulator.WINDOW_HEIGHT, scaling);
+		return window;
+	}
+}
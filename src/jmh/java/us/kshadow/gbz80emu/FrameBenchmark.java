@@ -0,0 +1,74 @@
+package us.kshadow.gbz80emu;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import us.kshadow.gbz80emu.processor.FlagRegister;
+
+/**
+ * Measures full-frame emulation of the bundled test ROMs. {@link #frames()}
+ * scores frames per second, {@link #emulatedMHz()} runs the same frames scored
+ * as emulated cycles per microsecond.
+ * <p>
+ * Each iteration starts the ROM over, so it's always measured running its
+ * tests rather than idling on the results screen. Flags are worked out either
+ * after every operation or lazily, see {@link FlagRegister#setLazy(boolean)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameBenchmark {
+
+	@Param({"cpu_instrs", "instr_timing", "mem_timing"})
+	private String rom;
+
+	@Param({"interpreter", "decodeCache", "recompiler"})
+	private String tier;
+
+	@Param({"false", "true"})
+	private boolean lazyFlags;
+
+	private GameBoy gameBoy;
+
+	@Setup(Level.Iteration)
+	public void setup() throws IOException {
+		gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/" + rom + ".gb");
+		gameBoy.skipBootROM();
+		gameBoy.getCPU().setDecodeCacheEnabled("decodeCache".equals(tier));
+		gameBoy.getCPU().setRecompilerEnabled("recompiler".equals(tier));
+		gameBoy.getCPU().getRegisters().getFR().setLazy(lazyFlags);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public GameBoy frames() {
+		gameBoy.runFrame();
+		return gameBoy;
+	}
+
+	// Leftover cycles carry over to the next frame, so a frame averages exactly
+	// FRAME_CYCLES.
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@OperationsPerInvocation(GameBoy.FRAME_CYCLES)
+	public GameBoy emulatedMHz() {
+		gameBoy.runFrame();
+		return gameBoy;
+	}
+}
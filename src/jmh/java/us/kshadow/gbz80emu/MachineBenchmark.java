@@ -0,0 +1,31 @@
+package us.kshadow.gbz80emu;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a machine with a ROM loaded. Run with {@code -prof gc},
+ * where gc.alloc.rate.norm is the memory footprint of one machine in bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MachineBenchmark {
+
+	@Benchmark
+	public GameBoy createMachine() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		return gameBoy;
+	}
+}
@@ -0,0 +1,157 @@
+package us.kshadow.gbz80emu.graphics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.util.BitUtil;
+
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.BG_PALETTE;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.LCD_CONTROL;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.OAM_DMA;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.OBJ_PALETTE_0;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.OBJ_PALETTE_1;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.WINDOW_X;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.WINDOW_Y;
+
+/**
+ * Measures {@link GPU#renderScanLine(int)} over a background of random tiles,
+ * in scanlines per millisecond. Either the background alone is drawn, or the
+ * window over the right half of the screen and 40 random sprites as well.
+ * <p>
+ * The baseline renderer is the one from before the window and sprites were
+ * drawn. It only ever draws the background, so compare it against the
+ * scanline renderer with the background alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GpuBenchmark {
+
+	private static final int LINES = 144;
+
+	@Param({"background", "all"})
+	public String layers;
+
+	@Param({"scanline", "baseline"})
+	public String renderer;
+
+	private GPU gpu;
+	private BaselineRenderer baseline;
+
+	@Setup
+	public void setup() {
+		GameBoy gameBoy = new GameBoy();
+		MMU mmu = gameBoy.getMMU();
+		Random random = new Random(0);
+		for (int address = 0x8000; address < 0xA000; address++) {
+			mmu.writeByte(address, random.nextInt(0x100));
+		}
+		// LCD and background on, tile data at 0x8000.
+		mmu.writeByte(LCD_CONTROL, 0x91);
+		mmu.writeByte(BG_PALETTE, 0xE4);
+		if (layers.equals("all")) {
+			// Sprites anywhere on screen, copied into OAM from work RAM.
+			for (int sprite = 0; sprite < 40; sprite++) {
+				mmu.writeByte(0xC000 + sprite * 4, 16 + random.nextInt(GPU.SCREEN_HEIGHT));
+				mmu.writeByte(0xC001 + sprite * 4, 8 + random.nextInt(GPU.SCREEN_WIDTH));
+				mmu.writeByte(0xC002 + sprite * 4, random.nextInt(0x100));
+				mmu.writeByte(0xC003 + sprite * 4, random.nextInt(0x100));
+			}
+			mmu.writeByte(OAM_DMA, 0xC0);
+			mmu.writeByte(OBJ_PALETTE_0, 0xE4);
+			mmu.writeByte(OBJ_PALETTE_1, 0x1B);
+			mmu.writeByte(WINDOW_Y, 0);
+			mmu.writeByte(WINDOW_X, 87);
+			// Window and sprites on as well.
+			mmu.writeByte(LCD_CONTROL, 0xF3);
+		}
+		gpu = gameBoy.getGPU();
+		if (renderer.equals("baseline")) {
+			baseline = new BaselineRenderer(mmu, gpu);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public int[] renderScanLine() {
+		if (baseline != null) {
+			for (int line = 0; line < LINES; line++) {
+				baseline.renderScanLine(line);
+			}
+		} else {
+			for (int line = 0; line < LINES; line++) {
+				gpu.renderScanLine(line);
+			}
+		}
+		// Starts the window from its first line again.
+		gpu.resetLY();
+		return gpu.getFramebuffer();
+	}
+
+	/**
+	 * The background renderer as it was before the window and sprites, reading
+	 * the tile map through readByte() and writing straight into the
+	 * framebuffer. It takes over the tile data listener from the GPU's own tile
+	 * cache, which is fine as VRAM isn't written while measuring.
+	 */
+	private static final class BaselineRenderer {
+
+		private static final int[] DMG_COLORS = {0xe0f8d0, 0x88c070, 0x346856, 0x081820};
+
+		private final MMU mmu;
+		private final GPU gpu;
+		private final TileCache tileCache;
+		private final int[] framebuffer;
+		private final int[] currentPalette = new int[4];
+
+		BaselineRenderer(MMU mmu, GPU gpu) {
+			this.mmu = mmu;
+			this.gpu = gpu;
+			tileCache = new TileCache(mmu);
+			framebuffer = gpu.getFramebuffer();
+			int bgPalette = gpu.getBGP();
+			for (int color = 0; color < 4; color++) {
+				currentPalette[color] = DMG_COLORS[(bgPalette >> (color * 2)) & 0x3];
+			}
+		}
+
+		void renderScanLine(int line) {
+			int lcdControl = gpu.getLCDC();
+			int bgTileMapPointer = BitUtil.checkBitSet(lcdControl, 3) ? 0x9C00 : 0x9800;
+			boolean unsignedTiles = BitUtil.checkBitSet(lcdControl, 4);
+			int backgroundY = (line + gpu.getSCY()) & 0xFF;
+			int tileMapRow = bgTileMapPointer + (backgroundY / 8) * 32;
+			int tileLine = (backgroundY % 8) * 8;
+			byte[] tilePixels = tileCache.getPixels();
+			int pixel = line * GPU.SCREEN_WIDTH;
+			int lineEnd = pixel + GPU.SCREEN_WIDTH;
+			int backgroundX = gpu.getSCX();
+			while (pixel < lineEnd) {
+				int tileIndex = mmu.readByte(tileMapRow + ((backgroundX & 0xFF) >> 3));
+				int tile = unsignedTiles ? tileIndex : 256 + (byte) tileIndex;
+				int tilePixel = tileCache.getTile(tile) + tileLine;
+				for (int column = backgroundX & 7; column < 8 && pixel < lineEnd; column++) {
+					framebuffer[pixel++] = currentPalette[tilePixels[tilePixel + column]];
+					backgroundX++;
+				}
+			}
+		}
+	}
+}
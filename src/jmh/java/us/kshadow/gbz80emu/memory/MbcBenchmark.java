@@ -0,0 +1,153 @@
+package us.kshadow.gbz80emu.memory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import us.kshadow.gbz80emu.memory.mbc.MBC;
+import us.kshadow.gbz80emu.memory.mbc.MBC1;
+import us.kshadow.gbz80emu.memory.mbc.MBC1M;
+
+/**
+ * Measures fetches from the switchable ROM bank straight through the MBC, the
+ * path the MMU takes for ROM pages it has nothing mapped for, in fetches per
+ * microsecond. Also measures bank switches, which recompute the mapped
+ * offsets.
+ * <p>
+ * The per-read variants work the bank offset out on every fetch, as the MBCs
+ * did before the offsets were computed on register writes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MbcBenchmark {
+
+	// Addresses fetched per invocation, starting at 0x4000.
+	private static final int SPAN = 0x100;
+
+	@Param({"MBC1", "MBC1M"})
+	private String type;
+
+	@Param({"precomputed", "perRead"})
+	private String offsets;
+
+	private MBC mbc;
+	private int bank;
+
+	@Setup
+	public void setup() throws IOException {
+		Cartridge cartridge = new Cartridge();
+		cartridge.loadROM("test_roms/cpu_instrs.gb");
+		if ("perRead".equals(offsets)) {
+			mbc = "MBC1M".equals(type) ? new PerReadMBC1M(cartridge) : new PerReadMBC1(cartridge);
+		} else {
+			mbc = "MBC1M".equals(type) ? new MBC1M(cartridge) : new MBC1(cartridge);
+		}
+		mbc.handleMBCWriteROM(0x2000, 0x02);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SPAN)
+	public void fetchROMX(Blackhole blackhole) {
+		for (int i = 0; i < SPAN; i++) {
+			blackhole.consume(mbc.handleMBCReadROM(0x4000 + i));
+		}
+	}
+
+	@Benchmark
+	public int switchBank() {
+		bank = (bank + 1) & 0x03;
+		mbc.handleMBCWriteROM(0x2000, bank);
+		return mbc.getROMBankOffset(0x4000);
+	}
+
+	/**
+	 * MBC1 working the bank offset out on every read, as it used to.
+	 */
+	private static final class PerReadMBC1 extends MBC1 {
+
+		PerReadMBC1(Cartridge cartridge) {
+			super(cartridge);
+		}
+
+		@Override
+		public int getROMBankOffset(int address) {
+			int currentBank;
+			int correctedBankMask = (int) Math.pow(2, cartridge.getROMSize() + 1.0) - 1;
+
+			switch (address & 0xF000) {
+				case 0x0000, 0x1000, 0x2000, 0x3000 -> {
+					if (mbc1Mode == 1) {
+						currentBank = (bankIndex2 << 5);
+						return 0x4000 * (currentBank & correctedBankMask);
+					}
+					return 0;
+				}
+
+				case 0x4000, 0x5000, 0x6000, 0x7000 -> {
+					currentBank = cartridge.getROMSize() >= 5 ? (bankIndex2 << 5) | bankIndex1 : bankIndex1;
+
+					if (currentBank == 0x00 || currentBank == 0x20 || currentBank == 0x40 || currentBank == 0x60) {
+						currentBank++;
+					}
+
+					return 0x4000 * (currentBank & correctedBankMask);
+				}
+
+				default -> throw new IllegalArgumentException("Unhandled MBC ROM read at address: " + address);
+			}
+		}
+	}
+
+	/**
+	 * MBC1M working the bank offset out on every read, as it used to.
+	 */
+	private static final class PerReadMBC1M extends MBC1M {
+
+		PerReadMBC1M(Cartridge cartridge) {
+			super(cartridge);
+		}
+
+		@Override
+		public int getROMBankOffset(int address) {
+			int currentBank;
+
+			switch (address & 0xF000) {
+				case 0x0000, 0x1000, 0x2000, 0x3000 -> {
+					if (mbc1Mode == 1) {
+						currentBank = (bankIndex2 << 4);
+						return 0x4000 * currentBank;
+					}
+					return 0;
+				}
+
+				case 0x4000, 0x5000, 0x6000, 0x7000 -> {
+					currentBank = (bankIndex2 << 4) | (bankIndex1 & 0xF);
+
+					if (bankIndex1 == 0x00 || bankIndex1 == 0x20 || bankIndex1 == 0x40 || bankIndex1 == 0x60) {
+						return 0x4000 * (1 + currentBank);
+					}
+
+					return 0x4000 * currentBank;
+				}
+
+				default -> throw new IllegalArgumentException("Unhandled MBC ROM read at address: " + address);
+			}
+		}
+	}
+}
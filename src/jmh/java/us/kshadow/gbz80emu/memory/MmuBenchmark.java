@@ -0,0 +1,80 @@
+package us.kshadow.gbz80emu.memory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import us.kshadow.gbz80emu.GameBoy;
+
+/**
+ * Measures {@link MMU#readByte(int)} and {@link MMU#writeByte(int, int)} in
+ * each memory region, in accesses per microsecond.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MmuBenchmark {
+
+	// Addresses accessed per invocation, starting at the region's base.
+	private static final int SPAN = 0x80;
+
+	// ROM writes go to the MBC, and I/O writes to whatever register is there.
+	@Param({"ROM0", "ROMX", "VRAM", "EXTRAM", "WRAM", "ECHO", "OAM", "IO", "HRAM"})
+	private String region;
+
+	private MMU mmu;
+	private int base;
+
+	@Setup
+	public void setup() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+		mmu = gameBoy.getMMU();
+		// Enables external RAM.
+		mmu.writeByte(0x0000, 0x0A);
+		base = switch (region) {
+			case "ROM0" -> 0x0100;
+			case "ROMX" -> 0x4000;
+			case "VRAM" -> 0x8000;
+			case "EXTRAM" -> 0xA000;
+			case "WRAM" -> 0xC000;
+			case "ECHO" -> 0xE000;
+			case "OAM" -> 0xFE00;
+			case "IO" -> 0xFF00;
+			case "HRAM" -> 0xFF80;
+			default -> throw new IllegalArgumentException("Unknown region: " + region);
+		};
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SPAN)
+	public void readByte(Blackhole blackhole) {
+		for (int i = 0; i < SPAN; i++) {
+			blackhole.consume(mmu.readByte(base + i));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SPAN)
+	public void writeByte() {
+		for (int i = 0; i < SPAN; i++) {
+			mmu.writeByte(base + i, i);
+		}
+	}
+}
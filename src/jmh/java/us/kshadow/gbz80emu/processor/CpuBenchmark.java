@@ -0,0 +1,108 @@
+package us.kshadow.gbz80emu.processor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import us.kshadow.gbz80emu.EmulatedCycles;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.MMU;
+
+import static us.kshadow.gbz80emu.processor.CPURegisters.*;
+
+/**
+ * Measures opcode dispatch through {@link CPU#nextInstruction()}, running a
+ * loop of common instructions out of work RAM. The score is instructions per
+ * microsecond, and the cycles counter is emulated MHz. The recompiler runs a
+ * whole block per call, so compare tiers by the cycles counter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CpuBenchmark {
+
+	private static final int CODE_ADDRESS = 0xC000;
+	private static final int INSTRUCTIONS = 1000;
+
+	// Loads, arithmetic, memory through HL, CB ops, stack, a call and a jump back.
+	private static final int[] PROGRAM = {0x3E, 0x12, // LD A, 0x12
+			0x06, 0x34, // LD B, 0x34
+			0x80, // ADD A, B
+			0x88, // ADC A, B
+			0x90, // SUB B
+			0xA8, // XOR B
+			0xB0, // OR B
+			0xA0, // AND B
+			0xFE, 0x10, // CP 0x10
+			0x3C, // INC A
+			0x05, // DEC B
+			0x77, // LD (HL), A
+			0x7E, // LD A, (HL)
+			0x23, // INC HL
+			0x2B, // DEC HL
+			0xCB, 0x37, // SWAP A
+			0xCB, 0x40, // BIT 0, B
+			0xCB, 0x11, // RL C
+			0xC5, // PUSH BC
+			0xC1, // POP BC
+			0xCD, 0x1F, 0xC0, // CALL 0xC01F
+			0x18, 0xE1, // JR -31
+			0xC9}; // RET
+
+	@Param({"table", "switch"})
+	private String core;
+
+	@Param({"interpreter", "decodeCache", "recompiler"})
+	private String tier;
+
+	@Param({"false", "true"})
+	private boolean lazyFlags;
+
+	private CPU cpu;
+
+	@Setup
+	public void setup() {
+		GameBoy gameBoy = new GameBoy();
+		cpu = gameBoy.getCPU();
+		MMU mmu = gameBoy.getMMU();
+		mmu.toggleBootROM(false);
+		for (int i = 0; i < PROGRAM.length; i++) {
+			mmu.writeByte(CODE_ADDRESS + i, PROGRAM[i]);
+		}
+		CPURegisters reg = cpu.getRegisters();
+		reg.setPair(PC, CODE_ADDRESS);
+		reg.setPair(SP, 0xDFF0);
+		reg.setPair(HL, 0xD000);
+		reg.getFR().setLazy(lazyFlags);
+		cpu.setCore("switch".equals(core) ? new SwitchCpuCore() : new TableCpuCore());
+		cpu.setDecodeCacheEnabled("decodeCache".equals(tier));
+		cpu.setRecompilerEnabled("recompiler".equals(tier));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(INSTRUCTIONS)
+	public void nextInstruction(EmulatedCycles counter) {
+		int cycles = 0;
+		for (int i = 0; i < INSTRUCTIONS; i++) {
+			cycles += cpu.nextInstruction();
+		}
+		counter.cycles += cycles;
+		// Keeps the CPU's frame counter from overflowing on long runs.
+		while (cpu.getCycles() > GameBoy.FRAME_CYCLES) {
+			cpu.resetCyclesAfterFrame();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package us.kshadow.gbz80emu.state;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import us.kshadow.gbz80emu.GameBoy;
+
+/**
+ * Measures saving and loading the whole machine into a reused buffer, in
+ * microseconds per state. Snapshotting every frame has to stay well under a
+ * frame's 16ms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveStateBenchmark {
+
+	private GameBoy gameBoy;
+	private ByteBuffer state;
+
+	@Setup
+	public void setup() throws IOException {
+		gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+		for (int i = 0; i < 60; i++) {
+			gameBoy.runFrame();
+		}
+		state = ByteBuffer.allocateDirect(gameBoy.getMaxStateSize());
+		gameBoy.saveState(state);
+	}
+
+	@Benchmark
+	public ByteBuffer saveState() {
+		state.clear();
+		gameBoy.saveState(state);
+		return state;
+	}
+
+	@Benchmark
+	public GameBoy loadState() {
+		state.rewind();
+		gameBoy.loadState(state);
+		return gameBoy;
+	}
+}
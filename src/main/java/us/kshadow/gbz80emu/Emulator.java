@@ -1,10 +1,13 @@
 package us.kshadow.gbz80emu;
 
+import java.awt.BorderLayout;
 import java.awt.Graphics;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
 
@@ -13,11 +16,11 @@ import org.slf4j.LoggerFactory;
 import us.kshadow.gbz80emu.joypad.Input;
 import us.kshadow.gbz80emu.joypad.JoyPad;
 import us.kshadow.gbz80emu.memory.Cartridge;
-import us.kshadow.gbz80emu.memory.mbc.MBC1;
 import us.kshadow.gbz80emu.processor.CPU;
+import us.kshadow.gbz80emu.graphics.DisplayCanvas;
 import us.kshadow.gbz80emu.graphics.GPU;
-import us.kshadow.gbz80emu.sysclock.SystemTimer;
-import us.kshadow.gbz80emu.util.MiscUtil;
+import us.kshadow.gbz80emu.graphics.TripleBuffer;
+import us.kshadow.gbz80emu.state.RewindBuffer;
 
 /**
  * Emulator - Where all the moving parts are tied together to load GB games.
@@ -27,12 +30,24 @@ public class Emulator extends JPanel {
 	private static final Logger logger = LoggerFactory.getLogger(Emulator.class);
 	public static final int WINDOW_WIDTH = 480;
 	public static final int WINDOW_HEIGHT = 432;
+	// Time between background flushes of battery RAM to the .sav file.
+	private static final Duration SAVE_FLUSH_INTERVAL = Duration.ofSeconds(
+			Long.getLong("gbz80emu.saveFlushSeconds", 5));
+	// Frames between rewind snapshots, snapshots between keyframes, and the
+	// memory the rewind history may take up.
+	private static final int REWIND_INTERVAL = Integer.getInteger("gbz80emu.rewind.interval", 1);
+	private static final int REWIND_KEYFRAME_INTERVAL = Integer.getInteger("gbz80emu.rewind.keyframes", 60);
+	private static final long REWIND_BYTES = Long.getLong("gbz80emu.rewind.bytes", 64L << 20);
+	// How frames are scaled up to the window, "nearest" or "integer".
+	private static final DisplayCanvas.Scaling SCALING = DisplayCanvas.Scaling
+			.valueOf(System.getProperty("gbz80emu.scaling", "nearest").toUpperCase());
+	private final transient GameBoy gameBoy;
 	private final transient CPU cpu;
-	private static final GPU gpu = GPU.getInstance();
-	private static final SystemTimer timer = SystemTimer.getInstance();
-	private final transient Cartridge testROM = Cartridge.getInstance();
-	private static final JoyPad joyPad = JoyPad.getInstance();
-	private final transient BufferedImage gbDisplay;
+	private final transient GPU gpu;
+	private final transient Cartridge testROM;
+	private final transient JoyPad joyPad;
+	private final transient RewindBuffer rewindBuffer;
+	private final DisplayCanvas display;
 	private boolean emuRunning;
 	private String currentRomFile = "test_roms/cpu_instrs.gb";
 
@@ -40,44 +55,74 @@ public class Emulator extends JPanel {
 	 * Initializer for the Emulator panel.
 	 */
 	public Emulator() {
-		gbDisplay = new BufferedImage(160, 144, BufferedImage.TYPE_INT_RGB);
 		emuRunning = true;
-		cpu = new CPU();
+		gameBoy = new GameBoy();
+		cpu = gameBoy.getCPU();
+		gpu = gameBoy.getGPU();
+		testROM = gameBoy.getCartridge();
+		joyPad = gameBoy.getJoyPad();
+		rewindBuffer = new RewindBuffer(REWIND_INTERVAL, REWIND_KEYFRAME_INTERVAL, REWIND_BYTES);
+		// Frames finished by the GPU, taken by the display's present thread.
+		TripleBuffer frames = new TripleBuffer();
+		gpu.setFrameOutput(frames);
+		display = new DisplayCanvas(WINDOW_WIDTH, WINDOW_HEIGHT);
+		display.setScaling(SCALING);
+		display.startPresenting(frames);
+		setLayout(new BorderLayout());
+		add(display, BorderLayout.CENTER);
 		setupEmuROM(currentRomFile);
 	}
 
+	/**
+	 * Loads a ROM along with its save file. Runs on the Swing thread, so it takes
+	 * the machine's lock to keep the emulation thread out meanwhile.
+	 */
 	private void setupEmuROM(String currentRomFile) {
-		try {
-			testROM.loadROM(currentRomFile);
-			logger.info("ROM loaded! | MBC type: {} | ROM size: {} | RAM size: {}", testROM.getMBCType(),
-					testROM.getROMSize(), testROM.getRAMSize());
-
-			if (testROM.getMBCType() >= 1 && testROM.getMBCType() <= 3) {
-				cpu.getMMU().setMBC(new MBC1());
-			} else {
-				// Unimplemented MBC
-				cpu.getMMU().setMBC(null);
+		synchronized (gameBoy) {
+			try {
+				gameBoy.closeSaveFile();
+				gameBoy.loadROM(currentRomFile);
+				rewindBuffer.clear();
+				logger.info("ROM loaded! | MBC type: {} | ROM size: {} | RAM size: {}", testROM.getMBCType(),
+						testROM.getROMSize(), testROM.getRAMSize());
+				gameBoy.openSaveFile(getSaveFile(currentRomFile), SAVE_FLUSH_INTERVAL);
+			} catch (IOException e) {
+				logger.error(e.getMessage());
 			}
+		}
+	}
 
-		} catch (IOException e) {
-			logger.error(e.getMessage());
+	/**
+	 * Flushes battery backed RAM of the current ROM to its .sav file, next to
+	 * the ROM, and closes it. Called from the shutdown hook, so it takes the
+	 * machine's lock, waiting for any frame in progress to finish first.
+	 */
+	public void closeSaveFile() {
+		synchronized (gameBoy) {
+			try {
+				gameBoy.closeSaveFile();
+			} catch (IOException e) {
+				logger.error(e.getMessage());
+			}
 		}
 	}
 
+	private static Path getSaveFile(String romFile) {
+		int extension = romFile.lastIndexOf('.');
+		return Path.of((extension > 0 ? romFile.substring(0, extension) : romFile) + ".sav");
+	}
+
 	/**
-	 * Handles running the normal emulation loop.
+	 * Handles running the normal emulation loop. Frames are published by the GPU
+	 * as they're finished, and presented on the display's own thread.
 	 */
 	@SuppressWarnings("java:S3776")
 	public void runEmulator() {
 		while (emuRunning) {
 			if (cpu.isRunning()) { // for STOP instruction
-				while (cpu.getCycles() <= 70224) {
-					nextSystemStep();
-				}
-
-				if (cpu.getCycles() >= 70224) {
-					cpu.resetCyclesAfterFrame();
-					repaint();
+				synchronized (gameBoy) {
+					gameBoy.runFrame();
+					rewindBuffer.frameCompleted(gameBoy);
 				}
 
 				try {
@@ -90,37 +135,54 @@ public class Emulator extends JPanel {
 		}
 	}
 
+	/**
+	 * Rewinds the machine to a frame counted from when the ROM was loaded, or
+	 * the last snapshot before it, see {@link RewindBuffer}. Frames after it are
+	 * forgotten.
+	 *
+	 * @param frame
+	 *            - Frame to rewind to, no earlier than getOldestRewindFrame().
+	 * @return The frame rewound to.
+	 */
+	public long rewindToFrame(long frame) {
+		synchronized (gameBoy) {
+			return rewindBuffer.rewind(gameBoy, frame);
+		}
+	}
+
+	/**
+	 * Gets the number of frames run since the ROM was loaded.
+	 *
+	 * @return The current frame.
+	 */
+	public long getFrame() {
+		return rewindBuffer.getFrame();
+	}
+
+	/**
+	 * Gets the earliest frame still in the rewind history.
+	 *
+	 * @return The frame, or -1 if nothing can be rewound to yet.
+	 */
+	public long getOldestRewindFrame() {
+		return rewindBuffer.getOldestFrame();
+	}
+
 	/**
 	 * Allows for a single step of the system to be executed. Intended for debug
 	 * (CPU/GPU)
 	 */
 	public void nextDebugStep() {
-		nextInstructionStep();
+		gameBoy.nextInstructionStep();
 		cpu.getRegisters().print();
-		nextInterruptStep();
+		gameBoy.nextInterruptStep();
 
-		if (cpu.getCycles() >= 70224) {
+		if (cpu.getCycles() >= GameBoy.FRAME_CYCLES) {
 			cpu.resetCyclesAfterFrame();
-			repaint();
+			gameBoy.getScheduler().publishCycle();
 		}
 	}
 
-	/**
-	 * Renders the next frame for the emulator view, and resizes it to the defined
-	 * width/height.
-	 * 
-	 * @return The resized BufferedImage.
-	 */
-	// TODO: Remove setRGB, and make this more efficient.
-	public BufferedImage renderFrame() {
-		for (int x = 0; x < 160; x++) {
-			for (int y = 0; y < 144; y++) {
-				gbDisplay.setRGB(x, y, gpu.getFramebuffer()[x][y]);
-			}
-		}
-		return MiscUtil.resizeBufferedImage(gbDisplay, WINDOW_WIDTH, WINDOW_HEIGHT);
-	}
-
 	/**
 	 * Method for dumping the current tile set in VRAM to file.
 	 */
@@ -135,7 +197,7 @@ public class Emulator extends JPanel {
 				x = 0;
 				y += 0x10;
 			}
-			g.drawImage(MiscUtil.resizeBufferedImage(tile, 16, 16), x, y, null);
+			g.drawImage(tile, x, y, 16, 16, null);
 			x += 0x10;
 		}
 		File tileOutputFile = new File("tileset.png");
@@ -146,10 +208,8 @@ public class Emulator extends JPanel {
 		}
 	}
 
-	@Override
-	public void paintComponent(Graphics g) {
-		super.paintComponent(g);
-		g.drawImage(renderFrame(), 0, 0, null);
+	public DisplayCanvas getDisplay() {
+		return display;
 	}
 
 	public void setEmuRunning(boolean emuRunning) {
@@ -165,33 +225,6 @@ public class Emulator extends JPanel {
 		setupEmuROM(currentRomFile);
 	}
 
-	/**
-	 * Run next CPU instruction and subsystems steps as well.
-	 */
-	private void nextInstructionStep() {
-		int cycles = cpu.nextInstruction();
-		timer.handleTimerTick(cycles);
-		gpu.nextStep(cycles);
-	}
-
-	/**
-	 * Handle interrupts and subsystem steps as well.
-	 */
-	private void nextInterruptStep() {
-		int cycles = cpu.handleInterrupt();
-		timer.handleTimerTick(cycles);
-		gpu.addCycles(cycles);
-	}
-
-	/**
-	 * Next step in the system as a whole, both instruction processing & interrupt
-	 * handling. Can add onto this as needed.
-	 */
-	private void nextSystemStep() {
-		nextInstructionStep();
-		nextInterruptStep();
-	}
-
 	@SuppressWarnings("java:S131")
 	public void handleJoyPadInput(int keyCode) {
 		switch (keyCode) {
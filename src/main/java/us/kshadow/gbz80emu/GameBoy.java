@@ -0,0 +1,280 @@
+package us.kshadow.gbz80emu;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import us.kshadow.gbz80emu.graphics.GPU;
+import us.kshadow.gbz80emu.joypad.JoyPad;
+import us.kshadow.gbz80emu.memory.Cartridge;
+import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.memory.RomImage;
+import us.kshadow.gbz80emu.memory.mbc.MBC;
+import us.kshadow.gbz80emu.memory.mbc.MBCFactory;
+import us.kshadow.gbz80emu.memory.mbc.SaveFile;
+import us.kshadow.gbz80emu.processor.CPU;
+import us.kshadow.gbz80emu.processor.CPURegisters;
+import us.kshadow.gbz80emu.serial.Serial;
+import us.kshadow.gbz80emu.state.SaveState;
+import us.kshadow.gbz80emu.state.Stateful;
+import us.kshadow.gbz80emu.sysclock.Scheduler;
+import us.kshadow.gbz80emu.sysclock.SystemTimer;
+
+/**
+ * GameBoy - A single emulated Game Boy. Owns one of each component and wires
+ * them up to each other, so any number of machines can run side by side
+ * without sharing state.
+ */
+public class GameBoy {
+
+	// Cycles the Game Boy runs per frame. (~59.7 frames per second)
+	public static final int FRAME_CYCLES = 70224;
+
+	// Room a save state needs for everything but the cartridge's RAM.
+	private static final int STATE_SIZE = 0x5000;
+
+	// Fastest CPU tier machines run on, "interpreter", "decodeCache" or
+	// "recompiler". Each tier falls back on the ones before it.
+	private static final String CPU_TIER = System.getProperty("gbz80emu.cpu.tier", "interpreter");
+	// Whether flags are only worked out when read, see FlagRegister.setLazy().
+	private static final boolean LAZY_FLAGS = Boolean.getBoolean("gbz80emu.cpu.lazyFlags");
+
+	private final Scheduler scheduler;
+	private final Cartridge cartridge;
+	private final MMU mmu;
+	private final GPU gpu;
+	private final SystemTimer timer;
+	private final JoyPad joyPad;
+	private final Serial serial;
+	private final CPU cpu;
+
+	// Null for cartridges without one, or with an unimplemented one.
+	private MBC mbc;
+	private SaveFile saveFile;
+
+	// Component saved in each save state section, indexed by tag.
+	private final Stateful[] stateSections = new Stateful[SaveState.SECTION_COUNT];
+
+	/**
+	 * Creates the machine with every component in its power on state, and the
+	 * boot ROM mapped in.
+	 */
+	public GameBoy() {
+		scheduler = new Scheduler();
+		cartridge = new Cartridge();
+		mmu = new MMU(cartridge);
+		// Each device registers its I/O registers with the MMU.
+		gpu = new GPU(mmu, scheduler);
+		timer = new SystemTimer(mmu, scheduler);
+		joyPad = new JoyPad(mmu);
+		serial = new Serial(mmu, scheduler);
+		cpu = new CPU(new CPURegisters(), mmu, scheduler);
+		switch (CPU_TIER) {
+			case "interpreter" -> cpu.setDecodeCacheEnabled(false);
+			case "decodeCache" -> cpu.setDecodeCacheEnabled(true);
+			case "recompiler" -> cpu.setRecompilerEnabled(true);
+			default -> throw new IllegalArgumentException("Unknown CPU tier: " + CPU_TIER);
+		}
+		cpu.getRegisters().getFR().setLazy(LAZY_FLAGS);
+
+		stateSections[SaveState.CPU] = cpu;
+		stateSections[SaveState.MMU] = mmu;
+		stateSections[SaveState.GPU] = gpu;
+		stateSections[SaveState.TIMER] = timer;
+		stateSections[SaveState.JOYPAD] = joyPad;
+		stateSections[SaveState.SERIAL] = serial;
+		stateSections[SaveState.SCHEDULER] = scheduler;
+	}
+
+	/**
+	 * Loads a ROM into the cartridge, and sets up the MBC it needs.
+	 *
+	 * @param file
+	 *            - The ROM file to load.
+	 * @throws IOException
+	 *             - occurs if there is an issue with the specified file
+	 */
+	public void loadROM(String file) throws IOException {
+		loadROM(RomImage.map(Path.of(file)));
+	}
+
+	/**
+	 * Loads a ROM that is already mapped, and sets up the MBC it needs. Machines
+	 * running the same ROM can share one image, paying for its memory once.
+	 *
+	 * @param rom
+	 *            - The mapped ROM.
+	 */
+	public void loadROM(RomImage rom) {
+		cartridge.loadROM(rom);
+		mbc = MBCFactory.create(cartridge, scheduler);
+		mmu.setMBC(mbc);
+		stateSections[SaveState.MBC] = mbc;
+		// Cached code is keyed by ROM offset, which now holds different code.
+		cpu.clearDecodeCache();
+	}
+
+	/**
+	 * Writes the state of the whole machine at the buffer's position, see
+	 * {@link SaveState}. Nothing is allocated, so a buffer can be reused to
+	 * snapshot every frame.
+	 *
+	 * @param state
+	 *            - Buffer to write to, with at least getMaxStateSize() bytes
+	 *            left.
+	 */
+	public void saveState(ByteBuffer state) {
+		SaveState.save(state, getROMChecksum(), stateSections);
+	}
+
+	/**
+	 * Restores the whole machine from a state written by saveState(), read from
+	 * the buffer's position. The ROM has to be the one the state was saved with.
+	 *
+	 * @param state
+	 *            - Buffer to read from.
+	 */
+	public void loadState(ByteBuffer state) {
+		SaveState.load(state, getROMChecksum(), stateSections);
+		mmu.mapCartridge();
+		if (saveFile != null) {
+			saveFile.markAllDirty();
+		}
+	}
+
+	/**
+	 * Gets the most room a save state of this machine can take up.
+	 *
+	 * @return Size in bytes.
+	 */
+	public int getMaxStateSize() {
+		return STATE_SIZE + (mbc != null ? mbc.getRAM().length : 0);
+	}
+
+	private int getROMChecksum() {
+		// Header checksum, then the global checksum.
+		return (cartridge.readROM(0x14D) << 16) | (cartridge.readROM(0x14E) << 8) | cartridge.readROM(0x14F);
+	}
+
+	/**
+	 * Backs battery RAM, and the clock of cartridges with one, with a memory
+	 * mapped .sav file, see {@link SaveFile}. Any save file already open is
+	 * closed first.
+	 *
+	 * @param file
+	 *            - The save file, loaded if it already exists.
+	 * @param flushInterval
+	 *            - Time between background flushes of changed RAM to the file.
+	 * @return The save file, or null if the cartridge has no battery.
+	 * @throws IOException
+	 *             - occurs if there is an issue with the specified file
+	 */
+	public SaveFile openSaveFile(Path file, Duration flushInterval) throws IOException {
+		closeSaveFile();
+		if (mbc != null && cartridge.hasBattery()) {
+			saveFile = new SaveFile(file, mbc);
+			saveFile.startFlusher(flushInterval);
+			// RAM writes have to reach the MBC now, for it to track them.
+			mmu.mapCartridge();
+		}
+		return saveFile;
+	}
+
+	/**
+	 * Flushes and closes the save file, if one is open. This remaps the
+	 * cartridge, so callers on another thread than the one running the machine
+	 * have to hold the machine's lock, as Emulator does.
+	 *
+	 * @throws IOException
+	 *             - occurs if there is an issue writing the file
+	 */
+	public void closeSaveFile() throws IOException {
+		if (saveFile != null) {
+			saveFile.close();
+			saveFile = null;
+			mmu.mapCartridge();
+		}
+	}
+
+	/**
+	 * Skips the boot ROM, starting the CPU in the state the boot ROM leaves it
+	 * in.
+	 */
+	public void skipBootROM() {
+		mmu.toggleBootROM(false);
+		cpu.getRegisters().setInitValues();
+	}
+
+	/**
+	 * Runs the next CPU instruction, and any subsystem events it made due.
+	 */
+	public void nextInstructionStep() {
+		int cycles = cpu.nextInstruction();
+		scheduler.advance(cycles);
+	}
+
+	/**
+	 * Handles interrupts, and keeps the system clock in step with them.
+	 */
+	public void nextInterruptStep() {
+		int cycles = cpu.handleInterrupt();
+		scheduler.addCycles(cycles);
+	}
+
+	/**
+	 * Next step in the system as a whole, both instruction processing & interrupt
+	 * handling.
+	 */
+	public void nextStep() {
+		nextInstructionStep();
+		nextInterruptStep();
+	}
+
+	/**
+	 * Runs the system until a full frame has been drawn.
+	 */
+	public void runFrame() {
+		while (cpu.getCycles() <= FRAME_CYCLES) {
+			nextStep();
+		}
+		cpu.resetCyclesAfterFrame();
+		scheduler.publishCycle();
+	}
+
+	public Scheduler getScheduler() {
+		return scheduler;
+	}
+
+	public Cartridge getCartridge() {
+		return cartridge;
+	}
+
+	public MMU getMMU() {
+		return mmu;
+	}
+
+	public MBC getMBC() {
+		return mbc;
+	}
+
+	public GPU getGPU() {
+		return gpu;
+	}
+
+	public SystemTimer getTimer() {
+		return timer;
+	}
+
+	public JoyPad getJoyPad() {
+		return joyPad;
+	}
+
+	public Serial getSerial() {
+		return serial;
+	}
+
+	public CPU getCPU() {
+		return cpu;
+	}
+}
@@ -27,6 +27,7 @@ public class Main extends JFrame implements KeyListener {
 		frame.setVisible(true);
 		frame.setResizable(false);
 		frame.setDefaultCloseOperation(EXIT_ON_CLOSE);
+		Runtime.getRuntime().addShutdownHook(new Thread(emu::closeSaveFile));
 		emuRunnable = emu::runEmulator;
 		Thread emuThread = new Thread(emuRunnable);
 		emuThread.start();
@@ -16,6 +16,11 @@ public class MemoryAddresses {
 
 	public static final int JOY_PAD_REGISTER = 0xFF00;
 
+	// Serial registers
+	public static final int SERIAL_DATA = 0xFF01;
+
+	public static final int SERIAL_CONTROL = 0xFF02;
+
 	// Timer registers
 	public static final int TIMER_DIV_REGISTER = 0xFF04;
 
@@ -36,5 +41,15 @@ public class MemoryAddresses {
 
 	public static final int LINE_Y = 0xFF44;
 
+	public static final int OAM_DMA = 0xFF46;
+
 	public static final int BG_PALETTE = 0xFF47;
+
+	public static final int OBJ_PALETTE_0 = 0xFF48;
+
+	public static final int OBJ_PALETTE_1 = 0xFF49;
+
+	public static final int WINDOW_Y = 0xFF4A;
+
+	public static final int WINDOW_X = 0xFF4B;
 }
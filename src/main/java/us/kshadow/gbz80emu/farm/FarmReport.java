@@ -0,0 +1,84 @@
+package us.kshadow.gbz80emu.farm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes farm results out as JSON, one object per ROM.
+ */
+public class FarmReport {
+
+	private static final String[] REGISTER_NAMES = {"AF", "BC", "DE", "HL", "SP", "PC"};
+
+	private FarmReport() {
+
+	}
+
+	/**
+	 * Writes a report for a farm run to file.
+	 *
+	 * @param file
+	 *            - File to write the report to.
+	 * @param results
+	 *            - Results of each ROM, in the order they were given.
+	 * @throws IOException
+	 *             - occurs if there is an issue with the specified file
+	 */
+	public static void write(Path file, List<RomResult> results) throws IOException {
+		Files.writeString(file, toJson(results), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Formats farm results as JSON.
+	 *
+	 * @param results
+	 *            - Results of each ROM.
+	 * @return The report as a JSON array.
+	 */
+	public static String toJson(List<RomResult> results) {
+		StringBuilder json = new StringBuilder("[\n");
+		for (int i = 0; i < results.size(); i++) {
+			RomResult result = results.get(i);
+			json.append("  {\"rom\": ").append(quote(result.rom()));
+			json.append(", \"error\": ").append(result.error() != null ? quote(result.error()) : "null");
+			json.append(", \"frames\": ").append(result.frames());
+			json.append(", \"cycles\": ").append(result.cycles());
+			json.append(", \"registers\": {");
+			for (int r = 0; r < REGISTER_NAMES.length; r++) {
+				json.append(r > 0 ? ", " : "").append('"').append(REGISTER_NAMES[r]).append("\": ");
+				json.append(quote(String.format("%04X", result.registers()[r])));
+			}
+			json.append("}, \"framebufferHash\": ").append(quote(Long.toHexString(result.framebufferHash())));
+			json.append(", \"serial\": ").append(quote(result.serialOutput()));
+			json.append(", \"wallMillis\": ").append(result.wallNanos() / 1_000_000);
+			json.append(", \"speed\": ").append(String.format(Locale.ROOT, "%.2f", result.getSpeed()));
+			json.append(i < results.size() - 1 ? "},\n" : "}\n");
+		}
+		return json.append("]\n").toString();
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			switch (c) {
+				case '"' -> quoted.append("\\\"");
+				case '\\' -> quoted.append("\\\\");
+				case '\n' -> quoted.append("\\n");
+				case '\r' -> quoted.append("\\r");
+				case '\t' -> quoted.append("\\t");
+				default -> {
+					if (c < 0x20 || c > 0x7E) {
+						quoted.append(String.format("\\u%04x", (int) c));
+					} else {
+						quoted.append(c);
+					}
+				}
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -0,0 +1,165 @@
+package us.kshadow.gbz80emu.farm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.RomImage;
+import us.kshadow.gbz80emu.memory.RomImageCache;
+import us.kshadow.gbz80emu.processor.CPU;
+import us.kshadow.gbz80emu.processor.CPURegisters;
+
+import static us.kshadow.gbz80emu.processor.CPURegisters.*;
+
+/**
+ * Headless batch runner. Runs a list of ROMs for a fixed number of frames each,
+ * every ROM on its own {@link GameBoy}, spread over all cores with a
+ * work-stealing pool. Results are written to a JSON report, see
+ * {@link FarmReport}. ROMs are loaded through the shared
+ * {@link RomImageCache}, so a title listed many times is only mapped once.
+ * <p>
+ * Usage: {@code FarmRunner <frames> <report.json> <rom>...}, where a ROM
+ * argument starting with {@code @} names a file listing one ROM per line.
+ */
+public class FarmRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(FarmRunner.class);
+
+	private final int frames;
+
+	/**
+	 * Creates a runner with a frame budget per ROM.
+	 *
+	 * @param frames
+	 *            - Frames to run each ROM for.
+	 */
+	public FarmRunner(int frames) {
+		if (frames < 1) {
+			throw new IllegalArgumentException("Frame budget must be at least 1, got: " + frames);
+		}
+		this.frames = frames;
+	}
+
+	/**
+	 * Runs every ROM concurrently, and waits for all of them to finish.
+	 *
+	 * @param roms
+	 *            - Paths of the ROMs to run.
+	 * @return The result for each ROM, in the order the ROMs were given.
+	 * @throws InterruptedException
+	 *             - occurs if the calling thread is interrupted while waiting
+	 */
+	public List<RomResult> run(List<String> roms) throws InterruptedException {
+		ExecutorService pool = Executors.newWorkStealingPool();
+		try {
+			List<Callable<RomResult>> tasks = new ArrayList<>();
+			for (String rom : roms) {
+				tasks.add(() -> runROM(rom));
+			}
+			List<RomResult> results = new ArrayList<>();
+			for (Future<RomResult> future : pool.invokeAll(tasks)) {
+				results.add(getResult(future));
+			}
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static RomResult getResult(Future<RomResult> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			// runROM() catches everything a ROM can throw, so this is a bug in the runner.
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Runs a single ROM for the frame budget, from the state the boot ROM would
+	 * leave it in. Stops early if the CPU is stopped, or the ROM runs into
+	 * something the emulator doesn't support.
+	 *
+	 * @param rom
+	 *            - Path of the ROM to run.
+	 * @return The state the ROM was left in.
+	 */
+	RomResult runROM(String rom) {
+		GameBoy gameBoy = new GameBoy();
+		CPU cpu = gameBoy.getCPU();
+		RomImageCache cache = RomImageCache.getInstance();
+		RomImage image = null;
+		String error = null;
+		int framesRun = 0;
+		long start = System.nanoTime();
+		try {
+			image = cache.acquire(Path.of(rom));
+			gameBoy.loadROM(image);
+			gameBoy.skipBootROM();
+			while (framesRun < frames && cpu.isRunning()) {
+				gameBoy.runFrame();
+				framesRun++;
+			}
+		} catch (IOException | RuntimeException e) {
+			error = e.toString();
+		} finally {
+			if (image != null) {
+				cache.release(image);
+			}
+		}
+		long wallNanos = System.nanoTime() - start;
+
+		CPURegisters reg = cpu.getRegisters();
+		int[] registers = {reg.getPair(AF), reg.getPair(BC), reg.getPair(DE), reg.getPair(HL), reg.getPair(SP),
+				reg.getPair(PC)};
+		return new RomResult(rom, error, framesRun, gameBoy.getScheduler().getCurrentCycle(), registers,
+				hashFramebuffer(gameBoy.getGPU().getFramebuffer()), gameBoy.getSerial().getOutput(), wallNanos);
+	}
+
+	private static long hashFramebuffer(int[] framebuffer) {
+		long hash = 0;
+		for (int pixel : framebuffer) {
+			hash = hash * 31 + pixel;
+		}
+		return hash;
+	}
+
+	private static List<String> readROMList(String[] args) throws IOException {
+		List<String> roms = new ArrayList<>();
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].startsWith("@")) {
+				for (String line : Files.readAllLines(Path.of(args[i].substring(1)))) {
+					if (!line.isBlank()) {
+						roms.add(line.strip());
+					}
+				}
+			} else {
+				roms.add(args[i]);
+			}
+		}
+		return roms;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 3) {
+			logger.error("Usage: FarmRunner <frames> <report.json> <rom>... (@file for a list of ROMs)");
+			System.exit(1);
+		}
+		List<String> roms = readROMList(args);
+		long start = System.nanoTime();
+		List<RomResult> results = new FarmRunner(Integer.parseInt(args[0])).run(roms);
+		FarmReport.write(Path.of(args[1]), results);
+		logger.info("Ran {} ROMs in {} ms, report written to {}", results.size(),
+				(System.nanoTime() - start) / 1_000_000, args[1]);
+	}
+}
@@ -0,0 +1,39 @@
+package us.kshadow.gbz80emu.farm;
+
+/**
+ * Result of running a single ROM in the farm.
+ *
+ * @param rom
+ *            - Path of the ROM that was run.
+ * @param error
+ *            - Why the run was cut short, or null if the whole budget ran.
+ * @param frames
+ *            - Frames that were run.
+ * @param cycles
+ *            - System cycles that were run.
+ * @param registers
+ *            - Final AF, BC, DE, HL, SP and PC.
+ * @param framebufferHash
+ *            - Hash of the visible 160x144 area of the framebuffer.
+ * @param serialOutput
+ *            - Everything the ROM sent over serial.
+ * @param wallNanos
+ *            - Wall clock time the run took.
+ */
+@SuppressWarnings("java:S6218")
+public record RomResult(String rom, String error, int frames, long cycles, int[] registers, long framebufferHash,
+		String serialOutput, long wallNanos) {
+
+	// Cycles per second of the Game Boy's clock.
+	private static final double CLOCK_SPEED = 4194304.0;
+
+	/**
+	 * Gets how fast the ROM ran compared to a real Game Boy.
+	 *
+	 * @return Emulated time divided by wall clock time, e.g. 2.0 for twice as
+	 *         fast as real hardware.
+	 */
+	public double getSpeed() {
+		return wallNanos > 0 ? (cycles / CLOCK_SPEED) / (wallNanos / 1e9) : 0;
+	}
+}
@@ -0,0 +1,221 @@
+package us.kshadow.gbz80emu.graphics;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Canvas the emulator presents frames on. Each frame is drawn with a single
+ * scaled drawImage() into the back buffer of a {@link BufferStrategy}, which
+ * Java2D keeps in video memory where it can, then flipped to the screen.
+ * <p>
+ * Frames are presented either by calling present() directly, or from a
+ * thread of the canvas' own taking them from a {@link TripleBuffer}, see
+ * startPresenting(). Repaints from the window system redraw the last frame.
+ */
+public class DisplayCanvas extends Canvas {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger logger = LoggerFactory.getLogger(DisplayCanvas.class);
+
+	// Frames between logging the average present time.
+	private static final int LOG_INTERVAL = 600;
+
+	/**
+	 * How frames are scaled up to the canvas. Both keep pixels sharp.
+	 */
+	public enum Scaling {
+		// Stretched to fill the canvas, with nearest neighbour sampling.
+		NEAREST,
+		// Scaled by the largest whole factor that fits, and centered.
+		INTEGER
+	}
+
+	private transient volatile Scaling scaling = Scaling.NEAREST;
+
+	private transient BufferedImage lastFrame;
+
+	// Thread presenting frames from a triple buffer, once started.
+	private transient volatile Thread presentThread;
+
+	// Time the last present took, and a moving average over recent ones.
+	private long lastPresentNanos;
+	private long averagePresentNanos;
+	private long framesPresented;
+
+	/**
+	 * Creates the canvas. It never takes focus, so key presses keep going to
+	 * the window.
+	 *
+	 * @param width
+	 *            - Preferred width.
+	 * @param height
+	 *            - Preferred height.
+	 */
+	public DisplayCanvas(int width, int height) {
+		setPreferredSize(new Dimension(width, height));
+		setBackground(Color.BLACK);
+		setFocusable(false);
+	}
+
+	/**
+	 * Draws a frame onto the canvas, and shows it. Does nothing until the canvas
+	 * is part of a window that is showing.
+	 *
+	 * @param frame
+	 *            - The frame, at the Game Boy's resolution.
+	 */
+	public synchronized void present(BufferedImage frame) {
+		lastFrame = frame;
+		if (!isDisplayable() || getWidth() == 0 || getHeight() == 0) {
+			return;
+		}
+		long start = System.nanoTime();
+		BufferStrategy strategy = getBufferStrategy();
+		if (strategy == null) {
+			createBufferStrategy(2);
+			strategy = getBufferStrategy();
+		}
+		// Drawing is redone if video memory holding the buffers was lost meanwhile.
+		do {
+			do {
+				Graphics2D graphics = (Graphics2D) strategy.getDrawGraphics();
+				try {
+					drawScaled(graphics, frame, getWidth(), getHeight(), scaling);
+				} finally {
+					graphics.dispose();
+				}
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
+		recordPresentTime(System.nanoTime() - start);
+	}
+
+	/**
+	 * Starts a thread that presents frames as they're published to a triple
+	 * buffer, so the thread drawing them never waits on presenting. Only this
+	 * thread touches the frame being shown from then on, repaints included.
+	 * Can only be started once.
+	 *
+	 * @param frames
+	 *            - Triple buffer to take frames from.
+	 * @throws IllegalStateException
+	 *             - if the canvas is already presenting
+	 */
+	public synchronized void startPresenting(TripleBuffer frames) {
+		if (presentThread != null) {
+			throw new IllegalStateException("Already presenting from a triple buffer.");
+		}
+		presentThread = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				present(frames.awaitFrame());
+			}
+		}, "present");
+		presentThread.setDaemon(true);
+		presentThread.start();
+	}
+
+	/**
+	 * Draws a frame scaled up to an area, clearing whatever the frame doesn't
+	 * cover.
+	 *
+	 * @param graphics
+	 *            - Graphics to draw with.
+	 * @param frame
+	 *            - The frame to draw.
+	 * @param width
+	 *            - Width of the area.
+	 * @param height
+	 *            - Height of the area.
+	 * @param scaling
+	 *            - How to scale the frame.
+	 */
+	public static void drawScaled(Graphics2D graphics, BufferedImage frame, int width, int height,
+			Scaling scaling) {
+		int drawWidth = width;
+		int drawHeight = height;
+		if (scaling == Scaling.INTEGER) {
+			int factor = Math.max(1, Math.min(width / frame.getWidth(), height / frame.getHeight()));
+			drawWidth = frame.getWidth() * factor;
+			drawHeight = frame.getHeight() * factor;
+		}
+		int x = (width - drawWidth) / 2;
+		int y = (height - drawHeight) / 2;
+		if (drawWidth < width || drawHeight < height) {
+			graphics.setColor(Color.BLACK);
+			graphics.fillRect(0, 0, width, height);
+		}
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		graphics.drawImage(frame, x, y, drawWidth, drawHeight, null);
+	}
+
+	private void recordPresentTime(long nanos) {
+		lastPresentNanos = nanos;
+		// Moving average, weighting the newest present by 1/16.
+		averagePresentNanos = framesPresented == 0 ? nanos : averagePresentNanos + (nanos - averagePresentNanos) / 16;
+		framesPresented++;
+		if (framesPresented % LOG_INTERVAL == 0) {
+			logger.debug("Average present time: {} us", averagePresentNanos / 1000);
+		}
+	}
+
+	/**
+	 * Redraws the last frame, for when the window system asks for it, such as
+	 * after the window was uncovered.
+	 */
+	@Override
+	public void paint(Graphics g) {
+		Thread thread = presentThread;
+		if (thread != null) {
+			// Wakes it up to present its front buffer again.
+			LockSupport.unpark(thread);
+		} else if (lastFrame != null) {
+			present(lastFrame);
+		}
+	}
+
+	@Override
+	public void update(Graphics g) {
+		// Skips clearing the canvas first, present() covers all of it.
+		paint(g);
+	}
+
+	public Scaling getScaling() {
+		return scaling;
+	}
+
+	public void setScaling(Scaling scaling) {
+		this.scaling = scaling;
+	}
+
+	/**
+	 * Gets how long the last present took, drawing and flipping included.
+	 *
+	 * @return Time in nanoseconds.
+	 */
+	public synchronized long getLastPresentNanos() {
+		return lastPresentNanos;
+	}
+
+	/**
+	 * Gets a moving average of how long recent presents took.
+	 *
+	 * @return Time in nanoseconds.
+	 */
+	public synchronized long getAveragePresentNanos() {
+		return averagePresentNanos;
+	}
+}
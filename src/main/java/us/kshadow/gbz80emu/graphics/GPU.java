@@ -1,14 +1,16 @@
 package us.kshadow.gbz80emu.graphics;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import us.kshadow.gbz80emu.memory.MMU;
-import us.kshadow.gbz80emu.processor.CPURegisters;
+import us.kshadow.gbz80emu.state.Stateful;
+import us.kshadow.gbz80emu.sysclock.Scheduler;
 import us.kshadow.gbz80emu.util.BitUtil;
 
-import static us.kshadow.gbz80emu.constants.MemoryAddresses.INTERRUPT_ENABLE;
-import static us.kshadow.gbz80emu.constants.MemoryAddresses.INTERRUPT_FLAG;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.*;
 
 /**
  * GPU - An emulation of the graphical operations the Game Boy performs to draw
@@ -18,111 +20,268 @@ import static us.kshadow.gbz80emu.constants.MemoryAddresses.INTERRUPT_FLAG;
  *
  */
 
-@SuppressWarnings("java:S6548")
-public class GPU {
+public class GPU implements Stateful {
+	// Size of the LCD in pixels.
+	public static final int SCREEN_WIDTH = 160;
+	public static final int SCREEN_HEIGHT = 144;
 	// Lightest green, light green, dark green, darkest green.
 	private static final int[] DMG_COLORS = {0xe0f8d0, 0x88c070, 0x346856, 0x081820};
-	private static final GPU instance = new GPU();
-	private static final CPURegisters reg = CPURegisters.getInstance();
-	private static final MMU mmu = MMU.getInstance();
+	// Length of each GPU mode in cycles, indexed by mode. (VBlank is per line)
+	private static final int[] MODE_CYCLES = {204, 456, 80, 172};
+	// Sprites in OAM, and how many of them can be drawn on one line.
+	private static final int OAM_SPRITES = 40;
+	private static final int SPRITES_PER_LINE = 10;
+	// Bits of a pixel in spriteLine, next to its color value in bits 0-1.
+	private static final int SPRITE_PALETTE = 0x04;
+	private static final int SPRITE_BEHIND_BG = 0x08;
+	private final MMU mmu;
+	private final Scheduler scheduler;
 	private final int[] currentPalette;
+	// OBP0 and OBP1 colors, color 0 is transparent and never drawn.
+	private final int[][] objectPalettes;
+	private final TileCache tileCache;
+	private final byte[] videoRam;
+	private final byte[] oam;
+	// Scratch space for the line being drawn. Color values (0-3) of the
+	// background and window, needed as they are for sprite priority, and the
+	// sprite pixel on top of each, or 0 for none.
+	private final byte[] backgroundLine = new byte[SCREEN_WIDTH];
+	private final byte[] spriteLine = new byte[SCREEN_WIDTH];
+	// OAM indexes of the sprites on the line, in drawing priority order.
+	private final int[] lineSprites = new int[SPRITES_PER_LINE];
 	private int lcdControl; // 0xFF40 - LCD/GPU control
 	private int lcdStatus = 0; // 0xFF41 - LCDC Status
 	private int scrollY; // 0xFF42
 	private int scrollX; // 0xFF43
 	private int lineY; // 0xFF44
 	private int bgPalette; // 0xFF47, sets palette colors or BG/windows
+	private int objPalette0; // 0xFF48
+	private int objPalette1; // 0xFF49
+	private int windowY; // 0xFF4A
+	private int windowX; // 0xFF4B
+	// Line of the window to draw next. Only counts lines the window was shown on.
+	private int windowLine;
 	private int gpuMode; // Technically a part of LCDC status, will get to that later.
 	private int systemCycles;
-	// 2D array tp represent GB display. Will store the color
-	// to display in our BufferedImage each frame.
-	private final int[][] framebuffer;
+	// System cycle the GPU was last caught up to.
+	private long lastSyncCycle;
+	// Image of the LCD, and the array backing it, which scanlines are drawn
+	// straight into, row by row. Presenting a frame needs no copying.
+	private BufferedImage displayImage;
+	private int[] framebuffer;
+	// Where finished frames are published at VBlank, if anywhere.
+	private TripleBuffer frameOutput;
 
 	/**
 	 * Initializer for the emulated GPU/PPU.
+	 * 
+	 * @param mmu
+	 *            - MMU to read VRAM and request interrupts through.
+	 * @param scheduler
+	 *            - Scheduler to run mode changes from.
 	 */
-	private GPU() {
-		framebuffer = new int[256][256];
+	public GPU(MMU mmu, Scheduler scheduler) {
+		this.mmu = mmu;
+		this.scheduler = scheduler;
+		setDisplayImage(new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB));
 		currentPalette = Arrays.copyOf(DMG_COLORS, 4);
+		objectPalettes = new int[][] {Arrays.copyOf(DMG_COLORS, 4), Arrays.copyOf(DMG_COLORS, 4)};
+		tileCache = new TileCache(mmu);
+		videoRam = mmu.getVideoRam();
+		oam = mmu.getOAM();
+		scheduler.setHandler(Scheduler.GPU, this::sync);
+		scheduler.schedule(Scheduler.GPU, MODE_CYCLES[gpuMode]);
+		mmu.registerIO(LCD_CONTROL, address -> lcdControl, (address, value) -> setLCDC(value));
+		// The mode and line only move on when the GPU catches up, so catch up
+		// before they're read, like the timer does for its registers.
+		mmu.registerIO(LCD_STATUS, address -> {
+			sync();
+			return lcdStatus;
+		}, (address, value) -> setSTAT(value));
+		mmu.registerIO(SCROLL_Y, address -> scrollY, (address, value) -> setSCY(value));
+		mmu.registerIO(SCROLL_X, address -> scrollX, (address, value) -> setSCX(value));
+		mmu.registerIO(LINE_Y, address -> {
+			sync();
+			return lineY;
+		}, (address, value) -> resetLY());
+		mmu.registerIO(BG_PALETTE, address -> bgPalette, (address, value) -> setBGP(value));
+		mmu.registerIO(OBJ_PALETTE_0, address -> objPalette0, (address, value) -> setOBP0(value));
+		mmu.registerIO(OBJ_PALETTE_1, address -> objPalette1, (address, value) -> setOBP1(value));
+		mmu.registerIO(WINDOW_Y, address -> windowY, (address, value) -> setWY(value));
+		mmu.registerIO(WINDOW_X, address -> windowX, (address, value) -> setWX(value));
 	}
 
 	/**
-	 * Draws a horizontal line for the Game Boy display.
+	 * Draws a horizontal line for the Game Boy display. The background and
+	 * window are drawn into a line of color values first, then the sprites on
+	 * the line into another, and the two are mapped through their palettes into
+	 * the framebuffer.
 	 * 
 	 * @param line
 	 *            - Line to draw. (0-143)
 	 */
 	public void renderScanLine(int line) {
-		int rowIndex = (line / 8);
-		for (int columnIndex = 0; columnIndex < 20; columnIndex++) {
-			int elementIndex = (rowIndex * 32) + columnIndex;
-			int bgTileMapPointer = BitUtil.checkBitSet(lcdControl, 3) ? 0x9C00 : 0x9800;
-			int tileIndex = mmu.readByte(bgTileMapPointer + elementIndex);
-			int relativeLine = (line % 8);
-			int address = BitUtil.checkBitSet(lcdControl, 4)
-					? 0x8000 + (tileIndex * 0x10)
-					: 0x9000 + (((byte) tileIndex) * 0x10);
-			drawTileToFramebuffer(framebuffer, address, columnIndex, rowIndex, relativeLine, relativeLine + 1, scrollX,
-					scrollY);
+		if (BitUtil.checkBitSet(lcdControl, 0)) {
+			drawBackground(line);
+			drawWindow(line);
+		} else {
+			// Background and window off, leaving color 0 under the sprites.
+			Arrays.fill(backgroundLine, (byte) 0);
+		}
+		boolean sprites = BitUtil.checkBitSet(lcdControl, 1) && drawSprites(line);
+		int pixel = line * SCREEN_WIDTH;
+		for (int x = 0; x < SCREEN_WIDTH; x++) {
+			int color = backgroundLine[x];
+			int sprite = sprites ? spriteLine[x] : 0;
+			// Sprites behind the background only show over its color 0.
+			if (sprite != 0 && ((sprite & SPRITE_BEHIND_BG) == 0 || color == 0)) {
+				framebuffer[pixel + x] = objectPalettes[(sprite & SPRITE_PALETTE) >> 2][sprite & 0x03];
+			} else {
+				framebuffer[pixel + x] = currentPalette[color];
+			}
+		}
+	}
+
+	/**
+	 * Draws the background's part of a line. Scrolling is applied here, by
+	 * picking which line of the 256x256 background goes on screen, and where in
+	 * it the line starts.
+	 */
+	private void drawBackground(int line) {
+		int tileMap = BitUtil.checkBitSet(lcdControl, 3) ? 0x1C00 : 0x1800;
+		int backgroundY = (line + scrollY) & 0xFF;
+		drawTiles(tileMap + (backgroundY / 8) * 32, (backgroundY % 8) * 8, scrollX, 0);
+	}
+
+	/**
+	 * Draws the window over the background, from WX-7 to the end of the line,
+	 * if it's enabled and WY has been reached.
+	 */
+	private void drawWindow(int line) {
+		if (!BitUtil.checkBitSet(lcdControl, 5) || line < windowY || windowX > 166) {
+			return;
 		}
+		int tileMap = BitUtil.checkBitSet(lcdControl, 6) ? 0x1C00 : 0x1800;
+		// With WX below 7 the window starts off the left edge of the screen.
+		drawTiles(tileMap + (windowLine / 8) * 32, (windowLine % 8) * 8, Math.max(0, 7 - windowX),
+				Math.max(0, windowX - 7));
+		windowLine++;
 	}
 
 	/**
-	 * As the name states, draws a tile onto the framebuffer.
+	 * Copies a line of tiles from a tile map into the background line.
 	 * 
-	 * @param framebuffer
-	 *            - Framebuffer to write pixel data to.
-	 * @param address
-	 *            - Address of the tile to draw.
-	 * @param columnIndex
-	 *            - Column index of the tile in relation to the tile map.
-	 * @param rowIndex
-	 *            - Row index of the tile in relation to the tile map.
-	 * @param startAtLine
-	 *            - Line of tile to start drawing at.
-	 * @param endBeforeLine
-	 *            - Line of tile to end drawing before.
-	 * @param scrollX
-	 *            - SCX offset (if needed).
-	 * @param scrollY
-	 *            - SCY offset (if needed).
+	 * @param tileMapRow
+	 *            - Offset into VRAM of the tile map row.
+	 * @param tileLine
+	 *            - Offset of the line within each tile's pixels.
+	 * @param mapX
+	 *            - Pixel in the tile map row to start from, wrapping at 256.
+	 * @param x
+	 *            - Pixel on screen to start at.
 	 */
-	@SuppressWarnings("java:S107")
-	private void drawTileToFramebuffer(int[][] framebuffer, int address, int columnIndex, int rowIndex, int startAtLine,
-			int endBeforeLine, int scrollX, int scrollY) {
-		int[] bytes = new int[16];
-		// Loop through every 2 bytes (2 bytes = 1 row of tile).
-		for (int row = startAtLine * 2; row < endBeforeLine * 2; row += 2) {
-			bytes[row] = mmu.readByte(address + row);
-			bytes[row + 1] = mmu.readByte(address + row + 1);
-			// Loop through bits of each byte to get color information.
-			for (int column = 0; column < 8; column++) {
-				int lsb = ((bytes[row] >> (7 - column)) & 1);
-				int msb = ((bytes[row + 1] >> (7 - column)) & 1);
-				int colorValue = msb << 1 | lsb;
-				int x = ((column + (8 * columnIndex)) - scrollX) & 0xFF;
-				int y = (((row / 2) + (8 * rowIndex)) - scrollY) & 0xFF;
-				switch (colorValue) {
-					case 0 -> framebuffer[x][y] = currentPalette[0];
-					case 1 -> framebuffer[x][y] = currentPalette[1];
-					case 2 -> framebuffer[x][y] = currentPalette[2];
-					case 3 -> framebuffer[x][y] = currentPalette[3];
-					default -> {
-					}
+	private void drawTiles(int tileMapRow, int tileLine, int mapX, int x) {
+		boolean unsignedTiles = BitUtil.checkBitSet(lcdControl, 4);
+		byte[] tilePixels = tileCache.getPixels();
+		while (x < SCREEN_WIDTH) {
+			int tileIndex = videoRam[tileMapRow + ((mapX & 0xFF) >> 3)] & 0xFF;
+			// Tiles 0-255 from 0x8000, or -128-127 from 0x9000.
+			int tile = unsignedTiles ? tileIndex : 256 + (byte) tileIndex;
+			int tilePixel = tileCache.getTile(tile) + tileLine;
+			// The first tile is only partly on screen if mapX isn't a multiple of 8.
+			for (int column = mapX & 7; column < 8 && x < SCREEN_WIDTH; column++) {
+				backgroundLine[x++] = tilePixels[tilePixel + column];
+				mapX++;
+			}
+		}
+	}
+
+	/**
+	 * Searches OAM for the sprites on a line, and draws them into the sprite
+	 * line. Like the hardware, only the first 10 sprites in OAM that cover the
+	 * line are drawn, even if some of them are off screen. Where sprites overlap,
+	 * the one with the lower X wins, then the one earlier in OAM.
+	 * 
+	 * @return True if any sprites are on the line.
+	 */
+	@SuppressWarnings("java:S3776")
+	private boolean drawSprites(int line) {
+		int height = BitUtil.checkBitSet(lcdControl, 2) ? 16 : 8;
+		int count = 0;
+		for (int sprite = 0; sprite < OAM_SPRITES && count < SPRITES_PER_LINE; sprite++) {
+			int spriteY = (oam[sprite * 4] & 0xFF) - 16;
+			if (line < spriteY || line >= spriteY + height) {
+				continue;
+			}
+			// Insertion sort by X, keeping OAM order for equal X.
+			int spriteX = oam[sprite * 4 + 1] & 0xFF;
+			int i = count++;
+			while (i > 0 && (oam[lineSprites[i - 1] * 4 + 1] & 0xFF) > spriteX) {
+				lineSprites[i] = lineSprites[i - 1];
+				i--;
+			}
+			lineSprites[i] = sprite;
+		}
+		if (count == 0) {
+			return false;
+		}
+		Arrays.fill(spriteLine, (byte) 0);
+		byte[] tilePixels = tileCache.getPixels();
+		// Highest priority first, so later sprites only fill in pixels left empty.
+		for (int i = 0; i < count; i++) {
+			int entry = lineSprites[i] * 4;
+			int spriteX = (oam[entry + 1] & 0xFF) - 8;
+			int tile = oam[entry + 2] & 0xFF;
+			int attributes = oam[entry + 3] & 0xFF;
+			int row = line - ((oam[entry] & 0xFF) - 16);
+			if (BitUtil.checkBitSet(attributes, 6)) {
+				row = height - 1 - row;
+			}
+			if (height == 16) {
+				// Bit 0 of the tile number is ignored, the bottom half is the next tile.
+				tile = (tile & 0xFE) | (row >> 3);
+				row &= 7;
+			}
+			int tilePixel = tileCache.getTile(tile) + row * 8;
+			boolean flipX = BitUtil.checkBitSet(attributes, 5);
+			int flags = (BitUtil.checkBitSet(attributes, 7) ? SPRITE_BEHIND_BG : 0)
+					| (BitUtil.checkBitSet(attributes, 4) ? SPRITE_PALETTE : 0);
+			int start = Math.max(0, -spriteX);
+			int end = Math.min(8, SCREEN_WIDTH - spriteX);
+			for (int column = start; column < end; column++) {
+				int color = tilePixels[tilePixel + (flipX ? 7 - column : column)];
+				if (color != 0 && spriteLine[spriteX + column] == 0) {
+					spriteLine[spriteX + column] = (byte) (color | flags);
 				}
 			}
 		}
+		return true;
+	}
+
+	/**
+	 * Similar to CPU's nextInstruction(), except for GPU operations. Catches the
+	 * GPU up with the system clock, and schedules the end of the current mode.
+	 * Runs from the {@link Scheduler} once the current mode is due to end.
+	 */
+	public void sync() {
+		long currentCycle = scheduler.getCurrentCycle();
+		systemCycles += (int) (currentCycle - lastSyncCycle);
+		lastSyncCycle = currentCycle;
+		// Several mode changes can be pending if a large batch of cycles is passed.
+		while (nextMode()) {
+			// keep stepping until the current mode hasn't finished yet
+		}
+		scheduler.schedule(Scheduler.GPU, currentCycle + MODE_CYCLES[gpuMode] - systemCycles);
 	}
 
 	/**
-	 * Similar to CPU's nextInstruction(), except for GPU operations.
+	 * Moves the GPU to its next mode, if enough cycles have passed for the
+	 * current one.
 	 * 
-	 * @param cycles
-	 *            - CPU cycles to add to internal GPU cycle count.
+	 * @return True if the mode changed.
 	 */
 	@SuppressWarnings("java:S3776")
-	public void nextStep(int cycles) {
-		systemCycles += cycles;
+	private boolean nextMode() {
 		switch (gpuMode) {
 			case 0 -> { // HBlank mode
 				if (systemCycles >= 204) {
@@ -134,11 +293,16 @@ public class GPU {
 							interruptFlag = BitUtil.setBit(interruptFlag, 0);
 							mmu.writeByte(INTERRUPT_FLAG, interruptFlag);
 						}
+						if (frameOutput != null) {
+							// The frame is finished, the next one goes into a free buffer.
+							setDisplayImage(frameOutput.publish());
+						}
 						setGpuMode(1);
 					} else {
 						setGpuMode(2);
 					}
 					systemCycles -= 204;
+					return true;
 				}
 			}
 			case 1 -> { // VBlank mode
@@ -147,15 +311,18 @@ public class GPU {
 					if (lineY > 153) {
 						setGpuMode(2);
 						lineY = 0;
+						windowLine = 0;
 					}
 					systemCycles -= 456;
+					return true;
 				}
 			}
 			case 2 -> { // Searching OAM
 				if (systemCycles >= 80) {
-					// TODO: should probably render sprites yeah?
+					// OAM is searched along with drawing the line, in renderScanLine().
 					setGpuMode(3);
 					systemCycles -= 80;
+					return true;
 				}
 			}
 			case 3 -> { // Transfer data to display
@@ -164,11 +331,13 @@ public class GPU {
 					// render scanline here
 					renderScanLine(lineY);
 					systemCycles -= 172;
+					return true;
 				}
 			}
 			default -> {
 			}
 		}
+		return false;
 	}
 
 	/**
@@ -179,22 +348,65 @@ public class GPU {
 	 * @return The tile as a BufferedImage.
 	 */
 	public BufferedImage tileToImage(int address) {
-		int[][] tileFramebuffer = new int[8][8];
-		drawTileToFramebuffer(tileFramebuffer, address, 0, 0, 0, 8, 0, 0);
 		BufferedImage tile = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
-		for (int x = 0; x < 8; x++) {
-			for (int y = 0; y < 8; y++)
-				tile.setRGB(x, y, tileFramebuffer[x][y]);
+		byte[] tilePixels = tileCache.getPixels();
+		int tilePixel = tileCache.getTile((address - 0x8000) >> 4);
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 8; x++) {
+				tile.setRGB(x, y, currentPalette[tilePixels[tilePixel++]]);
+			}
 		}
 		return tile;
 	}
 
-	public static GPU getInstance() {
-		return instance;
+	/**
+	 * Gets the pixels of the LCD, row by row, {@value #SCREEN_WIDTH} per row.
+	 * This is the array backing getDisplayImage().
+	 * 
+	 * @return The framebuffer.
+	 */
+	public int[] getFramebuffer() {
+		return framebuffer;
 	}
 
-	public int[][] getFramebuffer() {
-		return framebuffer;
+	/**
+	 * Gets the image of the LCD, which the GPU draws into as it goes. With a
+	 * frame output set, this is its back buffer, and changes every frame.
+	 * 
+	 * @return The display image.
+	 */
+	public BufferedImage getDisplayImage() {
+		return displayImage;
+	}
+
+	/**
+	 * Sets the image the GPU draws into from now on.
+	 * 
+	 * @param displayImage
+	 *            - An int RGB image, {@value #SCREEN_WIDTH}x{@value #SCREEN_HEIGHT}.
+	 */
+	public void setDisplayImage(BufferedImage displayImage) {
+		if (displayImage.getType() != BufferedImage.TYPE_INT_RGB || displayImage.getWidth() != SCREEN_WIDTH
+				|| displayImage.getHeight() != SCREEN_HEIGHT) {
+			throw new IllegalArgumentException("Display image must be a 160x144 int RGB image.");
+		}
+		this.displayImage = displayImage;
+		framebuffer = ((DataBufferInt) displayImage.getRaster().getDataBuffer()).getData();
+	}
+
+	/**
+	 * Publishes every finished frame to a triple buffer, at the start of VBlank,
+	 * drawing into its back buffer from now on.
+	 * 
+	 * @param frameOutput
+	 *            - Triple buffer to draw into, or null to keep drawing into the
+	 *            current display image.
+	 */
+	public void setFrameOutput(TripleBuffer frameOutput) {
+		this.frameOutput = frameOutput;
+		if (frameOutput != null) {
+			setDisplayImage(frameOutput.getBackBuffer());
+		}
 	}
 
 	public int getLY() {
@@ -203,6 +415,7 @@ public class GPU {
 
 	public void resetLY() {
 		lineY = 0;
+		windowLine = 0;
 	}
 
 	public int getLCDC() {
@@ -252,6 +465,53 @@ public class GPU {
 		this.bgPalette = bgPalette;
 	}
 
+	public int getOBP0() {
+		return objPalette0;
+	}
+
+	/**
+	 * Updates the colors of sprites using palette 0 on changes to OBP0.
+	 */
+	public void setOBP0(int objPalette0) {
+		mapObjectPalette(objectPalettes[0], objPalette0);
+		this.objPalette0 = objPalette0;
+	}
+
+	public int getOBP1() {
+		return objPalette1;
+	}
+
+	/**
+	 * Updates the colors of sprites using palette 1 on changes to OBP1.
+	 */
+	public void setOBP1(int objPalette1) {
+		mapObjectPalette(objectPalettes[1], objPalette1);
+		this.objPalette1 = objPalette1;
+	}
+
+	private static void mapObjectPalette(int[] palette, int value) {
+		// Bits 0-1 are unused, color 0 is always transparent.
+		palette[3] = DMG_COLORS[(value & 0xC0) >> 6];
+		palette[2] = DMG_COLORS[(value & 0x30) >> 4];
+		palette[1] = DMG_COLORS[(value & 0xC) >> 2];
+	}
+
+	public int getWY() {
+		return windowY;
+	}
+
+	public void setWY(int windowY) {
+		this.windowY = windowY;
+	}
+
+	public int getWX() {
+		return windowX;
+	}
+
+	public void setWX(int windowX) {
+		this.windowX = windowX;
+	}
+
 	public void setGpuMode(int gpuMode) {
 		this.gpuMode = gpuMode;
 		switch (gpuMode) {
@@ -276,8 +536,34 @@ public class GPU {
 		}
 	}
 
-	public void addCycles(int cycles) {
-		systemCycles += cycles;
+	/**
+	 * Saves the registers and where the GPU is in the current mode. The
+	 * framebuffer is left out, as the next frame draws over it.
+	 */
+	@Override
+	public void saveState(ByteBuffer state) {
+		state.put((byte) lcdControl).put((byte) lcdStatus).put((byte) scrollY).put((byte) scrollX);
+		state.put((byte) lineY).put((byte) bgPalette).put((byte) gpuMode);
+		state.put((byte) objPalette0).put((byte) objPalette1).put((byte) windowY).put((byte) windowX);
+		state.put((byte) windowLine);
+		state.putInt(systemCycles).putLong(lastSyncCycle);
 	}
 
+	@Override
+	public void loadState(ByteBuffer state) {
+		lcdControl = state.get() & 0xFF;
+		lcdStatus = state.get() & 0xFF;
+		scrollY = state.get() & 0xFF;
+		scrollX = state.get() & 0xFF;
+		lineY = state.get() & 0xFF;
+		setBGP(state.get() & 0xFF);
+		gpuMode = state.get() & 0x03;
+		setOBP0(state.get() & 0xFF);
+		setOBP1(state.get() & 0xFF);
+		windowY = state.get() & 0xFF;
+		windowX = state.get() & 0xFF;
+		windowLine = state.get() & 0xFF;
+		systemCycles = state.getInt();
+		lastSyncCycle = state.getLong();
+	}
 }
@@ -0,0 +1,87 @@
+package us.kshadow.gbz80emu.graphics;
+
+import java.util.Arrays;
+
+import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.memory.WriteListener;
+
+/**
+ * Every tile in VRAM (0x8000-0x97FF), decoded into one color value (0-3) per
+ * pixel, so drawing a line of a tile is a lookup and a palette map rather than
+ * pulling the bits apart.
+ * <p>
+ * Writes to tile data mark the tile dirty in a bitmap, through the MMU, and a
+ * dirty tile is decoded again the next time it's drawn.
+ */
+public class TileCache implements WriteListener {
+
+	public static final int TILE_COUNT = 384;
+
+	// Pixels per tile, stored row by row.
+	public static final int TILE_PIXELS = 64;
+
+	private final byte[] videoRam;
+
+	private final byte[] pixels = new byte[TILE_COUNT * TILE_PIXELS];
+
+	// One bit per tile.
+	private final long[] dirtyTiles = new long[TILE_COUNT / 64];
+
+	/**
+	 * Creates the cache, with every tile dirty, and registers it with the MMU to
+	 * hear about writes to tile data.
+	 *
+	 * @param mmu
+	 *            - MMU to read tile data from.
+	 */
+	public TileCache(MMU mmu) {
+		videoRam = mmu.getVideoRam();
+		Arrays.fill(dirtyTiles, -1L);
+		mmu.setTileDataListener(this);
+	}
+
+	@Override
+	public void onWrite(int address) {
+		int tile = (address - 0x8000) >> 4;
+		dirtyTiles[tile >> 6] |= 1L << (tile & 63);
+	}
+
+	/**
+	 * Gets where a tile's pixels start in getPixels(), decoding it first if it
+	 * changed since it was last drawn.
+	 *
+	 * @param tile
+	 *            - Tile number, counting from 0x8000. (0-383)
+	 * @return Index of the tile's first pixel.
+	 */
+	public int getTile(int tile) {
+		long bit = 1L << (tile & 63);
+		if ((dirtyTiles[tile >> 6] & bit) != 0) {
+			dirtyTiles[tile >> 6] &= ~bit;
+			decode(tile);
+		}
+		return tile * TILE_PIXELS;
+	}
+
+	/**
+	 * Gets the decoded pixels of every tile. Only tiles passed through getTile()
+	 * are up to date.
+	 *
+	 * @return Color values, {@value #TILE_PIXELS} per tile.
+	 */
+	public byte[] getPixels() {
+		return pixels;
+	}
+
+	private void decode(int tile) {
+		int address = tile * 0x10;
+		int pixel = tile * TILE_PIXELS;
+		for (int row = 0; row < 8; row++) {
+			int low = videoRam[address + row * 2] & 0xFF;
+			int high = videoRam[address + row * 2 + 1] & 0xFF;
+			for (int column = 7; column >= 0; column--) {
+				pixels[pixel++] = (byte) (((high >> column) & 1) << 1 | ((low >> column) & 1));
+			}
+		}
+	}
+}
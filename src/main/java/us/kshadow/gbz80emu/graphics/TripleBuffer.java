@@ -0,0 +1,108 @@
+package us.kshadow.gbz80emu.graphics;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Three frames handed from the thread drawing them to the thread presenting
+ * them, without either one waiting on the other. The drawing side always has
+ * a back buffer of its own to draw into, the presenting side a front buffer
+ * of its own to show, and the third buffer holds the latest finished frame.
+ * <p>
+ * Publishing a frame swaps the back buffer with the shared one, and acquiring
+ * swaps the front buffer with it if it holds a newer frame, each in a single
+ * atomic operation. Frames published faster than they're acquired are dropped,
+ * and a frame is never seen while it's being drawn.
+ * <p>
+ * Only one thread may draw, and one thread present.
+ */
+public class TripleBuffer {
+
+	// Index bits of the shared buffer, and the bit set while it holds a frame
+	// that hasn't been acquired yet.
+	private static final int INDEX = 0x03;
+	private static final int FRESH = 0x04;
+
+	private final BufferedImage[] frames = new BufferedImage[3];
+
+	private final AtomicInteger shared = new AtomicInteger(1);
+
+	// Only used by the drawing thread, and the presenting thread.
+	private int back = 0;
+	private int front = 2;
+
+	// Thread waiting in awaitFrame(), to wake up on publish().
+	private volatile Thread presenter;
+
+	/**
+	 * Creates the three frames, at the Game Boy's resolution.
+	 */
+	public TripleBuffer() {
+		for (int i = 0; i < frames.length; i++) {
+			frames[i] = new BufferedImage(GPU.SCREEN_WIDTH, GPU.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		}
+	}
+
+	/**
+	 * Gets the frame to draw into. Drawing thread only.
+	 *
+	 * @return The back buffer.
+	 */
+	public BufferedImage getBackBuffer() {
+		return frames[back];
+	}
+
+	/**
+	 * Hands over the finished back buffer as the latest frame, and takes a free
+	 * buffer in its place. Never waits. Drawing thread only.
+	 *
+	 * @return The new back buffer. It holds an older frame, to be drawn over.
+	 */
+	public BufferedImage publish() {
+		back = shared.getAndSet(back | FRESH) & INDEX;
+		Thread waiting = presenter;
+		if (waiting != null) {
+			LockSupport.unpark(waiting);
+		}
+		return frames[back];
+	}
+
+	/**
+	 * Checks whether a frame was published since the last one was acquired.
+	 *
+	 * @return True if acquire() would return a new frame.
+	 */
+	public boolean hasNewFrame() {
+		return (shared.get() & FRESH) != 0;
+	}
+
+	/**
+	 * Takes the latest published frame as the front buffer, if there's a new
+	 * one. Never waits. Presenting thread only.
+	 *
+	 * @return The front buffer, which stays untouched until the next acquire().
+	 */
+	public BufferedImage acquire() {
+		if (hasNewFrame()) {
+			front = shared.getAndSet(front) & INDEX;
+		}
+		return frames[front];
+	}
+
+	/**
+	 * Waits for a new frame to be published, then acquires it. Also returns if
+	 * the thread is unparked or interrupted, with the current front buffer if
+	 * no new frame came. Presenting thread only.
+	 *
+	 * @return The front buffer.
+	 */
+	public BufferedImage awaitFrame() {
+		presenter = Thread.currentThread();
+		// A publish after this check unparks the thread, so park() won't wait.
+		if (!hasNewFrame()) {
+			LockSupport.park(this);
+		}
+		return acquire();
+	}
+}
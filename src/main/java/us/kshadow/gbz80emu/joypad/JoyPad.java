@@ -1,21 +1,22 @@
 package us.kshadow.gbz80emu.joypad;
 
+import java.nio.ByteBuffer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.state.Stateful;
 import us.kshadow.gbz80emu.util.BitUtil;
 
 import static us.kshadow.gbz80emu.constants.MemoryAddresses.INTERRUPT_FLAG;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.JOY_PAD_REGISTER;
 
 /**
  * Handle joy pad inputs for Game Boy emulation.
  */
-@SuppressWarnings("java:S6548")
-public class JoyPad {
-
-	private static final JoyPad instance = new JoyPad();
+public class JoyPad implements Stateful {
 
-	private static final MMU mmu = MMU.getInstance();
+	private final MMU mmu;
 
 	private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -26,8 +27,10 @@ public class JoyPad {
 	private int actionRegister = 0xF;
 	private int directionRegister = 0xF;
 
-	private JoyPad() {
-
+	public JoyPad(MMU mmu) {
+		this.mmu = mmu;
+		mmu.registerIO(JOY_PAD_REGISTER, address -> getJoyPadRegister(),
+				(address, value) -> setJoyPadSelectMode(value));
 	}
 
 	public void setJoyPadSelectMode(int value) {
@@ -45,10 +48,6 @@ public class JoyPad {
 		}
 	}
 
-	public static JoyPad getInstance() {
-		return instance;
-	}
-
 	@SuppressWarnings("java:S1301")
 	public void inputPressed(Input input) {
 		logger.debug("{} pressed!", input);
@@ -100,4 +99,16 @@ public class JoyPad {
 			}
 		}
 	}
+
+	@Override
+	public void saveState(ByteBuffer state) {
+		state.put((byte) controlSelect).put((byte) actionRegister).put((byte) directionRegister);
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		controlSelect = state.get() & 0xFF;
+		actionRegister = state.get() & 0xFF;
+		directionRegister = state.get() & 0xFF;
+	}
 }
@@ -1,48 +1,53 @@
 package us.kshadow.gbz80emu.memory;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Arrays;
+import java.nio.file.Path;
 
-@SuppressWarnings("java:S6548")
 public class Cartridge {
 
-	private static final Cartridge instance = new Cartridge();
-
-	// Integer array that the ROM file is loaded into.
-	private int[] romArray;
-
-	// Array of bytes that make up the Nintendo logo.
-	private static final int[] logoArray = new int[]{0xCE, 0xED, 0x66, 0x66, 0xCC, 0x0D, 0x00, 0x0B, 0x03, 0x73, 0x00,
-			0x83, 0x00, 0x0C, 0x00, 0x0D, 0x00, 0x08, 0x11, 0x1F, 0x88, 0x89, 0x00, 0x0E, 0xDC, 0xCC, 0x6E, 0xE6, 0xDD,
-			0xDD, 0xD9, 0x99, 0xBB, 0xBB, 0x67, 0x63, 0x6E, 0x0E, 0xEC, 0xCC, 0xDD, 0xDC, 0x99, 0x9F, 0xBB, 0xB9, 0x33,
-			0x3E};
-
-	private Cartridge() {
+	// Mapped ROM file, possibly shared with other cartridges. Null until a ROM is
+	// loaded.
+	private RomImage rom;
 
+	public Cartridge() {
+		// ROM is loaded separately, see loadROM().
 	}
 
 	/**
-	 * Loads a Game Boy ROM into an integer array.
+	 * Loads a Game Boy ROM by memory mapping it, see {@link RomImage}.
 	 * 
 	 * @param file
 	 *            - The ROM file to load.
 	 * @throws IOException
-	 *             - occurs if there is an issue with the specified file
+	 *             - occurs if there is an issue with the specified file, or its
+	 *             size doesn't match its header
 	 */
-	@SuppressWarnings("squid:S2674")
 	public void loadROM(String file) throws IOException {
-		try (InputStream romStream = new FileInputStream(file)) {
-			byte[] romByteArray = new byte[romStream.available()];
-			romStream.read(romByteArray);
-			romArray = new int[romByteArray.length];
-			for (int i = 0; i < romByteArray.length; i++) {
-				romArray[i] = romByteArray[i] & 0xFF;
-			}
-		} catch (IOException ex) {
-			ex.printStackTrace();
+		loadROM(RomImage.map(Path.of(file)));
+	}
+
+	/**
+	 * Loads a ROM that is already mapped, sharing the mapping with whoever else
+	 * uses it.
+	 * 
+	 * @param rom
+	 *            - The mapped ROM.
+	 */
+	public void loadROM(RomImage rom) {
+		this.rom = rom;
+	}
+
+	/**
+	 * Gets the parsed header of the loaded ROM, see {@link RomHeader}. The
+	 * header is parsed once per image, so the getters below are cheap.
+	 * 
+	 * @return The header.
+	 */
+	public RomHeader getHeader() {
+		if (rom == null) {
+			throw new IllegalStateException("No ROM loaded");
 		}
+		return rom.getHeader();
 	}
 
 	/**
@@ -51,11 +56,7 @@ public class Cartridge {
 	 * @return Title from ROM header.
 	 */
 	public String getTitle() {
-		char[] title = new char[16];
-		for (int i = 0; i < title.length; i++) {
-			title[i] = (char) romArray[i + 0x134];
-		}
-		return String.copyValueOf(title);
+		return getHeader().title();
 	}
 
 	/**
@@ -64,7 +65,7 @@ public class Cartridge {
 	 * @return MBC type as int
 	 */
 	public int getMBCType() {
-		return romArray[0x147];
+		return getHeader().mbcType();
 	}
 
 	/**
@@ -73,7 +74,7 @@ public class Cartridge {
 	 * @return ROM size as int
 	 */
 	public int getROMSize() {
-		return romArray[0x148];
+		return getHeader().romSize();
 	}
 
 	/**
@@ -82,7 +83,36 @@ public class Cartridge {
 	 * @return RAM size as int
 	 */
 	public int getRAMSize() {
-		return romArray[0x149];
+		return getHeader().ramSize();
+	}
+
+	/**
+	 * Gets the size of external RAM, from the RAM size code in the header.
+	 *
+	 * @return RAM size in bytes, 0 if there is none.
+	 */
+	public int getRAMBytes() {
+		return switch (getRAMSize()) {
+			case 0x01 -> 0x800;
+			case 0x02 -> 0x2000;
+			case 0x03 -> 0x8000;
+			case 0x04 -> 0x20000;
+			case 0x05 -> 0x10000;
+			default -> 0;
+		};
+	}
+
+	/**
+	 * Checks if the cartridge type has a battery, keeping its RAM, and clock if
+	 * it has one, while powered off.
+	 *
+	 * @return True or false depending on the above.
+	 */
+	public boolean hasBattery() {
+		return switch (getMBCType()) {
+			case 0x03, 0x06, 0x09, 0x0D, 0x0F, 0x10, 0x13, 0x1B, 0x1E, 0x22, 0xFF -> true;
+			default -> false;
+		};
 	}
 
 	/**
@@ -92,7 +122,7 @@ public class Cartridge {
 	 * @return True or false depending on above.
 	 */
 	public boolean isLogoValid() {
-		return Arrays.equals(logoArray, Arrays.copyOfRange(romArray, 0x104, 0x134));
+		return getHeader().logoValid();
 	}
 
 	/**
@@ -101,7 +131,7 @@ public class Cartridge {
 	 * @return True or false depending on the above.
 	 */
 	public boolean hasSgbFuncSupport() {
-		return (romArray[0x146] == 0x03);
+		return getHeader().sgbSupport();
 	}
 
 	/**
@@ -110,33 +140,48 @@ public class Cartridge {
 	 * @return True or false depending on the above.
 	 */
 	public boolean isHeaderValid() {
-		int check = 0;
-		for (int i = 0x134; i <= 0x14c; i++) {
-			check = (check - romArray[i] - 1) & 0xFF;
-		}
-		return (check == romArray[0x14D]);
+		return getHeader().headerValid();
 	}
 
 	/**
-	 * Checks if the ROM itself is valid.
+	 * Checks if the ROM itself is valid. The whole ROM is summed the first time
+	 * this is asked.
 	 * 
 	 * @return True or false depending on the above.
 	 */
 	public boolean isCartridgeValid() {
-		int check = 0;
-		for (int j : romArray) {
-			check = (check + j) & 0xFFFF;
+		if (rom == null) {
+			throw new IllegalStateException("No ROM loaded");
 		}
-		check = check - romArray[0x14E] - romArray[0x14F];
-		int sumInCart = (romArray[0x14E] << 8) ^ romArray[0x14F];
-		return (sumInCart == check);
+		return rom.isCartridgeValid();
 	}
 
-	public int[] getROM() {
-		return romArray;
+	/**
+	 * Checks if the ROM is an MBC1 multicart, see {@link RomHeader#multicart()}.
+	 * 
+	 * @return True or false depending on the above.
+	 */
+	public boolean isMulticart() {
+		return getHeader().multicart();
 	}
 
-	public static Cartridge getInstance() {
-		return instance;
+	/**
+	 * Reads a byte from the loaded ROM.
+	 * 
+	 * @param offset
+	 *            - Offset into the ROM.
+	 * @return The byte, unsigned, or 0xFF if no ROM is loaded.
+	 */
+	public int readROM(int offset) {
+		return rom != null ? rom.read(offset) : 0xFF;
+	}
+
+	/**
+	 * Gets the loaded ROM.
+	 * 
+	 * @return The mapped ROM, or null if none is loaded.
+	 */
+	public RomImage getROM() {
+		return rom;
 	}
 }
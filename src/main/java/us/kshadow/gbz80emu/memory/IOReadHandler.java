@@ -0,0 +1,17 @@
+package us.kshadow.gbz80emu.memory;
+
+/**
+ * Handler for reads from an I/O register registered with the {@link MMU}.
+ */
+@FunctionalInterface
+public interface IOReadHandler {
+
+	/**
+	 * Reads the register.
+	 *
+	 * @param address
+	 *            - Address of the register. (0xFF00-0xFF7F)
+	 * @return The register's value.
+	 */
+	int read(int address);
+}
@@ -0,0 +1,18 @@
+package us.kshadow.gbz80emu.memory;
+
+/**
+ * Handler for writes to an I/O register registered with the {@link MMU}.
+ */
+@FunctionalInterface
+public interface IOWriteHandler {
+
+	/**
+	 * Writes to the register.
+	 *
+	 * @param address
+	 *            - Address of the register. (0xFF00-0xFF7F)
+	 * @param value
+	 *            - Value written.
+	 */
+	void write(int address, int value);
+}
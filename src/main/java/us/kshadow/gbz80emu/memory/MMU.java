@@ -1,79 +1,159 @@
 package us.kshadow.gbz80emu.memory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 
-import us.kshadow.gbz80emu.graphics.GPU;
-import us.kshadow.gbz80emu.joypad.JoyPad;
 import us.kshadow.gbz80emu.memory.mbc.MBC;
-import us.kshadow.gbz80emu.sysclock.SystemTimer;
+import us.kshadow.gbz80emu.state.SaveState;
+import us.kshadow.gbz80emu.state.Stateful;
 import us.kshadow.gbz80emu.util.BitUtil;
 
 import static us.kshadow.gbz80emu.constants.MemoryAddresses.*;
 
 /**
  * A basic memory management unit abstraction.
+ * <p>
+ * Plain memory is reached through a page table of 256 byte pages, each
+ * pointing straight at the array backing it. Cartridge ROM pages point into the
+ * mapped {@link RomImage} instead. Pages with nothing mapped, such as I/O
+ * registers, or writes to ROM, go through the full address decoding instead.
+ * Bank switches simply remap the affected pages.
+ * <p>
+ * I/O registers (0xFF00-0xFF7F) are dispatched through a table of handlers,
+ * registered by the components owning them. Registers nobody handles read as
+ * 0xFF, the value of the open bus, and ignore writes.
  * 
  * @author Nicholas Bonet
  */
 
-@SuppressWarnings("java:S6548")
-public class MMU {
+public class MMU implements Stateful {
 
-	private static final Cartridge cartridge = Cartridge.getInstance();
-	private static final MMU instance = new MMU();
+	private static final int OPEN_BUS = 0xFF;
 
-	private static final SystemTimer timer = SystemTimer.getInstance();
-
-	private static final GPU gpu = GPU.getInstance();
-
-	private static final JoyPad joyPad = JoyPad.getInstance();
+	private final Cartridge cartridge;
 
 	// Gets switched out at end of actual Game Boy boot up, when $FF50 is written
 	// to.
-	private int[] bootRom = new int[0xFF];
+	private byte[] bootRom = new byte[0xFF];
 	private boolean bootRomEnabled = true;
 
 	// 0x8000 - 0x9FFF - VRAM (will be properly segmented later on)
-	private final int[] videoRam = new int[0x2000];
+	private final byte[] videoRam = new byte[0x2000];
 
 	// 0xC000 - 0xDFFF - Working RAM
 	// 0xE000 - 0xFDFF - Shadow of working RAM (last 512 bytes aren't shadowed)
-	private final int[] workRam = new int[0x2000];
+	private final byte[] workRam = new byte[0x2000];
 
 	// 0xFE00 - 0xFE9F - Sprite Attribute Table (OAM)
-	private final int[] oam = new int[0xA0];
+	private final byte[] oam = new byte[0xA0];
 
 	// 0xFEA0 - 0xFEFF - unused range
-	// TODO: 0xFF00 - 0xFF7F - I/O registers
+
+	// 0xFF00 - 0xFF7F - I/O register handlers, see registerIO().
+	private final IOReadHandler[] ioReads = new IOReadHandler[0x80];
+	private final IOWriteHandler[] ioWrites = new IOWriteHandler[0x80];
 
 	// 0xFF80 - 0xFFFE - Zero Page RAM
-	private final int[] zeroPage = new int[0x7F];
+	private final byte[] zeroPage = new byte[0x7F];
 
 	private int interruptFlag = 0; // 0xFF0F
 	private int interruptEnable = 0; // 0xFFFF
+	private int oamDmaSource = 0; // 0xFF46
 
 	private MBC mbc;
 
+	// Array backing each 256 byte page, and the index of the page's first byte
+	// within it. Null for pages that need the full address decoding.
+	private final byte[][] readPages = new byte[0x100][];
+	private final int[] readOffsets = new int[0x100];
+	private final byte[][] writePages = new byte[0x100][];
+	private final int[] writeOffsets = new int[0x100];
+
+	// Offset into the cartridge ROM of each page in 0x0000-0x7FFF, or -1 for
+	// pages past the end of it. Only used for pages with no array mapped.
+	private RomImage rom;
+	private final int[] romOffsets = new int[0x80];
+
+	// 256 byte pages that have a listener interested in writes to them, such as
+	// pages holding decoded code.
+	private final boolean[] watchedPages = new boolean[0x100];
+	private WriteListener writeListener;
+
+	// Told about writes to tile data (0x8000-0x97FF), such as by the GPU's tile
+	// cache.
+	private WriteListener tileDataListener;
+
 	/**
 	 * MMU constructor. Simply loads the boot ROM.
+	 * 
+	 * @param cartridge
+	 *            - Cartridge the game ROM is loaded through.
 	 */
-	private MMU() {
+	public MMU(Cartridge cartridge) {
+		this.cartridge = cartridge;
 		try {
-			cartridge.loadROM("dmg_boot.bin");
-			loadBootROM(cartridge.getROM());
+			loadBootROM(Files.readAllBytes(Path.of("dmg_boot.bin")));
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		// Work RAM is also seen through its echo.
+		mapPages(0x80, 0x20, videoRam, 0, true);
+		mapPages(0xC0, 0x20, workRam, 0, true);
+		mapPages(0xE0, 0x1E, workRam, 0, true);
+		mapCartridge();
+
+		// High 3 bits of IF are always 1 due to pull-up resistors on hardware.
+		registerIO(INTERRUPT_FLAG, address -> interruptFlag | 0xE0, (address, value) -> interruptFlag = value);
+		registerIO(BOOT_ROM_TOGGLE, null, (address, value) -> toggleBootROM(false));
+		registerIO(OAM_DMA, address -> oamDmaSource, (address, value) -> transferOAM(value));
+		// The CGB speed switch is left unhandled, reading 0xFF like on a DMG.
+	}
+
+	/**
+	 * Registers the handlers for an I/O register, replacing any registered
+	 * before.
+	 * 
+	 * @param address
+	 *            - Address of the register. (0xFF00-0xFF7F)
+	 * @param reader
+	 *            - Handler for reads, or null for the register to read as open
+	 *            bus.
+	 * @param writer
+	 *            - Handler for writes, or null for writes to be ignored.
+	 */
+	public void registerIO(int address, IOReadHandler reader, IOWriteHandler writer) {
+		if ((address & 0xFF80) != 0xFF00 || address > 0xFFFF) {
+			throw new IllegalArgumentException("Not an I/O register address: " + address);
+		}
+		ioReads[address & 0x7F] = reader;
+		ioWrites[address & 0x7F] = writer;
 	}
 
 	/**
-	 * Return the singleton instance of the MMU.
+	 * Gets the read handler registered for an I/O register, for wrapping it with
+	 * another one.
 	 * 
-	 * @return This MMU instance.
+	 * @param address
+	 *            - Address of the register. (0xFF00-0xFF7F)
+	 * @return The read handler, or null if there is none.
 	 */
-	public static MMU getInstance() {
-		return instance;
+	public IOReadHandler getIOReader(int address) {
+		return ioReads[address & 0x7F];
+	}
+
+	/**
+	 * Gets the write handler registered for an I/O register, for wrapping it
+	 * with another one.
+	 * 
+	 * @param address
+	 *            - Address of the register. (0xFF00-0xFF7F)
+	 * @return The write handler, or null if there is none.
+	 */
+	public IOWriteHandler getIOWriter(int address) {
+		return ioWrites[address & 0x7F];
 	}
 
 	/**
@@ -85,28 +165,51 @@ public class MMU {
 	 * @return The byte from memory.
 	 */
 	public int readByte(int address) {
+		if ((address & ~0xFFFF) == 0) {
+			int page = address >> 8;
+			byte[] memory = readPages[page];
+			if (memory != null) {
+				return memory[readOffsets[page] + (address & 0xFF)] & 0xFF;
+			}
+			if (page < 0x80) {
+				int romOffset = romOffsets[page];
+				if (romOffset >= 0) {
+					return rom.read(romOffset + (address & 0xFF));
+				}
+			} else if ((address & 0xFF80) == 0xFF00) {
+				IOReadHandler reader = ioReads[address & 0x7F];
+				return reader != null ? reader.read(address) : OPEN_BUS;
+			}
+		}
+		return readUnmapped(address);
+	}
+
+	/**
+	 * Reads a byte that isn't in a mapped page, by decoding the full address.
+	 */
+	private int readUnmapped(int address) {
 		BitUtil.checkIsWord(address);
 		switch (address & 0xF000) {
 			case 0x0000, 0x1000, 0x2000, 0x3000 -> {
 				if (bootRomEnabled && address < 0x100) {
-					return bootRom[address];
+					return bootRom[address] & 0xFF;
 				}
 
 				if (mbc != null) {
 					return mbc.handleMBCReadROM(address);
 				} else {
-					return cartridge.getROM()[address];
+					return cartridge.readROM(address);
 				}
 			}
 			case 0x4000, 0x5000, 0x6000, 0x7000 -> {
 				if (mbc != null) {
 					return mbc.handleMBCReadROM(address);
 				} else {
-					return cartridge.getROM()[address];
+					return cartridge.readROM(address);
 				}
 			}
 			case 0x8000, 0x9000 -> {
-				return videoRam[address & 0x1FFF];
+				return videoRam[address & 0x1FFF] & 0xFF;
 			}
 			case 0xA000, 0xB000 -> {
 				if (mbc != null) {
@@ -115,52 +218,20 @@ public class MMU {
 				return 0xFF;
 			}
 			case 0xC000, 0xD000, 0xE000 -> {
-				return workRam[address & 0x1FFF];
+				return workRam[address & 0x1FFF] & 0xFF;
 			}
 			case 0xF000 -> {
 				if (address < 0xFE00) {
-					return workRam[address & 0x1FFF];
+					return workRam[address & 0x1FFF] & 0xFF;
 				} else if (address < 0xFEA0) {
-					return oam[address & 0x9F];
+					return oam[address & 0xFF] & 0xFF;
 				} else if (address >= 0xFF80 && address < INTERRUPT_ENABLE) {
-					return zeroPage[address & 0x7F];
-				} else if (address == JOY_PAD_REGISTER) {
-					return joyPad.getJoyPadRegister();
-				}
-
-				// GPU hookups
-				else if (address == LCD_CONTROL) {
-					return gpu.getLCDC();
-				} else if (address == LCD_STATUS) {
-					return gpu.getSTAT();
-				} else if (address == SCROLL_Y) {
-					return gpu.getSCY();
-				} else if (address == SCROLL_X) {
-					return gpu.getSCX();
-				} else if (address == LINE_Y) {
-					return gpu.getLY();
-				}
-
-				// ignore CGB speed switch
-				else if (address == CGB_SPEED_SWITCH) {
-					return 0xFF;
-				}
-
-				// Interrupt Flag/Enable
-				else if (address == INTERRUPT_ENABLE) {
+					return zeroPage[address & 0x7F] & 0xFF;
+				} else if (address == INTERRUPT_ENABLE) {
 					return interruptEnable;
-				} else if (address == INTERRUPT_FLAG) {
-					/// High 3 bits of IF are always 1 due to pull-up resistors on hardware.
-					return interruptFlag | 0xE0;
 				}
 
-				// Timer register read
-				else if (address >= TIMER_DIV_REGISTER && address <= TIMER_TAC_REGISTER) {
-					return timer.readSystemTimerRegister(address);
-				}
-
-				// If address = unused range, I/O registers, or interrupt register, return 0 for
-				// now.
+				// Unused range, I/O registers are handled in readByte().
 				return 0;
 			}
 			default -> throw new IllegalArgumentException("Unhandled memory read at address: " + address);
@@ -187,6 +258,31 @@ public class MMU {
 	 *            - Value to store.
 	 */
 	public void writeByte(int address, int value) {
+		if ((address & ~0xFFFF) == 0 && (value & ~0xFF) == 0) {
+			int page = address >> 8;
+			byte[] memory = writePages[page];
+			if (memory != null) {
+				memory[writeOffsets[page] + (address & 0xFF)] = (byte) value;
+			} else if ((address & 0xFF80) == 0xFF00) {
+				IOWriteHandler writer = ioWrites[address & 0x7F];
+				if (writer != null) {
+					writer.write(address, value);
+				}
+			} else {
+				writeUnmapped(address, value);
+			}
+			if (watchedPages[page]) {
+				writeListener.onWrite(address);
+			}
+		} else {
+			writeUnmapped(address, value);
+		}
+	}
+
+	/**
+	 * Writes a byte that isn't in a mapped page, by decoding the full address.
+	 */
+	private void writeUnmapped(int address, int value) {
 		BitUtil.checkIsWord(address);
 		BitUtil.checkIsByte(value);
 		switch (address & 0xF000) {
@@ -194,58 +290,33 @@ public class MMU {
 				// we don't write to ROM! besides for MBC registers
 				if (mbc != null) {
 					mbc.handleMBCWriteROM(address, value);
+					mapCartridge();
 				}
 			}
 
-			case 0x8000, 0x9000 -> videoRam[address & 0x1FFF] = value;
+			case 0x8000, 0x9000 -> {
+				videoRam[address & 0x1FFF] = (byte) value;
+				if (tileDataListener != null && address < 0x9800) {
+					tileDataListener.onWrite(address);
+				}
+			}
 			case 0xA000, 0xB000 -> {
 				if (mbc != null) {
 					mbc.handleMBCWriteRAM(address, value);
 				}
 			}
-			case 0xC000, 0xD000, 0xE000 -> workRam[address & 0x1FFF] = value;
+			case 0xC000, 0xD000, 0xE000 -> workRam[address & 0x1FFF] = (byte) value;
 			case 0xF000 -> {
 				if (address < 0xFE00) {
-					workRam[address & 0x1FFF] = value;
+					workRam[address & 0x1FFF] = (byte) value;
 				} else if (address < 0xFEA0) {
-					oam[address & 0x9F] = value;
+					oam[address & 0xFF] = (byte) value;
 				} else if (address >= 0xFF80 && address < INTERRUPT_ENABLE) {
-					zeroPage[address & 0x7F] = value;
-				} else if (address == JOY_PAD_REGISTER) {
-					joyPad.setJoyPadSelectMode(value);
-				}
-
-				// GPU hookups
-				else if (address == LCD_CONTROL) {
-					gpu.setLCDC(value);
-				} else if (address == LCD_STATUS) {
-					gpu.setSTAT(value);
-				} else if (address == SCROLL_Y) {
-					gpu.setSCY(value);
-				} else if (address == SCROLL_X) {
-					gpu.setSCX(value);
-				} else if (address == LINE_Y) {
-					gpu.resetLY();
-				} else if (address == BG_PALETTE) {
-					gpu.setBGP(value);
-				}
-
-				// Interrupt Flag/Enable
-				else if (address == INTERRUPT_FLAG) {
-					interruptFlag = value;
+					zeroPage[address & 0x7F] = (byte) value;
 				} else if (address == INTERRUPT_ENABLE) {
 					interruptEnable = value;
 				}
-
-				// Boot ROM disable
-				else if (address == BOOT_ROM_TOGGLE) {
-					bootRomEnabled = false;
-				}
-
-				// Timer register write
-				else if (address >= TIMER_DIV_REGISTER && address <= TIMER_TAC_REGISTER) {
-					timer.writeSystemTimerRegister(address, value);
-				}
+				// Unused range is ignored, I/O registers are handled in writeByte().
 			}
 			default -> throw new IllegalArgumentException("Unhandled memory write at address: " + address);
 		}
@@ -271,7 +342,7 @@ public class MMU {
 	 * @param boot
 	 *            - The boot ROM loaded from file.
 	 */
-	private void loadBootROM(int[] boot) {
+	private void loadBootROM(byte[] boot) {
 		bootRom = Arrays.copyOfRange(boot, 0x00, 0x100);
 	}
 
@@ -284,16 +355,175 @@ public class MMU {
 	 */
 	public void toggleBootROM(boolean state) {
 		bootRomEnabled = state;
+		mapCartridge();
+	}
+
+	/**
+	 * Checks whether the boot ROM is currently mapped over the start of the
+	 * cartridge ROM.
+	 * 
+	 * @return True if the boot ROM is enabled.
+	 */
+	public boolean isBootROMEnabled() {
+		return bootRomEnabled;
+	}
+
+	/**
+	 * Copies 160 bytes into OAM, from the page written to 0xFF46. The transfer
+	 * is done at once, rather than over the 160 cycles it takes on hardware.
+	 * It copies straight out of the page table, as the DMA never reaches the I/O
+	 * registers. Sources from 0xE000 up read the echo of work RAM, including
+	 * 0xFE and 0xFF.
+	 * 
+	 * @param source
+	 *            - High byte of the address to copy from.
+	 */
+	private void transferOAM(int source) {
+		oamDmaSource = source;
+		int page = source & 0xFF;
+		if (page >= 0xE0) {
+			page -= 0x20;
+		}
+		byte[] memory = readPages[page];
+		if (memory != null) {
+			System.arraycopy(memory, readOffsets[page], oam, 0, oam.length);
+		} else if (page < 0x80 && romOffsets[page] >= 0) {
+			for (int i = 0; i < oam.length; i++) {
+				oam[i] = (byte) rom.read(romOffsets[page] + i);
+			}
+		} else {
+			for (int i = 0; i < oam.length; i++) {
+				oam[i] = (byte) readUnmapped((page << 8) + i);
+			}
+		}
+	}
+
+	/**
+	 * Gets the array backing VRAM (0x8000-0x9FFF), for the GPU to read tiles
+	 * and tile maps from without going through readByte().
+	 * 
+	 * @return VRAM, indexed from 0x8000.
+	 */
+	public byte[] getVideoRam() {
+		return videoRam;
+	}
+
+	/**
+	 * Gets the array backing OAM (0xFE00-0xFE9F), for the GPU to search for
+	 * sprites in.
+	 * 
+	 * @return OAM, 4 bytes per sprite.
+	 */
+	public byte[] getOAM() {
+		return oam;
+	}
+
+	/**
+	 * Gets the offset into the cartridge ROM of the bank currently mapped to the
+	 * window containing the address.
+	 * 
+	 * @param address
+	 *            - Address in the 0x0000-0x7FFF range.
+	 * @return Offset of the mapped bank within the cartridge ROM.
+	 */
+	public int getROMBankOffset(int address) {
+		if (mbc != null) {
+			return mbc.getROMBankOffset(address);
+		}
+		return address & 0x4000;
+	}
+
+	/**
+	 * Gets the ROM mapped into the cartridge area.
+	 * 
+	 * @return The ROM, or null if none is loaded.
+	 */
+	public RomImage getROM() {
+		return rom;
+	}
+
+	/**
+	 * Sets the listener that is notified about writes to watched pages.
+	 * 
+	 * @param writeListener
+	 *            - Listener to notify, or null for none.
+	 */
+	public void setWriteListener(WriteListener writeListener) {
+		this.writeListener = writeListener;
+		if (writeListener == null) {
+			Arrays.fill(watchedPages, false);
+		}
+	}
+
+	/**
+	 * Starts or stops notifying the write listener about writes to a 256 byte
+	 * page. Work RAM pages are also watched through their echo.
+	 * 
+	 * @param page
+	 *            - Page number. (address >> 8)
+	 * @param watched
+	 *            - Whether the page should be watched.
+	 */
+	public void setPageWatched(int page, boolean watched) {
+		watchedPages[page] = watched;
+		if (page >= 0xC0 && page < 0xDE) {
+			watchedPages[page + 0x20] = watched;
+		}
+	}
+
+	/**
+	 * Sets a listener told about every write to tile data (0x8000-0x97FF). While
+	 * one is set, tile data is left unmapped for writes, so they all come
+	 * through the full address decoding. When tile data is replaced as a whole,
+	 * the listener is told about the first byte of every tile.
+	 * 
+	 * @param tileDataListener
+	 *            - Listener to notify, or null for none.
+	 */
+	public void setTileDataListener(WriteListener tileDataListener) {
+		this.tileDataListener = tileDataListener;
+		mapPages(0x80, 0x18, tileDataListener != null ? null : videoRam, 0, true);
+		mapPages(0x80, 0x18, videoRam, 0, false);
+	}
+
+	private void tileDataReplaced() {
+		if (tileDataListener != null) {
+			for (int address = 0x8000; address < 0x9800; address += 0x10) {
+				tileDataListener.onWrite(address);
+			}
+		}
 	}
 
 	/**
 	 * Fills all the memory region arrays with 0, effectively resetting them.
 	 */
 	public void clearMemory() {
-		Arrays.fill(videoRam, 0);
-		Arrays.fill(workRam, 0);
-		Arrays.fill(oam, 0);
-		Arrays.fill(zeroPage, 0);
+		Arrays.fill(videoRam, (byte) 0);
+		Arrays.fill(workRam, (byte) 0);
+		Arrays.fill(oam, (byte) 0);
+		Arrays.fill(zeroPage, (byte) 0);
+		tileDataReplaced();
+	}
+
+	/**
+	 * Saves every RAM region, along with IF, IE, the last OAM DMA source and
+	 * the boot ROM toggle. The cartridge's banks and RAM are saved by its MBC.
+	 */
+	@Override
+	public void saveState(ByteBuffer state) {
+		state.put(videoRam).put(workRam).put(oam).put(zeroPage);
+		state.put((byte) interruptFlag).put((byte) interruptEnable).put((byte) oamDmaSource);
+		SaveState.putBoolean(state, bootRomEnabled);
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		state.get(videoRam).get(workRam).get(oam).get(zeroPage);
+		tileDataReplaced();
+		interruptFlag = state.get() & 0xFF;
+		interruptEnable = state.get() & 0xFF;
+		oamDmaSource = state.get() & 0xFF;
+		toggleBootROM(SaveState.getBoolean(state));
 	}
 
 	/**
@@ -304,5 +534,75 @@ public class MMU {
 	 */
 	public void setMBC(MBC mbc) {
 		this.mbc = mbc;
+		mapCartridge();
+	}
+
+	/**
+	 * Maps the cartridge's ROM banks and external RAM into the page table, for
+	 * the banks currently selected. Runs after every write to the MBC, and has to
+	 * be rerun whenever a different ROM is loaded, which setMBC() does.
+	 */
+	public void mapCartridge() {
+		rom = cartridge.getROM();
+		mapROM(0x00, getROMBankOffset(0x0000));
+		mapROM(0x40, getROMBankOffset(0x4000));
+		// The boot ROM is an array, so it takes priority over the ROM page under it.
+		mapPages(0x00, 0x01, bootRomEnabled ? bootRom : null, 0, false);
+
+		int ramOffset = mbc != null ? mbc.getRAMBankOffset() : -1;
+		if (ramOffset >= 0) {
+			// Writes the MBC tracks, such as for a save file, go through it.
+			boolean tracked = mbc.getRAMWriteListener() != null;
+			mapPages(0xA0, 0x20, tracked ? null : mbc.getRAM(), ramOffset, true);
+			mapPages(0xA0, 0x20, mbc.getRAM(), ramOffset, false);
+		} else {
+			// No RAM, or it's disabled.
+			mapPages(0xA0, 0x20, null, 0, true);
+		}
+	}
+
+	/**
+	 * Points a 16KB ROM window at a bank of the cartridge ROM. Pages past the end
+	 * of the ROM, or every page if there is none, are left unmapped.
+	 * 
+	 * @param firstPage
+	 *            - First page of the window. (address >> 8)
+	 * @param offset
+	 *            - Offset of the bank within the ROM.
+	 */
+	private void mapROM(int firstPage, int offset) {
+		for (int i = 0; i < 0x40; i++) {
+			int pageOffset = offset + (i << 8);
+			boolean fits = rom != null && pageOffset + 0x100 <= rom.size();
+			romOffsets[firstPage + i] = fits ? pageOffset : -1;
+		}
+	}
+
+	/**
+	 * Points a range of pages at an array. Pages that would run past the end of
+	 * the array are left unmapped, so accesses to them are still decoded in full.
+	 * 
+	 * @param firstPage
+	 *            - First page to map. (address >> 8)
+	 * @param pageCount
+	 *            - Number of pages to map.
+	 * @param memory
+	 *            - Array backing the pages, or null to unmap them.
+	 * @param offset
+	 *            - Index of the first page's first byte within the array.
+	 * @param writable
+	 *            - Whether writes go to the array too, rather than only reads.
+	 */
+	private void mapPages(int firstPage, int pageCount, byte[] memory, int offset, boolean writable) {
+		for (int i = 0; i < pageCount; i++) {
+			int pageOffset = offset + (i << 8);
+			boolean fits = memory != null && pageOffset + 0x100 <= memory.length;
+			readPages[firstPage + i] = fits ? memory : null;
+			readOffsets[firstPage + i] = pageOffset;
+			if (writable) {
+				writePages[firstPage + i] = fits ? memory : null;
+				writeOffsets[firstPage + i] = pageOffset;
+			}
+		}
 	}
 }
@@ -0,0 +1,100 @@
+package us.kshadow.gbz80emu.memory;
+
+/**
+ * Fields parsed out of a ROM's header, along with the results of its checks.
+ * Parsed once per {@link RomImage}, and only reading the header itself. The
+ * global checksum over the whole ROM is left to
+ * {@link RomImage#isCartridgeValid()}, which runs it on request.
+ *
+ * @param title
+ *            - Title, all 16 bytes of it including any padding.
+ * @param mbcType
+ *            - Cartridge type, i.e. which MBC it uses. (0x147)
+ * @param romSize
+ *            - ROM size code. (0x148)
+ * @param ramSize
+ *            - External RAM size code. (0x149)
+ * @param logoValid
+ *            - Whether the embedded Nintendo logo matches the normal logo.
+ * @param sgbSupport
+ *            - Whether the ROM has SGB support.
+ * @param headerValid
+ *            - Whether the header checksum matches.
+ * @param multicart
+ *            - Whether the ROM looks like an MBC1 multicart, several games with
+ *            their own headers in 256KB blocks.
+ */
+public record RomHeader(String title, int mbcType, int romSize, int ramSize, boolean logoValid, boolean sgbSupport,
+		boolean headerValid, boolean multicart) {
+
+	// Size of each game in an MBC1 multicart, and of the ROM holding them.
+	private static final int MULTICART_GAME_SIZE = 0x40000;
+	private static final int MULTICART_SIZE = 0x100000;
+
+	// Array of bytes that make up the Nintendo logo.
+	private static final int[] logoArray = new int[]{0xCE, 0xED, 0x66, 0x66, 0xCC, 0x0D, 0x00, 0x0B, 0x03, 0x73, 0x00,
+			0x83, 0x00, 0x0C, 0x00, 0x0D, 0x00, 0x08, 0x11, 0x1F, 0x88, 0x89, 0x00, 0x0E, 0xDC, 0xCC, 0x6E, 0xE6, 0xDD,
+			0xDD, 0xD9, 0x99, 0xBB, 0xBB, 0x67, 0x63, 0x6E, 0x0E, 0xEC, 0xCC, 0xDD, 0xDC, 0x99, 0x9F, 0xBB, 0xB9, 0x33,
+			0x3E};
+
+	/**
+	 * Parses the header of a ROM, and runs the header checksum.
+	 *
+	 * @param rom
+	 *            - The ROM to parse.
+	 * @return The parsed header.
+	 */
+	public static RomHeader parse(RomImage rom) {
+		char[] title = new char[16];
+		for (int i = 0; i < title.length; i++) {
+			title[i] = (char) rom.read(i + 0x134);
+		}
+		return new RomHeader(String.copyValueOf(title), rom.read(0x147), rom.read(0x148), rom.read(0x149),
+				isLogoValid(rom, 0), rom.read(0x146) == 0x03, isHeaderValid(rom), isMulticart(rom));
+	}
+
+	/**
+	 * Multicarts are 1MB, with MBC1 wired so each 256KB block looks like a
+	 * cartridge of its own. The block after the menu starts with a header of
+	 * its own, with the logo, which a single game wouldn't have there.
+	 */
+	private static boolean isMulticart(RomImage rom) {
+		int type = rom.read(0x147);
+		return type >= 0x01 && type <= 0x03 && rom.size() == MULTICART_SIZE
+				&& isLogoValid(rom, MULTICART_GAME_SIZE);
+	}
+
+	private static boolean isLogoValid(RomImage rom, int base) {
+		for (int i = 0; i < logoArray.length; i++) {
+			if (rom.read(base + 0x104 + i) != logoArray[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isHeaderValid(RomImage rom) {
+		int check = 0;
+		for (int i = 0x134; i <= 0x14c; i++) {
+			check = (check - rom.read(i) - 1) & 0xFF;
+		}
+		return (check == rom.read(0x14D));
+	}
+
+	/**
+	 * Runs the global checksum, which sums every byte of the ROM.
+	 *
+	 * @param rom
+	 *            - The ROM to check.
+	 * @return True if the sum matches the one in the header.
+	 */
+	static boolean isCartridgeValid(RomImage rom) {
+		int check = 0;
+		for (int i = 0; i < rom.size(); i++) {
+			check = (check + rom.read(i)) & 0xFFFF;
+		}
+		check = check - rom.read(0x14E) - rom.read(0x14F);
+		int sumInCart = (rom.read(0x14E) << 8) ^ rom.read(0x14F);
+		return (sumInCart == check);
+	}
+}
@@ -0,0 +1,174 @@
+package us.kshadow.gbz80emu.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A ROM file, memory mapped read-only rather than copied onto the heap. The
+ * image never changes once mapped, so any number of cartridges can share one,
+ * and the OS only pages in the banks that actually get read. The parsed
+ * header, content hash and global checksum are worked out once, on first use,
+ * and shared too.
+ * <p>
+ * Bytes are signed in Java, see read() for reading them as unsigned.
+ */
+public final class RomImage {
+
+	// Size of a switchable ROM bank.
+	public static final int BANK_SIZE = 0x4000;
+
+	// Smallest file with a complete header, up to the global checksum.
+	private static final int HEADER_END = 0x150;
+
+	// Header size codes above this are unofficial, and not supported.
+	private static final int MAX_SIZE_CODE = 0x08;
+
+	private final ByteBuffer data;
+	private final int size;
+
+	// Worked out lazily. Racing threads may both compute them, but get equal
+	// results, so there is no need to lock.
+	private volatile RomHeader header;
+	private volatile String contentHash;
+	private volatile Boolean cartridgeValid;
+
+	private RomImage(ByteBuffer data) {
+		this.data = data;
+		this.size = data.capacity();
+	}
+
+	/**
+	 * Maps a ROM file, checking its size against the ROM size in its header.
+	 *
+	 * @param file
+	 *            - The ROM file to map.
+	 * @return The mapped ROM.
+	 * @throws IOException
+	 *             - occurs if there is an issue with the specified file, or its
+	 *             size doesn't match its header
+	 */
+	public static RomImage map(Path file) throws IOException {
+		RomImage image;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File is too large to be a ROM: " + file);
+			}
+			// The mapping stays valid after the channel is closed.
+			image = new RomImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		if (image.size < HEADER_END) {
+			throw new IOException("ROM is too small to have a header: " + file + " (" + image.size + " bytes)");
+		}
+		int sizeCode = image.read(0x148);
+		if (sizeCode > MAX_SIZE_CODE) {
+			throw new IOException("Unsupported ROM size code in header: " + file + " (" + sizeCode + ")");
+		}
+		int expected = (BANK_SIZE * 2) << sizeCode;
+		if (image.size != expected) {
+			throw new IOException("ROM size doesn't match its header: " + file + " (" + image.size + " bytes, header says "
+					+ expected + ")");
+		}
+		return image;
+	}
+
+	/**
+	 * Reads a byte from the image.
+	 *
+	 * @param offset
+	 *            - Offset into the image.
+	 * @return The byte, unsigned.
+	 */
+	public int read(int offset) {
+		return data.get(offset) & 0xFF;
+	}
+
+	/**
+	 * Gets a read-only view of a 16KB ROM bank. The view shares the mapping, so
+	 * nothing is copied.
+	 *
+	 * @param bank
+	 *            - Number of the bank.
+	 * @return The bank, positioned at its first byte.
+	 */
+	public ByteBuffer getBank(int bank) {
+		if (bank < 0 || bank >= getBankCount()) {
+			throw new IllegalArgumentException("ROM has no bank " + bank + ", it has " + getBankCount());
+		}
+		return data.slice(bank * BANK_SIZE, BANK_SIZE);
+	}
+
+	/**
+	 * Gets the parsed header, parsing it on first use.
+	 *
+	 * @return The header.
+	 */
+	public RomHeader getHeader() {
+		RomHeader parsed = header;
+		if (parsed == null) {
+			parsed = RomHeader.parse(this);
+			header = parsed;
+		}
+		return parsed;
+	}
+
+	/**
+	 * Checks the global checksum, summing the whole image on first use. Loading
+	 * a ROM never needs it, as the hardware doesn't check it either.
+	 *
+	 * @return True if the sum matches the one in the header.
+	 */
+	public boolean isCartridgeValid() {
+		Boolean valid = cartridgeValid;
+		if (valid == null) {
+			valid = RomHeader.isCartridgeValid(this);
+			cartridgeValid = valid;
+		}
+		return valid;
+	}
+
+	/**
+	 * Gets the SHA-256 of the image's contents, hashing it on first use.
+	 *
+	 * @return The hash, as lowercase hex.
+	 */
+	public String getContentHash() {
+		String hash = contentHash;
+		if (hash == null) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				// Hashes a duplicate, as the digest moves the buffer's position.
+				digest.update(data.duplicate().clear());
+				hash = HexFormat.of().formatHex(digest.digest());
+			} catch (NoSuchAlgorithmException e) {
+				// Every Java platform is required to support SHA-256.
+				throw new IllegalStateException(e);
+			}
+			contentHash = hash;
+		}
+		return hash;
+	}
+
+	/**
+	 * Gets the number of whole 16KB banks in the image.
+	 *
+	 * @return Bank count.
+	 */
+	public int getBankCount() {
+		return size / BANK_SIZE;
+	}
+
+	/**
+	 * Gets the size of the image.
+	 *
+	 * @return Size in bytes.
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,175 @@
+package us.kshadow.gbz80emu.memory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of mapped ROMs, keyed by the hash of their contents, so
+ * machines running the same title share one {@link RomImage}, along with its
+ * parsed header. Files that were already hashed, and haven't changed since, are
+ * found without touching them beyond a stat.
+ * <p>
+ * Images are reference counted. An image in use is never evicted, while unused
+ * ones are kept around for the next launch, and evicted least recently used
+ * first once the cache is over its memory cap.
+ */
+public final class RomImageCache {
+
+	// System property with the memory cap of the shared cache, in bytes.
+	public static final String CAPACITY_PROPERTY = "gbz80emu.romCache.bytes";
+
+	private static final long DEFAULT_CAPACITY = 256L * 1024 * 1024;
+
+	private static final RomImageCache instance = new RomImageCache(
+			Long.getLong(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+
+	// Identifies a version of a file, so a changed file gets hashed again.
+	private record FileKey(Path file, long size, long modified) {
+	}
+
+	private static final class Entry {
+		private final RomImage image;
+		private int references;
+
+		private Entry(RomImage image) {
+			this.image = image;
+		}
+	}
+
+	// In access order, so iteration starts at the least recently used.
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<FileKey, String> hashesByFile = new HashMap<>();
+	private long capacity;
+	private long cachedBytes;
+
+	/**
+	 * Creates a cache. Most callers want the shared one, see getInstance().
+	 *
+	 * @param capacity
+	 *            - Memory cap in bytes, above which unused images are evicted.
+	 */
+	public RomImageCache(long capacity) {
+		setCapacity(capacity);
+	}
+
+	/**
+	 * Gets the cache shared by the whole process. Its memory cap is read from
+	 * the {@value #CAPACITY_PROPERTY} system property, defaulting to 256MB.
+	 *
+	 * @return The shared cache.
+	 */
+	public static RomImageCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Gets a ROM, mapping it only if no image with the same contents is cached.
+	 * Every call must be paired with a call to release() once the image is no
+	 * longer used.
+	 *
+	 * @param file
+	 *            - The ROM file.
+	 * @return The shared image.
+	 * @throws IOException
+	 *             - occurs if there is an issue with the specified file, or its
+	 *             size doesn't match its header
+	 */
+	public RomImage acquire(Path file) throws IOException {
+		Path absolute = file.toAbsolutePath().normalize();
+		FileKey key = new FileKey(absolute, Files.size(absolute), Files.getLastModifiedTime(absolute).toMillis());
+		synchronized (this) {
+			String hash = hashesByFile.get(key);
+			Entry entry = hash != null ? entries.get(hash) : null;
+			if (entry != null) {
+				entry.references++;
+				return entry.image;
+			}
+		}
+
+		// Maps and hashes outside the lock, so loading one ROM doesn't hold up
+		// machines launching others.
+		RomImage image = RomImage.map(absolute);
+		String hash = image.getContentHash();
+		image.getHeader();
+		synchronized (this) {
+			hashesByFile.put(key, hash);
+			// Another thread may have loaded the same contents meanwhile.
+			Entry entry = entries.computeIfAbsent(hash, h -> {
+				cachedBytes += image.size();
+				return new Entry(image);
+			});
+			entry.references++;
+			evict();
+			return entry.image;
+		}
+	}
+
+	/**
+	 * Gives back an image from acquire(). Once nothing uses it, it may be
+	 * evicted to keep the cache under its memory cap.
+	 *
+	 * @param image
+	 *            - The image to release.
+	 */
+	public synchronized void release(RomImage image) {
+		Entry entry = entries.get(image.getContentHash());
+		if (entry == null || entry.image != image || entry.references == 0) {
+			throw new IllegalArgumentException("Image wasn't acquired from this cache");
+		}
+		entry.references--;
+		evict();
+	}
+
+	/**
+	 * Sets the memory cap, evicting unused images if the cache is over it.
+	 *
+	 * @param capacity
+	 *            - Memory cap in bytes.
+	 */
+	public synchronized void setCapacity(long capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity can't be negative, got: " + capacity);
+		}
+		this.capacity = capacity;
+		evict();
+	}
+
+	/**
+	 * Gets the total size of the cached images, in use or not.
+	 *
+	 * @return Size in bytes.
+	 */
+	public synchronized long getCachedBytes() {
+		return cachedBytes;
+	}
+
+	/**
+	 * Gets the number of cached images, in use or not.
+	 *
+	 * @return Number of images.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Evicts unused images, least recently used first, until the cache is within
+	 * its cap. Images in use stay, even if that leaves the cache over it.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (cachedBytes > capacity && it.hasNext()) {
+			Map.Entry<String, Entry> next = it.next();
+			if (next.getValue().references == 0) {
+				it.remove();
+				cachedBytes -= next.getValue().image.size();
+				hashesByFile.values().removeIf(next.getKey()::equals);
+			}
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package us.kshadow.gbz80emu.memory;
+
+/**
+ * Listener for writes to memory pages being watched by the {@link MMU}.
+ */
+@FunctionalInterface
+public interface WriteListener {
+
+	/**
+	 * Called after a byte has been written to a watched page.
+	 *
+	 * @param address
+	 *            - Address that was written to.
+	 */
+	void onWrite(int address);
+}
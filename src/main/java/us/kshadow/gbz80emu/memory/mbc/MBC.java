@@ -1,12 +1,22 @@
 package us.kshadow.gbz80emu.memory.mbc;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import us.kshadow.gbz80emu.memory.WriteListener;
+import us.kshadow.gbz80emu.state.Stateful;
+
 /**
  * Interface for memory bank controller classes to implement. Allows for moving
  * ROM banking and external RAM handling out of the MMU, and allows for
  * selectively choosing MBC implementations based on the loaded ROM.
+ * <p>
+ * The MBC's save state covers its registers and external RAM. Bank offsets
+ * are worked out again on load, and the MMU has to remap the cartridge.
  *
  */
-public interface MBC {
+public interface MBC extends Stateful {
 
 	/**
 	 * Handle requested reads for ROM based on MBC implementation.
@@ -26,6 +36,71 @@ public interface MBC {
 	 */
 	void handleMBCWriteROM(int address, int value);
 
+	/**
+	 * Gets the offset into the ROM of the bank currently mapped to the 16 KiB
+	 * window containing the address. (0x0000-0x3FFF or 0x4000-0x7FFF)
+	 *
+	 * @param address
+	 *            - requested address within the window
+	 * @return offset of the mapped bank within the ROM
+	 */
+	int getROMBankOffset(int address);
+
+	/**
+	 * Gets the array backing external RAM, for mapping it straight into memory.
+	 *
+	 * @return external RAM, covering every RAM bank
+	 */
+	byte[] getRAM();
+
+	/**
+	 * Gets the offset into external RAM of the bank currently mapped to
+	 * 0xA000-0xBFFF.
+	 *
+	 * @return offset of the mapped bank, or -1 if RAM is disabled or reads and
+	 *         writes there need handling by the MBC
+	 */
+	int getRAMBankOffset();
+
+	/**
+	 * Sets a listener told about every write to external RAM, given the offset
+	 * into getRAM() that was written. While one is set, the MMU leaves RAM
+	 * unmapped for writes, so they all come through handleMBCWriteRAM().
+	 *
+	 * @param ramWriteListener
+	 *            - listener to notify, or null for none
+	 */
+	void setRAMWriteListener(WriteListener ramWriteListener);
+
+	/**
+	 * Gets the listener told about writes to external RAM.
+	 *
+	 * @return the listener, or null if there is none
+	 */
+	WriteListener getRAMWriteListener();
+
+	/**
+	 * Writes the state a battery keeps, external RAM followed by the clock on
+	 * cartridges with one, in the layout of a .sav file.
+	 *
+	 * @param out
+	 *            - stream to write the state to
+	 * @throws IOException
+	 *             - occurs if there is an issue writing to the stream
+	 */
+	void saveBattery(OutputStream out) throws IOException;
+
+	/**
+	 * Restores the state a battery keeps, from what saveBattery() wrote. A
+	 * shorter file only restores as much as it holds.
+	 *
+	 * @param in
+	 *            - stream to read the state from
+	 * @throws IOException
+	 *             - occurs if there is an issue reading from the stream
+	 */
+	void loadBattery(InputStream in) throws IOException;
+
 	/**
 	 * Handle reads for external RAM based on MBC implementation.
 	 *
@@ -1,23 +1,33 @@
 package us.kshadow.gbz80emu.memory.mbc;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import us.kshadow.gbz80emu.memory.Cartridge;
+import us.kshadow.gbz80emu.memory.WriteListener;
+import us.kshadow.gbz80emu.state.SaveState;
 
 /**
  * MBC1 implementation. Tested against Mooneye-GB test suite, and only failing
  * the multi-cart ROM. Multi-cart MBC1 is handled by {@link MBC1M}
+ * <p>
+ * The offsets of the banks mapped to each window are worked out whenever a
+ * register is written, see updateBankOffsets(), so reads only add the offset.
  *
  */
 public class MBC1 implements MBC {
 
 	protected static final Logger logger = LoggerFactory.getLogger(MBC1.class);
 
-	protected static final Cartridge cartridge = Cartridge.getInstance();
+	protected final Cartridge cartridge;
 
 	// 0xA000 - 0xBFFF - External Cart RAM
 	// Sized up array for extra RAM banks. May refactor.
-	protected final int[] extRam = new int[0x8000];
+	protected final byte[] extRam = new byte[0x8000];
 
 	protected boolean extRamEnabled;
 
@@ -27,33 +37,57 @@ public class MBC1 implements MBC {
 
 	protected int mbc1Mode = 0;
 
-	@Override
-	public int handleMBCReadROM(int address) {
-		int currentBank;
-		int correctedBankMask = (int) Math.pow(2, cartridge.getROMSize() + 1.0) - 1;
-
-		switch (address & 0xF000) {
-			case 0x0000, 0x1000, 0x2000, 0x3000 -> {
-				if (mbc1Mode == 1) {
-					currentBank = (bankIndex2 << 5);
-					return cartridge.getROM()[(address & 0x3FFF) + (0x4000 * (currentBank & correctedBankMask))];
-				}
-			}
+	// Mask for bank numbers, from the ROM size in the header.
+	protected final int romBankMask;
+
+	// Offsets into the ROM of the banks mapped to 0x0000-0x3FFF and
+	// 0x4000-0x7FFF, and into external RAM of the bank mapped to 0xA000-0xBFFF.
+	protected int romOffset0;
+	protected int romOffsetX;
+	protected int ramOffset;
+
+	private WriteListener ramWriteListener;
+
+	/**
+	 * Creates the MBC for a cartridge.
+	 * 
+	 * @param cartridge
+	 *            - Cartridge holding the ROM to map.
+	 */
+	public MBC1(Cartridge cartridge) {
+		this.cartridge = cartridge;
+		romBankMask = (2 << cartridge.getROMSize()) - 1;
+		updateBankOffsets();
+	}
 
-			case 0x4000, 0x5000, 0x6000, 0x7000 -> {
-				currentBank = cartridge.getROMSize() >= 5 ? (bankIndex2 << 5) | bankIndex1 : bankIndex1;
+	/**
+	 * Works out the bank offsets for the current register values. Runs after
+	 * every register write.
+	 */
+	protected void updateBankOffsets() {
+		romOffset0 = mbc1Mode == 1 ? 0x4000 * ((bankIndex2 << 5) & romBankMask) : 0;
 
-				if (currentBank == 0x00 || currentBank == 0x20 || currentBank == 0x40 || currentBank == 0x60) {
-					currentBank++;
-				}
+		int currentBank = cartridge.getROMSize() >= 5 ? (bankIndex2 << 5) | bankIndex1 : bankIndex1;
+		if (currentBank == 0x00 || currentBank == 0x20 || currentBank == 0x40 || currentBank == 0x60) {
+			currentBank++;
+		}
+		romOffsetX = 0x4000 * (currentBank & romBankMask);
 
-				return cartridge.getROM()[(address & 0x3FFF) + (0x4000 * (currentBank & correctedBankMask))];
-			}
+		ramOffset = mbc1Mode == 1 && cartridge.getRAMSize() > 2 ? 0x2000 * bankIndex2 : 0;
+	}
 
-			default -> throw new IllegalArgumentException("Unhandled MBC ROM read at address: " + address);
-		}
+	@Override
+	public int handleMBCReadROM(int address) {
+		return cartridge.readROM(getROMBankOffset(address) + (address & 0x3FFF));
+	}
 
-		return cartridge.getROM()[address];
+	@Override
+	public int getROMBankOffset(int address) {
+		return switch (address & 0xC000) {
+			case 0x0000 -> romOffset0;
+			case 0x4000 -> romOffsetX;
+			default -> throw new IllegalArgumentException("Unhandled MBC ROM read at address: " + address);
+		};
 	}
 
 	@Override
@@ -76,17 +110,64 @@ public class MBC1 implements MBC {
 			logger.debug("MBC Mode: {}", value);
 			mbc1Mode = value;
 		}
+
+		updateBankOffsets();
+	}
+
+	@Override
+	public byte[] getRAM() {
+		return extRam;
+	}
+
+	@Override
+	public int getRAMBankOffset() {
+		if (!extRamEnabled) {
+			return -1;
+		}
+		return ramOffset;
+	}
+
+	@Override
+	public void setRAMWriteListener(WriteListener ramWriteListener) {
+		this.ramWriteListener = ramWriteListener;
+	}
+
+	@Override
+	public WriteListener getRAMWriteListener() {
+		return ramWriteListener;
+	}
+
+	@Override
+	public void saveBattery(OutputStream out) throws IOException {
+		out.write(extRam, 0, Math.min(cartridge.getRAMBytes(), extRam.length));
+	}
+
+	@Override
+	public void loadBattery(InputStream in) throws IOException {
+		in.readNBytes(extRam, 0, Math.min(cartridge.getRAMBytes(), extRam.length));
+	}
+
+	@Override
+	public void saveState(ByteBuffer state) {
+		SaveState.putBoolean(state, extRamEnabled);
+		state.put((byte) bankIndex1).put((byte) bankIndex2).put((byte) mbc1Mode);
+		state.put(extRam, 0, Math.min(cartridge.getRAMBytes(), extRam.length));
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		extRamEnabled = SaveState.getBoolean(state);
+		bankIndex1 = state.get() & 0x1F;
+		bankIndex2 = state.get() & 0x03;
+		mbc1Mode = state.get() & 0xFF;
+		state.get(extRam, 0, Math.min(cartridge.getRAMBytes(), extRam.length));
+		updateBankOffsets();
 	}
 
 	@Override
 	public int handleMBCReadRAM(int address) {
 		if (extRamEnabled) {
-			if (mbc1Mode == 1 && cartridge.getRAMSize() > 2) {
-				int translatedAddress = address & 0x1FFF;
-				return extRam[translatedAddress + (0x2000 * bankIndex2)];
-			} else {
-				return extRam[address & 0x1FFF];
-			}
+			return extRam[ramOffset + (address & 0x1FFF)] & 0xFF;
 		}
 
 		return 0xFF;
@@ -95,11 +176,10 @@ public class MBC1 implements MBC {
 	@Override
 	public void handleMBCWriteRAM(int address, int value) {
 		if (extRamEnabled) {
-			if (mbc1Mode == 1 && cartridge.getRAMSize() > 2) {
-				int translatedAddress = address & 0x1FFF;
-				extRam[translatedAddress + (0x2000 * bankIndex2)] = value;
-			} else {
-				extRam[address & 0x1FFF] = value;
+			int offset = ramOffset + (address & 0x1FFF);
+			extRam[offset] = (byte) value;
+			if (ramWriteListener != null) {
+				ramWriteListener.onWrite(offset);
 			}
 		}
 	}
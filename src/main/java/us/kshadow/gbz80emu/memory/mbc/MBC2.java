@@ -0,0 +1,137 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import us.kshadow.gbz80emu.memory.Cartridge;
+import us.kshadow.gbz80emu.memory.WriteListener;
+import us.kshadow.gbz80emu.state.SaveState;
+
+/**
+ * MBC2 implementation. Up to 16 ROM banks, and 512 half bytes of RAM built
+ * into the MBC itself, repeated across 0xA000-0xBFFF. Only the low 4 bits of
+ * RAM exist, the upper ones read as 1s, so RAM is never mapped straight into
+ * memory.
+ */
+public class MBC2 implements MBC {
+
+	private static final int RAM_SIZE = 0x200;
+
+	private final Cartridge cartridge;
+
+	private final byte[] extRam = new byte[RAM_SIZE];
+
+	private final int romBankMask;
+
+	private boolean extRamEnabled;
+
+	private int romOffsetX = 0x4000;
+
+	private WriteListener ramWriteListener;
+
+	/**
+	 * Creates the MBC for a cartridge.
+	 *
+	 * @param cartridge
+	 *            - Cartridge holding the ROM to map.
+	 */
+	public MBC2(Cartridge cartridge) {
+		this.cartridge = cartridge;
+		romBankMask = (2 << cartridge.getROMSize()) - 1;
+	}
+
+	@Override
+	public int handleMBCReadROM(int address) {
+		return cartridge.readROM(getROMBankOffset(address) + (address & 0x3FFF));
+	}
+
+	@Override
+	public int getROMBankOffset(int address) {
+		return switch (address & 0xC000) {
+			case 0x0000 -> 0;
+			case 0x4000 -> romOffsetX;
+			default -> throw new IllegalArgumentException("Unhandled MBC ROM read at address: " + address);
+		};
+	}
+
+	@Override
+	public void handleMBCWriteROM(int address, int value) {
+		if (address > 0x3FFF) {
+			return;
+		}
+		// Bit 8 of the address picks the register.
+		if ((address & 0x100) == 0) {
+			extRamEnabled = ((value & 0xF) == 0xA);
+		} else {
+			int romBank = value & 0x0F;
+			if (romBank == 0) {
+				romBank = 1;
+			}
+			romOffsetX = 0x4000 * (romBank & romBankMask);
+		}
+	}
+
+	@Override
+	public byte[] getRAM() {
+		return extRam;
+	}
+
+	@Override
+	public int getRAMBankOffset() {
+		return -1;
+	}
+
+	@Override
+	public int handleMBCReadRAM(int address) {
+		if (extRamEnabled) {
+			return 0xF0 | (extRam[address & 0x1FF] & 0x0F);
+		}
+		return 0xFF;
+	}
+
+	@Override
+	public void handleMBCWriteRAM(int address, int value) {
+		if (extRamEnabled) {
+			extRam[address & 0x1FF] = (byte) (value & 0x0F);
+			if (ramWriteListener != null) {
+				ramWriteListener.onWrite(address & 0x1FF);
+			}
+		}
+	}
+
+	@Override
+	public void setRAMWriteListener(WriteListener ramWriteListener) {
+		this.ramWriteListener = ramWriteListener;
+	}
+
+	@Override
+	public WriteListener getRAMWriteListener() {
+		return ramWriteListener;
+	}
+
+	@Override
+	public void saveBattery(OutputStream out) throws IOException {
+		out.write(extRam);
+	}
+
+	@Override
+	public void loadBattery(InputStream in) throws IOException {
+		in.readNBytes(extRam, 0, extRam.length);
+	}
+
+	@Override
+	public void saveState(ByteBuffer state) {
+		SaveState.putBoolean(state, extRamEnabled);
+		state.putInt(romOffsetX);
+		state.put(extRam);
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		extRamEnabled = SaveState.getBoolean(state);
+		romOffsetX = state.getInt();
+		state.get(extRam);
+	}
+}
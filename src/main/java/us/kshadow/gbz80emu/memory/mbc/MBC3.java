@@ -0,0 +1,212 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import us.kshadow.gbz80emu.memory.Cartridge;
+import us.kshadow.gbz80emu.memory.WriteListener;
+import us.kshadow.gbz80emu.state.SaveState;
+import us.kshadow.gbz80emu.sysclock.Scheduler;
+
+/**
+ * MBC3 implementation, with up to 8 RAM banks and, on cartridge types 0x0F and
+ * 0x10, a {@link RealTimeClock}. ROMs over 2MB (MBC30) get the eighth ROM bank
+ * bit too.
+ * <p>
+ * Like {@link MBC1}, bank offsets are worked out when registers are written.
+ */
+public class MBC3 implements MBC {
+
+	private static final Logger logger = LoggerFactory.getLogger(MBC3.class);
+
+	private final Cartridge cartridge;
+
+	// Null on cartridges without a clock.
+	private final RealTimeClock rtc;
+
+	// 0xA000 - 0xBFFF - External Cart RAM, every bank of it.
+	private final byte[] extRam;
+
+	private final int romBankMask;
+	private final int ramBankMask;
+
+	private boolean extRamEnabled;
+	private int romBank = 1;
+
+	// RAM bank (0x00-0x07), or clock register (0x08-0x0C) mapped to 0xA000.
+	private int ramSelect = 0;
+
+	// Last value written to the latch register, latching happens on 0 then 1.
+	private int latchValue = -1;
+
+	private int romOffsetX = 0x4000;
+
+	private WriteListener ramWriteListener;
+
+	/**
+	 * Creates the MBC for a cartridge.
+	 *
+	 * @param cartridge
+	 *            - Cartridge holding the ROM to map.
+	 * @param scheduler
+	 *            - System clock, which drives the RTC.
+	 */
+	public MBC3(Cartridge cartridge, Scheduler scheduler) {
+		this.cartridge = cartridge;
+		int type = cartridge.getMBCType();
+		rtc = type == 0x0F || type == 0x10 ? new RealTimeClock(scheduler) : null;
+		extRam = new byte[cartridge.getRAMBytes()];
+		romBankMask = (2 << cartridge.getROMSize()) - 1;
+		ramBankMask = Math.max(extRam.length / 0x2000, 1) - 1;
+	}
+
+	@Override
+	public int handleMBCReadROM(int address) {
+		return cartridge.readROM(getROMBankOffset(address) + (address & 0x3FFF));
+	}
+
+	@Override
+	public int getROMBankOffset(int address) {
+		return switch (address & 0xC000) {
+			case 0x0000 -> 0;
+			case 0x4000 -> romOffsetX;
+			default -> throw new IllegalArgumentException("Unhandled MBC ROM read at address: " + address);
+		};
+	}
+
+	@Override
+	public void handleMBCWriteROM(int address, int value) {
+		switch (address & 0xE000) {
+			case 0x0000 -> extRamEnabled = ((value & 0xF) == 0xA);
+			case 0x2000 -> {
+				// Only MBC30 has the top bit.
+				romBank = value & (romBankMask > 0x7F ? 0xFF : 0x7F);
+				if (romBank == 0) {
+					romBank = 1;
+				}
+				romOffsetX = 0x4000 * (romBank & romBankMask);
+			}
+			case 0x4000 -> {
+				ramSelect = value & 0x0F;
+				logger.debug("MBC RAM Bank: {}", ramSelect);
+			}
+			case 0x6000 -> {
+				if (latchValue == 0 && value == 1 && rtc != null) {
+					rtc.latch();
+				}
+				latchValue = value;
+			}
+			default -> throw new IllegalArgumentException("Unhandled MBC register write at address: " + address);
+		}
+	}
+
+	@Override
+	public byte[] getRAM() {
+		return extRam;
+	}
+
+	@Override
+	public int getRAMBankOffset() {
+		if (!extRamEnabled || ramSelect > 0x07 || extRam.length == 0) {
+			return -1;
+		}
+		return 0x2000 * (ramSelect & ramBankMask);
+	}
+
+	@Override
+	public int handleMBCReadRAM(int address) {
+		if (!extRamEnabled) {
+			return 0xFF;
+		}
+		if (ramSelect >= RealTimeClock.SECONDS) {
+			return rtc != null && ramSelect <= RealTimeClock.DAYS_HIGH ? rtc.read(ramSelect) : 0xFF;
+		}
+		int offset = getRAMBankOffset() + (address & 0x1FFF);
+		return offset >= 0 && offset < extRam.length ? extRam[offset] & 0xFF : 0xFF;
+	}
+
+	@Override
+	public void handleMBCWriteRAM(int address, int value) {
+		if (!extRamEnabled) {
+			return;
+		}
+		if (ramSelect >= RealTimeClock.SECONDS) {
+			if (rtc != null && ramSelect <= RealTimeClock.DAYS_HIGH) {
+				rtc.write(ramSelect, value);
+			}
+			return;
+		}
+		int offset = getRAMBankOffset() + (address & 0x1FFF);
+		if (offset >= 0 && offset < extRam.length) {
+			extRam[offset] = (byte) value;
+			if (ramWriteListener != null) {
+				ramWriteListener.onWrite(offset);
+			}
+		}
+	}
+
+	@Override
+	public void setRAMWriteListener(WriteListener ramWriteListener) {
+		this.ramWriteListener = ramWriteListener;
+	}
+
+	@Override
+	public WriteListener getRAMWriteListener() {
+		return ramWriteListener;
+	}
+
+	@Override
+	public void saveBattery(OutputStream out) throws IOException {
+		out.write(extRam);
+		if (rtc != null) {
+			out.write(rtc.save());
+		}
+	}
+
+	@Override
+	public void loadBattery(InputStream in) throws IOException {
+		in.readNBytes(extRam, 0, extRam.length);
+		if (rtc != null) {
+			byte[] clock = in.readNBytes(RealTimeClock.SAVE_SIZE);
+			if (clock.length == RealTimeClock.SAVE_SIZE) {
+				rtc.load(clock);
+			}
+		}
+	}
+
+	@Override
+	public void saveState(ByteBuffer state) {
+		SaveState.putBoolean(state, extRamEnabled);
+		state.put((byte) romBank).put((byte) ramSelect).putInt(latchValue);
+		state.put(extRam);
+		if (rtc != null) {
+			rtc.saveState(state);
+		}
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		extRamEnabled = SaveState.getBoolean(state);
+		romBank = state.get() & 0xFF;
+		ramSelect = state.get() & 0x0F;
+		latchValue = state.getInt();
+		state.get(extRam);
+		if (rtc != null) {
+			rtc.loadState(state);
+		}
+		romOffsetX = 0x4000 * (romBank & romBankMask);
+	}
+
+	/**
+	 * Gets the real-time clock.
+	 *
+	 * @return The clock, or null if the cartridge has none.
+	 */
+	public RealTimeClock getRTC() {
+		return rtc;
+	}
+}
@@ -0,0 +1,152 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import us.kshadow.gbz80emu.memory.Cartridge;
+import us.kshadow.gbz80emu.memory.WriteListener;
+import us.kshadow.gbz80emu.state.SaveState;
+
+/**
+ * MBC5 implementation, with a 9 bit ROM bank number for up to 8MB of ROM, and
+ * up to 16 RAM banks (128KB). Unlike the other MBCs, bank 0 can be mapped to
+ * 0x4000-0x7FFF too.
+ * <p>
+ * Bank offsets are worked out when registers are written, so reads only add the
+ * offset.
+ */
+public class MBC5 implements MBC {
+
+	private final Cartridge cartridge;
+
+	// 0xA000 - 0xBFFF - External Cart RAM, every bank of it.
+	private final byte[] extRam;
+
+	private final int romBankMask;
+	private final int ramBankMask;
+
+	// Rumble cartridges use bit 3 of the RAM bank number for the motor.
+	private final int ramSelectMask;
+
+	private boolean extRamEnabled;
+	private int romBank = 1;
+	private int ramBank = 0;
+
+	private int romOffsetX = 0x4000;
+	private int ramOffset = 0;
+
+	private WriteListener ramWriteListener;
+
+	/**
+	 * Creates the MBC for a cartridge.
+	 *
+	 * @param cartridge
+	 *            - Cartridge holding the ROM to map.
+	 */
+	public MBC5(Cartridge cartridge) {
+		this.cartridge = cartridge;
+		extRam = new byte[cartridge.getRAMBytes()];
+		romBankMask = (2 << cartridge.getROMSize()) - 1;
+		ramBankMask = Math.max(extRam.length / 0x2000, 1) - 1;
+		int type = cartridge.getMBCType();
+		ramSelectMask = type >= 0x1C && type <= 0x1E ? 0x07 : 0x0F;
+	}
+
+	@Override
+	public int handleMBCReadROM(int address) {
+		return cartridge.readROM(getROMBankOffset(address) + (address & 0x3FFF));
+	}
+
+	@Override
+	public int getROMBankOffset(int address) {
+		return switch (address & 0xC000) {
+			case 0x0000 -> 0;
+			case 0x4000 -> romOffsetX;
+			default -> throw new IllegalArgumentException("Unhandled MBC ROM read at address: " + address);
+		};
+	}
+
+	@Override
+	public void handleMBCWriteROM(int address, int value) {
+		switch (address & 0xF000) {
+			case 0x0000, 0x1000 -> extRamEnabled = ((value & 0xF) == 0xA);
+			case 0x2000 -> romBank = (romBank & 0x100) | value;
+			case 0x3000 -> romBank = ((value & 0x01) << 8) | (romBank & 0xFF);
+			case 0x4000, 0x5000 -> ramBank = value & ramSelectMask;
+			default -> {
+				// 0x6000 - 0x7FFF does nothing on MBC5.
+			}
+		}
+		romOffsetX = 0x4000 * (romBank & romBankMask);
+		ramOffset = 0x2000 * (ramBank & ramBankMask);
+	}
+
+	@Override
+	public byte[] getRAM() {
+		return extRam;
+	}
+
+	@Override
+	public int getRAMBankOffset() {
+		return extRamEnabled && extRam.length > 0 ? ramOffset : -1;
+	}
+
+	@Override
+	public void saveState(ByteBuffer state) {
+		SaveState.putBoolean(state, extRamEnabled);
+		state.putShort((short) romBank).put((byte) ramBank);
+		state.put(extRam);
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		extRamEnabled = SaveState.getBoolean(state);
+		romBank = state.getShort() & 0x1FF;
+		ramBank = state.get() & ramSelectMask;
+		state.get(extRam);
+		romOffsetX = 0x4000 * (romBank & romBankMask);
+		ramOffset = 0x2000 * (ramBank & ramBankMask);
+	}
+
+	@Override
+	public int handleMBCReadRAM(int address) {
+		int offset = ramOffset + (address & 0x1FFF);
+		if (extRamEnabled && offset < extRam.length) {
+			return extRam[offset] & 0xFF;
+		}
+		return 0xFF;
+	}
+
+	@Override
+	public void handleMBCWriteRAM(int address, int value) {
+		int offset = ramOffset + (address & 0x1FFF);
+		if (extRamEnabled && offset < extRam.length) {
+			extRam[offset] = (byte) value;
+			if (ramWriteListener != null) {
+				ramWriteListener.onWrite(offset);
+			}
+		}
+	}
+
+	@Override
+	public void setRAMWriteListener(WriteListener ramWriteListener) {
+		this.ramWriteListener = ramWriteListener;
+	}
+
+	@Override
+	public WriteListener getRAMWriteListener() {
+		return ramWriteListener;
+	}
+
+	@Override
+	public void saveBattery(OutputStream out) throws IOException {
+		out.write(extRam);
+	}
+
+	@Override
+	public void loadBattery(InputStream in) throws IOException {
+		in.readNBytes(extRam, 0, extRam.length);
+	}
+}
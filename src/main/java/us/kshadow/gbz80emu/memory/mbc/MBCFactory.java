@@ -0,0 +1,37 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import us.kshadow.gbz80emu.memory.Cartridge;
+import us.kshadow.gbz80emu.sysclock.Scheduler;
+
+/**
+ * Picks the MBC implementation for a cartridge, from the cartridge type in its
+ * header.
+ */
+public class MBCFactory {
+
+	private MBCFactory() {
+
+	}
+
+	/**
+	 * Creates the MBC a cartridge needs. MBC1 multicarts are detected from the
+	 * ROM's layout, as their header doesn't tell them apart.
+	 *
+	 * @param cartridge
+	 *            - Cartridge with its ROM loaded.
+	 * @param scheduler
+	 *            - System clock, for MBCs with a real-time clock.
+	 * @return The MBC, or null for cartridges without one, or with one that
+	 *         isn't implemented.
+	 */
+	public static MBC create(Cartridge cartridge, Scheduler scheduler) {
+		return switch (cartridge.getMBCType()) {
+			case 0x01, 0x02, 0x03 -> cartridge.isMulticart() ? new MBC1M(cartridge) : new MBC1(cartridge);
+			case 0x05, 0x06 -> new MBC2(cartridge);
+			case 0x0F, 0x10, 0x11, 0x12, 0x13 -> new MBC3(cartridge, scheduler);
+			case 0x19, 0x1A, 0x1B, 0x1C, 0x1D, 0x1E -> new MBC5(cartridge);
+			// ROM only, or unimplemented MBC
+			default -> null;
+		};
+	}
+}
@@ -0,0 +1,201 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import us.kshadow.gbz80emu.state.Stateful;
+import us.kshadow.gbz80emu.sysclock.Scheduler;
+
+/**
+ * The real-time clock of an MBC3 cartridge. Time is kept in emulated cycles
+ * from the system clock rather than wall clock time, so runs stay deterministic
+ * at any speed, and the clock doesn't move while the emulator isn't running.
+ * <p>
+ * Nothing is scheduled for it, the clock only catches up when its registers are
+ * latched or written. Access is synchronized, as the clock may be saved from
+ * another thread while the game runs. That thread can't read the system clock
+ * safely, so saving and loading go by the cycle the emulation thread last
+ * published instead.
+ */
+public class RealTimeClock implements Stateful {
+
+	// Cycles per second of the Game Boy's clock, which the RTC counts in.
+	public static final int CYCLES_PER_SECOND = 4194304;
+
+	// Size of the clock state appended to a .sav file.
+	public static final int SAVE_SIZE = 48;
+
+	// Register numbers, as selected through 0x4000-0x5FFF.
+	public static final int SECONDS = 0x08;
+	public static final int MINUTES = 0x09;
+	public static final int HOURS = 0x0A;
+	public static final int DAYS_LOW = 0x0B;
+	public static final int DAYS_HIGH = 0x0C;
+
+	// Bits of the days high register.
+	private static final int DAY_BIT_8 = 0x01;
+	private static final int HALT = 0x40;
+	private static final int DAY_CARRY = 0x80;
+
+	// Bits each register has, from seconds to days high.
+	private static final int[] REGISTER_MASKS = {0x3F, 0x3F, 0x1F, 0xFF, 0xC1};
+
+	private final Scheduler scheduler;
+
+	// Running clock, from seconds to days high, and the copy the game reads.
+	private final int[] registers = new int[5];
+	private final int[] latched = new int[5];
+
+	// System cycle the running clock was last brought up to date at, and cycles
+	// counted towards the next second.
+	private long syncedCycle;
+	private long subSecondCycles;
+
+	/**
+	 * Creates a clock, starting at day 0, 00:00:00.
+	 *
+	 * @param scheduler
+	 *            - System clock the RTC counts.
+	 */
+	public RealTimeClock(Scheduler scheduler) {
+		this.scheduler = scheduler;
+		syncedCycle = scheduler.getCurrentCycle();
+	}
+
+	/**
+	 * Copies the running clock into the registers the game reads.
+	 */
+	public synchronized void latch() {
+		sync(scheduler.getCurrentCycle());
+		System.arraycopy(registers, 0, latched, 0, registers.length);
+	}
+
+	/**
+	 * Reads a latched clock register.
+	 *
+	 * @param register
+	 *            - Register number. (0x08-0x0C)
+	 * @return The register's value.
+	 */
+	public synchronized int read(int register) {
+		return latched[register - SECONDS];
+	}
+
+	/**
+	 * Writes a running clock register, which also sets the latched copy.
+	 *
+	 * @param register
+	 *            - Register number. (0x08-0x0C)
+	 * @param value
+	 *            - Value to write.
+	 */
+	public synchronized void write(int register, int value) {
+		sync(scheduler.getCurrentCycle());
+		int index = register - SECONDS;
+		registers[index] = value & REGISTER_MASKS[index];
+		latched[index] = registers[index];
+		if (register == SECONDS) {
+			// Writing the seconds restarts the count towards the next one.
+			subSecondCycles = 0;
+		}
+	}
+
+	/**
+	 * Brings the running clock up to a system cycle. Cycles it has already
+	 * counted are never counted again.
+	 */
+	private void sync(long now) {
+		if (now <= syncedCycle) {
+			return;
+		}
+		if ((registers[4] & HALT) == 0) {
+			long cycles = subSecondCycles + (now - syncedCycle);
+			advance(cycles / CYCLES_PER_SECOND);
+			subSecondCycles = cycles % CYCLES_PER_SECOND;
+		}
+		syncedCycle = now;
+	}
+
+	private void advance(long elapsedSeconds) {
+		if (elapsedSeconds == 0) {
+			return;
+		}
+		long total = registers[0] + elapsedSeconds;
+		registers[0] = (int) (total % 60);
+		total = registers[1] + total / 60;
+		registers[1] = (int) (total % 60);
+		total = registers[2] + total / 60;
+		registers[2] = (int) (total % 24);
+		total = (((registers[4] & DAY_BIT_8) << 8) | registers[3]) + total / 24;
+		int flags = registers[4] & (HALT | DAY_CARRY);
+		if (total > 0x1FF) {
+			flags |= DAY_CARRY;
+		}
+		registers[3] = (int) (total & 0xFF);
+		registers[4] = flags | (int) ((total >> 8) & DAY_BIT_8);
+	}
+
+	/**
+	 * Writes the clock in the layout commonly appended to .sav files: the
+	 * running and latched registers as little endian ints, then a timestamp. The
+	 * timestamp is left at 0, as the clock doesn't follow wall clock time. The
+	 * clock is saved as of the last published system cycle.
+	 *
+	 * @return The clock state, {@value #SAVE_SIZE} bytes.
+	 */
+	public synchronized byte[] save() {
+		sync(scheduler.getPublishedCycle());
+		ByteBuffer state = ByteBuffer.allocate(SAVE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for (int register : registers) {
+			state.putInt(register);
+		}
+		for (int register : latched) {
+			state.putInt(register);
+		}
+		return state.putLong(0).array();
+	}
+
+	/**
+	 * Restores the clock from state written by save(). The clock carries on
+	 * from where it was saved, however long ago that was.
+	 *
+	 * @param saved
+	 *            - The clock state, {@value #SAVE_SIZE} bytes.
+	 */
+	public synchronized void load(byte[] saved) {
+		if (saved.length < SAVE_SIZE) {
+			throw new IllegalArgumentException("Clock state must be " + SAVE_SIZE + " bytes, got: " + saved.length);
+		}
+		ByteBuffer state = ByteBuffer.wrap(saved).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] = state.getInt() & REGISTER_MASKS[i];
+		}
+		for (int i = 0; i < latched.length; i++) {
+			latched[i] = state.getInt() & REGISTER_MASKS[i];
+		}
+		syncedCycle = scheduler.getPublishedCycle();
+		subSecondCycles = 0;
+	}
+
+	/**
+	 * Saves the clock as it stands, cycle counts included, unlike save() which
+	 * lets the clock carry on from wherever the system clock is on load.
+	 */
+	@Override
+	public synchronized void saveState(ByteBuffer state) {
+		for (int i = 0; i < registers.length; i++) {
+			state.put((byte) registers[i]).put((byte) latched[i]);
+		}
+		state.putLong(syncedCycle).putLong(subSecondCycles);
+	}
+
+	@Override
+	public synchronized void loadState(ByteBuffer state) {
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] = state.get() & REGISTER_MASKS[i];
+			latched[i] = state.get() & REGISTER_MASKS[i];
+		}
+		syncedCycle = state.getLong();
+		subSecondCycles = state.getLong();
+	}
+}
@@ -0,0 +1,188 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Battery backed RAM persisted to a memory mapped .sav file, laid out as
+ * {@link MBC#saveBattery(java.io.OutputStream)} writes it.
+ * <p>
+ * The game keeps running on the MBC's own RAM array. Writes to it mark their
+ * 256 byte page dirty in a bitmap, and flush() copies only the dirty pages over
+ * to the mapping, either from a background flusher, or when the file is
+ * closed. Anything after the RAM, such as the clock, is written on close.
+ */
+public class SaveFile implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(SaveFile.class);
+
+	public static final int PAGE_SIZE = 0x100;
+
+	private final MBC mbc;
+	private final byte[] ram;
+	private final FileChannel channel;
+	private final MappedByteBuffer mapping;
+
+	// Bytes of the file holding RAM, the rest is state like the clock.
+	private final int ramBytes;
+
+	// One bit per page of RAM. Set by the emulation thread, cleared by flush().
+	private final AtomicLongArray dirtyPages;
+
+	private ScheduledExecutorService flusher;
+
+	/**
+	 * Opens a save file for an MBC's battery backed RAM, loading the MBC from
+	 * it if the file already has anything in it, or creating it from the MBC's
+	 * current state if not. From then on, the MBC reports its RAM writes to the
+	 * file, so the MMU has to remap the cartridge.
+	 *
+	 * @param file
+	 *            - The .sav file.
+	 * @param mbc
+	 *            - MBC whose RAM is saved.
+	 * @throws IOException
+	 *             - occurs if there is an issue with the specified file
+	 */
+	public SaveFile(Path file, MBC mbc) throws IOException {
+		this.mbc = mbc;
+		ram = mbc.getRAM();
+		ByteArrayOutputStream layout = new ByteArrayOutputStream();
+		mbc.saveBattery(layout);
+		int size = layout.size();
+		ramBytes = Math.min(ram.length, size);
+		dirtyPages = new AtomicLongArray((ram.length + PAGE_SIZE * 64 - 1) / (PAGE_SIZE * 64));
+
+		boolean existing = Files.exists(file) && Files.size(file) > 0;
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE);
+		mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		if (existing) {
+			byte[] saved = new byte[size];
+			mapping.get(0, saved);
+			mbc.loadBattery(new ByteArrayInputStream(saved));
+		} else {
+			mapping.put(0, layout.toByteArray());
+		}
+		mbc.setRAMWriteListener(this::markDirty);
+	}
+
+	/**
+	 * Marks the page holding an offset into RAM as needing a flush.
+	 *
+	 * @param offset
+	 *            - Offset into RAM that was written.
+	 */
+	public void markDirty(int offset) {
+		int page = offset / PAGE_SIZE;
+		long bit = 1L << (page & 63);
+		// Most writes land on a page that is already dirty, which needs no CAS.
+		if ((dirtyPages.get(page >> 6) & bit) == 0) {
+			dirtyPages.getAndAccumulate(page >> 6, bit, (bits, set) -> bits | set);
+		}
+	}
+
+	/**
+	 * Marks all of RAM as needing a flush, for when it was replaced as a whole,
+	 * such as by loading a save state.
+	 */
+	public void markAllDirty() {
+		for (int offset = 0; offset < ram.length; offset += PAGE_SIZE) {
+			markDirty(offset);
+		}
+	}
+
+	/**
+	 * Copies every dirty page of RAM to the file. A page written while it's
+	 * being copied is marked dirty again, so it makes the next flush.
+	 */
+	public synchronized void flush() {
+		boolean flushed = false;
+		for (int word = 0; word < dirtyPages.length(); word++) {
+			long bits = dirtyPages.getAndSet(word, 0);
+			while (bits != 0) {
+				int page = (word << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				int offset = page * PAGE_SIZE;
+				if (offset < ramBytes) {
+					mapping.put(offset, ram, offset, Math.min(PAGE_SIZE, ramBytes - offset));
+					flushed = true;
+				}
+			}
+		}
+		if (flushed) {
+			mapping.force();
+		}
+	}
+
+	/**
+	 * Starts flushing dirty pages on a background thread, so the emulation
+	 * thread never waits on the disk.
+	 *
+	 * @param interval
+	 *            - Time between flushes.
+	 */
+	public synchronized void startFlusher(Duration interval) {
+		if (flusher != null) {
+			throw new IllegalStateException("Flusher is already running");
+		}
+		flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "save-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long millis = interval.toMillis();
+		flusher.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the flusher, flushes what's left, writes the state after the RAM,
+	 * and closes the file. The MBC stops reporting writes to it, so the MMU has
+	 * to remap the cartridge.
+	 *
+	 * @throws IOException
+	 *             - occurs if there is an issue writing the file
+	 */
+	@Override
+	public void close() throws IOException {
+		ScheduledExecutorService running;
+		synchronized (this) {
+			running = flusher;
+			flusher = null;
+		}
+		if (running != null) {
+			running.shutdown();
+			try {
+				running.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				logger.error(e.getMessage());
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		synchronized (this) {
+			flush();
+			ByteArrayOutputStream layout = new ByteArrayOutputStream();
+			mbc.saveBattery(layout);
+			mapping.put(ramBytes, layout.toByteArray(), ramBytes, mapping.capacity() - ramBytes);
+			mapping.force();
+			channel.close();
+		}
+		mbc.setRAMWriteListener(null);
+	}
+}
@@ -1,7 +1,12 @@
 package us.kshadow.gbz80emu.processor;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import us.kshadow.gbz80emu.state.SaveState;
+import us.kshadow.gbz80emu.state.Stateful;
 import us.kshadow.gbz80emu.util.BitUtil;
 
 /**
@@ -12,26 +17,39 @@ import us.kshadow.gbz80emu.util.BitUtil;
  * @author Nicholas Bonet
  */
 
-@SuppressWarnings("java:S6548")
-public class CPURegisters {
+public class CPURegisters implements Stateful {
 
-	private static final CPURegisters instance = new CPURegisters();
 	private static final Logger logger = LoggerFactory.getLogger(CPURegisters.class);
 
-	// The 8 basic 8-bit CPU registers.
-	private int a;
-	private int b;
-	private int d;
-	private int h;
-	private int c;
-	private int e;
-	private int l;
+	// Indexes for the 8-bit registers. These follow the order the SM83 uses to
+	// encode registers in its opcodes, so opcode bits can be used as indexes
+	// directly. Index 6 is the (HL) memory operand in that encoding, and isn't
+	// backed by a register.
+	public static final int B = 0;
+	public static final int C = 1;
+	public static final int D = 2;
+	public static final int E = 3;
+	public static final int H = 4;
+	public static final int L = 5;
+	public static final int HL_INDIRECT = 6;
+	public static final int A = 7;
+
+	// Indexes for the 16-bit registers/register pairs.
+	public static final int BC = 0;
+	public static final int DE = 1;
+	public static final int HL = 2;
+	public static final int SP = 3;
+	public static final int AF = 4;
+	public static final int PC = 5;
+
+	// The 8 basic 8-bit CPU registers (minus F), indexed by the constants above.
+	private final int[] registers = new int[8];
 
 	// The interrupt master enable flag
 	private boolean ime;
 
 	// Instance of the flag register.
-	private static final FlagRegister flagRegister = FlagRegister.getInstance();
+	private final FlagRegister flagRegister = new FlagRegister();
 
 	// Program counter register, holds address data for next instruction to be
 	// executed by the CPU.
@@ -40,23 +58,16 @@ public class CPURegisters {
 	// Stack pointer, holds starting addr. of the stack area in memory.
 	private int sp;
 
-	private CPURegisters() {
-	}
-
-	/**
-	 * Return the singleton instance of the CPU's registers.
-	 * 
-	 * @return This CPURegisters instance.
-	 */
-	public static CPURegisters getInstance() {
-		return instance;
+	public CPURegisters() {
+		// Registers start at 0, see setInitValues() for the post boot ROM state.
 	}
 
 	/**
 	 * Simply reset all registers to 0x00.
 	 */
 	public void clearRegisters() {
-		a = b = d = h = c = e = l = pc = sp = 0;
+		Arrays.fill(registers, 0);
+		pc = sp = 0;
 		flagRegister.setFlagsFromByte(0x00);
 	}
 
@@ -64,17 +75,112 @@ public class CPURegisters {
 	 * Simple method for printing register values to console.
 	 */
 	public void print() {
-		String registers = String.format(
-				"A: 0x%X  B: 0x%X  D: 0x%X  H: 0x%X  C: 0x%X  E: 0x%X  L: 0x%X  PC: 0x%X  SP: 0x%X", a, b, d, h, c, e,
-				l, pc, sp);
+		String registerValues = String.format(
+				"A: 0x%X  B: 0x%X  D: 0x%X  H: 0x%X  C: 0x%X  E: 0x%X  L: 0x%X  PC: 0x%X  SP: 0x%X", registers[A],
+				registers[B], registers[D], registers[H], registers[C], registers[E], registers[L], pc, sp);
 		String flags = String.format("[FR]: Zero: %s, Negative: %s, Carry: %s, HalfCarry: %s", getFR().isZ(),
 				getFR().isN(), getFR().isC(), getFR().isH());
-		logger.debug("{} \n {}", registers, flags);
+		logger.debug("{} \n {}", registerValues, flags);
+	}
+
+	/**
+	 * Gets the value of an 8-bit register.
+	 * 
+	 * @param register
+	 *            - Index of the register to read, see {@link #A} through
+	 *            {@link #L}.
+	 * @return Value of the register.
+	 */
+	public int get(int register) {
+		return registers[register];
+	}
+
+	/**
+	 * Sets the value of an 8-bit register. The value is masked to 8 bits.
+	 * 
+	 * @param register
+	 *            - Index of the register to write, see {@link #A} through
+	 *            {@link #L}.
+	 * @param value
+	 *            - Data to be written to register.
+	 */
+	public void set(int register, int value) {
+		registers[register] = value & 0xFF;
+	}
+
+	/**
+	 * Gets the value of a 16-bit register or register pair.
+	 * 
+	 * @param pair
+	 *            - Index of the register pair to read, see {@link #BC} through
+	 *            {@link #PC}.
+	 * @return Value of the register pair.
+	 */
+	public int getPair(int pair) {
+		return switch (pair) {
+			// Move the 8 bits of the high register to the far left, which leaves us 0s on
+			// the right side. We then OR the bits from the low register against it, which
+			// effectively merges the two into a 16-bit number.
+			case BC, DE, HL -> (registers[pair << 1] << 8) | registers[(pair << 1) + 1];
+			case SP -> sp;
+			case AF -> (registers[A] << 8) | flagRegister.getFlagsAsByte();
+			case PC -> pc;
+			default -> throw new IllegalArgumentException("Register read: Invalid register pair " + pair);
+		};
+	}
+
+	/**
+	 * Sets the value of a 16-bit register or register pair. The value is masked
+	 * to 16 bits.
+	 * 
+	 * @param pair
+	 *            - Index of the register pair to write, see {@link #BC} through
+	 *            {@link #PC}.
+	 * @param value
+	 *            - Data to be written to the register pair.
+	 */
+	public void setPair(int pair, int value) {
+		value &= 0xFFFF;
+		switch (pair) {
+			case BC, DE, HL -> {
+				registers[pair << 1] = value >> 8;
+				registers[(pair << 1) + 1] = value & 0xFF;
+			}
+			case SP -> sp = value;
+			case AF -> {
+				registers[A] = value >> 8;
+				flagRegister.setFlagsFromByte(value & 0xFF);
+			}
+			case PC -> pc = value;
+			default -> throw new IllegalArgumentException("Register write: Invalid register pair " + pair);
+		}
+	}
+
+	public int getHL() {
+		return (registers[H] << 8) | registers[L];
+	}
+
+	public void setHL(int value) {
+		registers[H] = (value >> 8) & 0xFF;
+		registers[L] = value & 0xFF;
+	}
+
+	public int getSP() {
+		return sp;
+	}
+
+	public void setSP(int value) {
+		sp = value & 0xFFFF;
+	}
+
+	public void setPC(int value) {
+		pc = value & 0xFFFF;
 	}
 
 	/**
-	 * Method to abstract the individual setters for registers, will be useful when
-	 * mapping opcodes for similar instructions. (less duplication in those moments)
+	 * String based setter for registers, kept around for debugging and tests.
+	 * Instructions should use {@link #set(int, int)} or
+	 * {@link #setPair(int, int)} instead.
 	 * 
 	 * @param register
 	 *            - String of register to write value to.
@@ -89,39 +195,27 @@ public class CPURegisters {
 			BitUtil.checkIsByte(value);
 		}
 		switch (register.toUpperCase()) {
-			case "A" -> this.a = value;
-			case "B" -> this.b = value;
-			case "C" -> this.c = value;
-			case "D" -> this.d = value;
-			case "H" -> this.h = value;
-			case "E" -> this.e = value;
+			case "A" -> set(A, value);
+			case "B" -> set(B, value);
+			case "C" -> set(C, value);
+			case "D" -> set(D, value);
+			case "H" -> set(H, value);
+			case "E" -> set(E, value);
 			case "F" -> flagRegister.setFlagsFromByte(value);
-			case "L" -> this.l = value;
-			case "PC" -> this.pc = value;
-			case "SP" -> this.sp = value;
-			case "AF" -> {
-				a = value >> 8;
-				flagRegister.setFlagsFromByte(value & 0xFF);
-			}
-			case "BC" -> {
-				b = value >> 8;
-				c = value & 0xFF;
-			}
-			case "DE" -> {
-				d = value >> 8;
-				e = value & 0xFF;
-			}
-			case "HL" -> {
-				h = value >> 8;
-				l = value & 0xFF;
-			}
+			case "L" -> set(L, value);
+			case "PC" -> setPair(PC, value);
+			case "SP" -> setPair(SP, value);
+			case "AF" -> setPair(AF, value);
+			case "BC" -> setPair(BC, value);
+			case "DE" -> setPair(DE, value);
+			case "HL" -> setPair(HL, value);
 			default -> throw new IllegalArgumentException("Register write: Invalid register " + register);
 		}
 	}
 
 	/**
-	 * Method to abstract the individual getters for registers, will be useful when
-	 * mapping opcodes for similar instructions. (less duplication in those moments)
+	 * String based getter for registers, kept around for debugging and tests.
+	 * Instructions should use {@link #get(int)} or {@link #getPair(int)} instead.
 	 * 
 	 * @param register
 	 *            - String of register to read value from.
@@ -129,25 +223,20 @@ public class CPURegisters {
 	 */
 	public int read(String register) {
 		return switch (register.toUpperCase()) {
-			case "A" -> this.a;
-			case "B" -> this.b;
-			case "C" -> this.c;
-			case "D" -> this.d;
-			case "H" -> this.h;
-			case "E" -> this.e;
+			case "A" -> get(A);
+			case "B" -> get(B);
+			case "C" -> get(C);
+			case "D" -> get(D);
+			case "H" -> get(H);
+			case "E" -> get(E);
 			case "F" -> flagRegister.getFlagsAsByte();
-			case "L" -> this.l;
-			case "PC" -> this.pc;
-			case "SP" -> this.sp;
-			case "AF" ->
-				// Move the 8 bits of the B register to the far left, which leaves us 0s on the
-				// right side.
-				// We then OR the bits from the C register against B, which effectively merges
-				// the two into a 16-bit number.
-				(a << 8) | flagRegister.getFlagsAsByte();
-			case "BC" -> (b << 8) | c;
-			case "DE" -> (d << 8) | e;
-			case "HL" -> (h << 8) | l;
+			case "L" -> get(L);
+			case "PC" -> getPair(PC);
+			case "SP" -> getPair(SP);
+			case "AF" -> getPair(AF);
+			case "BC" -> getPair(BC);
+			case "DE" -> getPair(DE);
+			case "HL" -> getPair(HL);
 			default -> throw new IllegalArgumentException("Register read: Invalid register " + register);
 		};
 	}
@@ -157,19 +246,19 @@ public class CPURegisters {
 	 * the GB.
 	 */
 	public void setInitValues() {
-		this.write("AF", 0x01B0);
-		this.write("BC", 0x0013);
-		this.write("DE", 0x00D8);
-		this.write("HL", 0x014D);
-		this.write("SP", 0xFFFE);
-		this.write("PC", 0x100);
+		setPair(AF, 0x01B0);
+		setPair(BC, 0x0013);
+		setPair(DE, 0x00D8);
+		setPair(HL, 0x014D);
+		setPair(SP, 0xFFFE);
+		setPair(PC, 0x100);
 	}
 
 	/**
 	 * Increases PC by 1.
 	 */
 	public void incPC() {
-		this.pc++;
+		this.pc = (pc + 1) & 0xFFFF;
 	}
 
 	/**
@@ -198,4 +287,25 @@ public class CPURegisters {
 		this.ime = ime;
 	}
 
+	@Override
+	public void saveState(ByteBuffer state) {
+		for (int register : registers) {
+			state.put((byte) register);
+		}
+		flagRegister.saveState(state);
+		state.putShort((short) pc).putShort((short) sp);
+		SaveState.putBoolean(state, ime);
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] = state.get() & 0xFF;
+		}
+		flagRegister.loadState(state);
+		pc = state.getShort() & 0xFFFF;
+		sp = state.getShort() & 0xFFFF;
+		ime = SaveState.getBoolean(state);
+	}
+
 }
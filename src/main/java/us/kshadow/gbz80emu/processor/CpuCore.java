@@ -0,0 +1,21 @@
+package us.kshadow.gbz80emu.processor;
+
+/**
+ * Strategy for decoding and executing opcodes fetched by the {@link CPU}.
+ * Allows for swapping between CPU core implementations, mostly so they can be
+ * benchmarked against each other.
+ */
+public interface CpuCore {
+
+	/**
+	 * Executes the instruction for an opcode that was just fetched by the CPU.
+	 * Any operands are fetched from the CPU by the core.
+	 *
+	 * @param cpu
+	 *            - The CPU executing the instruction.
+	 * @param opcode
+	 *            - The fetched opcode.
+	 * @return The number of cycles for the executed instruction.
+	 */
+	int execute(CPU cpu, int opcode);
+}
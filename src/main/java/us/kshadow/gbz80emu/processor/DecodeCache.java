@@ -0,0 +1,193 @@
+package us.kshadow.gbz80emu.processor;
+
+import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.memory.RomImage;
+import us.kshadow.gbz80emu.memory.WriteListener;
+
+/**
+ * Cache of decoded instructions, so code that runs more than once doesn't have
+ * to be fetched and decoded through the MMU every time.
+ * <p>
+ * Instructions are cached by where they physically live: the offset into the
+ * cartridge ROM for ROM code, so switching banks simply selects different
+ * entries, or the address itself for code in work RAM and high RAM. RAM pages
+ * holding cached code are watched through the MMU, and entries are dropped as
+ * soon as their bytes are written to. Anything else, including the boot ROM,
+ * is never cached.
+ */
+public class DecodeCache implements WriteListener {
+
+	// Start of the RAM areas that can hold cached code, up to the end of memory.
+	private static final int RAM_START = 0xC000;
+	private static final int MAX_INSTRUCTION_LENGTH = 3;
+
+	private final MMU mmu;
+	private WriteListener writeListener;
+
+	// Cached instructions, split into 256 entry pages by key and only allocated
+	// for pages that actually run code. Sized for the loaded ROM's offsets,
+	// followed by 0xC000-0xFFFF, see getKey().
+	private DecodedInstruction[][] entries;
+
+	// Key of the code at RAM_START, right after the ROM's offsets.
+	private int ramKeyStart;
+
+	/**
+	 * Creates the cache, and registers it with the MMU to hear about writes to
+	 * RAM holding cached code.
+	 *
+	 * @param mmu
+	 *            - MMU to read code from.
+	 */
+	public DecodeCache(MMU mmu) {
+		this.mmu = mmu;
+		mmu.setWriteListener(this);
+		clear();
+	}
+
+	/**
+	 * Gets the decoded instruction at an address, decoding it first if it isn't
+	 * cached yet.
+	 *
+	 * @param address
+	 *            - Address of the instruction.
+	 * @return The decoded instruction, or null if the instruction can't be cached
+	 *         and has to be fetched normally.
+	 */
+	public DecodedInstruction get(int address) {
+		int key = getKey(address);
+		if (key < 0) {
+			return null;
+		}
+		DecodedInstruction[] page = entries[key >> 8];
+		DecodedInstruction instruction = page != null ? page[key & 0xFF] : null;
+		if (instruction == null) {
+			instruction = decode(address);
+			if (instruction != null) {
+				store(address, key, instruction);
+			}
+		}
+		return instruction;
+	}
+
+	private DecodedInstruction decode(int address) {
+		int opcode = mmu.readByte(address);
+		Opcode op = OpcodeTable.get(opcode);
+		if (OpcodeTable.isIllegal(opcode) || address + op.length() > getRegionEnd(address)) {
+			return null;
+		}
+		int operand = switch (op.length()) {
+			case 2 -> mmu.readByte(address + 1);
+			case 3 -> mmu.readWord(address + 1);
+			default -> 0;
+		};
+		int cycles = opcode == 0xCB ? OpcodeTable.getCB(operand).cycles() : op.cycles();
+		return new DecodedInstruction(opcode, operand, op.length(), cycles, op.handler());
+	}
+
+	private void store(int address, int key, DecodedInstruction instruction) {
+		if (entries[key >> 8] == null) {
+			entries[key >> 8] = new DecodedInstruction[0x100];
+		}
+		entries[key >> 8][key & 0xFF] = instruction;
+		if (key >= ramKeyStart) {
+			mmu.setPageWatched(address >> 8, true);
+			mmu.setPageWatched((address + instruction.length() - 1) >> 8, true);
+		}
+	}
+
+	/**
+	 * Sets the listener that is notified about writes to cached code, after the
+	 * cache has dropped its own instructions.
+	 * 
+	 * @param listener
+	 *            - Listener to notify, or null for none.
+	 */
+	public void setWriteListener(WriteListener listener) {
+		this.writeListener = listener;
+	}
+
+	/**
+	 * Drops any cached instructions overlapping the written address.
+	 *
+	 * @param address
+	 *            - Address that was written to.
+	 */
+	@Override
+	public void onWrite(int address) {
+		// Writes to echo RAM land in work RAM.
+		if (address >= 0xE000 && address < 0xFE00) {
+			address -= 0x2000;
+		}
+		// The I/O registers share the last page with high RAM, but never hold code.
+		if (getKey(address) < 0) {
+			return;
+		}
+		int regionStart = address >= 0xFF80 ? 0xFF80 : 0xC000;
+		for (int start = Math.max(address - MAX_INSTRUCTION_LENGTH + 1, regionStart); start <= address; start++) {
+			DecodedInstruction[] page = entries[(ramKeyStart + start - RAM_START) >> 8];
+			if (page != null) {
+				page[start & 0xFF] = null;
+			}
+		}
+		if (writeListener != null) {
+			writeListener.onWrite(address);
+		}
+	}
+
+	/**
+	 * Drops every cached instruction and stops watching their pages, for when a
+	 * different ROM is loaded. The cache is sized for the ROM loaded now.
+	 */
+	public void clear() {
+		RomImage rom = mmu.getROM();
+		ramKeyStart = rom != null ? (rom.size() + 0xFF) & ~0xFF : 0;
+		entries = new DecodedInstruction[(ramKeyStart + 0x10000 - RAM_START) >> 8][];
+		for (int page = 0; page < 0x100; page++) {
+			mmu.setPageWatched(page, false);
+		}
+	}
+
+	/**
+	 * Gets the cache key for the code at an address. Code at two addresses with
+	 * the same key is physically the same code. Keys of ROM code are its offset
+	 * into the ROM, and keys of RAM code follow on after the end of the ROM.
+	 *
+	 * @param address
+	 *            - Address of the code, as seen by the CPU.
+	 * @return The key, or -1 if code at the address is never cached.
+	 */
+	public int getKey(int address) {
+		if (address < 0x8000) {
+			if (address < 0x100 && mmu.isBootROMEnabled()) {
+				return -1;
+			}
+			// Banks past the end of the ROM read as open bus, which isn't worth caching.
+			int key = mmu.getROMBankOffset(address) + (address & 0x3FFF);
+			return key < ramKeyStart ? key : -1;
+		}
+		if ((address >= 0xC000 && address < 0xE000) || (address >= 0xFF80 && address < 0xFFFF)) {
+			return ramKeyStart + address - RAM_START;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the end of the region containing a cacheable address, either a ROM
+	 * bank window or a RAM area. Cached code never runs past it.
+	 *
+	 * @param address
+	 *            - Address to check.
+	 * @return The first address past the region.
+	 */
+	public static int getRegionEnd(int address) {
+		if (address < 0x4000) {
+			return 0x4000;
+		} else if (address < 0x8000) {
+			return 0x8000;
+		} else if (address < 0xE000) {
+			return 0xE000;
+		}
+		return 0xFFFF;
+	}
+}
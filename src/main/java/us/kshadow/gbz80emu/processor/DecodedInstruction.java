@@ -0,0 +1,20 @@
+package us.kshadow.gbz80emu.processor;
+
+/**
+ * A single instruction that has already been fetched and decoded from memory,
+ * as stored in the {@link DecodeCache}.
+ *
+ * @param opcode
+ *            - The opcode byte.
+ * @param operand
+ *            - Immediate operand, or the second opcode byte for CB prefixed
+ *            instructions. 0 if the instruction has none.
+ * @param length
+ *            - Length of the instruction in bytes, including the opcode.
+ * @param cycles
+ *            - Base cycle count, see {@link Opcode#cycles()}.
+ * @param handler
+ *            - Handler that executes the instruction.
+ */
+public record DecodedInstruction(int opcode, int operand, int length, int cycles, OpcodeHandler handler) {
+}
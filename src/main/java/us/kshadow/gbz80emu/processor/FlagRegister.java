@@ -1,18 +1,23 @@
 package us.kshadow.gbz80emu.processor;
 
+import java.nio.ByteBuffer;
+
+import us.kshadow.gbz80emu.state.Stateful;
 import us.kshadow.gbz80emu.util.BitUtil;
 
 /**
  * Abstraction for the flag register used in the CPU, flags set via boolean or
  * by byte input. Flags can be read by boolean or converted to byte output.
+ * <p>
+ * The common 8-bit arithmetic operations can also set flags by handing over
+ * their operands and result. In lazy mode those are only recorded, and the
+ * flags are worked out when something actually reads them. Most of the time the
+ * next operation overwrites them first.
  * 
  * @author Nicholas Bonet
  */
 
-@SuppressWarnings("java:S6548")
-public class FlagRegister {
-
-	private static final FlagRegister instance = new FlagRegister();
+public class FlagRegister implements Stateful {
 
 	private boolean z = false;
 	private boolean n = false;
@@ -24,11 +29,27 @@ public class FlagRegister {
 	private static final int H_POS = 5;
 	private static final int C_POS = 4;
 
-	private FlagRegister() {
-	}
-
-	public static FlagRegister getInstance() {
-		return instance;
+	// Operations that can set flags through setFromOperation.
+	private static final int NONE = 0;
+	public static final int ADD = 1;
+	public static final int ADC = 2;
+	public static final int SUB = 3;
+	public static final int SBC = 4;
+	public static final int AND = 5;
+	public static final int OR = 6; // Also XOR, flags are set the same way.
+	public static final int INC = 7;
+	public static final int DEC = 8;
+
+	// Last operation, whose flags haven't been worked out yet.
+	private int pendingOperation = NONE;
+	private int pendingA;
+	private int pendingB;
+	private int pendingCarry;
+	private int pendingResult;
+	private boolean lazy;
+
+	public FlagRegister() {
+		// All flags start cleared.
 	}
 
 	/**
@@ -39,19 +60,19 @@ public class FlagRegister {
 	public int getFlagsAsByte() {
 		int flagRegister = 0;
 
-		if (z) {
+		if (isZ()) {
 			flagRegister |= 1 << Z_POS;
 		}
 
-		if (n) {
+		if (isN()) {
 			flagRegister |= 1 << N_POS;
 		}
 
-		if (h) {
+		if (isH()) {
 			flagRegister |= 1 << H_POS;
 		}
 
-		if (c) {
+		if (isC()) {
 			flagRegister |= 1 << C_POS;
 		}
 
@@ -65,42 +86,134 @@ public class FlagRegister {
 	 *            - The byte used for setting the flags.
 	 */
 	public void setFlagsFromByte(int flags) {
+		pendingOperation = NONE;
 		z = BitUtil.checkBitSet(flags, Z_POS);
 		n = BitUtil.checkBitSet(flags, N_POS);
 		h = BitUtil.checkBitSet(flags, H_POS);
 		c = BitUtil.checkBitSet(flags, C_POS);
 	}
 
+	/**
+	 * Sets all 4 flags from an 8-bit arithmetic or logic operation. In lazy mode
+	 * this only records the operation, until one of the flags is read.
+	 * 
+	 * @param operation
+	 *            - The operation, see {@link #ADD} through {@link #DEC}.
+	 * @param a
+	 *            - Value of the first operand.
+	 * @param b
+	 *            - Value of the second operand. (1 for INC/DEC)
+	 * @param carry
+	 *            - Carry into the operation for ADC/SBC, or the carry flag to
+	 *            keep for INC/DEC. Either 0 or 1.
+	 * @param result
+	 *            - Result of the operation, masked to 8 bits.
+	 */
+	public void setFromOperation(int operation, int a, int b, int carry, int result) {
+		pendingOperation = operation;
+		pendingA = a;
+		pendingB = b;
+		pendingCarry = carry;
+		pendingResult = result;
+		if (!lazy) {
+			materialize();
+		}
+	}
+
+	/**
+	 * Works out the flags for the pending operation, if any.
+	 */
+	private void materialize() {
+		if (pendingOperation != NONE) {
+			z = isZ();
+			n = isN();
+			h = isH();
+			c = isC();
+			pendingOperation = NONE;
+		}
+	}
+
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * Switches between working out flags right after each operation, and only
+	 * when they are read.
+	 * 
+	 * @param lazy
+	 *            - Whether flags should be worked out lazily.
+	 */
+	public void setLazy(boolean lazy) {
+		materialize();
+		this.lazy = lazy;
+	}
+
 	public boolean isZ() {
-		return z;
+		return pendingOperation == NONE ? z : pendingResult == 0;
 	}
 
 	public void setZ(boolean z) {
+		materialize();
 		this.z = z;
 	}
 
 	public boolean isN() {
-		return n;
+		return switch (pendingOperation) {
+			case NONE -> n;
+			case SUB, SBC, DEC -> true;
+			default -> false;
+		};
 	}
 
 	public void setN(boolean n) {
+		materialize();
 		this.n = n;
 	}
 
 	public boolean isH() {
-		return h;
+		return switch (pendingOperation) {
+			case NONE -> h;
+			case ADD, INC -> (pendingA & 0xF) + (pendingB & 0xF) > 0xF;
+			case ADC -> (pendingA & 0xF) + (pendingB & 0xF) + pendingCarry > 0xF;
+			case SUB, DEC -> (pendingA & 0xF) < (pendingB & 0xF);
+			case SBC -> ((pendingA ^ pendingB ^ pendingResult) & 0x10) != 0;
+			case AND -> true;
+			default -> false;
+		};
 	}
 
 	public void setH(boolean h) {
+		materialize();
 		this.h = h;
 	}
 
 	public boolean isC() {
-		return c;
+		return switch (pendingOperation) {
+			case NONE -> c;
+			case ADD, ADC -> pendingA + pendingB + pendingCarry > 0xFF;
+			case SUB, SBC -> pendingB + pendingCarry > pendingA;
+			case INC, DEC -> pendingCarry == 1;
+			default -> false;
+		};
 	}
 
 	public void setC(boolean c) {
+		materialize();
 		this.c = c;
 	}
 
+	/**
+	 * Saves the flags as F, working out any pending flags first.
+	 */
+	@Override
+	public void saveState(ByteBuffer state) {
+		state.put((byte) getFlagsAsByte());
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		setFlagsFromByte(state.get() & 0xFF);
+	}
+
 }
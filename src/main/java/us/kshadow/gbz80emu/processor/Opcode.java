@@ -0,0 +1,17 @@
+package us.kshadow.gbz80emu.processor;
+
+/**
+ * Description of a single opcode in the {@link OpcodeTable}.
+ *
+ * @param mnemonic
+ *            - Assembly mnemonic, for debugging.
+ * @param length
+ *            - Length of the instruction in bytes, including the opcode.
+ * @param cycles
+ *            - Base cycle count. For conditional instructions this is the
+ *            count when the branch is not taken.
+ * @param handler
+ *            - Handler that executes the instruction.
+ */
+public record Opcode(String mnemonic, int length, int cycles, OpcodeHandler handler) {
+}
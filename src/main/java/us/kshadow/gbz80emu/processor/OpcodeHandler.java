@@ -0,0 +1,20 @@
+package us.kshadow.gbz80emu.processor;
+
+/**
+ * Handler for a single opcode in the {@link OpcodeTable}.
+ */
+@FunctionalInterface
+public interface OpcodeHandler {
+
+	/**
+	 * Executes the instruction.
+	 *
+	 * @param cpu
+	 *            - The CPU executing the instruction.
+	 * @param operand
+	 *            - The immediate operand following the opcode, already fetched
+	 *            according to the opcode's length. (u8 or u16, 0 if none)
+	 * @return The number of cycles taken by the instruction.
+	 */
+	int execute(CPU cpu, int operand);
+}
@@ -0,0 +1,459 @@
+package us.kshadow.gbz80emu.processor;
+
+import us.kshadow.gbz80emu.processor.instructions.ALU;
+import us.kshadow.gbz80emu.processor.instructions.BitShift;
+
+import static us.kshadow.gbz80emu.processor.CPURegisters.*;
+
+/**
+ * Pre-built 256 entry opcode tables for the base and CB prefixed opcode pages.
+ * Most of the SM83 instruction set is regular, encoding registers and
+ * operations in fixed bit fields of the opcode (xx yyy zzz), so the tables are
+ * generated from those fields wherever possible. See
+ * <a href="https://gb-archive.github.io/salvage/decoding_gbz80_opcodes/Decoding%20Gamboy%20Z80%20Opcodes.html">...</a>
+ * for the layout.
+ */
+public class OpcodeTable {
+
+	private static final String[] REGISTER_NAMES = {"B", "C", "D", "E", "H", "L", "(HL)", "A"};
+	private static final String[] PAIR_NAMES = {"BC", "DE", "HL", "SP"};
+	private static final String[] CONDITION_NAMES = {"NZ", "Z", "NC", "C"};
+	private static final String[] ALU_NAMES = {"ADD A,", "ADC A,", "SUB A,", "SBC A,", "AND", "XOR", "OR", "CP"};
+	private static final String[] ROTATE_NAMES = {"RLC", "RRC", "RL", "RR", "SLA", "SRA", "SWAP", "SRL"};
+
+	private static final Opcode[] BASE = new Opcode[256];
+	private static final Opcode[] CB = new Opcode[256];
+	private static final boolean[] ILLEGAL = new boolean[256];
+
+	static {
+		buildBasePage();
+		buildCBPage();
+	}
+
+	private OpcodeTable() {
+	}
+
+	/**
+	 * Gets the description of an opcode from the base page.
+	 *
+	 * @param opcode
+	 *            - Opcode to look up.
+	 * @return The opcode's description and handler.
+	 */
+	public static Opcode get(int opcode) {
+		return BASE[opcode];
+	}
+
+	/**
+	 * Gets the description of an opcode from the CB prefixed page.
+	 *
+	 * @param opcode
+	 *            - Opcode following the CB prefix.
+	 * @return The opcode's description and handler.
+	 */
+	public static Opcode getCB(int opcode) {
+		return CB[opcode];
+	}
+
+	/**
+	 * Checks if an opcode from the base page is one of the unused opcodes.
+	 *
+	 * @param opcode
+	 *            - Opcode to check.
+	 * @return True if the opcode is unused.
+	 */
+	public static boolean isIllegal(int opcode) {
+		return ILLEGAL[opcode];
+	}
+
+	private static void define(Opcode[] page, int opcode, String mnemonic, int length, int cycles,
+			OpcodeHandler handler) {
+		page[opcode] = new Opcode(mnemonic, length, cycles, handler);
+	}
+
+	private static void define(int opcode, String mnemonic, int length, int cycles, OpcodeHandler handler) {
+		define(BASE, opcode, mnemonic, length, cycles, handler);
+		ILLEGAL[opcode] = false;
+	}
+
+	@SuppressWarnings("java:S138")
+	private static void buildBasePage() {
+		// Unused opcodes, these lock up actual hardware.
+		for (int opcode = 0; opcode < 256; opcode++) {
+			int unused = opcode;
+			define(opcode, String.format("ILLEGAL 0x%X", opcode), 1, 0, (cpu, n) -> {
+				throw new IllegalArgumentException(String.format("Unhandled CPU instruction 0x%X", unused));
+			});
+			ILLEGAL[opcode] = true;
+		}
+
+		// x = 0
+		define(0x00, "NOP", 1, 4, (cpu, n) -> 4);
+		define(0x08, "LD (u16), SP", 3, 20, (cpu, n) -> {
+			cpu.getMMU().writeWord(n, cpu.getRegisters().getSP());
+			return 20;
+		});
+		define(0x10, "STOP", 1, 4, (cpu, n) -> {
+			cpu.stop();
+			return 4;
+		});
+		define(0x18, "JR s8", 2, 12, (cpu, n) -> {
+			cpu.getControlFlow().instructJR((byte) n);
+			return 12;
+		});
+		for (int cc = 0; cc < 4; cc++) {
+			int opcode = 0x20 | (cc << 3);
+			define(opcode, "JR " + CONDITION_NAMES[cc] + ", s8", 2, 8,
+					(cpu, n) -> cpu.getControlFlow().instructCondJR(opcode, (byte) n));
+		}
+
+		for (int p = 0; p < 4; p++) {
+			int pair = p;
+			String name = PAIR_NAMES[p];
+			define(0x01 | (p << 4), "LD " + name + ", u16", 3, 12, (cpu, n) -> {
+				cpu.getRegisters().setPair(pair, n);
+				return 12;
+			});
+			define(0x03 | (p << 4), "INC " + name, 1, 8, (cpu, n) -> {
+				cpu.getALU().instructINCu16(pair);
+				return 8;
+			});
+			define(0x09 | (p << 4), "ADD HL, " + name, 1, 8, (cpu, n) -> {
+				cpu.getALU().instructADDu16(pair);
+				return 8;
+			});
+			define(0x0B | (p << 4), "DEC " + name, 1, 8, (cpu, n) -> {
+				cpu.getALU().instructDECu16(pair);
+				return 8;
+			});
+		}
+
+		define(0x02, "LD (BC), A", 1, 8, (cpu, n) -> {
+			cpu.getMMU().writeByte(cpu.getRegisters().getPair(BC), cpu.getRegisters().get(A));
+			return 8;
+		});
+		define(0x12, "LD (DE), A", 1, 8, (cpu, n) -> {
+			cpu.getMMU().writeByte(cpu.getRegisters().getPair(DE), cpu.getRegisters().get(A));
+			return 8;
+		});
+		define(0x22, "LD (HL+), A", 1, 8, (cpu, n) -> {
+			cpu.getMMU().writeByte(cpu.getRegisters().getHL(), cpu.getRegisters().get(A));
+			cpu.getALU().instructINCu16(HL);
+			return 8;
+		});
+		define(0x32, "LD (HL-), A", 1, 8, (cpu, n) -> {
+			cpu.getMMU().writeByte(cpu.getRegisters().getHL(), cpu.getRegisters().get(A));
+			cpu.getALU().instructDECu16(HL);
+			return 8;
+		});
+		define(0x0A, "LD A, (BC)", 1, 8, (cpu, n) -> {
+			cpu.getRegisters().set(A, cpu.getMMU().readByte(cpu.getRegisters().getPair(BC)));
+			return 8;
+		});
+		define(0x1A, "LD A, (DE)", 1, 8, (cpu, n) -> {
+			cpu.getRegisters().set(A, cpu.getMMU().readByte(cpu.getRegisters().getPair(DE)));
+			return 8;
+		});
+		define(0x2A, "LD A, (HL+)", 1, 8, (cpu, n) -> {
+			cpu.getRegisters().set(A, cpu.getMMU().readByte(cpu.getRegisters().getHL()));
+			cpu.getALU().instructINCu16(HL);
+			return 8;
+		});
+		define(0x3A, "LD A, (HL-)", 1, 8, (cpu, n) -> {
+			cpu.getRegisters().set(A, cpu.getMMU().readByte(cpu.getRegisters().getHL()));
+			cpu.getALU().instructDECu16(HL);
+			return 8;
+		});
+
+		for (int r = 0; r < 8; r++) {
+			int register = r;
+			String name = REGISTER_NAMES[r];
+			int cycles = r == HL_INDIRECT ? 12 : 4;
+			define(0x04 | (r << 3), "INC " + name, 1, cycles, (cpu, n) -> {
+				cpu.getALU().instructINCu8(register);
+				return cycles;
+			});
+			define(0x05 | (r << 3), "DEC " + name, 1, cycles, (cpu, n) -> {
+				cpu.getALU().instructDECu8(register);
+				return cycles;
+			});
+		}
+		for (int r = 0; r < 8; r++) {
+			int register = r;
+			if (r == HL_INDIRECT) {
+				define(0x36, "LD (HL), u8", 2, 12, (cpu, n) -> {
+					cpu.getMMU().writeByte(cpu.getRegisters().getHL(), n);
+					return 12;
+				});
+			} else {
+				define(0x06 | (r << 3), "LD " + REGISTER_NAMES[r] + ", u8", 2, 8, (cpu, n) -> {
+					cpu.getRegisters().set(register, n);
+					return 8;
+				});
+			}
+		}
+
+		define(0x07, "RLCA", 1, 4, (cpu, n) -> {
+			cpu.getBitShift().instructRLCA();
+			return 4;
+		});
+		define(0x0F, "RRCA", 1, 4, (cpu, n) -> {
+			cpu.getBitShift().instructRRCA();
+			return 4;
+		});
+		define(0x17, "RLA", 1, 4, (cpu, n) -> {
+			cpu.getBitShift().instructRLA();
+			return 4;
+		});
+		define(0x1F, "RRA", 1, 4, (cpu, n) -> {
+			cpu.getBitShift().instructRRA();
+			return 4;
+		});
+		define(0x27, "DAA", 1, 4, (cpu, n) -> {
+			cpu.getALU().instructDAA();
+			return 4;
+		});
+		define(0x2F, "CPL", 1, 4, (cpu, n) -> {
+			cpu.getALU().instructCPL();
+			return 4;
+		});
+		define(0x37, "SCF", 1, 4, (cpu, n) -> {
+			cpu.getALU().instructSCF();
+			return 4;
+		});
+		define(0x3F, "CCF", 1, 4, (cpu, n) -> {
+			cpu.getALU().instructCCF();
+			return 4;
+		});
+
+		// x = 1, 8-bit loads between registers. LD (HL), (HL) is HALT instead.
+		for (int opcode = 0x40; opcode < 0x80; opcode++) {
+			int dst = (opcode >> 3) & 7;
+			int src = opcode & 7;
+			String mnemonic = "LD " + REGISTER_NAMES[dst] + ", " + REGISTER_NAMES[src];
+			if (dst == HL_INDIRECT && src == HL_INDIRECT) {
+				define(opcode, "HALT", 1, 4, (cpu, n) -> {
+					cpu.setHalted(true);
+					return 4;
+				});
+			} else if (src == HL_INDIRECT) {
+				define(opcode, mnemonic, 1, 8, (cpu, n) -> {
+					cpu.getRegisters().set(dst, cpu.getMMU().readByte(cpu.getRegisters().getHL()));
+					return 8;
+				});
+			} else if (dst == HL_INDIRECT) {
+				define(opcode, mnemonic, 1, 8, (cpu, n) -> {
+					cpu.getMMU().writeByte(cpu.getRegisters().getHL(), cpu.getRegisters().get(src));
+					return 8;
+				});
+			} else {
+				define(opcode, mnemonic, 1, 4, (cpu, n) -> {
+					cpu.getRegisters().set(dst, cpu.getRegisters().get(src));
+					return 4;
+				});
+			}
+		}
+
+		// x = 2, 8-bit arithmetic on A with a register.
+		for (int opcode = 0x80; opcode < 0xC0; opcode++) {
+			int operation = (opcode >> 3) & 7;
+			int src = opcode & 7;
+			String mnemonic = ALU_NAMES[operation] + " " + REGISTER_NAMES[src];
+			if (src == HL_INDIRECT) {
+				define(opcode, mnemonic, 1, 8, (cpu, n) -> {
+					executeALU(cpu.getALU(), operation, cpu.getMMU().readByte(cpu.getRegisters().getHL()));
+					return 8;
+				});
+			} else {
+				define(opcode, mnemonic, 1, 4, (cpu, n) -> {
+					executeALU(cpu.getALU(), operation, cpu.getRegisters().get(src));
+					return 4;
+				});
+			}
+		}
+
+		// x = 3
+		for (int opcode = 0xC6; opcode < 0x100; opcode += 8) {
+			int operation = (opcode >> 3) & 7;
+			define(opcode, ALU_NAMES[operation] + " u8", 2, 8, (cpu, n) -> {
+				executeALU(cpu.getALU(), operation, n);
+				return 8;
+			});
+		}
+		for (int cc = 0; cc < 4; cc++) {
+			int opcode = cc << 3;
+			String condition = CONDITION_NAMES[cc];
+			define(0xC0 | opcode, "RET " + condition, 1, 8, (cpu, n) -> cpu.getControlFlow().instructCondRET(0xC0 | opcode));
+			define(0xC2 | opcode, "JP " + condition + ", u16", 3, 12,
+					(cpu, n) -> cpu.getControlFlow().instructCondJP(0xC2 | opcode, n));
+			define(0xC4 | opcode, "CALL " + condition + ", u16", 3, 12,
+					(cpu, n) -> cpu.getControlFlow().instructCondCALL(0xC4 | opcode, n));
+		}
+		for (int p = 0; p < 4; p++) {
+			// PUSH/POP use AF in place of SP.
+			int pair = p == SP ? AF : p;
+			String name = p == SP ? "AF" : PAIR_NAMES[p];
+			define(0xC1 | (p << 4), "POP " + name, 1, 12, (cpu, n) -> {
+				cpu.getControlFlow().instructPOP(pair);
+				return 12;
+			});
+			define(0xC5 | (p << 4), "PUSH " + name, 1, 16, (cpu, n) -> {
+				cpu.getControlFlow().instructPUSH(pair);
+				return 16;
+			});
+		}
+		for (int y = 0; y < 8; y++) {
+			int opcode = 0xC7 | (y << 3);
+			define(opcode, String.format("RST %02X", y << 3), 1, 16, (cpu, n) -> {
+				cpu.getControlFlow().instructRST(opcode);
+				return 16;
+			});
+		}
+
+		define(0xC3, "JP u16", 3, 16, (cpu, n) -> {
+			cpu.getControlFlow().instructJP(n);
+			return 16;
+		});
+		define(0xC9, "RET", 1, 16, (cpu, n) -> {
+			cpu.getControlFlow().instructRET();
+			return 16;
+		});
+		define(0xCB, "PREFIX CB", 2, 0, (cpu, n) -> CB[n].handler().execute(cpu, 0));
+		define(0xCD, "CALL u16", 3, 24, (cpu, n) -> {
+			cpu.getControlFlow().instructCALL(n);
+			return 24;
+		});
+		define(0xD9, "RETI", 1, 16, (cpu, n) -> {
+			cpu.getControlFlow().instructRETI();
+			return 16;
+		});
+		define(0xE0, "LD ($FF00+u8), A", 2, 12, (cpu, n) -> {
+			cpu.getMMU().writeByte(0xFF00 + n, cpu.getRegisters().get(A));
+			return 12;
+		});
+		define(0xE2, "LD ($FF00+C), A", 1, 8, (cpu, n) -> {
+			cpu.getMMU().writeByte(0xFF00 + cpu.getRegisters().get(C), cpu.getRegisters().get(A));
+			return 8;
+		});
+		define(0xE8, "ADD SP, s8", 2, 16, (cpu, n) -> {
+			cpu.getALU().instructADDSP((byte) n);
+			return 16;
+		});
+		define(0xE9, "JP HL", 1, 4, (cpu, n) -> {
+			cpu.getControlFlow().instructJP(cpu.getRegisters().getHL());
+			return 4;
+		});
+		define(0xEA, "LD (u16), A", 3, 16, (cpu, n) -> {
+			cpu.getMMU().writeByte(n, cpu.getRegisters().get(A));
+			return 16;
+		});
+		define(0xF0, "LD A, ($FF00+u8)", 2, 12, (cpu, n) -> {
+			cpu.getRegisters().set(A, cpu.getMMU().readByte(0xFF00 + n));
+			return 12;
+		});
+		define(0xF2, "LD A, ($FF00+C)", 1, 8, (cpu, n) -> {
+			cpu.getRegisters().set(A, cpu.getMMU().readByte(0xFF00 + cpu.getRegisters().get(C)));
+			return 8;
+		});
+		define(0xF3, "DI", 1, 4, (cpu, n) -> {
+			cpu.getControlFlow().instructDI();
+			return 4;
+		});
+		define(0xF8, "LD HL, SP+s8", 2, 12, (cpu, n) -> {
+			byte value = (byte) n;
+			int sp = cpu.getRegisters().getSP();
+			int result = (sp + value) & 0xFFFF;
+			cpu.getRegisters().setHL(result);
+			cpu.getRegisters().getFR().setZ(false);
+			cpu.getRegisters().getFR().setN(false);
+			cpu.getRegisters().getFR().setC(((sp ^ value ^ result) & 0x100) == 0x100);
+			cpu.getRegisters().getFR().setH(((sp ^ value ^ result) & 0x10) == 0x10);
+			return 12;
+		});
+		define(0xF9, "LD SP, HL", 1, 8, (cpu, n) -> {
+			cpu.getRegisters().setSP(cpu.getRegisters().getHL());
+			return 8;
+		});
+		define(0xFA, "LD A, (u16)", 3, 16, (cpu, n) -> {
+			cpu.getRegisters().set(A, cpu.getMMU().readByte(n));
+			return 16;
+		});
+		define(0xFB, "EI", 1, 4, (cpu, n) -> {
+			cpu.delayEI();
+			return 4;
+		});
+	}
+
+	private static void buildCBPage() {
+		for (int opcode = 0; opcode < 256; opcode++) {
+			int y = (opcode >> 3) & 7;
+			int register = opcode & 7;
+			String name = REGISTER_NAMES[register];
+			boolean indirect = register == HL_INDIRECT;
+			switch (opcode >> 6) {
+				case 0 -> {
+					int cycles = indirect ? 16 : 8;
+					define(CB, opcode, ROTATE_NAMES[y] + " " + name, 2, cycles, (cpu, n) -> {
+						executeRotate(cpu.getBitShift(), y, register);
+						return cycles;
+					});
+				}
+				case 1 -> {
+					int cycles = indirect ? 12 : 8;
+					define(CB, opcode, "BIT " + y + ", " + name, 2, cycles, (cpu, n) -> {
+						cpu.getBitShift().instructBIT(register, y);
+						return cycles;
+					});
+				}
+				case 2 -> {
+					int cycles = indirect ? 16 : 8;
+					define(CB, opcode, "RES " + y + ", " + name, 2, cycles, (cpu, n) -> {
+						cpu.getBitShift().instructRES(register, y);
+						return cycles;
+					});
+				}
+				default -> {
+					int cycles = indirect ? 16 : 8;
+					define(CB, opcode, "SET " + y + ", " + name, 2, cycles, (cpu, n) -> {
+						cpu.getBitShift().instructSET(register, y);
+						return cycles;
+					});
+				}
+			}
+		}
+	}
+
+	/**
+	 * Executes one of the 8 arithmetic/logic operations on register A, in opcode
+	 * order.
+	 */
+	private static void executeALU(ALU alu, int operation, int value) {
+		switch (operation) {
+			case 0 -> alu.instructADD(value);
+			case 1 -> alu.instructADC(value);
+			case 2 -> alu.instructSUB(value, false);
+			case 3 -> alu.instructSBC(value);
+			case 4 -> alu.instructAND(value);
+			case 5 -> alu.instructXOR(value);
+			case 6 -> alu.instructOR(value);
+			default -> alu.instructSUB(value, true);
+		}
+	}
+
+	/**
+	 * Executes one of the 8 rotate/shift operations from the CB page, in opcode
+	 * order.
+	 */
+	private static void executeRotate(BitShift bitShift, int operation, int register) {
+		switch (operation) {
+			case 0 -> bitShift.instructRLC(register);
+			case 1 -> bitShift.instructRRC(register);
+			case 2 -> bitShift.instructRL(register);
+			case 3 -> bitShift.instructRR(register);
+			case 4 -> bitShift.instructSLA(register);
+			case 5 -> bitShift.instructSRA(register);
+			case 6 -> bitShift.instructSWAP(register);
+			default -> bitShift.instructSRL(register);
+		}
+	}
+}
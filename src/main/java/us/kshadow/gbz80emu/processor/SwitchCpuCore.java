@@ -0,0 +1,1995 @@
+package us.kshadow.gbz80emu.processor;
+
+import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.processor.instructions.ALU;
+import us.kshadow.gbz80emu.processor.instructions.BitShift;
+import us.kshadow.gbz80emu.processor.instructions.ControlFlow;
+
+import static us.kshadow.gbz80emu.processor.CPURegisters.*;
+
+/**
+ * The original CPU core, decoding every opcode through one large switch
+ * statement per opcode page. Kept around as a reference for the table driven
+ * {@link TableCpuCore}, and so the two can be benchmarked against each other.
+ * 
+ * @author Nicholas Bonet
+ */
+public class SwitchCpuCore implements CpuCore {
+
+	@Override
+	@SuppressWarnings("java:S1479")
+	public int execute(CPU cpu, int instruction) {
+		CPURegisters reg = cpu.getRegisters();
+		MMU mmu = cpu.getMMU();
+		ALU alu = cpu.getALU();
+		BitShift bitShift = cpu.getBitShift();
+		ControlFlow controlFlow = cpu.getControlFlow();
+		int cycles;
+		switch (instruction) {
+			case 0x00 -> // NOP
+				cycles = 4;
+			case 0x01 -> { // LD BC, u16
+				reg.setPair(BC, cpu.fetchNextWord());
+				cycles = 12;
+			}
+			case 0x02 -> { // LD (BC),A
+				mmu.writeByte(reg.getPair(BC), reg.get(A));
+				cycles = 8;
+			}
+			case 0x03 -> { // INC BC
+				alu.instructINCu16(BC);
+				cycles = 8;
+			}
+			case 0x04 -> { // INC B
+				alu.instructINCu8(B);
+				cycles = 4;
+			}
+			case 0x05 -> { // DEC B
+				alu.instructDECu8(B);
+				cycles = 4;
+			}
+			case 0x06 -> { // LD B, u8
+				reg.set(B, cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0x07 -> { // RLCA
+				bitShift.instructRLCA();
+				cycles = 4;
+			}
+			case 0x08 -> { // LD (u16), SP
+				mmu.writeWord(cpu.fetchNextWord(), reg.getSP());
+				cycles = 20;
+			}
+			case 0x09 -> { // ADD HL, BC
+				alu.instructADDu16(BC);
+				cycles = 8;
+			}
+			case 0x0A -> { // LD A, (BC)
+				reg.set(A, mmu.readByte(reg.getPair(BC)));
+				cycles = 8;
+			}
+			case 0x0B -> { // DEC BC
+				alu.instructDECu16(BC);
+				cycles = 8;
+			}
+			case 0x0C -> { // INC C
+				alu.instructINCu8(C);
+				cycles = 4;
+			}
+			case 0x0D -> { // DEC C
+				alu.instructDECu8(C);
+				cycles = 4;
+			}
+			case 0x0E -> { // LD C, u8
+				reg.set(C, cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0x0F -> { // RRCA
+				bitShift.instructRRCA();
+				cycles = 4;
+			}
+			case 0x10 -> { // STOP
+				// TODO: basic impl, not supporting CGB speed switch currently
+				cpu.stop();
+				cycles = 4;
+			}
+			case 0x11 -> { // LD DE, u16
+				reg.setPair(DE, cpu.fetchNextWord());
+				cycles = 12;
+			}
+			case 0x12 -> { // LD (DE), A
+				mmu.writeByte(reg.getPair(DE), reg.get(A));
+				cycles = 8;
+			}
+			case 0x13 -> { // INC DE
+				alu.instructINCu16(DE);
+				cycles = 8;
+			}
+			case 0x14 -> { // INC D
+				alu.instructINCu8(D);
+				cycles = 4;
+			}
+			case 0x15 -> { // DEC D
+				alu.instructDECu8(D);
+				cycles = 4;
+			}
+			case 0x16 -> { // LD D, u8
+				reg.set(D, cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0x17 -> { // RLA
+				bitShift.instructRLA();
+				cycles = 4;
+			}
+			case 0x18 -> { // JR s8
+				controlFlow.instructJR((byte) cpu.fetchNextByte());
+				cycles = 12;
+			}
+			case 0x19 -> { // ADD HL, DE
+				alu.instructADDu16(DE);
+				cycles = 8;
+			}
+			case 0x1A -> { // LD A, (DE)
+				reg.set(A, mmu.readByte(reg.getPair(DE)));
+				cycles = 8;
+			}
+			case 0x1B -> { // DEC DE
+				alu.instructDECu16(DE);
+				cycles = 8;
+			}
+			case 0x1C -> { // INC E
+				alu.instructINCu8(E);
+				cycles = 4;
+			}
+			case 0x1D -> { // DEC E
+				alu.instructDECu8(E);
+				cycles = 4;
+			}
+			case 0x1E -> { // LD E, u8
+				reg.set(E, cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0x1F -> { // RRA
+				bitShift.instructRRA();
+				cycles = 4;
+			}
+			case 0x27 -> { // DAA
+				alu.instructDAA();
+				cycles = 4;
+			} // JR NZ,s8
+				// JR Z, s8
+				// JR NC,s8
+			case 0x20, 0x28, 0x30, 0x38 -> // JR C, s8
+				cycles = controlFlow.instructCondJR(instruction, (byte) cpu.fetchNextByte());
+			case 0x21 -> { // LD HL,u16
+				reg.setHL(cpu.fetchNextWord());
+				cycles = 12;
+			}
+			case 0x22 -> { // LD (HL+), A
+				mmu.writeByte(reg.getHL(), reg.get(A));
+				alu.instructINCu16(HL);
+				cycles = 8;
+			}
+			case 0x23 -> { // INC HL
+				alu.instructINCu16(HL);
+				cycles = 8;
+			}
+			case 0x24 -> { // INC H
+				alu.instructINCu8(H);
+				cycles = 4;
+			}
+			case 0x25 -> { // DEC H
+				alu.instructDECu8(H);
+				cycles = 4;
+			}
+			case 0x26 -> { // LD H, u8
+				reg.set(H, cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0x29 -> { // ADD HL, HL
+				alu.instructADDu16(HL);
+				cycles = 8;
+			}
+			case 0x2A -> { // LD A, (HL+)
+				reg.set(A, mmu.readByte(reg.getHL()));
+				alu.instructINCu16(HL);
+				cycles = 8;
+			}
+			case 0x2B -> { // DEC HL
+				alu.instructDECu16(HL);
+				cycles = 8;
+			}
+			case 0x2C -> { // INC L
+				alu.instructINCu8(L);
+				cycles = 4;
+			}
+			case 0x2D -> { // DEC L
+				alu.instructDECu8(L);
+				cycles = 4;
+			}
+			case 0x2E -> { // LD L, u8
+				reg.set(L, cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0x2F -> { // CPL
+				alu.instructCPL();
+				cycles = 4;
+			}
+			case 0x31 -> { // LD SP, d16
+				reg.setSP(cpu.fetchNextWord());
+				cycles = 12;
+			}
+			case 0x32 -> { // LD (HL-), A
+				mmu.writeByte(reg.getHL(), reg.get(A));
+				alu.instructDECu16(HL);
+				cycles = 8;
+			}
+			case 0x33 -> { // INC SP
+				alu.instructINCu16(SP);
+				cycles = 8;
+			}
+			case 0x34 -> { // INC (HL)
+				alu.instructINCu8(HL_INDIRECT);
+				cycles = 12;
+			}
+			case 0x35 -> { // DEC (HL)
+				alu.instructDECu8(HL_INDIRECT);
+				cycles = 12;
+			}
+			case 0x36 -> { // LD (HL), u8
+				mmu.writeByte(reg.getHL(), cpu.fetchNextByte());
+				cycles = 12;
+			}
+			case 0x37 -> { // SCF
+				alu.instructSCF();
+				cycles = 4;
+			}
+			case 0x39 -> { // ADD HL, SP
+				alu.instructADDu16(SP);
+				cycles = 8;
+			}
+			case 0x3A -> { // LD A, (HL-)
+				reg.set(A, mmu.readByte(reg.getHL()));
+				alu.instructDECu16(HL);
+				cycles = 8;
+			}
+			case 0x3B -> { // DEC SP
+				alu.instructDECu16(SP);
+				cycles = 8;
+			}
+			case 0x3C -> { // INC A
+				alu.instructINCu8(A);
+				cycles = 4;
+			}
+			case 0x3D -> { // DEC A
+				alu.instructDECu8(A);
+				cycles = 4;
+			}
+			case 0x3E -> { // LD A, u8
+				reg.set(A, cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0x3F -> { // CCF
+				alu.instructCCF();
+				cycles = 4;
+			}
+			case 0x40 -> { // LD B, B
+				reg.set(B, reg.get(B));
+				cycles = 4;
+			}
+			case 0x41 -> { // LD B, C
+				reg.set(B, reg.get(C));
+				cycles = 4;
+			}
+			case 0x42 -> { // LD B, D
+				reg.set(B, reg.get(D));
+				cycles = 4;
+			}
+			case 0x43 -> { // LD B, E
+				reg.set(B, reg.get(E));
+				cycles = 4;
+			}
+			case 0x44 -> { // LD B, H
+				reg.set(B, reg.get(H));
+				cycles = 4;
+			}
+			case 0x45 -> { // LD B, L
+				reg.set(B, reg.get(L));
+				cycles = 4;
+			}
+			case 0x46 -> { // LD B, (HL)
+				reg.set(B, mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x47 -> { // LD B, A
+				reg.set(B, reg.get(A));
+				cycles = 4;
+			}
+			case 0x48 -> { // LD C, B
+				reg.set(C, reg.get(B));
+				cycles = 4;
+			}
+			case 0x49 -> { // LD C, C
+				reg.set(C, reg.get(C));
+				cycles = 4;
+			}
+			case 0x4A -> { // LD C, D
+				reg.set(C, reg.get(D));
+				cycles = 4;
+			}
+			case 0x4B -> { // LD C, E
+				reg.set(C, reg.get(E));
+				cycles = 4;
+			}
+			case 0x4C -> { // LD C, H
+				reg.set(C, reg.get(H));
+				cycles = 4;
+			}
+			case 0x4D -> { // LD C, L
+				reg.set(C, reg.get(L));
+				cycles = 4;
+			}
+			case 0x4E -> { // LD C, (HL)
+				reg.set(C, mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x4F -> { // LD C, A
+				reg.set(C, reg.get(A));
+				cycles = 4;
+			}
+			case 0x50 -> { // LD D, B
+				reg.set(D, reg.get(B));
+				cycles = 4;
+			}
+			case 0x51 -> { // LD D, C
+				reg.set(D, reg.get(C));
+				cycles = 4;
+			}
+			case 0x52 -> { // LD D, D
+				reg.set(D, reg.get(D));
+				cycles = 4;
+			}
+			case 0x53 -> { // LD D, E
+				reg.set(D, reg.get(E));
+				cycles = 4;
+			}
+			case 0x54 -> { // LD D, H
+				reg.set(D, reg.get(H));
+				cycles = 4;
+			}
+			case 0x55 -> { // LD D, L
+				reg.set(D, reg.get(L));
+				cycles = 4;
+			}
+			case 0x56 -> { // LD D, (HL)
+				reg.set(D, mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x57 -> { // LD D, A
+				reg.set(D, reg.get(A));
+				cycles = 4;
+			}
+			case 0x58 -> { // LD E, B
+				reg.set(E, reg.get(B));
+				cycles = 4;
+			}
+			case 0x59 -> { // LD E, C
+				reg.set(E, reg.get(C));
+				cycles = 4;
+			}
+			case 0x5A -> { // LD E, D
+				reg.set(E, reg.get(D));
+				cycles = 4;
+			}
+			case 0x5B -> { // LD E, E
+				reg.set(E, reg.get(E));
+				cycles = 4;
+			}
+			case 0x5C -> { // LD E, H
+				reg.set(E, reg.get(H));
+				cycles = 4;
+			}
+			case 0x5D -> { // LD E, L
+				reg.set(E, reg.get(L));
+				cycles = 4;
+			}
+			case 0x5E -> { // LD E, (HL)
+				reg.set(E, mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x5F -> { // LD E, A
+				reg.set(E, reg.get(A));
+				cycles = 4;
+			}
+			case 0x60 -> { // LD H, B
+				reg.set(H, reg.get(B));
+				cycles = 4;
+			}
+			case 0x61 -> { // LD H, C
+				reg.set(H, reg.get(C));
+				cycles = 4;
+			}
+			case 0x62 -> { // LD H, D
+				reg.set(H, reg.get(D));
+				cycles = 4;
+			}
+			case 0x63 -> { // LD H, E
+				reg.set(H, reg.get(E));
+				cycles = 4;
+			}
+			case 0x64 -> { // LD H, H
+				reg.set(H, reg.get(H));
+				cycles = 4;
+			}
+			case 0x65 -> { // LD H, L
+				reg.set(H, reg.get(L));
+				cycles = 4;
+			}
+			case 0x66 -> { // LD H, (HL)
+				reg.set(H, mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x67 -> { // LD H, A
+				reg.set(H, reg.get(A));
+				cycles = 4;
+			}
+			case 0x68 -> { // LD L, B
+				reg.set(L, reg.get(B));
+				cycles = 4;
+			}
+			case 0x69 -> { // LD L, C
+				reg.set(L, reg.get(C));
+				cycles = 4;
+			}
+			case 0x6A -> { // LD L, D
+				reg.set(L, reg.get(D));
+				cycles = 4;
+			}
+			case 0x6B -> { // LD L, E
+				reg.set(L, reg.get(E));
+				cycles = 4;
+			}
+			case 0x6C -> { // LD L, H
+				reg.set(L, reg.get(H));
+				cycles = 4;
+			}
+			case 0x6D -> { // LD L, L
+				reg.set(L, reg.get(L));
+				cycles = 4;
+			}
+			case 0x6E -> { // LD L, (HL)
+				reg.set(L, mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x6F -> { // LD L, A
+				reg.set(L, reg.get(A));
+				cycles = 4;
+			}
+			case 0x70 -> { // LD (HL), B
+				mmu.writeByte(reg.getHL(), reg.get(B));
+				cycles = 8;
+			}
+			case 0x71 -> { // LD (HL), C
+				mmu.writeByte(reg.getHL(), reg.get(C));
+				cycles = 8;
+			}
+			case 0x72 -> { // LD (HL), D
+				mmu.writeByte(reg.getHL(), reg.get(D));
+				cycles = 8;
+			}
+			case 0x73 -> { // LD (HL), E
+				mmu.writeByte(reg.getHL(), reg.get(E));
+				cycles = 8;
+			}
+			case 0x74 -> { // LD (HL), H
+				mmu.writeByte(reg.getHL(), reg.get(H));
+				cycles = 8;
+			}
+			case 0x75 -> { // LD (HL), L
+				mmu.writeByte(reg.getHL(), reg.get(L));
+				cycles = 8;
+			}
+			case 0x76 -> { // HALT
+				cpu.setHalted(true);
+				cycles = 4;
+			}
+			case 0x77 -> { // LD (HL), A
+				mmu.writeByte(reg.getHL(), reg.get(A));
+				cycles = 8;
+			}
+			case 0x78 -> { // LD A, B
+				reg.set(A, reg.get(B));
+				cycles = 4;
+			}
+			case 0x79 -> { // LD A, C
+				reg.set(A, reg.get(C));
+				cycles = 4;
+			}
+			case 0x7A -> { // LD A, D
+				reg.set(A, reg.get(D));
+				cycles = 4;
+			}
+			case 0x7B -> { // LD A, E
+				reg.set(A, reg.get(E));
+				cycles = 4;
+			}
+			case 0x7C -> { // LD A, H
+				reg.set(A, reg.get(H));
+				cycles = 4;
+			}
+			case 0x7D -> { // LD A, L
+				reg.set(A, reg.get(L));
+				cycles = 4;
+			}
+			case 0x7E -> { // LD A, (HL)
+				reg.set(A, mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x7F -> { // LD A, A
+				reg.set(A, reg.get(A));
+				cycles = 4;
+			}
+			case 0x80 -> { // ADD A, B
+				alu.instructADD(reg.get(B));
+				cycles = 4;
+			}
+			case 0x81 -> { // ADD A, C
+				alu.instructADD(reg.get(C));
+				cycles = 4;
+			}
+			case 0x82 -> { // ADD A, D
+				alu.instructADD(reg.get(D));
+				cycles = 4;
+			}
+			case 0x83 -> { // ADD A, E
+				alu.instructADD(reg.get(E));
+				cycles = 4;
+			}
+			case 0x84 -> { // ADD A, H
+				alu.instructADD(reg.get(H));
+				cycles = 4;
+			}
+			case 0x85 -> { // ADD A, L
+				alu.instructADD(reg.get(L));
+				cycles = 4;
+			}
+			case 0x86 -> { // ADD A, (HL)
+				alu.instructADD(mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x87 -> { // ADD A, A
+				alu.instructADD(reg.get(A));
+				cycles = 4;
+			}
+			case 0x88 -> { // ADC A, B
+				alu.instructADC(reg.get(B));
+				cycles = 4;
+			}
+			case 0x89 -> { // ADC A, C
+				alu.instructADC(reg.get(C));
+				cycles = 4;
+			}
+			case 0x8A -> { // ADC A, D
+				alu.instructADC(reg.get(D));
+				cycles = 4;
+			}
+			case 0x8B -> { // ADC A, E
+				alu.instructADC(reg.get(E));
+				cycles = 4;
+			}
+			case 0x8C -> { // ADC A, H
+				alu.instructADC(reg.get(H));
+				cycles = 4;
+			}
+			case 0x8D -> { // ADC A, L
+				alu.instructADC(reg.get(L));
+				cycles = 4;
+			}
+			case 0x8E -> { // ADC A, (HL)
+				alu.instructADC(mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x8F -> { // ADC A, A
+				alu.instructADC(reg.get(A));
+				cycles = 4;
+			}
+			case 0x90 -> { // SUB A, B
+				alu.instructSUB(reg.get(B), false);
+				cycles = 4;
+			}
+			case 0x91 -> { // SUB A, C
+				alu.instructSUB(reg.get(C), false);
+				cycles = 4;
+			}
+			case 0x92 -> { // SUB A, D
+				alu.instructSUB(reg.get(D), false);
+				cycles = 4;
+			}
+			case 0x93 -> { // SUB A, E
+				alu.instructSUB(reg.get(E), false);
+				cycles = 4;
+			}
+			case 0x94 -> { // SUB A, H
+				alu.instructSUB(reg.get(H), false);
+				cycles = 4;
+			}
+			case 0x95 -> { // SUB A, L
+				alu.instructSUB(reg.get(L), false);
+				cycles = 4;
+			}
+			case 0x96 -> { // SUB A, (HL)
+				alu.instructSUB(mmu.readByte(reg.getHL()), false);
+				cycles = 8;
+			}
+			case 0x97 -> { // SUB A, A
+				alu.instructSUB(reg.get(A), false);
+				cycles = 4;
+			}
+			case 0x98 -> { // SBC B
+				alu.instructSBC(reg.get(B));
+				cycles = 4;
+			}
+			case 0x99 -> { // SBC C
+				alu.instructSBC(reg.get(C));
+				cycles = 4;
+			}
+			case 0x9A -> { // SBC D
+				alu.instructSBC(reg.get(D));
+				cycles = 4;
+			}
+			case 0x9B -> { // SBC E
+				alu.instructSBC(reg.get(E));
+				cycles = 4;
+			}
+			case 0x9C -> { // SBC H
+				alu.instructSBC(reg.get(H));
+				cycles = 4;
+			}
+			case 0x9D -> { // SBC L
+				alu.instructSBC(reg.get(L));
+				cycles = 4;
+			}
+			case 0x9E -> { // SBC (HL)
+				alu.instructSBC(mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0x9F -> { // SBC A
+				alu.instructSBC(reg.get(A));
+				cycles = 4;
+			}
+			case 0xA0 -> { // AND B
+				alu.instructAND(reg.get(B));
+				cycles = 4;
+			}
+			case 0xA1 -> { // AND C
+				alu.instructAND(reg.get(C));
+				cycles = 4;
+			}
+			case 0xA2 -> { // AND D
+				alu.instructAND(reg.get(D));
+				cycles = 4;
+			}
+			case 0xA3 -> { // AND E
+				alu.instructAND(reg.get(E));
+				cycles = 4;
+			}
+			case 0xA4 -> { // AND H
+				alu.instructAND(reg.get(H));
+				cycles = 4;
+			}
+			case 0xA5 -> { // AND L
+				alu.instructAND(reg.get(L));
+				cycles = 4;
+			}
+			case 0xA6 -> { // AND (HL)
+				alu.instructAND(mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0xA7 -> { // AND A
+				alu.instructAND(reg.get(A));
+				cycles = 4;
+			}
+			case 0xA8 -> { // XOR A, B
+				alu.instructXOR(reg.get(B));
+				cycles = 4;
+			}
+			case 0xAB -> { // XOR A, E
+				alu.instructXOR(reg.get(E));
+				cycles = 4;
+			}
+			case 0xAC -> { // XOR A, H
+				alu.instructXOR(reg.get(H));
+				cycles = 4;
+			}
+			case 0xAD -> { // XOR A, L
+				alu.instructXOR(reg.get(L));
+				cycles = 4;
+			}
+			case 0xAE -> { // XOR A, (HL)
+				alu.instructXOR(mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0xA9 -> { // XOR A, C
+				alu.instructXOR(reg.get(C));
+				cycles = 4;
+			}
+			case 0xAA -> { // XOR D
+				alu.instructXOR(reg.get(D));
+				cycles = 4;
+			}
+			case 0xAF -> { // XOR A
+				alu.instructXOR(reg.get(A));
+				cycles = 4;
+			}
+			case 0xB0 -> { // OR A, B
+				alu.instructOR(reg.get(B));
+				cycles = 4;
+			}
+			case 0xB1 -> { // OR A, C
+				alu.instructOR(reg.get(C));
+				cycles = 4;
+			}
+			case 0xB2 -> { // OR A, D
+				alu.instructOR(reg.get(D));
+				cycles = 4;
+			}
+			case 0xB3 -> { // OR A, E
+				alu.instructOR(reg.get(E));
+				cycles = 4;
+			}
+			case 0xB4 -> { // OR A, H
+				alu.instructOR(reg.get(H));
+				cycles = 4;
+			}
+			case 0xB5 -> { // OR A, L
+				alu.instructOR(reg.get(L));
+				cycles = 4;
+			}
+			case 0xB6 -> { // OR A, (HL)
+				alu.instructOR(mmu.readByte(reg.getHL()));
+				cycles = 8;
+			}
+			case 0xB7 -> { // OR A, A
+				alu.instructOR(reg.get(A));
+				cycles = 4;
+			}
+			case 0xB8 -> { // CP A, B
+				alu.instructSUB(reg.get(B), true);
+				cycles = 4;
+			}
+			case 0xB9 -> { // CP A, C
+				alu.instructSUB(reg.get(C), true);
+				cycles = 4;
+			}
+			case 0xBA -> { // CP A, D
+				alu.instructSUB(reg.get(D), true);
+				cycles = 4;
+			}
+			case 0xBB -> { // CP A, E
+				alu.instructSUB(reg.get(E), true);
+				cycles = 4;
+			}
+			case 0xBC -> { // CP A, H
+				alu.instructSUB(reg.get(H), true);
+				cycles = 4;
+			}
+			case 0xBD -> { // CP A, L
+				alu.instructSUB(reg.get(L), true);
+				cycles = 4;
+			}
+			case 0xBE -> { // CP A, (HL)
+				alu.instructSUB(mmu.readByte(reg.getHL()), true);
+				cycles = 8;
+			}
+			case 0xBF -> { // CP A, A
+				alu.instructSUB(reg.get(A), true);
+				cycles = 4;
+			}
+			case 0xC1 -> { // POP BC
+				controlFlow.instructPOP(BC);
+				cycles = 12;
+			}
+			case 0xC3 -> { // JP u16
+				controlFlow.instructJP(cpu.fetchNextWord());
+				cycles = 16;
+			} // CALL Z, u16
+				// CALL NZ, u16
+				// CALL NC, u16
+			case 0xCC, 0xC4, 0xD4, 0xDC -> // CALL C, u16
+				cycles = controlFlow.instructCondCALL(instruction, cpu.fetchNextWord());
+			case 0xC5 -> { // PUSH BC
+				controlFlow.instructPUSH(BC);
+				cycles = 16;
+			}
+			case 0xC6 -> { // ADD A, u8
+				alu.instructADD(cpu.fetchNextByte());
+				cycles = 8;
+			} // RST 00
+				// RST 08
+				// RST 10
+				// RST 18
+				// RST 20
+				// RST 28
+				// RST 30
+			case 0xC7, 0xCF, 0xD7, 0xDF, 0xE7, 0xEF, 0xF7, 0xFF -> {// RST 38
+				controlFlow.instructRST(instruction);
+				cycles = 16;
+			}
+			case 0xC9 -> { // RET
+				controlFlow.instructRET();
+				cycles = 16;
+			} // JP NZ, u16
+				// JP Z, u16
+				// JP NC, u16
+			case 0xC2, 0xCA, 0xD2, 0xDA -> // JP C, u16
+				cycles = controlFlow.instructCondJP(instruction, cpu.fetchNextWord());
+			case 0xCB -> // send to CB handling function
+				cycles = nextCBInstruction(cpu);
+			case 0xCD -> { // CALL u16
+				controlFlow.instructCALL(cpu.fetchNextWord());
+				cycles = 24;
+			}
+			case 0xCE -> { // ADC A, u8
+				alu.instructADC(cpu.fetchNextByte());
+				cycles = 8;
+			} // RET Z
+				// RET NZ
+				// RET C
+			case 0xC8, 0xC0, 0xD8, 0xD0 -> // RET NC
+				cycles = controlFlow.instructCondRET(instruction);
+			case 0xD1 -> { // POP DE
+				controlFlow.instructPOP(DE);
+				cycles = 12;
+			}
+			case 0xD5 -> { // PUSH DE
+				controlFlow.instructPUSH(DE);
+				cycles = 16;
+			}
+			case 0xD6 -> { // SUB A, u8
+				alu.instructSUB(cpu.fetchNextByte(), false);
+				cycles = 8;
+			}
+			case 0xD9 -> { // RETI
+				controlFlow.instructRETI();
+				cycles = 16;
+			}
+			case 0xDE -> { // SBC A, u8
+				alu.instructSBC(cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0xE0 -> { // LD ($FF00+n), A
+				mmu.writeByte(0xFF00 + cpu.fetchNextByte(), reg.get(A));
+				cycles = 12;
+			}
+			case 0xE1 -> { // POP HL
+				controlFlow.instructPOP(HL);
+				cycles = 12;
+			}
+			case 0xE2 -> { // LD ($FF00+C), A
+				mmu.writeByte(0xFF00 + reg.get(C), reg.get(A));
+				cycles = 8;
+			}
+			case 0xE5 -> { // PUSH HL
+				controlFlow.instructPUSH(HL);
+				cycles = 16;
+			}
+			case 0xE6 -> { // AND A, u8
+				alu.instructAND(cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0xE8 -> { // ADD SP, s8
+				alu.instructADDSP((byte) cpu.fetchNextByte());
+				cycles = 16;
+			}
+			case 0xE9 -> { // JP HL
+				controlFlow.instructJP(reg.getHL());
+				cycles = 4;
+			}
+			case 0xEA -> { // LD (u16), A
+				mmu.writeByte(cpu.fetchNextWord(), reg.get(A));
+				cycles = 16;
+			}
+			case 0xEE -> { // XOR A, u8
+				alu.instructXOR(cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0xF0 -> { // LD A, ($FF00+n)
+				reg.set(A, mmu.readByte(0xFF00 + cpu.fetchNextByte()));
+				cycles = 12;
+			}
+			case 0xF1 -> { // POP AF
+				controlFlow.instructPOP(AF);
+				cycles = 12;
+			}
+			case 0xF2 -> { // LD A, (FF00+C)
+				reg.set(A, mmu.readByte(reg.get(C) + 0xFF00));
+				cycles = 8;
+			}
+			case 0xF3 -> { // DI
+				controlFlow.instructDI();
+				cycles = 4;
+			}
+			case 0xF5 -> { // PUSH AF
+				controlFlow.instructPUSH(AF);
+				cycles = 16;
+			}
+			case 0xF6 -> { // OR A, u8
+				alu.instructOR(cpu.fetchNextByte());
+				cycles = 8;
+			}
+			case 0xF8 -> { // LD HL, SP+s8
+				byte value = (byte) cpu.fetchNextByte();
+				int sp = reg.getSP();
+				int result = (sp + value) & 0xFFFF;
+				reg.setHL(result);
+				reg.getFR().setZ(false);
+				reg.getFR().setN(false);
+				reg.getFR().setC(((sp ^ value ^ result) & 0x100) == 0x100);
+				reg.getFR().setH(((sp ^ value ^ result) & 0x10) == 0x10);
+				cycles = 12;
+			}
+			case 0xF9 -> { // LD SP, HL
+				reg.setSP(reg.getHL());
+				cycles = 8;
+			}
+			case 0xFA -> { // LD A, (u16)
+				reg.set(A, mmu.readByte(cpu.fetchNextWord()));
+				cycles = 16;
+			}
+			case 0xFB -> { // EI
+				cpu.delayEI();
+				cycles = 4;
+			}
+			case 0xFE -> { // CP A, u8
+				alu.instructSUB(cpu.fetchNextByte(), true);
+				cycles = 8;
+			}
+			default ->
+				throw new IllegalArgumentException(String.format("Unhandled CPU instruction 0x%X", instruction));
+		}
+		return cycles;
+	}
+
+	/**
+	 * Fetches the next byte in memory and executes the associated CB instruction.
+	 * 
+	 * @param cpu
+	 *            - CPU to fetch the CB opcode from.
+	 * 
+	 * @return The number of cycles for the executed CB instruction.
+	 */
+	@SuppressWarnings("java:S1479")
+	private int nextCBInstruction(CPU cpu) {
+		BitShift bitShift = cpu.getBitShift();
+		int instruction = cpu.fetchNextByte();
+		int cycles;
+		switch (instruction) {
+			case 0x00 -> { // RLC B
+				bitShift.instructRLC(B);
+				cycles = 8;
+			}
+			case 0x01 -> { // RLC C
+				bitShift.instructRLC(C);
+				cycles = 8;
+			}
+			case 0x02 -> { // RLC D
+				bitShift.instructRLC(D);
+				cycles = 8;
+			}
+			case 0x03 -> { // RLC E
+				bitShift.instructRLC(E);
+				cycles = 8;
+			}
+			case 0x04 -> { // RLC H
+				bitShift.instructRLC(H);
+				cycles = 8;
+			}
+			case 0x05 -> { // RLC L
+				bitShift.instructRLC(L);
+				cycles = 8;
+			}
+			case 0x06 -> { // RLC (HL)
+				bitShift.instructRLC(HL_INDIRECT);
+				cycles = 16;
+			}
+			case 0x07 -> { // RLC A
+				bitShift.instructRLC(A);
+				cycles = 8;
+			}
+			case 0x08 -> { // RRC B
+				bitShift.instructRRC(B);
+				cycles = 8;
+			}
+			case 0x09 -> { // RRC C
+				bitShift.instructRRC(C);
+				cycles = 8;
+			}
+			case 0x0A -> { // RRC D
+				bitShift.instructRRC(D);
+				cycles = 8;
+			}
+			case 0x0B -> { // RRC E
+				bitShift.instructRRC(E);
+				cycles = 8;
+			}
+			case 0x0C -> { // RRC H
+				bitShift.instructRRC(H);
+				cycles = 8;
+			}
+			case 0x0D -> { // RRC L
+				bitShift.instructRRC(L);
+				cycles = 8;
+			}
+			case 0x0E -> { // RRC (HL)
+				bitShift.instructRRC(HL_INDIRECT);
+				cycles = 16;
+			}
+			case 0x0F -> { // RRC A
+				bitShift.instructRRC(A);
+				cycles = 8;
+			}
+			case 0x10 -> { // RL B
+				bitShift.instructRL(B);
+				cycles = 8;
+			}
+			case 0x11 -> { // RL C
+				bitShift.instructRL(C);
+				cycles = 8;
+			}
+			case 0x12 -> { // RL D
+				bitShift.instructRL(D);
+				cycles = 8;
+			}
+			case 0x13 -> { // RL E
+				bitShift.instructRL(E);
+				cycles = 8;
+			}
+			case 0x14 -> { // RL H
+				bitShift.instructRL(H);
+				cycles = 8;
+			}
+			case 0x15 -> { // RL L
+				bitShift.instructRL(L);
+				cycles = 8;
+			}
+			case 0x16 -> { // RL (HL)
+				bitShift.instructRL(HL_INDIRECT);
+				cycles = 16;
+			}
+			case 0x17 -> { // RL A
+				bitShift.instructRL(A);
+				cycles = 8;
+			}
+			case 0x18 -> { // RR B
+				bitShift.instructRR(B);
+				cycles = 8;
+			}
+			case 0x19 -> { // RR C
+				bitShift.instructRR(C);
+				cycles = 8;
+			}
+			case 0x1A -> { // RR D
+				bitShift.instructRR(D);
+				cycles = 8;
+			}
+			case 0x1B -> { // RR E
+				bitShift.instructRR(E);
+				cycles = 8;
+			}
+			case 0x1C -> { // RR H
+				bitShift.instructRR(H);
+				cycles = 8;
+			}
+			case 0x1D -> { // RR L
+				bitShift.instructRR(L);
+				cycles = 8;
+			}
+			case 0x1E -> { // RR (HL)
+				bitShift.instructRR(HL_INDIRECT);
+				cycles = 16;
+			}
+			case 0x1F -> { // RR A
+				bitShift.instructRR(A);
+				cycles = 8;
+			}
+			case 0x20 -> { // SLA B
+				bitShift.instructSLA(B);
+				cycles = 8;
+			}
+			case 0x21 -> { // SLA C
+				bitShift.instructSLA(C);
+				cycles = 8;
+			}
+			case 0x22 -> { // SLA D
+				bitShift.instructSLA(D);
+				cycles = 8;
+			}
+			case 0x23 -> { // SLA E
+				bitShift.instructSLA(E);
+				cycles = 8;
+			}
+			case 0x24 -> { // SLA H
+				bitShift.instructSLA(H);
+				cycles = 8;
+			}
+			case 0x25 -> { // SLA L
+				bitShift.instructSLA(L);
+				cycles = 8;
+			}
+			case 0x26 -> { // SLA (HL)
+				bitShift.instructSLA(HL_INDIRECT);
+				cycles = 16;
+			}
+			case 0x27 -> { // SLA A
+				bitShift.instructSLA(A);
+				cycles = 8;
+			}
+			case 0x28 -> { // SRA B
+				bitShift.instructSRA(B);
+				cycles = 8;
+			}
+			case 0x29 -> { // SRA C
+				bitShift.instructSRA(C);
+				cycles = 8;
+			}
+			case 0x2A -> { // SRA D
+				bitShift.instructSRA(D);
+				cycles = 8;
+			}
+			case 0x2B -> { // SRA E
+				bitShift.instructSRA(E);
+				cycles = 8;
+			}
+			case 0x2C -> { // SRA H
+				bitShift.instructSRA(H);
+				cycles = 8;
+			}
+			case 0x2D -> { // SRA L
+				bitShift.instructSRA(L);
+				cycles = 8;
+			}
+			case 0x2E -> { // SRA (HL)
+				bitShift.instructSRA(HL_INDIRECT);
+				cycles = 16;
+			}
+			case 0x2F -> { // SRA A
+				bitShift.instructSRA(A);
+				cycles = 8;
+			}
+			case 0x30 -> { // SWAP B
+				bitShift.instructSWAP(B);
+				cycles = 8;
+			}
+			case 0x31 -> { // SWAP C
+				bitShift.instructSWAP(C);
+				cycles = 8;
+			}
+			case 0x32 -> { // SWAP D
+				bitShift.instructSWAP(D);
+				cycles = 8;
+			}
+			case 0x33 -> { // SWAP E
+				bitShift.instructSWAP(E);
+				cycles = 8;
+			}
+			case 0x34 -> { // SWAP H
+				bitShift.instructSWAP(H);
+				cycles = 8;
+			}
+			case 0x35 -> { // SWAP L
+				bitShift.instructSWAP(L);
+				cycles = 8;
+			}
+			case 0x36 -> { // SWAP (HL)
+				bitShift.instructSWAP(HL_INDIRECT);
+				cycles = 16;
+			}
+			case 0x37 -> { // SWAP A
+				bitShift.instructSWAP(A);
+				cycles = 8;
+			}
+			case 0x38 -> { // SRL B
+				bitShift.instructSRL(B);
+				cycles = 8;
+			}
+			case 0x39 -> { // SRL C
+				bitShift.instructSRL(C);
+				cycles = 8;
+			}
+			case 0x3A -> { // SRL D
+				bitShift.instructSRL(D);
+				cycles = 8;
+			}
+			case 0x3B -> { // SRL E
+				bitShift.instructSRL(E);
+				cycles = 8;
+			}
+			case 0x3C -> { // SRL H
+				bitShift.instructSRL(H);
+				cycles = 8;
+			}
+			case 0x3D -> { // SRL L
+				bitShift.instructSRL(L);
+				cycles = 8;
+			}
+			case 0x3E -> { // SRL (HL)
+				bitShift.instructSRL(HL_INDIRECT);
+				cycles = 16;
+			}
+			case 0x3F -> { // SRL A
+				bitShift.instructSRL(A);
+				cycles = 8;
+			}
+			case 0x40 -> { // BIT 0, B
+				bitShift.instructBIT(B, 0);
+				cycles = 8;
+			}
+			case 0x41 -> { // BIT 0, C
+				bitShift.instructBIT(C, 0);
+				cycles = 8;
+			}
+			case 0x42 -> { // BIT 0, D
+				bitShift.instructBIT(D, 0);
+				cycles = 8;
+			}
+			case 0x43 -> { // BIT 0, E
+				bitShift.instructBIT(E, 0);
+				cycles = 8;
+			}
+			case 0x44 -> { // BIT 0, H
+				bitShift.instructBIT(H, 0);
+				cycles = 8;
+			}
+			case 0x45 -> { // BIT 0, L
+				bitShift.instructBIT(L, 0);
+				cycles = 8;
+			}
+			case 0x46 -> { // BIT 0, (HL)
+				bitShift.instructBIT(HL_INDIRECT, 0);
+				cycles = 12;
+			}
+			case 0x47 -> { // BIT 0, A
+				bitShift.instructBIT(A, 0);
+				cycles = 8;
+			}
+			case 0x48 -> { // BIT 1, B
+				bitShift.instructBIT(B, 1);
+				cycles = 8;
+			}
+			case 0x49 -> { // BIT 1, C
+				bitShift.instructBIT(C, 1);
+				cycles = 8;
+			}
+			case 0x4A -> { // BIT 1, D
+				bitShift.instructBIT(D, 1);
+				cycles = 8;
+			}
+			case 0x4B -> { // BIT 1, E
+				bitShift.instructBIT(E, 1);
+				cycles = 8;
+			}
+			case 0x4C -> { // BIT 1, H
+				bitShift.instructBIT(H, 1);
+				cycles = 8;
+			}
+			case 0x4D -> { // BIT 1, L
+				bitShift.instructBIT(L, 1);
+				cycles = 8;
+			}
+			case 0x4E -> { // BIT 1, (HL)
+				bitShift.instructBIT(HL_INDIRECT, 1);
+				cycles = 12;
+			}
+			case 0x4F -> { // BIT 1, A
+				bitShift.instructBIT(A, 1);
+				cycles = 8;
+			}
+			case 0x50 -> { // BIT 2, B
+				bitShift.instructBIT(B, 2);
+				cycles = 8;
+			}
+			case 0x51 -> { // BIT 2, C
+				bitShift.instructBIT(C, 2);
+				cycles = 8;
+			}
+			case 0x52 -> { // BIT 2, D
+				bitShift.instructBIT(D, 2);
+				cycles = 8;
+			}
+			case 0x53 -> { // BIT 2, E
+				bitShift.instructBIT(E, 2);
+				cycles = 8;
+			}
+			case 0x54 -> { // BIT 2, H
+				bitShift.instructBIT(H, 2);
+				cycles = 8;
+			}
+			case 0x55 -> { // BIT 2, L
+				bitShift.instructBIT(L, 2);
+				cycles = 8;
+			}
+			case 0x56 -> { // BIT 2, (HL)
+				bitShift.instructBIT(HL_INDIRECT, 2);
+				cycles = 12;
+			}
+			case 0x57 -> { // BIT 2, A
+				bitShift.instructBIT(A, 2);
+				cycles = 8;
+			}
+			case 0x58 -> { // BIT 3, B
+				bitShift.instructBIT(B, 3);
+				cycles = 8;
+			}
+			case 0x59 -> { // BIT 3, C
+				bitShift.instructBIT(C, 3);
+				cycles = 8;
+			}
+			case 0x5A -> { // BIT 3, D
+				bitShift.instructBIT(D, 3);
+				cycles = 8;
+			}
+			case 0x5B -> { // BIT 3, E
+				bitShift.instructBIT(E, 3);
+				cycles = 8;
+			}
+			case 0x5C -> { // BIT 3, H
+				bitShift.instructBIT(H, 3);
+				cycles = 8;
+			}
+			case 0x5D -> { // BIT 3, L
+				bitShift.instructBIT(L, 3);
+				cycles = 8;
+			}
+			case 0x5E -> { // BIT 3, (HL)
+				bitShift.instructBIT(HL_INDIRECT, 3);
+				cycles = 12;
+			}
+			case 0x5F -> { // BIT 3, A
+				bitShift.instructBIT(A, 3);
+				cycles = 8;
+			}
+			case 0x60 -> { // BIT 4, B
+				bitShift.instructBIT(B, 4);
+				cycles = 8;
+			}
+			case 0x61 -> { // BIT 4, C
+				bitShift.instructBIT(C, 4);
+				cycles = 8;
+			}
+			case 0x62 -> { // BIT 4, D
+				bitShift.instructBIT(D, 4);
+				cycles = 8;
+			}
+			case 0x63 -> { // BIT 4, E
+				bitShift.instructBIT(E, 4);
+				cycles = 8;
+			}
+			case 0x64 -> { // BIT 4, H
+				bitShift.instructBIT(H, 4);
+				cycles = 8;
+			}
+			case 0x65 -> { // BIT 4, L
+				bitShift.instructBIT(L, 4);
+				cycles = 8;
+			}
+			case 0x66 -> { // BIT 4, (HL)
+				bitShift.instructBIT(HL_INDIRECT, 4);
+				cycles = 12;
+			}
+			case 0x67 -> { // BIT 4, A
+				bitShift.instructBIT(A, 4);
+				cycles = 8;
+			}
+			case 0x68 -> { // BIT 5, B
+				bitShift.instructBIT(B, 5);
+				cycles = 8;
+			}
+			case 0x69 -> { // BIT 5, C
+				bitShift.instructBIT(C, 5);
+				cycles = 8;
+			}
+			case 0x6A -> { // BIT 5, D
+				bitShift.instructBIT(D, 5);
+				cycles = 8;
+			}
+			case 0x6B -> { // BIT 5, E
+				bitShift.instructBIT(E, 5);
+				cycles = 8;
+			}
+			case 0x6C -> { // BIT 5, H
+				bitShift.instructBIT(H, 5);
+				cycles = 8;
+			}
+			case 0x6D -> { // BIT 5, L
+				bitShift.instructBIT(L, 5);
+				cycles = 8;
+			}
+			case 0x6E -> { // BIT 5, (HL)
+				bitShift.instructBIT(HL_INDIRECT, 5);
+				cycles = 12;
+			}
+			case 0x6F -> { // BIT 5, A
+				bitShift.instructBIT(A, 5);
+				cycles = 8;
+			}
+			case 0x70 -> { // BIT 6, B
+				bitShift.instructBIT(B, 6);
+				cycles = 8;
+			}
+			case 0x71 -> { // BIT 6, C
+				bitShift.instructBIT(C, 6);
+				cycles = 8;
+			}
+			case 0x72 -> { // BIT 6, D
+				bitShift.instructBIT(D, 6);
+				cycles = 8;
+			}
+			case 0x73 -> { // BIT 6, E
+				bitShift.instructBIT(E, 6);
+				cycles = 8;
+			}
+			case 0x74 -> { // BIT 6, H
+				bitShift.instructBIT(H, 6);
+				cycles = 8;
+			}
+			case 0x75 -> { // BIT 6, L
+				bitShift.instructBIT(L, 6);
+				cycles = 8;
+			}
+			case 0x76 -> { // BIT 6, (HL)
+				bitShift.instructBIT(HL_INDIRECT, 6);
+				cycles = 12;
+			}
+			case 0x77 -> { // BIT 6, A
+				bitShift.instructBIT(A, 6);
+				cycles = 8;
+			}
+			case 0x78 -> { // BIT 7, B
+				bitShift.instructBIT(B, 7);
+				cycles = 8;
+			}
+			case 0x79 -> { // BIT 7, C
+				bitShift.instructBIT(C, 7);
+				cycles = 8;
+			}
+			case 0x7A -> { // BIT 7, D
+				bitShift.instructBIT(D, 7);
+				cycles = 8;
+			}
+			case 0x7B -> { // BIT 7, E
+				bitShift.instructBIT(E, 7);
+				cycles = 8;
+			}
+			case 0x7C -> { // BIT 7, H
+				bitShift.instructBIT(H, 7);
+				cycles = 8;
+			}
+			case 0x7D -> { // BIT 7, L
+				bitShift.instructBIT(L, 7);
+				cycles = 8;
+			}
+			case 0x7E -> { // BIT 7, (HL)
+				bitShift.instructBIT(HL_INDIRECT, 7);
+				cycles = 12;
+			}
+			case 0x7F -> { // BIT 7, A
+				bitShift.instructBIT(A, 7);
+				cycles = 8;
+			}
+			case 0x80 -> { // RES 0, B
+				bitShift.instructRES(B, 0);
+				cycles = 8;
+			}
+			case 0x81 -> { // RES 0, C
+				bitShift.instructRES(C, 0);
+				cycles = 8;
+			}
+			case 0x82 -> { // RES 0, D
+				bitShift.instructRES(D, 0);
+				cycles = 8;
+			}
+			case 0x83 -> { // RES 0, E
+				bitShift.instructRES(E, 0);
+				cycles = 8;
+			}
+			case 0x84 -> { // RES 0, H
+				bitShift.instructRES(H, 0);
+				cycles = 8;
+			}
+			case 0x85 -> { // RES 0, L
+				bitShift.instructRES(L, 0);
+				cycles = 8;
+			}
+			case 0x86 -> { // RES 0, (HL)
+				bitShift.instructRES(HL_INDIRECT, 0);
+				cycles = 16;
+			}
+			case 0x87 -> { // RES 0, A
+				bitShift.instructRES(A, 0);
+				cycles = 8;
+			}
+			case 0x88 -> { // RES 1, B
+				bitShift.instructRES(B, 1);
+				cycles = 8;
+			}
+			case 0x89 -> { // RES 1, C
+				bitShift.instructRES(C, 1);
+				cycles = 8;
+			}
+			case 0x8A -> { // RES 1, D
+				bitShift.instructRES(D, 1);
+				cycles = 8;
+			}
+			case 0x8B -> { // RES 1, E
+				bitShift.instructRES(E, 1);
+				cycles = 8;
+			}
+			case 0x8C -> { // RES 1, H
+				bitShift.instructRES(H, 1);
+				cycles = 8;
+			}
+			case 0x8D -> { // RES 1, L
+				bitShift.instructRES(L, 1);
+				cycles = 8;
+			}
+			case 0x8E -> { // RES 1, (HL)
+				bitShift.instructRES(HL_INDIRECT, 1);
+				cycles = 16;
+			}
+			case 0x8F -> { // RES 1, A
+				bitShift.instructRES(A, 1);
+				cycles = 8;
+			}
+			case 0x90 -> { // RES 2, B
+				bitShift.instructRES(B, 2);
+				cycles = 8;
+			}
+			case 0x91 -> { // RES 2, C
+				bitShift.instructRES(C, 2);
+				cycles = 8;
+			}
+			case 0x92 -> { // RES 2, D
+				bitShift.instructRES(D, 2);
+				cycles = 8;
+			}
+			case 0x93 -> { // RES 2, E
+				bitShift.instructRES(E, 2);
+				cycles = 8;
+			}
+			case 0x94 -> { // RES 2, H
+				bitShift.instructRES(H, 2);
+				cycles = 8;
+			}
+			case 0x95 -> { // RES 2, L
+				bitShift.instructRES(L, 2);
+				cycles = 8;
+			}
+			case 0x96 -> { // RES 2, (HL)
+				bitShift.instructRES(HL_INDIRECT, 2);
+				cycles = 16;
+			}
+			case 0x97 -> { // RES 2, A
+				bitShift.instructRES(A, 2);
+				cycles = 8;
+			}
+			case 0x98 -> { // RES 3, B
+				bitShift.instructRES(B, 3);
+				cycles = 8;
+			}
+			case 0x99 -> { // RES 3, C
+				bitShift.instructRES(C, 3);
+				cycles = 8;
+			}
+			case 0x9A -> { // RES 3, D
+				bitShift.instructRES(D, 3);
+				cycles = 8;
+			}
+			case 0x9B -> { // RES 3, E
+				bitShift.instructRES(E, 3);
+				cycles = 8;
+			}
+			case 0x9C -> { // RES 3, H
+				bitShift.instructRES(H, 3);
+				cycles = 8;
+			}
+			case 0x9D -> { // RES 3, L
+				bitShift.instructRES(L, 3);
+				cycles = 8;
+			}
+			case 0x9E -> { // RES 3, (HL)
+				bitShift.instructRES(HL_INDIRECT, 3);
+				cycles = 16;
+			}
+			case 0x9F -> { // RES 3, A
+				bitShift.instructRES(A, 3);
+				cycles = 8;
+			}
+			case 0xA0 -> { // RES 4, B
+				bitShift.instructRES(B, 4);
+				cycles = 8;
+			}
+			case 0xA1 -> { // RES 4, C
+				bitShift.instructRES(C, 4);
+				cycles = 8;
+			}
+			case 0xA2 -> { // RES 4, D
+				bitShift.instructRES(D, 4);
+				cycles = 8;
+			}
+			case 0xA3 -> { // RES 4, E
+				bitShift.instructRES(E, 4);
+				cycles = 8;
+			}
+			case 0xA4 -> { // RES 4, H
+				bitShift.instructRES(H, 4);
+				cycles = 8;
+			}
+			case 0xA5 -> { // RES 4, L
+				bitShift.instructRES(L, 4);
+				cycles = 8;
+			}
+			case 0xA6 -> { // RES 4, (HL)
+				bitShift.instructRES(HL_INDIRECT, 4);
+				cycles = 16;
+			}
+			case 0xA7 -> { // RES 4, A
+				bitShift.instructRES(A, 4);
+				cycles = 8;
+			}
+			case 0xA8 -> { // RES 5, B
+				bitShift.instructRES(B, 5);
+				cycles = 8;
+			}
+			case 0xA9 -> { // RES 5, C
+				bitShift.instructRES(C, 5);
+				cycles = 8;
+			}
+			case 0xAA -> { // RES 5, D
+				bitShift.instructRES(D, 5);
+				cycles = 8;
+			}
+			case 0xAB -> { // RES 5, E
+				bitShift.instructRES(E, 5);
+				cycles = 8;
+			}
+			case 0xAC -> { // RES 5, H
+				bitShift.instructRES(H, 5);
+				cycles = 8;
+			}
+			case 0xAD -> { // RES 5, L
+				bitShift.instructRES(L, 5);
+				cycles = 8;
+			}
+			case 0xAE -> { // RES 5, (HL)
+				bitShift.instructRES(HL_INDIRECT, 5);
+				cycles = 16;
+			}
+			case 0xAF -> { // RES 5, A
+				bitShift.instructRES(A, 5);
+				cycles = 8;
+			}
+			case 0xB0 -> { // RES 6, B
+				bitShift.instructRES(B, 6);
+				cycles = 8;
+			}
+			case 0xB1 -> { // RES 6, C
+				bitShift.instructRES(C, 6);
+				cycles = 8;
+			}
+			case 0xB2 -> { // RES 6, D
+				bitShift.instructRES(D, 6);
+				cycles = 8;
+			}
+			case 0xB3 -> { // RES 6, E
+				bitShift.instructRES(E, 6);
+				cycles = 8;
+			}
+			case 0xB4 -> { // RES 6, H
+				bitShift.instructRES(H, 6);
+				cycles = 8;
+			}
+			case 0xB5 -> { // RES 6, L
+				bitShift.instructRES(L, 6);
+				cycles = 8;
+			}
+			case 0xB6 -> { // RES 6, (HL)
+				bitShift.instructRES(HL_INDIRECT, 6);
+				cycles = 16;
+			}
+			case 0xB7 -> { // RES 6, A
+				bitShift.instructRES(A, 6);
+				cycles = 8;
+			}
+			case 0xB8 -> { // RES 7, B
+				bitShift.instructRES(B, 7);
+				cycles = 8;
+			}
+			case 0xB9 -> { // RES 7, C
+				bitShift.instructRES(C, 7);
+				cycles = 8;
+			}
+			case 0xBA -> { // RES 7, D
+				bitShift.instructRES(D, 7);
+				cycles = 8;
+			}
+			case 0xBB -> { // RES 7, E
+				bitShift.instructRES(E, 7);
+				cycles = 8;
+			}
+			case 0xBC -> { // RES 7, H
+				bitShift.instructRES(H, 7);
+				cycles = 8;
+			}
+			case 0xBD -> { // RES 7, L
+				bitShift.instructRES(L, 7);
+				cycles = 8;
+			}
+			case 0xBE -> { // RES 7, (HL)
+				bitShift.instructRES(HL_INDIRECT, 7);
+				cycles = 16;
+			}
+			case 0xBF -> { // RES 7, A
+				bitShift.instructRES(A, 7);
+				cycles = 8;
+			}
+			case 0xC0 -> { // SET 0, B
+				bitShift.instructSET(B, 0);
+				cycles = 8;
+			}
+			case 0xC1 -> { // SET 0, C
+				bitShift.instructSET(C, 0);
+				cycles = 8;
+			}
+			case 0xC2 -> { // SET 0, D
+				bitShift.instructSET(D, 0);
+				cycles = 8;
+			}
+			case 0xC3 -> { // SET 0, E
+				bitShift.instructSET(E, 0);
+				cycles = 8;
+			}
+			case 0xC4 -> { // SET 0, H
+				bitShift.instructSET(H, 0);
+				cycles = 8;
+			}
+			case 0xC5 -> { // SET 0, L
+				bitShift.instructSET(L, 0);
+				cycles = 8;
+			}
+			case 0xC6 -> { // SET 0, (HL)
+				bitShift.instructSET(HL_INDIRECT, 0);
+				cycles = 16;
+			}
+			case 0xC7 -> { // SET 0, A
+				bitShift.instructSET(A, 0);
+				cycles = 8;
+			}
+			case 0xC8 -> { // SET 1, B
+				bitShift.instructSET(B, 1);
+				cycles = 8;
+			}
+			case 0xC9 -> { // SET 1, C
+				bitShift.instructSET(C, 1);
+				cycles = 8;
+			}
+			case 0xCA -> { // SET 1, D
+				bitShift.instructSET(D, 1);
+				cycles = 8;
+			}
+			case 0xCB -> { // SET 1, E
+				bitShift.instructSET(E, 1);
+				cycles = 8;
+			}
+			case 0xCC -> { // SET 1, H
+				bitShift.instructSET(H, 1);
+				cycles = 8;
+			}
+			case 0xCD -> { // SET 1, L
+				bitShift.instructSET(L, 1);
+				cycles = 8;
+			}
+			case 0xCE -> { // SET 1, (HL)
+				bitShift.instructSET(HL_INDIRECT, 1);
+				cycles = 16;
+			}
+			case 0xCF -> { // SET 1, A
+				bitShift.instructSET(A, 1);
+				cycles = 8;
+			}
+			case 0xD0 -> { // SET 2, B
+				bitShift.instructSET(B, 2);
+				cycles = 8;
+			}
+			case 0xD1 -> { // SET 2, C
+				bitShift.instructSET(C, 2);
+				cycles = 8;
+			}
+			case 0xD2 -> { // SET 2, D
+				bitShift.instructSET(D, 2);
+				cycles = 8;
+			}
+			case 0xD3 -> { // SET 2, E
+				bitShift.instructSET(E, 2);
+				cycles = 8;
+			}
+			case 0xD4 -> { // SET 2, H
+				bitShift.instructSET(H, 2);
+				cycles = 8;
+			}
+			case 0xD5 -> { // SET 2, L
+				bitShift.instructSET(L, 2);
+				cycles = 8;
+			}
+			case 0xD6 -> { // SET 2, (HL)
+				bitShift.instructSET(HL_INDIRECT, 2);
+				cycles = 16;
+			}
+			case 0xD7 -> { // SET 2, A
+				bitShift.instructSET(A, 2);
+				cycles = 8;
+			}
+			case 0xD8 -> { // SET 3, B
+				bitShift.instructSET(B, 3);
+				cycles = 8;
+			}
+			case 0xD9 -> { // SET 3, C
+				bitShift.instructSET(C, 3);
+				cycles = 8;
+			}
+			case 0xDA -> { // SET 3, D
+				bitShift.instructSET(D, 3);
+				cycles = 8;
+			}
+			case 0xDB -> { // SET 3, E
+				bitShift.instructSET(E, 3);
+				cycles = 8;
+			}
+			case 0xDC -> { // SET 3, H
+				bitShift.instructSET(H, 3);
+				cycles = 8;
+			}
+			case 0xDD -> { // SET 3, L
+				bitShift.instructSET(L, 3);
+				cycles = 8;
+			}
+			case 0xDE -> { // SET 3, (HL)
+				bitShift.instructSET(HL_INDIRECT, 3);
+				cycles = 16;
+			}
+			case 0xDF -> { // SET 3, A
+				bitShift.instructSET(A, 3);
+				cycles = 8;
+			}
+			case 0xE0 -> { // SET 4, B
+				bitShift.instructSET(B, 4);
+				cycles = 8;
+			}
+			case 0xE1 -> { // SET 4, C
+				bitShift.instructSET(C, 4);
+				cycles = 8;
+			}
+			case 0xE2 -> { // SET 4, D
+				bitShift.instructSET(D, 4);
+				cycles = 8;
+			}
+			case 0xE3 -> { // SET 4, E
+				bitShift.instructSET(E, 4);
+				cycles = 8;
+			}
+			case 0xE4 -> { // SET 4, H
+				bitShift.instructSET(H, 4);
+				cycles = 8;
+			}
+			case 0xE5 -> { // SET 4, L
+				bitShift.instructSET(L, 4);
+				cycles = 8;
+			}
+			case 0xE6 -> { // SET 4, (HL)
+				bitShift.instructSET(HL_INDIRECT, 4);
+				cycles = 16;
+			}
+			case 0xE7 -> { // SET 4, A
+				bitShift.instructSET(A, 4);
+				cycles = 8;
+			}
+			case 0xE8 -> { // SET 5, B
+				bitShift.instructSET(B, 5);
+				cycles = 8;
+			}
+			case 0xE9 -> { // SET 5, C
+				bitShift.instructSET(C, 5);
+				cycles = 8;
+			}
+			case 0xEA -> { // SET 5, D
+				bitShift.instructSET(D, 5);
+				cycles = 8;
+			}
+			case 0xEB -> { // SET 5, E
+				bitShift.instructSET(E, 5);
+				cycles = 8;
+			}
+			case 0xEC -> { // SET 5, H
+				bitShift.instructSET(H, 5);
+				cycles = 8;
+			}
+			case 0xED -> { // SET 5, L
+				bitShift.instructSET(L, 5);
+				cycles = 8;
+			}
+			case 0xEE -> { // SET 5, (HL)
+				bitShift.instructSET(HL_INDIRECT, 5);
+				cycles = 16;
+			}
+			case 0xEF -> { // SET 5, A
+				bitShift.instructSET(A, 5);
+				cycles = 8;
+			}
+			case 0xF0 -> { // SET 6, B
+				bitShift.instructSET(B, 6);
+				cycles = 8;
+			}
+			case 0xF1 -> { // SET 6, C
+				bitShift.instructSET(C, 6);
+				cycles = 8;
+			}
+			case 0xF2 -> { // SET 6, D
+				bitShift.instructSET(D, 6);
+				cycles = 8;
+			}
+			case 0xF3 -> { // SET 6, E
+				bitShift.instructSET(E, 6);
+				cycles = 8;
+			}
+			case 0xF4 -> { // SET 6, H
+				bitShift.instructSET(H, 6);
+				cycles = 8;
+			}
+			case 0xF5 -> { // SET 6, L
+				bitShift.instructSET(L, 6);
+				cycles = 8;
+			}
+			case 0xF6 -> { // SET 6, (HL)
+				bitShift.instructSET(HL_INDIRECT, 6);
+				cycles = 16;
+			}
+			case 0xF7 -> { // SET 6, A
+				bitShift.instructSET(A, 6);
+				cycles = 8;
+			}
+			case 0xF8 -> { // SET 7, B
+				bitShift.instructSET(B, 7);
+				cycles = 8;
+			}
+			case 0xF9 -> { // SET 7, C
+				bitShift.instructSET(C, 7);
+				cycles = 8;
+			}
+			case 0xFA -> { // SET 7, D
+				bitShift.instructSET(D, 7);
+				cycles = 8;
+			}
+			case 0xFB -> { // SET 7, E
+				bitShift.instructSET(E, 7);
+				cycles = 8;
+			}
+			case 0xFC -> { // SET 7, H
+				bitShift.instructSET(H, 7);
+				cycles = 8;
+			}
+			case 0xFD -> { // SET 7, L
+				bitShift.instructSET(L, 7);
+				cycles = 8;
+			}
+			case 0xFE -> { // SET 7, (HL)
+				bitShift.instructSET(HL_INDIRECT, 7);
+				cycles = 16;
+			}
+			case 0xFF -> { // SET 7, A
+				bitShift.instructSET(A, 7);
+				cycles = 8;
+			}
+			default -> throw new IllegalArgumentException(String.format("Unhandled CB instruction 0x%X", instruction));
+		}
+		return cycles;
+	}
+}
@@ -0,0 +1,20 @@
+package us.kshadow.gbz80emu.processor;
+
+/**
+ * CPU core that dispatches opcodes through the pre-built {@link OpcodeTable},
+ * rather than one large switch. Keeps every handler small enough for the JIT
+ * to compile and inline individually.
+ */
+public class TableCpuCore implements CpuCore {
+
+	@Override
+	public int execute(CPU cpu, int opcode) {
+		Opcode op = OpcodeTable.get(opcode);
+		int operand = switch (op.length()) {
+			case 2 -> cpu.fetchNextByte();
+			case 3 -> cpu.fetchNextWord();
+			default -> 0;
+		};
+		return op.handler().execute(cpu, operand);
+	}
+}
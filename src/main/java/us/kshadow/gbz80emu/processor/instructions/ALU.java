@@ -2,7 +2,7 @@ package us.kshadow.gbz80emu.processor.instructions;
 
 import us.kshadow.gbz80emu.processor.CPURegisters;
 import us.kshadow.gbz80emu.processor.FlagRegister;
-import static us.kshadow.gbz80emu.util.BitUtil.*;
+import static us.kshadow.gbz80emu.processor.CPURegisters.*;
 
 import us.kshadow.gbz80emu.memory.MMU;
 
@@ -14,11 +14,22 @@ import us.kshadow.gbz80emu.memory.MMU;
 
 public class ALU {
 
-	private static final CPURegisters reg = CPURegisters.getInstance();
-	private static final FlagRegister fr = reg.getFR();
-	private static final MMU mmu = MMU.getInstance();
+	private final CPURegisters reg;
+	private final FlagRegister fr;
+	private final MMU mmu;
 
-	private ALU() {
+	/**
+	 * Creates the instructions for a CPU.
+	 * 
+	 * @param reg
+	 *            - Registers of the CPU.
+	 * @param mmu
+	 *            - MMU the CPU accesses memory through.
+	 */
+	public ALU(CPURegisters reg, MMU mmu) {
+		this.reg = reg;
+		this.fr = reg.getFR();
+		this.mmu = mmu;
 	}
 
 	// Misc. instructions.
@@ -26,7 +37,7 @@ public class ALU {
 	/**
 	 * SCF - Set carry flag, reset N and H
 	 */
-	public static void instructSCF() {
+	public void instructSCF() {
 		fr.setN(false);
 		fr.setH(false);
 		fr.setC(true);
@@ -35,17 +46,17 @@ public class ALU {
 	/**
 	 * CPL - Complement of register A. (Flip all bits)
 	 */
-	public static void instructCPL() {
-		int result = reg.read("A") ^ 0xFF;
+	public void instructCPL() {
+		int result = reg.get(A) ^ 0xFF;
 		fr.setN(true);
 		fr.setH(true);
-		reg.write("A", result);
+		reg.set(A, result);
 	}
 
 	/**
 	 * CCF - Complement carry flag. (Flip from current value)
 	 */
-	public static void instructCCF() {
+	public void instructCCF() {
 		fr.setN(false);
 		fr.setH(false);
 		fr.setC(!fr.isC());
@@ -59,13 +70,10 @@ public class ALU {
 	 * @param arg
 	 *            - Value to OR with register A.
 	 */
-	public static void instructOR(int arg) {
-		int result = reg.read("A") | arg;
-		fr.setZ(result == 0);
-		fr.setC(false);
-		fr.setN(false);
-		fr.setH(false);
-		reg.write("A", result);
+	public void instructOR(int arg) {
+		int result = reg.get(A) | arg;
+		fr.setFromOperation(FlagRegister.OR, reg.get(A), arg, 0, result);
+		reg.set(A, result);
 	}
 
 	/**
@@ -74,13 +82,10 @@ public class ALU {
 	 * @param arg
 	 *            - Value to XOR with register A.
 	 */
-	public static void instructXOR(int arg) {
-		int result = reg.read("A") ^ arg;
-		fr.setZ(result == 0);
-		fr.setC(false);
-		fr.setN(false);
-		fr.setH(false);
-		reg.write("A", result);
+	public void instructXOR(int arg) {
+		int result = reg.get(A) ^ arg;
+		fr.setFromOperation(FlagRegister.OR, reg.get(A), arg, 0, result);
+		reg.set(A, result);
 	}
 
 	/**
@@ -89,27 +94,22 @@ public class ALU {
 	 * @param arg
 	 *            - Value to AND with register A.
 	 */
-	public static void instructAND(int arg) {
-		int result = reg.read("A") & arg;
-		fr.setZ(result == 0);
-		fr.setC(false);
-		fr.setN(false);
-		fr.setH(true);
-		reg.write("A", result);
+	public void instructAND(int arg) {
+		int result = reg.get(A) & arg;
+		fr.setFromOperation(FlagRegister.AND, reg.get(A), arg, 0, result);
+		reg.set(A, result);
 	}
 
 	/**
 	 * INC - Increments given register.
 	 * 
 	 * @param register
-	 *            - Register to increment.
+	 *            - Index of register to increment, or HL_INDIRECT for (HL).
 	 */
-	public static void instructINCu8(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructINCu8(int register) {
+		int regVal = readValue(register);
 		int result = (regVal + 1) & 0xFF; // mask off higher than 8 bits if addition carries that much
-		fr.setZ(result == 0);
-		fr.setN(false);
-		fr.setH(checkHalfCarryAdd(regVal, 1, false));
+		fr.setFromOperation(FlagRegister.INC, regVal, 1, fr.isC() ? 1 : 0, result);
 		writeValue(register, result);
 	}
 
@@ -117,14 +117,12 @@ public class ALU {
 	 * DEC - Decrements given register.
 	 * 
 	 * @param register
-	 *            - Register to decrement.
+	 *            - Index of register to decrement, or HL_INDIRECT for (HL).
 	 */
-	public static void instructDECu8(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructDECu8(int register) {
+		int regVal = readValue(register);
 		int result = (regVal - 1) & 0xFF; // two's complement if number reaches negative
-		fr.setZ(result == 0);
-		fr.setN(true);
-		fr.setH(checkHalfCarrySub(regVal, 1));
+		fr.setFromOperation(FlagRegister.DEC, regVal, 1, fr.isC() ? 1 : 0, result);
 		writeValue(register, result);
 	}
 
@@ -134,13 +132,10 @@ public class ALU {
 	 * @param arg
 	 *            - Value to be added to register A.
 	 */
-	public static void instructADD(int arg) {
-		int result = (reg.read("A") + arg) & 0xFF;
-		fr.setZ(result == 0);
-		fr.setN(false);
-		fr.setH(checkHalfCarryAdd(reg.read("A"), arg, false));
-		fr.setC(checkCarryAdd(reg.read("A"), arg, false));
-		reg.write("A", result);
+	public void instructADD(int arg) {
+		int result = (reg.get(A) + arg) & 0xFF;
+		fr.setFromOperation(FlagRegister.ADD, reg.get(A), arg, 0, result);
+		reg.set(A, result);
 	}
 
 	/**
@@ -149,13 +144,11 @@ public class ALU {
 	 * @param arg
 	 *            - Value to be added to register A.
 	 */
-	public static void instructADC(int arg) {
-		int result = (reg.read("A") + arg + (fr.isC() ? 1 : 0)) & 0xFF;
-		fr.setZ(result == 0);
-		fr.setN(false);
-		fr.setH(checkHalfCarryAdd(reg.read("A"), arg, fr.isC()));
-		fr.setC(checkCarryAdd(reg.read("A"), arg, fr.isC()));
-		reg.write("A", result);
+	public void instructADC(int arg) {
+		int carry = fr.isC() ? 1 : 0;
+		int result = (reg.get(A) + arg + carry) & 0xFF;
+		fr.setFromOperation(FlagRegister.ADC, reg.get(A), arg, carry, result);
+		reg.set(A, result);
 	}
 
 	/**
@@ -167,14 +160,11 @@ public class ALU {
 	 *            - If true, treat instruction as CP and don't save result in A.
 	 *            (Only difference between SUB and CP)
 	 */
-	public static void instructSUB(int arg, boolean cp) {
-		int result = (reg.read("A") - arg) & 0xFF;
-		fr.setZ(result == 0);
-		fr.setN(true);
-		fr.setH(checkHalfCarrySub(reg.read("A"), arg));
-		fr.setC(checkCarrySub(reg.read("A"), arg));
+	public void instructSUB(int arg, boolean cp) {
+		int result = (reg.get(A) - arg) & 0xFF;
+		fr.setFromOperation(FlagRegister.SUB, reg.get(A), arg, 0, result);
 		if (!cp) {
-			reg.write("A", result);
+			reg.set(A, result);
 		}
 	}
 
@@ -184,14 +174,11 @@ public class ALU {
 	 * @param arg
 	 *            - Value to be subtracted from register A.
 	 */
-	public static void instructSBC(int arg) {
+	public void instructSBC(int arg) {
 		int carry = (fr.isC() ? 1 : 0);
-		int result = (reg.read("A") - arg - carry);
-		fr.setZ((result & 0xFF) == 0);
-		fr.setN(true);
-		fr.setH(((reg.read("A") ^ arg ^ (result & 0xFF)) & (1 << 4)) != 0);
-		fr.setC(arg + carry > reg.read("A"));
-		reg.write("A", result & 0xFF);
+		int result = (reg.get(A) - arg - carry) & 0xFF;
+		fr.setFromOperation(FlagRegister.SBC, reg.get(A), arg, carry, result);
+		reg.set(A, result);
 	}
 
 	// 16-Bit Arithmetic
@@ -200,16 +187,16 @@ public class ALU {
 	 * ADD u16 - Adds register to register HL.
 	 * 
 	 * @param register
-	 *            - Register to add to register HL.
+	 *            - Index of register pair to add to register HL.
 	 */
-	public static void instructADDu16(String register) {
-		int value = reg.read(register);
-		int hl = reg.read("HL");
+	public void instructADDu16(int register) {
+		int value = reg.getPair(register);
+		int hl = reg.getHL();
 		int result = (value + hl) & 0xFFFF;
 		fr.setN(false);
 		fr.setC(hl + value > 0xFFFF);
 		fr.setH((hl & 0x0fff) + (value & 0x0fff) > 0x0fff);
-		reg.write("HL", result);
+		reg.setHL(result);
 	}
 
 	/**
@@ -218,46 +205,46 @@ public class ALU {
 	 * @param value
 	 *            - Signed value to be added to SP.
 	 */
-	public static void instructADDSP(byte value) {
-		int sp = reg.read("SP");
+	public void instructADDSP(byte value) {
+		int sp = reg.getSP();
 		int result = (sp + value) & 0xFFFF;
 		fr.setZ(false);
 		fr.setN(false);
 		fr.setC(((sp ^ value ^ result) & 0x100) == 0x100);
 		fr.setH(((sp ^ value ^ result) & 0x10) == 0x10);
-		reg.write("SP", result);
+		reg.setSP(result);
 	}
 
 	/**
 	 * INC u16 - Increments given 16-bit register.
 	 * 
 	 * @param register
-	 *            - Register to be incremented.
+	 *            - Index of register pair to be incremented.
 	 */
-	public static void instructINCu16(String register) {
-		int regVal = reg.read(register);
+	public void instructINCu16(int register) {
+		int regVal = reg.getPair(register);
 		int result = (regVal + 1) & 0xFFFF;
-		reg.write(register, result);
+		reg.setPair(register, result);
 	}
 
 	/**
 	 * DEC u16 - Decrements given 16-bit register.
 	 * 
 	 * @param register
-	 *            - Register to be decremented.
+	 *            - Index of register pair to be decremented.
 	 */
-	public static void instructDECu16(String register) {
-		int regVal = reg.read(register);
+	public void instructDECu16(int register) {
+		int regVal = reg.getPair(register);
 		int result = (regVal - 1) & 0xFFFF;
-		reg.write(register, result);
+		reg.setPair(register, result);
 	}
 
 	/**
 	 * DAA - Decimal adjust Register A adapted from
 	 * <a href="https://ehaskins.com/2018-01-30%20Z80%20DAA/">...</a>
 	 */
-	public static void instructDAA() {
-		int regAValue = reg.read("A");
+	public void instructDAA() {
+		int regAValue = reg.get(A);
 		int correction = 0;
 		if (fr.isH() || (!fr.isN() && (regAValue & 0xF) > 0x9))
 			correction |= 0x6;
@@ -270,7 +257,18 @@ public class ALU {
 		regAValue &= 0xFF;
 		fr.setZ(regAValue == 0);
 		fr.setH(false);
-		reg.write("A", regAValue);
+		reg.set(A, regAValue);
+	}
+
+	/**
+	 * Reads value from its proper register or address in memory.
+	 * 
+	 * @param register
+	 *            - register/pointer to read from.
+	 * @return Value of the register/pointer.
+	 */
+	private int readValue(int register) {
+		return register == HL_INDIRECT ? mmu.readByte(reg.getHL()) : reg.get(register);
 	}
 
 	/**
@@ -281,11 +279,11 @@ public class ALU {
 	 * @param result
 	 *            - Value to write to register/pointer.
 	 */
-	private static void writeValue(String register, int result) {
-		if (register.equals("HL")) {
-			mmu.writeByte(reg.read("HL"), result);
+	private void writeValue(int register, int result) {
+		if (register == HL_INDIRECT) {
+			mmu.writeByte(reg.getHL(), result);
 		} else {
-			reg.write(register, result);
+			reg.set(register, result);
 		}
 	}
 }
@@ -2,6 +2,8 @@ package us.kshadow.gbz80emu.processor.instructions;
 
 import us.kshadow.gbz80emu.processor.CPURegisters;
 import us.kshadow.gbz80emu.processor.FlagRegister;
+import static us.kshadow.gbz80emu.processor.CPURegisters.A;
+import static us.kshadow.gbz80emu.processor.CPURegisters.HL_INDIRECT;
 import static us.kshadow.gbz80emu.util.BitUtil.checkBitSet;
 import static us.kshadow.gbz80emu.util.BitUtil.setBit;
 
@@ -16,11 +18,22 @@ import us.kshadow.gbz80emu.memory.MMU;
 
 public class BitShift {
 
-	private static final CPURegisters reg = CPURegisters.getInstance();
-	private static final FlagRegister fr = reg.getFR();
-	private static final MMU mmu = MMU.getInstance();
+	private final CPURegisters reg;
+	private final FlagRegister fr;
+	private final MMU mmu;
 
-	private BitShift() {
+	/**
+	 * Creates the instructions for a CPU.
+	 * 
+	 * @param reg
+	 *            - Registers of the CPU.
+	 * @param mmu
+	 *            - MMU the CPU accesses memory through.
+	 */
+	public BitShift(CPURegisters reg, MMU mmu) {
+		this.reg = reg;
+		this.fr = reg.getFR();
+		this.mmu = mmu;
 	}
 
 	/**
@@ -29,8 +42,8 @@ public class BitShift {
 	 * @param register
 	 *            - register/pointer for SWAP operation.
 	 */
-	public static void instructSWAP(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructSWAP(int register) {
+		int regVal = readValue(register);
 		int result = ((regVal & 0x0F) << 4 | (regVal & 0xF0) >> 4);
 		fr.setZ(result == 0);
 		fr.setC(false);
@@ -43,54 +56,54 @@ public class BitShift {
 	 * RLCA - Rotate A left. Bit 7 from initial value goes into carry flag and bit
 	 * 0.
 	 */
-	public static void instructRLCA() {
-		int result = ((reg.read("A") << 1) & 0xFF);
-		result |= checkBitSet(reg.read("A"), 7) ? 1 : 0;
-		fr.setC(checkBitSet(reg.read("A"), 7));
+	public void instructRLCA() {
+		int result = ((reg.get(A) << 1) & 0xFF);
+		result |= checkBitSet(reg.get(A), 7) ? 1 : 0;
+		fr.setC(checkBitSet(reg.get(A), 7));
 		fr.setN(false);
 		fr.setH(false);
 		fr.setZ(false);
-		reg.write("A", result);
+		reg.set(A, result);
 	}
 
 	/**
 	 * RLA - Rotate A register left through carry flag.
 	 */
-	public static void instructRLA() {
-		int result = ((reg.read("A") << 1) & 0xFF);
+	public void instructRLA() {
+		int result = ((reg.get(A) << 1) & 0xFF);
 		result |= fr.isC() ? 1 : 0;
-		fr.setC(checkBitSet(reg.read("A"), 7));
+		fr.setC(checkBitSet(reg.get(A), 7));
 		fr.setH(false);
 		fr.setN(false);
 		fr.setZ(false);
-		reg.write("A", result);
+		reg.set(A, result);
 	}
 
 	/**
 	 * RRCA - Rotate A right. Bit 0 from original value is moved to bit 7 and also
 	 * stored as carry flag.
 	 */
-	public static void instructRRCA() {
-		int result = ((reg.read("A") >> 1) & 0xFF);
-		result = checkBitSet(reg.read("A"), 0) ? setBit(result, 7) : result;
-		fr.setC(checkBitSet(reg.read("A"), 0));
+	public void instructRRCA() {
+		int result = ((reg.get(A) >> 1) & 0xFF);
+		result = checkBitSet(reg.get(A), 0) ? setBit(result, 7) : result;
+		fr.setC(checkBitSet(reg.get(A), 0));
 		fr.setN(false);
 		fr.setH(false);
 		fr.setZ(false);
-		reg.write("A", result);
+		reg.set(A, result);
 	}
 
 	/**
 	 * RRA - Rotate A right through carry.
 	 */
-	public static void instructRRA() {
-		int result = ((reg.read("A") >> 1) & 0xFF);
+	public void instructRRA() {
+		int result = ((reg.get(A) >> 1) & 0xFF);
 		result = fr.isC() ? setBit(result, 7) : result;
 		fr.setN(false);
 		fr.setH(false);
 		fr.setZ(false);
-		fr.setC(checkBitSet(reg.read("A"), 0));
-		reg.write("A", result);
+		fr.setC(checkBitSet(reg.get(A), 0));
+		reg.set(A, result);
 	}
 
 	/**
@@ -100,8 +113,8 @@ public class BitShift {
 	 * @param register
 	 *            - register/pointer for RLC operation.
 	 */
-	public static void instructRLC(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructRLC(int register) {
+		int regVal = readValue(register);
 		int result = ((regVal << 1) & 0xFF);
 		result |= checkBitSet(regVal, 7) ? 1 : 0;
 		fr.setC(checkBitSet(regVal, 7));
@@ -117,8 +130,8 @@ public class BitShift {
 	 * @param register
 	 *            - register/pointer for RL operation.
 	 */
-	public static void instructRL(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructRL(int register) {
+		int regVal = readValue(register);
 		int result = ((regVal << 1) & 0xFF);
 		result |= fr.isC() ? 1 : 0; // puts carry bit into bit 0 if set
 		fr.setC(checkBitSet(regVal, 7));
@@ -135,8 +148,8 @@ public class BitShift {
 	 * @param register
 	 *            - register/pointer for RRC operation.
 	 */
-	public static void instructRRC(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructRRC(int register) {
+		int regVal = readValue(register);
 		int result = ((regVal >> 1) & 0xFF);
 		result = checkBitSet(regVal, 0) ? setBit(result, 7) : result;
 		fr.setC(checkBitSet(regVal, 0));
@@ -152,8 +165,8 @@ public class BitShift {
 	 * @param register
 	 *            - register/pointer for RR operation.
 	 */
-	public static void instructRR(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructRR(int register) {
+		int regVal = readValue(register);
 		int result = ((regVal >> 1) & 0xFF);
 		result = fr.isC() ? setBit(result, 7) : result;
 		fr.setN(false);
@@ -169,8 +182,8 @@ public class BitShift {
 	 * @param register
 	 *            - register/pointer for SLA operation.
 	 */
-	public static void instructSLA(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructSLA(int register) {
+		int regVal = readValue(register);
 		int result = ((regVal << 1) & 0xFF);
 		fr.setC(checkBitSet(regVal, 7));
 		fr.setH(false);
@@ -185,8 +198,8 @@ public class BitShift {
 	 * @param register
 	 *            - register/pointer for SRA operation.
 	 */
-	public static void instructSRA(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructSRA(int register) {
+		int regVal = readValue(register);
 		int result = ((regVal >> 1) & 0xFF) | (regVal & (1 << 7));
 		fr.setN(false);
 		fr.setH(false);
@@ -201,8 +214,8 @@ public class BitShift {
 	 * @param register
 	 *            - register/pointer for SRL operation.
 	 */
-	public static void instructSRL(String register) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructSRL(int register) {
+		int regVal = readValue(register);
 		int result = ((regVal >> 1) & 0xFF);
 		fr.setN(false);
 		fr.setH(false);
@@ -220,8 +233,8 @@ public class BitShift {
 	 * @param bitPos
 	 *            - position of bit to test.
 	 */
-	public static void instructBIT(String register, int bitPos) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructBIT(int register, int bitPos) {
+		int regVal = readValue(register);
 		if (bitPos < 8) {
 			fr.setZ(!checkBitSet(regVal, bitPos));
 			fr.setN(false);
@@ -237,8 +250,8 @@ public class BitShift {
 	 * @param bitPos
 	 *            - position of bit to set.
 	 */
-	public static void instructSET(String register, int bitPos) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructSET(int register, int bitPos) {
+		int regVal = readValue(register);
 		if (bitPos < 8) {
 			int result = regVal;
 			if (!checkBitSet(result, bitPos)) {
@@ -256,8 +269,8 @@ public class BitShift {
 	 * @param bitPos
 	 *            - position of bit to set.
 	 */
-	public static void instructRES(String register, int bitPos) {
-		int regVal = register.equals("HL") ? mmu.readByte(reg.read("HL")) : reg.read(register);
+	public void instructRES(int register, int bitPos) {
+		int regVal = readValue(register);
 		if (bitPos < 8) {
 			int result = regVal;
 			if (checkBitSet(result, bitPos)) {
@@ -267,6 +280,17 @@ public class BitShift {
 		}
 	}
 
+	/**
+	 * Reads value from its proper register or address in memory.
+	 * 
+	 * @param register
+	 *            - register/pointer to read from.
+	 * @return Value of the register/pointer.
+	 */
+	private int readValue(int register) {
+		return register == HL_INDIRECT ? mmu.readByte(reg.getHL()) : reg.get(register);
+	}
+
 	/**
 	 * Writes changed value to its proper register or address in memory.
 	 * 
@@ -275,11 +299,11 @@ public class BitShift {
 	 * @param result
 	 *            - Value to write to register/pointer.
 	 */
-	private static void writeValue(String register, int result) {
-		if (register.equals("HL")) {
-			mmu.writeByte(reg.read("HL"), result);
+	private void writeValue(int register, int result) {
+		if (register == HL_INDIRECT) {
+			mmu.writeByte(reg.getHL(), result);
 		} else {
-			reg.write(register, result);
+			reg.set(register, result);
 		}
 	}
 }
@@ -4,6 +4,8 @@ import us.kshadow.gbz80emu.memory.MMU;
 import us.kshadow.gbz80emu.processor.CPURegisters;
 import us.kshadow.gbz80emu.processor.FlagRegister;
 
+import static us.kshadow.gbz80emu.processor.CPURegisters.PC;
+
 /**
  * Contains implementation for instructions pertaining to control
  * flow/branching.
@@ -13,24 +15,35 @@ import us.kshadow.gbz80emu.processor.FlagRegister;
  */
 public class ControlFlow {
 
-	private static final CPURegisters reg = CPURegisters.getInstance();
-	private static final FlagRegister fr = reg.getFR();
-	private static final MMU mmu = MMU.getInstance();
+	private final CPURegisters reg;
+	private final FlagRegister fr;
+	private final MMU mmu;
 
-	private ControlFlow() {
+	/**
+	 * Creates the instructions for a CPU.
+	 * 
+	 * @param reg
+	 *            - Registers of the CPU.
+	 * @param mmu
+	 *            - MMU the CPU accesses memory through.
+	 */
+	public ControlFlow(CPURegisters reg, MMU mmu) {
+		this.reg = reg;
+		this.fr = reg.getFR();
+		this.mmu = mmu;
 	}
 
 	/**
 	 * DI - Disables any potential interrupts
 	 */
-	public static void instructDI() {
+	public void instructDI() {
 		reg.toggleIME(false);
 	}
 
 	/**
 	 * EI - Enable interrupts
 	 */
-	public static void instructEI() {
+	public void instructEI() {
 		reg.toggleIME(true);
 	}
 
@@ -40,8 +53,8 @@ public class ControlFlow {
 	 * @param address
 	 *            - Address to set PC to.
 	 */
-	public static void instructJP(int address) {
-		reg.write("PC", address);
+	public void instructJP(int address) {
+		reg.setPC(address);
 	}
 
 	/**
@@ -52,7 +65,7 @@ public class ControlFlow {
 	 * @param address
 	 *            - Address to set PC to.
 	 */
-	public static int instructCondJP(int opcode, int address) {
+	public int instructCondJP(int opcode, int address) {
 		int cycles = 12;
 		switch (opcode) {
 			case 0xC2 -> {
@@ -91,8 +104,8 @@ public class ControlFlow {
 	 * @param value
 	 *            - Next signed byte from memory.
 	 */
-	public static void instructJR(byte value) {
-		reg.write("PC", reg.getPC() + value);
+	public void instructJR(byte value) {
+		reg.setPC(reg.getPC() + value);
 	}
 
 	/**
@@ -103,7 +116,7 @@ public class ControlFlow {
 	 * @param value
 	 *            - Next signed byte from memory.
 	 */
-	public static int instructCondJR(int opcode, byte value) {
+	public int instructCondJR(int opcode, byte value) {
 		int cycles = 8;
 		switch (opcode) {
 			case 0x20 -> {
@@ -140,13 +153,13 @@ public class ControlFlow {
 	 * PUSH - Push register onto stack, then decrement SP by 2.
 	 * 
 	 * @param register
-	 *            - Register to push onto stack.
+	 *            - Index of register pair to push onto stack.
 	 */
-	public static void instructPUSH(String register) {
-		int currentSP = reg.read("SP");
-		reg.write("SP", currentSP - 2);
-		int value = reg.read(register);
-		mmu.writeWord(reg.read("SP"), value);
+	public void instructPUSH(int register) {
+		int currentSP = reg.getSP();
+		reg.setSP(currentSP - 2);
+		int value = reg.getPair(register);
+		mmu.writeWord(reg.getSP(), value);
 	}
 
 	/**
@@ -154,20 +167,20 @@ public class ControlFlow {
 	 * by 2.
 	 * 
 	 * @param register
-	 *            - Register to store popped bytes in.
+	 *            - Index of register pair to store popped bytes in.
 	 */
-	public static void instructPOP(String register) {
-		int currentSP = reg.read("SP");
+	public void instructPOP(int register) {
+		int currentSP = reg.getSP();
 		int value = mmu.readWord(currentSP);
-		reg.write(register, value);
-		reg.write("SP", currentSP + 2);
+		reg.setPair(register, value);
+		reg.setSP(currentSP + 2);
 	}
 
 	/**
 	 * RET - Pop two bytes from stack and jump to the address.
 	 */
-	public static void instructRET() {
-		instructPOP("PC");
+	public void instructRET() {
+		instructPOP(PC);
 	}
 
 	/**
@@ -176,7 +189,7 @@ public class ControlFlow {
 	 * @param opcode
 	 *            - Opcode of the conditional return.
 	 */
-	public static int instructCondRET(int opcode) {
+	public int instructCondRET(int opcode) {
 		int cycles = 8;
 		switch (opcode) {
 			case 0xC0 -> {
@@ -212,7 +225,7 @@ public class ControlFlow {
 	/**
 	 * RETI - Similar to RET, except enable interrupts afterward.
 	 */
-	public static void instructRETI() {
+	public void instructRETI() {
 		instructRET();
 		instructEI();
 	}
@@ -223,17 +236,17 @@ public class ControlFlow {
 	 * @param opcode
 	 *            - Opcode for jump condition.
 	 */
-	public static void instructRST(int opcode) {
-		instructPUSH("PC");
+	public void instructRST(int opcode) {
+		instructPUSH(PC);
 		switch (opcode) {
-			case 0xC7 -> reg.write("PC", 0x00);
-			case 0xCF -> reg.write("PC", 0x08);
-			case 0xD7 -> reg.write("PC", 0x10);
-			case 0xDF -> reg.write("PC", 0x18);
-			case 0xE7 -> reg.write("PC", 0x20);
-			case 0xEF -> reg.write("PC", 0x28);
-			case 0xF7 -> reg.write("PC", 0x30);
-			case 0xFF -> reg.write("PC", 0x38);
+			case 0xC7 -> reg.setPC(0x00);
+			case 0xCF -> reg.setPC(0x08);
+			case 0xD7 -> reg.setPC(0x10);
+			case 0xDF -> reg.setPC(0x18);
+			case 0xE7 -> reg.setPC(0x20);
+			case 0xEF -> reg.setPC(0x28);
+			case 0xF7 -> reg.setPC(0x30);
+			case 0xFF -> reg.setPC(0x38);
 			default -> {
 			}
 		}
@@ -245,8 +258,8 @@ public class ControlFlow {
 	 * @param address
 	 *            - Address to jump to.
 	 */
-	public static void instructCALL(int address) {
-		instructPUSH("PC");
+	public void instructCALL(int address) {
+		instructPUSH(PC);
 		instructJP(address);
 	}
 
@@ -258,7 +271,7 @@ public class ControlFlow {
 	 * @param address
 	 *            - Address to jump to.
 	 */
-	public static int instructCondCALL(int opcode, int address) {
+	public int instructCondCALL(int opcode, int address) {
 		int cycles = 12;
 		switch (opcode) {
 			case 0xC4 -> {
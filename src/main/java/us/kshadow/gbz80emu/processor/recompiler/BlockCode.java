@@ -0,0 +1,25 @@
+package us.kshadow.gbz80emu.processor.recompiler;
+
+import us.kshadow.gbz80emu.processor.CPU;
+
+/**
+ * Code generated for a single {@link CompiledBlock}, see {@link BlockGenerator}.
+ */
+interface BlockCode {
+
+	/**
+	 * Runs the block's instructions in order. Stops early before an instruction
+	 * that would touch I/O or MBC registers through a pointer, after one that
+	 * overwrote the block, or once the cycles taken reach the budget.
+	 *
+	 * @param cpu
+	 *            - CPU the block runs on.
+	 * @param block
+	 *            - The block being run, checked for being overwritten.
+	 * @param budget
+	 *            - Cycles after which no more instructions are run, such as
+	 *            when the next scheduled event is due.
+	 * @return The number of cycles taken, 0 if no instruction was run.
+	 */
+	int run(CPU cpu, CompiledBlock block, int budget);
+}
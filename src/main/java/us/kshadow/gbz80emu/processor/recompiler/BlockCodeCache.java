@@ -0,0 +1,100 @@
+package us.kshadow.gbz80emu.processor.recompiler;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of generated block code. Generating a class and getting it
+ * through the JIT costs far more than interpreting a block many times over, so
+ * it should only be paid once for the same code. Code is keyed by the address
+ * its block starts at and the instructions in it, which is everything the
+ * generated class depends on. Machines running the same ROM share the code of
+ * its blocks, and so does code copied into RAM again, like test ROMs do for
+ * every test.
+ * <p>
+ * The least recently compiled code is evicted once the cache is full. Its class
+ * is unloaded once no machine has a block running it.
+ */
+final class BlockCodeCache {
+
+	// Most classes kept around for blocks to share.
+	static final int CAPACITY = 4096;
+
+	/**
+	 * Identifies the code of a block.
+	 *
+	 * @param startAddress
+	 *            - Address the block starts at, as seen by the CPU.
+	 * @param instructions
+	 *            - Opcode of each instruction, with its operand in the bits above
+	 *            it.
+	 */
+	record Key(int startAddress, int[] instructions) {
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key key && startAddress == key.startAddress
+					&& Arrays.equals(instructions, key.instructions);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * startAddress + Arrays.hashCode(instructions);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Key[startAddress=0x%04X, instructions=%d]", startAddress, instructions.length);
+		}
+	}
+
+	// In access order, so the eldest entry is the least recently used.
+	private static final Map<Key, BlockCode> codes = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, BlockCode> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+
+	private BlockCodeCache() {
+	}
+
+	/**
+	 * Gets the code for a block, if a block with the same code was compiled
+	 * before.
+	 *
+	 * @param key
+	 *            - Identifies the block's code.
+	 * @return The code, or null if it isn't cached.
+	 */
+	static BlockCode get(Key key) {
+		synchronized (codes) {
+			return codes.get(key);
+		}
+	}
+
+	/**
+	 * Gets the code for a block, generating it if no block with the same code
+	 * was compiled before. Machines can compile on separate threads, and
+	 * generating code doesn't block the others, so two may generate the same
+	 * code at once, in which case the first one cached is kept.
+	 *
+	 * @param key
+	 *            - Identifies the block's code.
+	 * @param generator
+	 *            - Generates the code if it isn't cached.
+	 * @return The code.
+	 */
+	static BlockCode get(Key key, Supplier<BlockCode> generator) {
+		BlockCode code = get(key);
+		if (code != null) {
+			return code;
+		}
+		code = generator.get();
+		synchronized (codes) {
+			return codes.merge(key, code, (cached, generated) -> cached);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package us.kshadow.gbz80emu.processor.recompiler;
+
+import java.util.Arrays;
+
+import us.kshadow.gbz80emu.processor.DecodeCache;
+import us.kshadow.gbz80emu.processor.DecodedInstruction;
+import us.kshadow.gbz80emu.processor.OpcodeHandler;
+import us.kshadow.gbz80emu.processor.OpcodeTable;
+
+import static us.kshadow.gbz80emu.processor.CPURegisters.*;
+
+/**
+ * Builds straight-line basic blocks out of instructions from the
+ * {@link DecodeCache}, and compiles them into {@link CompiledBlock}s through
+ * the {@link BlockGenerator}. A block ends after any instruction that changes
+ * control flow or interrupt state, and before any instruction that is
+ * statically known to touch I/O registers or MBC registers, so those always run
+ * through the interpreter with the rest of the system caught up.
+ */
+final class BlockCompiler {
+
+	static final int MAX_BLOCK_INSTRUCTIONS = 32;
+
+	private final DecodeCache decodeCache;
+
+	BlockCompiler(DecodeCache decodeCache) {
+		this.decodeCache = decodeCache;
+	}
+
+	/**
+	 * Compiles the block starting at the given address, generating its code if
+	 * it isn't in the {@link BlockCodeCache} yet.
+	 *
+	 * @param startAddress
+	 *            - Address of the first instruction.
+	 * @return The compiled block, or {@link CompiledBlock#UNCOMPILABLE} if the
+	 *         first instruction has to be interpreted.
+	 */
+	CompiledBlock compile(int startAddress) {
+		return compile(startAddress, true);
+	}
+
+	/**
+	 * Compiles the block starting at the given address only if its code is in
+	 * the {@link BlockCodeCache} already, which is cheap.
+	 *
+	 * @param startAddress
+	 *            - Address of the first instruction.
+	 * @return The compiled block, {@link CompiledBlock#UNCOMPILABLE} if the first
+	 *         instruction has to be interpreted, or null if the code isn't
+	 *         cached.
+	 */
+	CompiledBlock lookup(int startAddress) {
+		return compile(startAddress, false);
+	}
+
+	@SuppressWarnings("java:S3776")
+	private CompiledBlock compile(int startAddress, boolean generate) {
+		OpcodeHandler[] handlers = new OpcodeHandler[MAX_BLOCK_INSTRUCTIONS];
+		int[] operands = new int[MAX_BLOCK_INSTRUCTIONS];
+		int[] nextPCs = new int[MAX_BLOCK_INSTRUCTIONS];
+		int[] pointers = new int[MAX_BLOCK_INSTRUCTIONS];
+		boolean[] writes = new boolean[MAX_BLOCK_INSTRUCTIONS];
+		int[] instructions = new int[MAX_BLOCK_INSTRUCTIONS];
+
+		int pc = startAddress;
+		int count = 0;
+		while (count < MAX_BLOCK_INSTRUCTIONS) {
+			// The cache never decodes across the end of a ROM bank window or RAM area.
+			DecodedInstruction instruction = decodeCache.get(pc);
+			if (instruction == null) {
+				break;
+			}
+
+			int opcode = instruction.opcode();
+			int operand = instruction.operand();
+			if (!isCompilable(opcode, operand)) {
+				break;
+			}
+			instructions[count] = (operand << 8) | opcode;
+
+			if (opcode == 0xCB) {
+				handlers[count] = OpcodeTable.getCB(operand).handler();
+				operands[count] = 0;
+				// Only the (HL) column of the CB page touches memory, and BIT only reads it.
+				pointers[count] = (operand & 7) == HL_INDIRECT ? HL : -1;
+				writes[count] = (operand >> 6) != 1;
+			} else {
+				handlers[count] = instruction.handler();
+				operands[count] = operand;
+				pointers[count] = getPointer(opcode);
+				writes[count] = isMemoryWrite(opcode);
+			}
+			pc += instruction.length();
+			nextPCs[count] = pc;
+			count++;
+
+			if (endsBlock(opcode)) {
+				break;
+			}
+		}
+
+		if (count == 0) {
+			return CompiledBlock.UNCOMPILABLE;
+		}
+		int size = count;
+		BlockCodeCache.Key key = new BlockCodeCache.Key(startAddress, Arrays.copyOf(instructions, size));
+		BlockCode code;
+		if (generate) {
+			code = BlockCodeCache.get(key,
+					() -> BlockGenerator.generate(Arrays.copyOf(handlers, size), Arrays.copyOf(operands, size),
+							Arrays.copyOf(nextPCs, size), Arrays.copyOf(pointers, size), Arrays.copyOf(writes, size)));
+		} else {
+			code = BlockCodeCache.get(key);
+			if (code == null) {
+				return null;
+			}
+		}
+		return new CompiledBlock(startAddress, pc - startAddress, size, code);
+	}
+
+	/**
+	 * Checks if an instruction can run inside a block, rather than only through
+	 * the interpreter.
+	 */
+	private static boolean isCompilable(int opcode, int operand) {
+		return switch (opcode) {
+			// LDH and LD ($FF00+C) always target high memory, where the I/O registers are.
+			case 0xE0, 0xF0, 0xE2, 0xF2 -> false;
+			// Writes below 0x8000 are MBC register writes, which can switch banks.
+			case 0xEA, 0x08 -> !isIO(operand) && !isIO(operand + 1) && operand >= 0x8000;
+			case 0xFA -> !isIO(operand);
+			default -> true;
+		};
+	}
+
+	/**
+	 * Instructions that change control flow or interrupt state. These are
+	 * included in the block, but nothing after them is.
+	 */
+	private static boolean endsBlock(int opcode) {
+		return switch (opcode) {
+			// JR, JP, CALL, RET, RETI, RST
+			case 0x18, 0x20, 0x28, 0x30, 0x38, 0xC3, 0xC2, 0xCA, 0xD2, 0xDA, 0xE9, 0xCD, 0xC4, 0xCC, 0xD4, 0xDC, 0xC9,
+					0xC0, 0xC8, 0xD0, 0xD8, 0xD9, 0xC7, 0xCF, 0xD7, 0xDF, 0xE7, 0xEF, 0xF7, 0xFF -> true;
+			// HALT, STOP, DI, EI
+			case 0x76, 0x10, 0xF3, 0xFB -> true;
+			default -> false;
+		};
+	}
+
+	/**
+	 * Gets the register pair an instruction dereferences, so it can be checked
+	 * before the instruction runs.
+	 */
+	private static int getPointer(int opcode) {
+		if ((opcode >= 0x40 && opcode < 0xC0 && (opcode & 7) == HL_INDIRECT)
+				|| (opcode >= 0x70 && opcode < 0x78)) {
+			return HL;
+		}
+		return switch (opcode) {
+			case 0x22, 0x2A, 0x32, 0x3A, 0x34, 0x35, 0x36 -> HL;
+			case 0x02, 0x0A -> BC;
+			case 0x12, 0x1A -> DE;
+			// PUSH, POP, CALL, RET, RETI, RST
+			case 0xC1, 0xD1, 0xE1, 0xF1, 0xC5, 0xD5, 0xE5, 0xF5, 0xCD, 0xC4, 0xCC, 0xD4, 0xDC, 0xC9, 0xC0, 0xC8, 0xD0,
+					0xD8, 0xD9, 0xC7, 0xCF, 0xD7, 0xDF, 0xE7, 0xEF, 0xF7, 0xFF -> SP;
+			default -> -1;
+		};
+	}
+
+	private static boolean isMemoryWrite(int opcode) {
+		return (opcode >= 0x70 && opcode < 0x78) || switch (opcode) {
+			case 0x22, 0x32, 0x34, 0x35, 0x36, 0x02, 0x12, 0xEA, 0x08 -> true;
+			// PUSH, CALL, RST
+			case 0xC5, 0xD5, 0xE5, 0xF5, 0xCD, 0xC4, 0xCC, 0xD4, 0xDC, 0xC7, 0xCF, 0xD7, 0xDF, 0xE7, 0xEF, 0xF7,
+					0xFF -> true;
+			default -> false;
+		};
+	}
+
+	/**
+	 * Checks if an address is in the I/O register range, including the
+	 * interrupt enable register.
+	 */
+	static boolean isIO(int address) {
+		address &= 0xFFFF;
+		return (address >= 0xFF00 && address < 0xFF80) || address == 0xFFFF;
+	}
+}
@@ -0,0 +1,529 @@
+package us.kshadow.gbz80emu.processor.recompiler;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import us.kshadow.gbz80emu.processor.OpcodeHandler;
+
+import static us.kshadow.gbz80emu.processor.CPURegisters.SP;
+
+/**
+ * Generates a class for each compiled block, defined as a hidden class so it
+ * can be unloaded along with the block. The class file is written out by
+ * hand, as the ClassFile API is newer than Java 17.
+ * <p>
+ * The block's run() method sets PC and calls each instruction's handler in
+ * turn, with its operand as a constant. Handlers are held in static final
+ * fields of the class, so the JIT sees exactly which handler each call goes
+ * to, and can inline the whole block into one method. Checks for pointers
+ * reaching I/O, the block being overwritten and the cycle budget sit between
+ * the calls, each jumping to the same exit returning the cycles taken.
+ * <p>
+ * Every generated class refers to the same classes, methods and fields, so
+ * they all share one constant pool, written once up front. Only the fields
+ * and the code of each class have to be written when a block is compiled.
+ */
+final class BlockGenerator {
+
+	private static final String CLASS_NAME = "us/kshadow/gbz80emu/processor/recompiler/Block";
+	private static final String CPU = "us/kshadow/gbz80emu/processor/CPU";
+	private static final String REGISTERS = "us/kshadow/gbz80emu/processor/CPURegisters";
+	private static final String BLOCK = "us/kshadow/gbz80emu/processor/recompiler/CompiledBlock";
+	private static final String RECOMPILER = "us/kshadow/gbz80emu/processor/recompiler/Recompiler";
+	private static final String HANDLER = "us/kshadow/gbz80emu/processor/OpcodeHandler";
+	private static final String HANDLER_DESCRIPTOR = "L" + HANDLER + ";";
+
+	// Java 17 class files.
+	private static final int CLASS_VERSION = 61;
+
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_PRIVATE = 0x0002;
+	private static final int ACC_STATIC = 0x0008;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+
+	// Bytecode instructions used by the generated methods.
+	private static final int ICONST_0 = 0x03;
+	private static final int BIPUSH = 0x10;
+	private static final int SIPUSH = 0x11;
+	private static final int LDC_W = 0x13;
+	private static final int ILOAD = 0x15;
+	private static final int ALOAD = 0x19;
+	private static final int ILOAD_3 = 0x1D;
+	private static final int ALOAD_0 = 0x2A;
+	private static final int ALOAD_1 = 0x2B;
+	private static final int ALOAD_2 = 0x2C;
+	private static final int AALOAD = 0x32;
+	private static final int ISTORE = 0x36;
+	private static final int ASTORE = 0x3A;
+	private static final int ASTORE_0 = 0x4B;
+	private static final int IADD = 0x60;
+	private static final int IAND = 0x7E;
+	private static final int IFEQ = 0x99;
+	private static final int IF_ICMPGE = 0xA2;
+	private static final int IRETURN = 0xAC;
+	private static final int RETURN = 0xB1;
+	private static final int GETSTATIC = 0xB2;
+	private static final int PUTSTATIC = 0xB3;
+	private static final int GETFIELD = 0xB4;
+	private static final int INVOKEVIRTUAL = 0xB6;
+	private static final int INVOKESPECIAL = 0xB7;
+	private static final int INVOKESTATIC = 0xB8;
+	private static final int INVOKEINTERFACE = 0xB9;
+	private static final int CHECKCAST = 0xC0;
+
+	// Stack map frame type, and verification types used in it.
+	private static final int FULL_FRAME = 255;
+	private static final int ITEM_INTEGER = 1;
+	private static final int ITEM_OBJECT = 7;
+
+	// Locals of run(): this, cpu, block and budget are the arguments.
+	private static final int LOCAL_REGISTERS = 4;
+	private static final int LOCAL_CYCLES = 5;
+
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+	// The shared constant pool, and the indexes of its entries.
+	private static final byte[] constantPool;
+	private static final int thisClass;
+	private static final int superClass;
+	private static final int blockCodeClass;
+	private static final int handlerClass;
+	private static final int objectArrayClass;
+	private static final int cpuClass;
+	private static final int blockClass;
+	private static final int registersClass;
+	private static final int handlerType;
+	private static final int[] handlerNames = new int[BlockCompiler.MAX_BLOCK_INSTRUCTIONS];
+	private static final int[] handlerFields = new int[BlockCompiler.MAX_BLOCK_INSTRUCTIONS];
+	private static final int codeName;
+	private static final int stackMapName;
+	private static final int initName;
+	private static final int classInitName;
+	private static final int runName;
+	private static final int voidType;
+	private static final int runType;
+	private static final int objectInit;
+	private static final int lookupMethod;
+	private static final int classData;
+	private static final int classDataName;
+	private static final int getRegisters;
+	private static final int getPair;
+	private static final int getSP;
+	private static final int isSafeRead;
+	private static final int isSafeWrite;
+	private static final int isSafeStack;
+	private static final int setPC;
+	private static final int execute;
+	private static final int valid;
+	private static final int wordMask;
+
+	static {
+		ConstantPool pool = new ConstantPool();
+		thisClass = pool.classRef(CLASS_NAME);
+		superClass = pool.classRef("java/lang/Object");
+		blockCodeClass = pool.classRef("us/kshadow/gbz80emu/processor/recompiler/BlockCode");
+		handlerClass = pool.classRef(HANDLER);
+		objectArrayClass = pool.classRef("[Ljava/lang/Object;");
+		cpuClass = pool.classRef(CPU);
+		blockClass = pool.classRef(BLOCK);
+		registersClass = pool.classRef(REGISTERS);
+		handlerType = pool.utf8(HANDLER_DESCRIPTOR);
+		for (int i = 0; i < handlerNames.length; i++) {
+			handlerNames[i] = pool.utf8("h" + i);
+			handlerFields[i] = pool.memberRef(ConstantPool.FIELD_REF, thisClass, handlerNames[i], handlerType);
+		}
+		codeName = pool.utf8("Code");
+		stackMapName = pool.utf8("StackMapTable");
+		initName = pool.utf8("<init>");
+		classInitName = pool.utf8("<clinit>");
+		runName = pool.utf8("run");
+		voidType = pool.utf8("()V");
+		runType = pool.utf8("(L" + CPU + ";L" + BLOCK + ";I)I");
+		objectInit = pool.memberRef(ConstantPool.METHOD_REF, superClass, initName, voidType);
+		lookupMethod = pool.methodRef("java/lang/invoke/MethodHandles", "lookup",
+				"()Ljava/lang/invoke/MethodHandles$Lookup;");
+		classData = pool.methodRef("java/lang/invoke/MethodHandles", "classData",
+				"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;");
+		classDataName = pool.string("_");
+		getRegisters = pool.methodRef(CPU, "getRegisters", "()L" + REGISTERS + ";");
+		getPair = pool.methodRef(REGISTERS, "getPair", "(I)I");
+		getSP = pool.methodRef(REGISTERS, "getSP", "()I");
+		isSafeRead = pool.methodRef(RECOMPILER, "isSafeRead", "(I)Z");
+		isSafeWrite = pool.methodRef(RECOMPILER, "isSafeWrite", "(I)Z");
+		isSafeStack = pool.methodRef(RECOMPILER, "isSafeStack", "(I)Z");
+		setPC = pool.methodRef(REGISTERS, "setPC", "(I)V");
+		execute = pool.interfaceMethodRef(HANDLER, "execute", "(L" + CPU + ";I)I");
+		valid = pool.fieldRef(BLOCK, "valid", "Z");
+		wordMask = pool.integer(0xFFFF);
+		constantPool = pool.toBytes();
+	}
+
+	private BlockGenerator() {
+	}
+
+	/**
+	 * Generates and loads the code for a block.
+	 *
+	 * @param handlers
+	 *            - Handler of each instruction.
+	 * @param operands
+	 *            - Operand of each instruction.
+	 * @param nextPCs
+	 *            - PC to set before running each instruction.
+	 * @param pointers
+	 *            - Register pair each instruction uses as a pointer, or -1.
+	 * @param writes
+	 *            - Whether each instruction writes to memory, through its
+	 *            pointer if it has one.
+	 * @return The block's code.
+	 */
+	static BlockCode generate(OpcodeHandler[] handlers, int[] operands, int[] nextPCs, int[] pointers,
+			boolean[] writes) {
+		byte[] classFile = writeClass(operands, nextPCs, pointers, writes);
+		try {
+			Class<?> blockCode = lookup.defineHiddenClassWithClassData(classFile, handlers, true).lookupClass();
+			return (BlockCode) blockCode.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Generated block class could not be loaded.", e);
+		}
+	}
+
+	private static byte[] writeClass(int[] operands, int[] nextPCs, int[] pointers, boolean[] writes) {
+		Bytes out = new Bytes(constantPool.length + 128 + operands.length * 48);
+		out.u4(0xCAFEBABE);
+		out.u2(0);
+		out.u2(CLASS_VERSION);
+		out.write(constantPool);
+		out.u2(ACC_FINAL | ACC_SUPER);
+		out.u2(thisClass);
+		out.u2(superClass);
+		out.u2(1);
+		out.u2(blockCodeClass);
+
+		out.u2(operands.length);
+		for (int i = 0; i < operands.length; i++) {
+			out.u2(ACC_PRIVATE | ACC_STATIC | ACC_FINAL);
+			out.u2(handlerNames[i]);
+			out.u2(handlerType);
+			out.u2(0);
+		}
+
+		out.u2(3);
+		writeInit(out);
+		writeClassInit(out, operands.length);
+		writeRun(out, operands, nextPCs, pointers, writes);
+		out.u2(0);
+		return out.toBytes();
+	}
+
+	/**
+	 * Writes the header of a method with a Code attribute, up to the start of
+	 * its bytecode.
+	 *
+	 * @return Offset of the attribute's length, for endMethod().
+	 */
+	private static int startMethod(Bytes out, int access, int name, int type, int maxStack, int maxLocals) {
+		out.u2(access);
+		out.u2(name);
+		out.u2(type);
+		out.u2(1);
+		out.u2(codeName);
+		int start = out.size();
+		// Lengths of the attribute and the bytecode, filled in by endMethod().
+		out.u4(0);
+		out.u2(maxStack);
+		out.u2(maxLocals);
+		out.u4(0);
+		return start;
+	}
+
+	/**
+	 * Fills in the lengths left blank by startMethod(), once the bytecode and
+	 * the attributes of the Code attribute have been written.
+	 */
+	private static void endMethod(Bytes out, int start, int codeLength) {
+		out.patchU4(start, out.size() - start - 4);
+		out.patchU4(start + 8, codeLength);
+	}
+
+	private static void writeInit(Bytes out) {
+		int start = startMethod(out, ACC_PUBLIC, initName, voidType, 1, 1);
+		int code = out.size();
+		out.u1(ALOAD_0);
+		out.u1(INVOKESPECIAL).u2(objectInit);
+		out.u1(RETURN);
+		int codeLength = out.size() - code;
+		out.u2(0);
+		out.u2(0);
+		endMethod(out, start, codeLength);
+	}
+
+	/**
+	 * Writes the static initializer, which loads the handlers from the class
+	 * data into their static fields.
+	 */
+	private static void writeClassInit(Bytes out, int count) {
+		int start = startMethod(out, ACC_STATIC, classInitName, voidType, 3, 1);
+		int code = out.size();
+		out.u1(INVOKESTATIC).u2(lookupMethod);
+		out.u1(LDC_W).u2(classDataName);
+		out.u1(LDC_W).u2(objectArrayClass);
+		out.u1(INVOKESTATIC).u2(classData);
+		out.u1(CHECKCAST).u2(objectArrayClass);
+		out.u1(ASTORE_0);
+		for (int i = 0; i < count; i++) {
+			out.u1(ALOAD_0);
+			pushInt(out, i);
+			out.u1(AALOAD);
+			out.u1(CHECKCAST).u2(handlerClass);
+			out.u1(PUTSTATIC).u2(handlerFields[i]);
+		}
+		out.u1(RETURN);
+		int codeLength = out.size() - code;
+		out.u2(0);
+		out.u2(0);
+		endMethod(out, start, codeLength);
+	}
+
+	/**
+	 * Writes run(), the block itself.
+	 */
+	private static void writeRun(Bytes out, int[] operands, int[] nextPCs, int[] pointers, boolean[] writes) {
+		int start = startMethod(out, ACC_PUBLIC, runName, runType, 5, 6);
+		int code = out.size();
+		// At most a pointer check, a valid check and a budget check per instruction.
+		int[] exitJumps = new int[operands.length * 3];
+		int jumpCount = 0;
+
+		out.u1(ALOAD_1);
+		out.u1(INVOKEVIRTUAL).u2(getRegisters);
+		out.u1(ASTORE).u1(LOCAL_REGISTERS);
+		out.u1(ICONST_0);
+		out.u1(ISTORE).u1(LOCAL_CYCLES);
+		for (int i = 0; i < operands.length; i++) {
+			if (pointers[i] == SP) {
+				out.u1(ALOAD).u1(LOCAL_REGISTERS);
+				out.u1(INVOKEVIRTUAL).u2(getSP);
+				out.u1(INVOKESTATIC).u2(isSafeStack);
+				exitJumps[jumpCount++] = jump(out, IFEQ);
+			} else if (pointers[i] >= 0) {
+				out.u1(ALOAD).u1(LOCAL_REGISTERS);
+				pushInt(out, pointers[i]);
+				out.u1(INVOKEVIRTUAL).u2(getPair);
+				out.u1(INVOKESTATIC).u2(writes[i] ? isSafeWrite : isSafeRead);
+				exitJumps[jumpCount++] = jump(out, IFEQ);
+			}
+			out.u1(ALOAD).u1(LOCAL_REGISTERS);
+			pushInt(out, nextPCs[i]);
+			out.u1(INVOKEVIRTUAL).u2(setPC);
+			// cycles += h<i>.execute(cpu, operand)
+			out.u1(ILOAD).u1(LOCAL_CYCLES);
+			out.u1(GETSTATIC).u2(handlerFields[i]);
+			out.u1(ALOAD_1);
+			pushInt(out, operands[i]);
+			out.u1(INVOKEINTERFACE).u2(execute).u1(3).u1(0);
+			out.u1(IADD);
+			out.u1(ISTORE).u1(LOCAL_CYCLES);
+			if (i < operands.length - 1) {
+				// Only an instruction writing to memory can overwrite the block.
+				if (writes[i]) {
+					out.u1(ALOAD_2);
+					out.u1(GETFIELD).u2(valid);
+					exitJumps[jumpCount++] = jump(out, IFEQ);
+				}
+				out.u1(ILOAD).u1(LOCAL_CYCLES);
+				out.u1(ILOAD_3);
+				exitJumps[jumpCount++] = jump(out, IF_ICMPGE);
+			}
+		}
+		int exit = out.size();
+		out.u1(ILOAD).u1(LOCAL_CYCLES);
+		out.u1(IRETURN);
+		// Branch offsets are relative to the branch instruction.
+		for (int i = 0; i < jumpCount; i++) {
+			out.patchU2(exitJumps[i] + 1, exit - exitJumps[i]);
+		}
+		int codeLength = out.size() - code;
+		out.u2(0);
+
+		// A StackMapTable with a single full frame at the exit, which every check
+		// jumps to. Its locals are this, cpu, block, budget, registers and cycles,
+		// and the stack is empty.
+		out.u2(1);
+		out.u2(stackMapName);
+		out.u4(2 + 1 + 2 + 2 + 3 * 3 + 1 + 3 + 1 + 2);
+		out.u2(1);
+		out.u1(FULL_FRAME);
+		out.u2(exit - code);
+		out.u2(6);
+		out.u1(ITEM_OBJECT).u2(thisClass);
+		out.u1(ITEM_OBJECT).u2(cpuClass);
+		out.u1(ITEM_OBJECT).u2(blockClass);
+		out.u1(ITEM_INTEGER);
+		out.u1(ITEM_OBJECT).u2(registersClass);
+		out.u1(ITEM_INTEGER);
+		out.u2(0);
+		endMethod(out, start, codeLength);
+	}
+
+	/**
+	 * Writes a branch with its offset left blank.
+	 *
+	 * @return Offset of the branch.
+	 */
+	private static int jump(Bytes out, int opcode) {
+		int offset = out.size();
+		out.u1(opcode).u2(0);
+		return offset;
+	}
+
+	/**
+	 * Pushes an int between 0 and 0xFFFF, which is every operand, address or
+	 * register index a block uses.
+	 */
+	private static void pushInt(Bytes out, int value) {
+		if (value <= 5) {
+			out.u1(ICONST_0 + value);
+		} else if (value <= Byte.MAX_VALUE) {
+			out.u1(BIPUSH).u1(value);
+		} else if (value <= Short.MAX_VALUE) {
+			out.u1(SIPUSH).u2(value);
+		} else {
+			// Too big for SIPUSH, which sign extends. Masking it back to 16 bits saves
+			// adding a constant to the shared pool, and is folded by the JIT.
+			out.u1(SIPUSH).u2(value);
+			out.u1(LDC_W).u2(wordMask);
+			out.u1(IAND);
+		}
+	}
+
+	/**
+	 * Growable buffer of big-endian bytes, as class files are written.
+	 */
+	private static final class Bytes {
+		private byte[] bytes;
+		private int size;
+
+		Bytes(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		Bytes u1(int value) {
+			if (size == bytes.length) {
+				bytes = Arrays.copyOf(bytes, size * 2);
+			}
+			bytes[size++] = (byte) value;
+			return this;
+		}
+
+		Bytes u2(int value) {
+			u1(value >> 8);
+			return u1(value);
+		}
+
+		Bytes u4(int value) {
+			u2(value >> 16);
+			return u2(value);
+		}
+
+		void write(byte[] values) {
+			if (size + values.length > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(size * 2, size + values.length));
+			}
+			System.arraycopy(values, 0, bytes, size, values.length);
+			size += values.length;
+		}
+
+		void patchU2(int offset, int value) {
+			bytes[offset] = (byte) (value >> 8);
+			bytes[offset + 1] = (byte) value;
+		}
+
+		void patchU4(int offset, int value) {
+			patchU2(offset, value >> 16);
+			patchU2(offset + 2, value);
+		}
+
+		int size() {
+			return size;
+		}
+
+		byte[] toBytes() {
+			return Arrays.copyOf(bytes, size);
+		}
+	}
+
+	/**
+	 * Constant pool shared by the generated classes. Entries are simply added in
+	 * order, as each one is only asked for once.
+	 */
+	private static final class ConstantPool {
+		private static final int UTF8 = 1;
+		private static final int INTEGER = 3;
+		private static final int CLASS = 7;
+		private static final int STRING = 8;
+		private static final int FIELD_REF = 9;
+		private static final int METHOD_REF = 10;
+		private static final int INTERFACE_METHOD_REF = 11;
+		private static final int NAME_AND_TYPE = 12;
+
+		private final Bytes entries = new Bytes(1024);
+		private int count = 1;
+
+		int utf8(String value) {
+			// Only plain ASCII names are used, which modified UTF-8 leaves as is.
+			byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+			entries.u1(UTF8).u2(bytes.length);
+			entries.write(bytes);
+			return count++;
+		}
+
+		int integer(int value) {
+			entries.u1(INTEGER).u4(value);
+			return count++;
+		}
+
+		int classRef(String name) {
+			int nameIndex = utf8(name);
+			entries.u1(CLASS).u2(nameIndex);
+			return count++;
+		}
+
+		int string(String value) {
+			int valueIndex = utf8(value);
+			entries.u1(STRING).u2(valueIndex);
+			return count++;
+		}
+
+		int fieldRef(String owner, String name, String type) {
+			return memberRef(FIELD_REF, classRef(owner), utf8(name), utf8(type));
+		}
+
+		int methodRef(String owner, String name, String type) {
+			return memberRef(METHOD_REF, classRef(owner), utf8(name), utf8(type));
+		}
+
+		int interfaceMethodRef(String owner, String name, String type) {
+			return memberRef(INTERFACE_METHOD_REF, classRef(owner), utf8(name), utf8(type));
+		}
+
+		int memberRef(int tag, int owner, int name, int type) {
+			entries.u1(NAME_AND_TYPE).u2(name).u2(type);
+			int nameAndType = count++;
+			entries.u1(tag).u2(owner).u2(nameAndType);
+			return count++;
+		}
+
+		/**
+		 * Gets the pool as written in a class file, starting with its count.
+		 */
+		byte[] toBytes() {
+			Bytes out = new Bytes(entries.size() + 2);
+			out.u2(count);
+			out.write(entries.toBytes());
+			return out.toBytes();
+		}
+	}
+}
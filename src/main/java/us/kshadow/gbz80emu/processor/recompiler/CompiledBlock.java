@@ -0,0 +1,33 @@
+package us.kshadow.gbz80emu.processor.recompiler;
+
+/**
+ * A straight-line run of SM83 instructions, compiled into a class of its own
+ * by {@link BlockGenerator}.
+ */
+final class CompiledBlock {
+
+	// Shared marker for addresses that can't start a block, so they aren't
+	// decoded again every time they're reached.
+	static final CompiledBlock UNCOMPILABLE = new CompiledBlock(0x0000, 0, 0, null);
+
+	// Address the block starts at, as seen by the CPU.
+	final int startAddress;
+
+	// Number of bytes the block covers in memory.
+	final int byteLength;
+
+	// Number of instructions in the block.
+	final int size;
+
+	final BlockCode code;
+
+	// Cleared when the memory the block was compiled from is written to.
+	boolean valid = true;
+
+	CompiledBlock(int startAddress, int byteLength, int size, BlockCode code) {
+		this.startAddress = startAddress;
+		this.byteLength = byteLength;
+		this.size = size;
+		this.code = code;
+	}
+}
@@ -0,0 +1,236 @@
+package us.kshadow.gbz80emu.processor.recompiler;
+
+import java.util.Arrays;
+
+import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.memory.RomImage;
+import us.kshadow.gbz80emu.memory.WriteListener;
+import us.kshadow.gbz80emu.processor.CPU;
+import us.kshadow.gbz80emu.processor.CPURegisters;
+import us.kshadow.gbz80emu.processor.DecodeCache;
+
+/**
+ * Recompilation tier for the CPU. Counts how often each address is reached,
+ * and once an address gets hot, compiles the basic block starting there into
+ * a class of its own and runs it in one go from then on. A block stops early
+ * once the cycles it took reach the next scheduled event, so events and
+ * interrupts happen after the same instruction as in the interpreter.
+ * <p>
+ * Blocks are built from the {@link DecodeCache}, and looked up by where their
+ * code physically lives. Blocks in ROM are looked up by their offset into the
+ * ROM, so bank switching simply selects a different set of blocks. Blocks in
+ * work RAM and high RAM are thrown away as soon as the memory they were
+ * compiled from is written to. Anything the decode cache doesn't cover,
+ * including the boot ROM, is left to the interpreter. The generated code itself
+ * is shared between machines through the {@link BlockCodeCache}.
+ */
+public class Recompiler implements WriteListener {
+
+	// How many times an address has to be reached before its block is compiled.
+	// Set high enough that only code worth the JIT's time gets a class.
+	static final int HOT_THRESHOLD = 100000;
+
+	// How many times an address has to be reached before its block is looked up
+	// in the code cache, which is cheap if another machine already compiled it.
+	static final int WARM_THRESHOLD = 256;
+
+	// Furthest a write can be from the start of a block and still land in it.
+	private static final int MAX_BLOCK_BYTES = BlockCompiler.MAX_BLOCK_INSTRUCTIONS * 3;
+
+	private final CPURegisters reg;
+	private final MMU mmu;
+	private final DecodeCache decodeCache;
+	private final BlockCompiler compiler;
+
+	// Blocks in the loaded ROM, and how often each offset was reached, split
+	// into 256 byte pages by offset, and only allocated for pages that actually
+	// run code. Both are null while no ROM is loaded.
+	private CompiledBlock[][] romPages;
+	private int[][] romCounters;
+
+	// Blocks in RAM, and how often each address was reached, split into pages
+	// by address.
+	private final CompiledBlock[][] ramPages = new CompiledBlock[0x100][];
+	private final int[][] ramCounters = new int[0x100][];
+
+	/**
+	 * Creates the recompiler, and registers it with the decode cache to hear
+	 * about writes to RAM holding compiled code.
+	 *
+	 * @param reg
+	 *            - Registers of the CPU running the blocks.
+	 * @param mmu
+	 *            - MMU the ROM is loaded through.
+	 * @param decodeCache
+	 *            - Cache to build blocks from.
+	 */
+	public Recompiler(CPURegisters reg, MMU mmu, DecodeCache decodeCache) {
+		this.reg = reg;
+		this.mmu = mmu;
+		this.decodeCache = decodeCache;
+		this.compiler = new BlockCompiler(decodeCache);
+		decodeCache.setWriteListener(this);
+		clear();
+	}
+
+	/**
+	 * Runs the compiled block at the current PC, compiling it first if the
+	 * address just got hot.
+	 *
+	 * @param cpu
+	 *            - CPU the block runs on.
+	 * @param budget
+	 *            - Cycles until the next event is due. No instruction is
+	 *            started once the block has taken this many.
+	 * @return The number of cycles taken, or 0 if nothing was run and the
+	 *         instruction at PC has to be interpreted.
+	 */
+	public int execute(CPU cpu, int budget) {
+		int pc = reg.getPC();
+		int key = decodeCache.getKey(pc);
+		if (key < 0) {
+			return 0;
+		}
+
+		CompiledBlock[][] pages;
+		int[][] counters;
+		int index;
+		if (pc < 0x8000) {
+			if (romPages == null) {
+				return 0;
+			}
+			pages = romPages;
+			counters = romCounters;
+			index = key;
+		} else {
+			pages = ramPages;
+			counters = ramCounters;
+			index = pc;
+		}
+
+		CompiledBlock[] page = pages[index >> 8];
+		CompiledBlock block = page != null ? page[index & 0xFF] : null;
+		if (block == CompiledBlock.UNCOMPILABLE) {
+			return 0;
+		}
+		// A block only runs from the address it was compiled at, as that's where
+		// its jumps are relative to. ROM code can be seen at two addresses, such as
+		// bank 0 when some MBCs map it into the upper window too.
+		if (block == null || block.startAddress != pc) {
+			if (counters[index >> 8] == null) {
+				counters[index >> 8] = new int[0x100];
+			}
+			int count = ++counters[index >> 8][index & 0xFF];
+			if (count == WARM_THRESHOLD) {
+				block = compiler.lookup(pc);
+			} else if (count >= HOT_THRESHOLD) {
+				counters[index >> 8][index & 0xFF] = 0;
+				block = compiler.compile(pc);
+			} else {
+				return 0;
+			}
+			if (block == null) {
+				return 0;
+			}
+			store(pages, index, block);
+			if (block == CompiledBlock.UNCOMPILABLE) {
+				return 0;
+			}
+		}
+		return block.code.run(cpu, block, budget);
+	}
+
+	private static void store(CompiledBlock[][] pages, int index, CompiledBlock block) {
+		if (pages[index >> 8] == null) {
+			pages[index >> 8] = new CompiledBlock[0x100];
+		}
+		pages[index >> 8][index & 0xFF] = block;
+	}
+
+	/**
+	 * Checks that an instruction can read through a pointer inside a block, as
+	 * it doesn't reach I/O. Called from generated block code.
+	 *
+	 * @param address
+	 *            - Value of the register pair used as the pointer.
+	 * @return True if the instruction can run.
+	 */
+	static boolean isSafeRead(int address) {
+		return !BlockCompiler.isIO(address);
+	}
+
+	/**
+	 * Checks that an instruction can write through a pointer inside a block, as
+	 * it reaches neither I/O nor MBC registers. Called from generated block
+	 * code.
+	 *
+	 * @param address
+	 *            - Value of the register pair used as the pointer.
+	 * @return True if the instruction can run.
+	 */
+	static boolean isSafeWrite(int address) {
+		return address >= 0x8000 && !BlockCompiler.isIO(address);
+	}
+
+	/**
+	 * Checks that a stack instruction can run inside a block, as the word
+	 * either above or below SP reaches neither I/O nor MBC registers. Called
+	 * from generated block code.
+	 *
+	 * @param sp
+	 *            - Value of SP.
+	 * @return True if the instruction can run.
+	 */
+	static boolean isSafeStack(int sp) {
+		return isSafeWrite((sp - 2) & 0xFFFF) && isSafeWrite((sp + 1) & 0xFFFF);
+	}
+
+	/**
+	 * Drops all blocks and counters, for when a different ROM is loaded.
+	 */
+	public void clear() {
+		for (int page = 0; page < ramPages.length; page++) {
+			if (ramPages[page] != null) {
+				for (CompiledBlock block : ramPages[page]) {
+					if (block != null) {
+						block.valid = false;
+					}
+				}
+			}
+		}
+		Arrays.fill(ramPages, null);
+		Arrays.fill(ramCounters, null);
+
+		RomImage rom = mmu.getROM();
+		if (rom == null) {
+			romPages = null;
+			romCounters = null;
+			return;
+		}
+		int pageCount = (rom.size() + 0xFF) >> 8;
+		romPages = new CompiledBlock[pageCount][];
+		romCounters = new int[pageCount][];
+	}
+
+	/**
+	 * Invalidates any RAM blocks that were compiled from the written address.
+	 *
+	 * @param address
+	 *            - Address that was written to, with echo RAM already mapped to
+	 *            work RAM by the decode cache.
+	 */
+	@Override
+	public void onWrite(int address) {
+		int regionStart = address >= 0xFF80 ? 0xFF80 : 0xC000;
+		for (int start = Math.max(address - MAX_BLOCK_BYTES + 1, regionStart); start <= address; start++) {
+			CompiledBlock[] page = ramPages[start >> 8];
+			CompiledBlock block = page != null ? page[start & 0xFF] : null;
+			// Uncompilable entries take no bytes, but still have to be retried once
+			// their code changes.
+			if (block != null && address < start + Math.max(block.byteLength, 1)) {
+				block.valid = false;
+				page[start & 0xFF] = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package us.kshadow.gbz80emu.serial;
+
+import java.nio.ByteBuffer;
+
+import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.state.Stateful;
+import us.kshadow.gbz80emu.sysclock.Scheduler;
+import us.kshadow.gbz80emu.util.BitUtil;
+
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.INTERRUPT_FLAG;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.SERIAL_CONTROL;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.SERIAL_DATA;
+import static us.kshadow.gbz80emu.util.BitUtil.checkBitSet;
+
+/**
+ * Emulation of the Game Boy's serial port, with nothing plugged into the link
+ * cable. Every byte the game sends out is kept, as test ROMs print their
+ * results over serial.
+ */
+public class Serial implements Stateful {
+
+	// A transfer shifts out 8 bits at 8192Hz using the internal clock.
+	private static final int TRANSFER_CYCLES = 8 * 512;
+
+	private final MMU mmu;
+
+	private final Scheduler scheduler;
+
+	// 0xFF01 - SB, byte being shifted out.
+	private int serialData;
+
+	// 0xFF02 - SC, transfer start flag (bit 7) and clock select (bit 0).
+	private int serialControl;
+
+	// Everything sent out so far.
+	private final StringBuilder output = new StringBuilder();
+
+	/**
+	 * Creates the serial port, and registers it with the scheduler and the MMU.
+	 *
+	 * @param mmu
+	 *            - MMU to request interrupts through.
+	 * @param scheduler
+	 *            - Scheduler to finish transfers from.
+	 */
+	public Serial(MMU mmu, Scheduler scheduler) {
+		this.mmu = mmu;
+		this.scheduler = scheduler;
+		scheduler.setHandler(Scheduler.SERIAL, this::finishTransfer);
+		mmu.registerIO(SERIAL_DATA, this::readSerialRegister, this::writeSerialRegister);
+		mmu.registerIO(SERIAL_CONTROL, this::readSerialRegister, this::writeSerialRegister);
+	}
+
+	/**
+	 * Wrapper function for writing to serial registers.
+	 *
+	 * @param address
+	 *            Memory address of the serial register.
+	 * @param value
+	 *            Value to write to the applicable register.
+	 */
+	public void writeSerialRegister(int address, int value) {
+		switch (address) {
+			case SERIAL_DATA -> serialData = value;
+			case SERIAL_CONTROL -> {
+				serialControl = value;
+				// Only transfers using the internal clock ever finish without a link partner.
+				if (checkBitSet(value, 7) && checkBitSet(value, 0)) {
+					scheduler.schedule(Scheduler.SERIAL, scheduler.getCurrentCycle() + TRANSFER_CYCLES);
+				} else {
+					scheduler.cancel(Scheduler.SERIAL);
+				}
+			}
+			default -> throw new IllegalStateException("Unexpected address for serial register write: " + address);
+		}
+	}
+
+	/**
+	 * Wrapper function for reading from serial registers.
+	 *
+	 * @param address
+	 *            Memory address of the serial register.
+	 * @return requested serial register
+	 */
+	public int readSerialRegister(int address) {
+		return switch (address) {
+			case SERIAL_DATA -> serialData;
+			// Unused bits of SC always read as 1.
+			case SERIAL_CONTROL -> serialControl | 0x7E;
+			default -> throw new IllegalStateException("Unexpected address for serial register read: " + address);
+		};
+	}
+
+	/**
+	 * Finishes the transfer in progress. With nothing on the other end, the bits
+	 * shifted in are all 1.
+	 */
+	private void finishTransfer() {
+		output.append((char) serialData);
+		serialData = 0xFF;
+		serialControl &= ~(1 << 7);
+		int interruptFlag = mmu.readByte(INTERRUPT_FLAG);
+		mmu.writeByte(INTERRUPT_FLAG, BitUtil.setBit(interruptFlag, 3));
+	}
+
+	/**
+	 * Gets everything sent over serial since power on.
+	 *
+	 * @return The bytes sent, one char each.
+	 */
+	public String getOutput() {
+		return output.toString();
+	}
+
+	/**
+	 * Saves the serial registers. A transfer in progress is restored along with
+	 * the {@link Scheduler}, and the output sent so far isn't part of the state.
+	 */
+	@Override
+	public void saveState(ByteBuffer state) {
+		state.put((byte) serialData).put((byte) serialControl);
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		serialData = state.get() & 0xFF;
+		serialControl = state.get() & 0xFF;
+	}
+}
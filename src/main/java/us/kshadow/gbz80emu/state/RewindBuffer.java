@@ -0,0 +1,293 @@
+package us.kshadow.gbz80emu.state;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import us.kshadow.gbz80emu.GameBoy;
+
+/**
+ * History of save states to rewind a machine through, kept within a memory
+ * budget.
+ * <p>
+ * A snapshot is taken every few frames. Most are stored as the XOR against the
+ * snapshot before, which is almost all zeroes as little of memory changes
+ * between frames, with runs of zeroes squeezed out. Every so often a keyframe
+ * is stored instead, encoded the same way against nothing, so restoring only
+ * has to replay the deltas since the last keyframe. Once over budget, the
+ * oldest keyframe is dropped along with the deltas depending on it.
+ */
+public class RewindBuffer {
+
+	// Zero bytes a literal run has to be broken by for a new token to pay off.
+	private static final int MIN_ZERO_RUN = 4;
+
+	private record Snapshot(long frame, boolean keyframe, int stateSize, byte[] data) {
+	}
+
+	private final int interval;
+	private final int keyframeInterval;
+	private final long capacity;
+
+	private final ArrayDeque<Snapshot> snapshots = new ArrayDeque<>();
+	private long storedBytes;
+
+	// Frames run since the buffer was last cleared.
+	private long frame;
+	private int deltasSinceKeyframe;
+
+	// Last snapshot taken, what the next delta is against, and scratch space.
+	private byte[] previous = new byte[0];
+	private int previousSize;
+	private byte[] current = new byte[0];
+	private byte[] encoded = new byte[0];
+
+	/**
+	 * Creates an empty rewind buffer.
+	 *
+	 * @param interval
+	 *            - Frames between snapshots.
+	 * @param keyframeInterval
+	 *            - Snapshots between keyframes.
+	 * @param capacity
+	 *            - Most bytes the stored snapshots may take up.
+	 */
+	public RewindBuffer(int interval, int keyframeInterval, long capacity) {
+		if (interval < 1 || keyframeInterval < 1 || capacity < 1) {
+			throw new IllegalArgumentException("Rewind intervals and capacity must be positive.");
+		}
+		this.interval = interval;
+		this.keyframeInterval = keyframeInterval;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Counts a frame the machine has finished running, taking a snapshot of it
+	 * if one is due.
+	 *
+	 * @param gameBoy
+	 *            - Machine that ran the frame.
+	 */
+	public synchronized void frameCompleted(GameBoy gameBoy) {
+		frame++;
+		if (frame % interval != 0) {
+			return;
+		}
+		int maxSize = gameBoy.getMaxStateSize();
+		if (current.length < maxSize) {
+			current = new byte[maxSize];
+			// Worst case: a literal run of every byte, plus its token.
+			encoded = new byte[maxSize + 10];
+		}
+		ByteBuffer state = ByteBuffer.wrap(current);
+		gameBoy.saveState(state);
+		int size = state.position();
+
+		boolean keyframe = snapshots.isEmpty() || deltasSinceKeyframe + 1 >= keyframeInterval
+				|| size != previousSize;
+		int length = encode(current, keyframe ? null : previous, size);
+		snapshots.addLast(new Snapshot(frame, keyframe, size, Arrays.copyOf(encoded, length)));
+		storedBytes += length;
+		deltasSinceKeyframe = keyframe ? 0 : deltasSinceKeyframe + 1;
+
+		byte[] swap = previous;
+		previous = current;
+		previousSize = size;
+		current = swap;
+		evict();
+	}
+
+	/**
+	 * Restores a machine to the last snapshot taken at or before a frame, and
+	 * drops every snapshot after it. Frames then carry on from the snapshot's.
+	 *
+	 * @param gameBoy
+	 *            - Machine to restore, running the ROM the snapshots are of.
+	 * @param targetFrame
+	 *            - Frame to rewind to.
+	 * @return The frame restored, which is the target rounded down to the last
+	 *         snapshot.
+	 */
+	public synchronized long rewind(GameBoy gameBoy, long targetFrame) {
+		if (snapshots.isEmpty() || targetFrame < snapshots.getFirst().frame() || targetFrame > frame) {
+			throw new IllegalArgumentException("Frame " + targetFrame + " is outside of the rewind history.");
+		}
+		while (snapshots.getLast().frame() > targetFrame) {
+			storedBytes -= snapshots.removeLast().data().length;
+		}
+		Snapshot target = snapshots.getLast();
+
+		// Replay forward from the keyframe the target depends on.
+		int size = target.stateSize();
+		byte[] state = previous.length >= size ? previous : new byte[size];
+		Snapshot keyframe = null;
+		deltasSinceKeyframe = 0;
+		Iterator<Snapshot> newestFirst = snapshots.descendingIterator();
+		while (keyframe == null) {
+			Snapshot snapshot = newestFirst.next();
+			if (snapshot.keyframe()) {
+				keyframe = snapshot;
+			} else {
+				deltasSinceKeyframe++;
+			}
+		}
+		Arrays.fill(state, 0, size, (byte) 0);
+		boolean replaying = false;
+		for (Snapshot snapshot : snapshots) {
+			replaying |= snapshot == keyframe;
+			if (replaying) {
+				decode(snapshot.data(), state);
+			}
+		}
+
+		gameBoy.loadState(ByteBuffer.wrap(state, 0, size));
+		previous = state;
+		previousSize = size;
+		frame = target.frame();
+		return frame;
+	}
+
+	/**
+	 * Drops every snapshot, and starts counting frames over, for when a
+	 * different ROM is loaded.
+	 */
+	public synchronized void clear() {
+		snapshots.clear();
+		storedBytes = 0;
+		frame = 0;
+		deltasSinceKeyframe = 0;
+		previousSize = 0;
+	}
+
+	/**
+	 * Gets the number of frames run since the buffer was cleared.
+	 *
+	 * @return The current frame.
+	 */
+	public synchronized long getFrame() {
+		return frame;
+	}
+
+	/**
+	 * Gets the earliest frame that can be rewound to.
+	 *
+	 * @return The oldest snapshot's frame, or -1 if there is none.
+	 */
+	public synchronized long getOldestFrame() {
+		return snapshots.isEmpty() ? -1 : snapshots.getFirst().frame();
+	}
+
+	public synchronized int size() {
+		return snapshots.size();
+	}
+
+	public synchronized long getStoredBytes() {
+		return storedBytes;
+	}
+
+	/**
+	 * Drops the oldest keyframe and its deltas until the history fits the
+	 * budget. The newest keyframe's group is always kept.
+	 */
+	private void evict() {
+		while (storedBytes > capacity) {
+			Iterator<Snapshot> oldestFirst = snapshots.iterator();
+			oldestFirst.next();
+			int groupLength = 1;
+			while (oldestFirst.hasNext() && !oldestFirst.next().keyframe()) {
+				groupLength++;
+			}
+			if (groupLength == snapshots.size()) {
+				return;
+			}
+			for (int i = 0; i < groupLength; i++) {
+				storedBytes -= snapshots.removeFirst().data().length;
+			}
+		}
+	}
+
+	/**
+	 * Encodes the XOR of a state against the one before as tokens of a zero run
+	 * length, a literal run length, and the literal bytes.
+	 *
+	 * @param state
+	 *            - State to encode.
+	 * @param base
+	 *            - State to XOR against, or null for a keyframe.
+	 * @param size
+	 *            - Bytes of the state.
+	 * @return Bytes written to the encoded scratch array.
+	 */
+	private int encode(byte[] state, byte[] base, int size) {
+		int out = 0;
+		int i = 0;
+		while (i < size) {
+			int zeroStart = i;
+			while (i < size && xor(state, base, i) == 0) {
+				i++;
+			}
+			int literalStart = i;
+			int zeroes = 0;
+			while (i < size && zeroes < MIN_ZERO_RUN) {
+				zeroes = xor(state, base, i) == 0 ? zeroes + 1 : 0;
+				i++;
+			}
+			if (zeroes == MIN_ZERO_RUN) {
+				i -= zeroes;
+			}
+			out = putVarInt(literalStart - zeroStart, out);
+			out = putVarInt(i - literalStart, out);
+			for (int j = literalStart; j < i; j++) {
+				encoded[out++] = xor(state, base, j);
+			}
+		}
+		return out;
+	}
+
+	private static byte xor(byte[] state, byte[] base, int index) {
+		return base == null ? state[index] : (byte) (state[index] ^ base[index]);
+	}
+
+	private int putVarInt(int value, int out) {
+		while (value > 0x7F) {
+			encoded[out++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+		encoded[out++] = (byte) value;
+		return out;
+	}
+
+	/**
+	 * XORs an encoded snapshot into a state, turning the state before it into
+	 * the snapshot's.
+	 *
+	 * @param data
+	 *            - Encoded snapshot.
+	 * @param state
+	 *            - State to apply it to.
+	 */
+	private static void decode(byte[] data, byte[] state) {
+		ByteBuffer tokens = ByteBuffer.wrap(data);
+		int position = 0;
+		while (tokens.hasRemaining()) {
+			position += getVarInt(tokens);
+			int literal = getVarInt(tokens);
+			for (int j = 0; j < literal; j++) {
+				state[position++] ^= tokens.get();
+			}
+		}
+	}
+
+	private static int getVarInt(ByteBuffer tokens) {
+		int value = 0;
+		int shift = 0;
+		int next;
+		do {
+			next = tokens.get();
+			value |= (next & 0x7F) << shift;
+			shift += 7;
+		} while ((next & 0x80) != 0);
+		return value;
+	}
+}
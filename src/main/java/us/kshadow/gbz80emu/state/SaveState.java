@@ -0,0 +1,137 @@
+package us.kshadow.gbz80emu.state;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The binary save state format. A state is a header, followed by one section
+ * per component, each a tag and the length of what follows, and ends with an
+ * {@link #END} tag. Everything is little endian.
+ * <p>
+ * Components write their fields straight into the buffer, see
+ * {@link Stateful}, so saving is a handful of puts and array copies. Sections
+ * with a tag nothing is loaded for are skipped, and a section that doesn't
+ * read back exactly as long as it was written fails the load.
+ */
+public class SaveState {
+
+	// "GBZS" when read as bytes.
+	public static final int MAGIC = 0x535A4247;
+	public static final int VERSION = 2;
+
+	// Section tags.
+	public static final int END = 0;
+	public static final int CPU = 1;
+	public static final int MMU = 2;
+	public static final int GPU = 3;
+	public static final int TIMER = 4;
+	public static final int JOYPAD = 5;
+	public static final int SERIAL = 6;
+	public static final int SCHEDULER = 7;
+	public static final int MBC = 8;
+	public static final int SECTION_COUNT = 9;
+
+	private SaveState() {
+	}
+
+	/**
+	 * Writes a full save state at the buffer's position, and switches the buffer
+	 * to little endian.
+	 *
+	 * @param state
+	 *            - Buffer to write to, which needs enough room left.
+	 * @param romChecksum
+	 *            - Checksum of the loaded ROM, checked again on load.
+	 * @param sections
+	 *            - Component for each section tag, null for sections left out.
+	 */
+	public static void save(ByteBuffer state, int romChecksum, Stateful[] sections) {
+		state.order(ByteOrder.LITTLE_ENDIAN);
+		state.putInt(MAGIC).putInt(VERSION).putInt(romChecksum);
+		for (int tag = CPU; tag < sections.length; tag++) {
+			if (sections[tag] != null) {
+				state.putInt(tag);
+				int lengthPosition = state.position();
+				state.putInt(0);
+				sections[tag].saveState(state);
+				state.putInt(lengthPosition, state.position() - lengthPosition - 4);
+			}
+		}
+		state.putInt(END);
+	}
+
+	/**
+	 * Loads a full save state from the buffer's position, and switches the
+	 * buffer to little endian. A state that fails to load can leave components
+	 * partly restored.
+	 *
+	 * @param state
+	 *            - Buffer to read from.
+	 * @param romChecksum
+	 *            - Checksum of the loaded ROM, which has to match the state's.
+	 * @param sections
+	 *            - Component for each section tag, null for sections to skip.
+	 */
+	public static void load(ByteBuffer state, int romChecksum, Stateful[] sections) {
+		state.order(ByteOrder.LITTLE_ENDIAN);
+		int limit = state.limit();
+		try {
+			if (state.getInt() != MAGIC) {
+				throw new IllegalArgumentException("Not a save state.");
+			}
+			int version = state.getInt();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported save state version: " + version);
+			}
+			if (state.getInt() != romChecksum) {
+				throw new IllegalArgumentException("Save state is for a different ROM.");
+			}
+			for (int tag = state.getInt(); tag != END; tag = state.getInt()) {
+				int length = state.getInt();
+				int end = state.position() + length;
+				if (length < 0 || end > limit) {
+					throw new IllegalArgumentException("Bad length for save state section " + tag + ": " + length);
+				}
+				if (tag < sections.length && sections[tag] != null) {
+					// Keeps a section from reading into the next one.
+					state.limit(end);
+					sections[tag].loadState(state);
+					if (state.position() != end) {
+						throw new IllegalArgumentException("Save state section " + tag + " is "
+								+ (end - state.position()) + " bytes longer than expected.");
+					}
+					state.limit(limit);
+				}
+				state.position(end);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Save state is truncated.", e);
+		} finally {
+			state.limit(limit);
+		}
+	}
+
+	/**
+	 * Writes a boolean as a single byte.
+	 *
+	 * @param state
+	 *            - Buffer to write to.
+	 * @param value
+	 *            - Value to write.
+	 */
+	public static void putBoolean(ByteBuffer state, boolean value) {
+		state.put((byte) (value ? 1 : 0));
+	}
+
+	/**
+	 * Reads a boolean written by putBoolean().
+	 *
+	 * @param state
+	 *            - Buffer to read from.
+	 * @return The value read.
+	 */
+	public static boolean getBoolean(ByteBuffer state) {
+		return state.get() != 0;
+	}
+}
@@ -0,0 +1,28 @@
+package us.kshadow.gbz80emu.state;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A component whose state goes into a save state, see {@link SaveState}. Each
+ * component writes its fields straight into the buffer, and reads them back in
+ * the same order.
+ */
+public interface Stateful {
+
+	/**
+	 * Writes the component's state at the buffer's position.
+	 *
+	 * @param state
+	 *            - buffer to write the state to
+	 */
+	void saveState(ByteBuffer state);
+
+	/**
+	 * Restores the component's state from what saveState() wrote, read from the
+	 * buffer's position.
+	 *
+	 * @param state
+	 *            - buffer to read the state from
+	 */
+	void loadState(ByteBuffer state);
+}
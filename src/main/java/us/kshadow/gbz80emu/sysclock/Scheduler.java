@@ -0,0 +1,178 @@
+package us.kshadow.gbz80emu.sysclock;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import us.kshadow.gbz80emu.state.Stateful;
+
+/**
+ * Keeps the system clock, and the cycle each subsystem next needs to do
+ * something at. The CPU runs without the other subsystems being stepped until
+ * the earliest of those events is due. In between, subsystems catch up on
+ * their own when their registers are accessed.
+ * <p>
+ * Every subsystem has a fixed event slot, as there are only ever a handful of
+ * them.
+ */
+public class Scheduler implements Stateful {
+
+	// Event slots.
+	public static final int TIMER = 0;
+	public static final int GPU = 1;
+	public static final int SERIAL = 2;
+	private static final int EVENT_SLOTS = 3;
+
+	private static final long NO_EVENT = Long.MAX_VALUE;
+
+	// Cycle each slot's event is due at, or NO_EVENT.
+	private final long[] eventCycles = new long[EVENT_SLOTS];
+	private final Runnable[] handlers = new Runnable[EVENT_SLOTS];
+
+	// Total cycles since power on.
+	private long currentCycle;
+
+	// Copy of the current cycle for other threads, which can't read it safely.
+	private volatile long publishedCycle;
+
+	// Earliest of the event cycles, so advancing only has to check one value.
+	private long nextEventCycle = NO_EVENT;
+
+	public Scheduler() {
+		Arrays.fill(eventCycles, NO_EVENT);
+	}
+
+	/**
+	 * Sets the handler for an event slot. The handler runs once the slot's event
+	 * is due, and is expected to catch its subsystem up and schedule its next
+	 * event.
+	 *
+	 * @param slot
+	 *            - Event slot, see {@link #TIMER}, {@link #GPU} and {@link #SERIAL}.
+	 * @param handler
+	 *            - Handler to run.
+	 */
+	public void setHandler(int slot, Runnable handler) {
+		handlers[slot] = handler;
+	}
+
+	/**
+	 * Schedules the event for a slot, replacing any event already scheduled
+	 * there.
+	 *
+	 * @param slot
+	 *            - Event slot, see {@link #TIMER}, {@link #GPU} and {@link #SERIAL}.
+	 * @param cycle
+	 *            - System cycle the event is due at.
+	 */
+	public void schedule(int slot, long cycle) {
+		eventCycles[slot] = cycle;
+		updateNextEvent();
+	}
+
+	/**
+	 * Cancels the event for a slot, if one is scheduled.
+	 *
+	 * @param slot
+	 *            - Event slot, see {@link #TIMER}, {@link #GPU} and {@link #SERIAL}.
+	 */
+	public void cancel(int slot) {
+		schedule(slot, NO_EVENT);
+	}
+
+	/**
+	 * Advances the clock after an instruction, and runs any events that became
+	 * due.
+	 *
+	 * @param cycles
+	 *            - Cycles the instruction took.
+	 */
+	public void advance(int cycles) {
+		currentCycle += cycles;
+		while (currentCycle >= nextEventCycle) {
+			runDueEvents();
+		}
+	}
+
+	/**
+	 * Advances the clock without running events, for cycles spent dispatching an
+	 * interrupt. Events that became due run after the next instruction.
+	 *
+	 * @param cycles
+	 *            - Cycles to add to the clock.
+	 */
+	public void addCycles(int cycles) {
+		currentCycle += cycles;
+	}
+
+	public long getCurrentCycle() {
+		return currentCycle;
+	}
+
+	/**
+	 * Gets the cycle the earliest scheduled event is due at.
+	 *
+	 * @return The cycle, or Long.MAX_VALUE if nothing is scheduled.
+	 */
+	public long getNextEventCycle() {
+		return nextEventCycle;
+	}
+
+	/**
+	 * Publishes the current cycle to other threads, see getPublishedCycle().
+	 * Called by the emulation thread after each frame.
+	 */
+	public void publishCycle() {
+		publishedCycle = currentCycle;
+	}
+
+	/**
+	 * Gets the cycle the emulation thread last published. Unlike
+	 * getCurrentCycle(), this is safe to call from any thread, but lags behind
+	 * by up to a frame.
+	 *
+	 * @return The published cycle.
+	 */
+	public long getPublishedCycle() {
+		return publishedCycle;
+	}
+
+	/**
+	 * Saves the clock and every scheduled event. Handlers stay as they are, as
+	 * they belong to the machine rather than its state.
+	 */
+	@Override
+	public void saveState(ByteBuffer state) {
+		state.putLong(currentCycle);
+		for (long cycle : eventCycles) {
+			state.putLong(cycle);
+		}
+	}
+
+	@Override
+	public void loadState(ByteBuffer state) {
+		currentCycle = state.getLong();
+		for (int slot = 0; slot < EVENT_SLOTS; slot++) {
+			eventCycles[slot] = state.getLong();
+		}
+		updateNextEvent();
+		publishCycle();
+	}
+
+	private void runDueEvents() {
+		for (int slot = 0; slot < EVENT_SLOTS; slot++) {
+			if (eventCycles[slot] <= currentCycle) {
+				eventCycles[slot] = NO_EVENT;
+				handlers[slot].run();
+			}
+		}
+		updateNextEvent();
+	}
+
+	private void updateNextEvent() {
+		long next = NO_EVENT;
+		for (long cycle : eventCycles) {
+			next = Math.min(next, cycle);
+		}
+		nextEventCycle = next;
+	}
+}
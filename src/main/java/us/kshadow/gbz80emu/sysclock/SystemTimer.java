@@ -1,6 +1,10 @@
 package us.kshadow.gbz80emu.sysclock;
 
+import java.nio.ByteBuffer;
+
+import us.kshadow.gbz80emu.memory.IOReadHandler;
 import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.state.Stateful;
 import us.kshadow.gbz80emu.util.BitUtil;
 
 import static us.kshadow.gbz80emu.constants.MemoryAddresses.INTERRUPT_FLAG;
@@ -13,15 +17,18 @@ import static us.kshadow.gbz80emu.util.BitUtil.checkBitSet;
 /**
  * Provides emulation of the Game Boy's system clock, which are accessed via the
  * DIV and TIMA registers.
+ * <p>
+ * The timer isn't ticked after every instruction. It catches up with the
+ * {@link Scheduler} whenever its registers or the interrupt flag are accessed,
+ * and schedules an event for the next TIMA overflow.
  */
-@SuppressWarnings("java:S6548")
 // TODO: figure out proper relation between "internal counter", DIV and TIMA.
 // Currently passing Mooneye-GB tests, failing blargg's again.
-public class SystemTimer {
+public class SystemTimer implements Stateful {
 
-	private static final SystemTimer instance = new SystemTimer();
+	private final MMU mmu;
 
-	private static final MMU mmu = MMU.getInstance();
+	private final Scheduler scheduler;
 
 	// Timer that runs only if TAC is set to enable.
 	private int timaRegister;
@@ -44,11 +51,39 @@ public class SystemTimer {
 	// increments.
 	private int timaCycleCounter;
 
-	private SystemTimer() {
+	// System cycle the timer was last caught up to.
+	private long lastSyncCycle;
+
+	// System cycle TIMA next overflows at, or Long.MAX_VALUE if it's stopped.
+	private long overflowCycle = Long.MAX_VALUE;
+
+	/**
+	 * Creates the system timer, and registers it with the scheduler and the MMU.
+	 * 
+	 * @param mmu
+	 *            - MMU to request interrupts through.
+	 * @param scheduler
+	 *            - Scheduler the timer catches up with.
+	 */
+	public SystemTimer(MMU mmu, Scheduler scheduler) {
+		this.mmu = mmu;
+		this.scheduler = scheduler;
 		timaRegister = 0;
 		tmaRegister = 0;
 		divRegister = 0;
 		tacRegister = 0;
+		scheduler.setHandler(Scheduler.TIMER, this::sync);
+		for (int address = TIMER_DIV_REGISTER; address <= TIMER_TAC_REGISTER; address++) {
+			mmu.registerIO(address, this::readSystemTimerRegister, this::writeSystemTimerRegister);
+		}
+
+		// The timer only catches up when needed, so make sure a pending overflow has
+		// been flagged before the interrupt flag is read.
+		IOReadHandler readInterruptFlag = mmu.getIOReader(INTERRUPT_FLAG);
+		mmu.registerIO(INTERRUPT_FLAG, address -> {
+			syncInterrupt();
+			return readInterruptFlag.read(address);
+		}, mmu.getIOWriter(INTERRUPT_FLAG));
 	}
 
 	/**
@@ -60,6 +95,7 @@ public class SystemTimer {
 	 *            Value to write to the applicable register.
 	 */
 	public void writeSystemTimerRegister(int address, int value) {
+		sync();
 		switch (address) {
 			case TIMER_DIV_REGISTER -> {
 				divRegister = 0;
@@ -73,6 +109,7 @@ public class SystemTimer {
 			case TIMER_TAC_REGISTER -> tacRegister = value;
 			default -> throw new IllegalStateException("Unexpected address for timer register write: " + address);
 		}
+		scheduleOverflow();
 	}
 
 	/**
@@ -83,6 +120,7 @@ public class SystemTimer {
 	 * @return requested timer register
 	 */
 	public int readSystemTimerRegister(int address) {
+		sync();
 		switch (address) {
 			case TIMER_DIV_REGISTER -> {
 				return divRegister;
@@ -101,49 +139,66 @@ public class SystemTimer {
 	}
 
 	/**
-	 * Handles a tick of the system timer, both DIV and TIMA if necessary.
-	 * 
-	 * @param cycles
-	 *            Cycles to add to DIV/TIMA cycle trackers.
+	 * Catches the timer up with the system clock, both DIV and TIMA if necessary.
 	 */
-	public void handleTimerTick(int cycles) {
+	public void sync() {
+		long cycles = scheduler.getCurrentCycle() - lastSyncCycle;
+		// Updated first, as requesting the interrupt below reads the interrupt flag,
+		// which syncs again.
+		lastSyncCycle = scheduler.getCurrentCycle();
 		incrementDIVRegister(cycles);
 
 		// Tick TIMA if TAC allows it.
 		if (checkBitSet(tacRegister, 2)) {
-			switch (tacRegister & 0x3) {
-				case 0x00 -> incrementTIMARegister(cycles, 1024);
-				case 0x01 -> incrementTIMARegister(cycles, 16);
-				case 0x02 -> incrementTIMARegister(cycles, 64);
-				case 0x03 -> incrementTIMARegister(cycles, 256);
-				default -> throw new IllegalStateException("Unexpected TAC value: " + (tacRegister & 0x3));
-			}
+			incrementTIMARegister(cycles, getTIMAFrequency());
 		}
+		scheduleOverflow();
 	}
 
-	private void incrementDIVRegister(int cycles) {
-		divCycleCounter += cycles;
-		if (divCycleCounter >= 256) {
-			divCycleCounter -= 256;
-			if (divRegister < 0xFF) {
-				divRegister++;
-			} else {
-				divRegister = 0;
-			}
+	/**
+	 * Catches the timer up only if TIMA has overflowed since it was last caught
+	 * up, for when the interrupt flag is read.
+	 */
+	public void syncInterrupt() {
+		if (scheduler.getCurrentCycle() >= overflowCycle) {
+			sync();
 		}
 	}
 
-	private void incrementTIMARegister(int cycles, int frequency) {
-		timaCycleCounter += cycles;
-		if (timaCycleCounter >= frequency) {
-			timaCycleCounter -= frequency;
-
-			if (timaRegister == 0xFF) {
-				timaRegister = tmaRegister;
-				int interruptFlag = mmu.readByte(INTERRUPT_FLAG);
-				if (!checkBitSet(interruptFlag, 2)) {
-					mmu.writeByte(INTERRUPT_FLAG, BitUtil.setBit(interruptFlag, 2));
-				}
+	private int getTIMAFrequency() {
+		return switch (tacRegister & 0x3) {
+			case 0x00 -> 1024;
+			case 0x01 -> 16;
+			case 0x02 -> 64;
+			case 0x03 -> 256;
+			default -> throw new IllegalStateException("Unexpected TAC value: " + (tacRegister & 0x3));
+		};
+	}
+
+	private void incrementDIVRegister(long cycles) {
+		long total = divCycleCounter + cycles;
+		divRegister = (int) ((divRegister + total / 256) & 0xFF);
+		divCycleCounter = (int) (total % 256);
+	}
+
+	private void incrementTIMARegister(long cycles, int frequency) {
+		long total = timaCycleCounter + cycles;
+		long ticks = total / frequency;
+		timaCycleCounter = (int) (total % frequency);
+
+		while (ticks > 0) {
+			// TIMA overflows on the tick after it reaches 0xFF.
+			int ticksToOverflow = 0x100 - timaRegister;
+			if (ticks < ticksToOverflow) {
+				timaRegister += (int) ticks;
+				return;
+			}
+			ticks -= ticksToOverflow;
+
+			timaRegister = tmaRegister;
+			int interruptFlag = mmu.readByte(INTERRUPT_FLAG);
+			if (!checkBitSet(interruptFlag, 2)) {
+				mmu.writeByte(INTERRUPT_FLAG, BitUtil.setBit(interruptFlag, 2));
 			}
 
 			if (timaRegister < 0xFF) {
@@ -152,7 +207,41 @@ public class SystemTimer {
 		}
 	}
 
-	public static SystemTimer getInstance() {
-		return instance;
+	/**
+	 * Schedules an event for the next TIMA overflow, so the interrupt is
+	 * requested on time.
+	 */
+	private void scheduleOverflow() {
+		if (checkBitSet(tacRegister, 2)) {
+			int frequency = getTIMAFrequency();
+			overflowCycle = lastSyncCycle + (long) (0x100 - timaRegister) * frequency - timaCycleCounter;
+			scheduler.schedule(Scheduler.TIMER, overflowCycle);
+		} else {
+			overflowCycle = Long.MAX_VALUE;
+			scheduler.cancel(Scheduler.TIMER);
+		}
+	}
+
+	@Override
+	public void saveState(ByteBuffer state) {
+		state.put((byte) divRegister).put((byte) timaRegister).put((byte) tmaRegister).put((byte) tacRegister);
+		state.putInt(divCycleCounter).putInt(timaCycleCounter);
+		state.putLong(lastSyncCycle).putLong(overflowCycle);
+	}
+
+	/**
+	 * Restores the timer. Its scheduled overflow is restored along with the
+	 * {@link Scheduler}.
+	 */
+	@Override
+	public void loadState(ByteBuffer state) {
+		divRegister = state.get() & 0xFF;
+		timaRegister = state.get() & 0xFF;
+		tmaRegister = state.get() & 0xFF;
+		tacRegister = state.get() & 0xFF;
+		divCycleCounter = state.getInt();
+		timaCycleCounter = state.getInt();
+		lastSyncCycle = state.getLong();
+		overflowCycle = state.getLong();
 	}
 }
@@ -0,0 +1,61 @@
+package us.kshadow.gbz80emu;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.TIMER_DIV_REGISTER;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.memory.RomImage;
+
+/**
+ * Makes sure separate machines don't share any state.
+ */
+class GameBoyTest {
+
+	@Test
+	void machinesDontShareMemory() {
+		GameBoy first = new GameBoy();
+		GameBoy second = new GameBoy();
+		first.getMMU().writeByte(0xC000, 0x12);
+		second.getMMU().writeByte(0xC000, 0x34);
+		assertEquals(0x12, first.getMMU().readByte(0xC000));
+		assertEquals(0x34, second.getMMU().readByte(0xC000));
+	}
+
+	@Test
+	void machinesDontShareRegisters() {
+		GameBoy first = new GameBoy();
+		GameBoy second = new GameBoy();
+		first.getCPU().getRegisters().write("A", 0x01);
+		first.getCPU().getRegisters().getFR().setZ(true);
+		assertEquals(0, second.getCPU().getRegisters().read("A"));
+		assertFalse(second.getCPU().getRegisters().getFR().isZ());
+	}
+
+	@Test
+	void machinesKeepTheirOwnClock() {
+		GameBoy first = new GameBoy();
+		GameBoy second = new GameBoy();
+		first.getScheduler().advance(256 * 5);
+		assertEquals(5, first.getMMU().readByte(TIMER_DIV_REGISTER));
+		assertEquals(0, second.getMMU().readByte(TIMER_DIV_REGISTER));
+	}
+
+	@Test
+	void machinesShareROMImage() throws IOException {
+		RomImage rom = RomImage.map(Path.of("test_roms/cpu_instrs.gb"));
+		GameBoy first = new GameBoy();
+		GameBoy second = new GameBoy();
+		first.loadROM(rom);
+		second.loadROM(rom);
+		first.skipBootROM();
+		second.skipBootROM();
+		// Bank switch on one machine only.
+		first.getMMU().writeByte(0x2000, 0x02);
+		assertEquals(rom.read(0x8244), first.getMMU().readByte(0x4244));
+		assertEquals(rom.read(0x4244), second.getMMU().readByte(0x4244));
+		assertSame(first.getCartridge().getROM(), second.getCartridge().getROM());
+	}
+}
@@ -0,0 +1,34 @@
+package us.kshadow.gbz80emu.farm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class FarmRunnerTest {
+
+	private static final String TIMING_ROM = "test_roms/instr_timing.gb";
+
+	@Test
+	void sameROMGivesSameResultOnEveryMachine() throws InterruptedException {
+		List<RomResult> results = new FarmRunner(240).run(List.of(TIMING_ROM, TIMING_ROM, TIMING_ROM));
+		assertEquals(3, results.size());
+		for (RomResult result : results) {
+			assertNull(result.error());
+			assertEquals(240, result.frames());
+			assertTrue(result.serialOutput().contains("Passed"));
+			assertArrayEquals(results.get(0).registers(), result.registers());
+			assertEquals(results.get(0).framebufferHash(), result.framebufferHash());
+		}
+	}
+
+	@Test
+	void reportEscapesSerialOutput() {
+		RomResult result = new RomResult("a\"b.gb", null, 1, 70224, new int[6], 0, "ok\n\u0001", 1_000_000);
+		String json = FarmReport.toJson(List.of(result));
+		assertTrue(json.contains("\"rom\": \"a\\\"b.gb\""));
+		assertTrue(json.contains("\"serial\": \"ok\\n\\u0001\""));
+		assertTrue(json.contains("\"error\": null"));
+	}
+}
@@ -0,0 +1,55 @@
+package us.kshadow.gbz80emu.graphics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests scaling frames up to the canvas.
+ */
+class DisplayCanvasTest {
+
+	private static final int WHITE = 0xFFFFFF;
+
+	@Test
+	void integerScalingIsCentered() {
+		BufferedImage target = draw(500, 450, DisplayCanvas.Scaling.INTEGER);
+		// 3x fits, leaving a 10 pixel border left and right, and 9 on top.
+		assertEquals(0, target.getRGB(9, 9) & WHITE);
+		assertEquals(WHITE, target.getRGB(10, 9) & WHITE);
+		assertEquals(WHITE, target.getRGB(489, 440) & WHITE);
+		assertEquals(0, target.getRGB(490, 440) & WHITE);
+		assertEquals(0, target.getRGB(489, 441) & WHITE);
+	}
+
+	@Test
+	void nearestScalingFillsCanvas() {
+		BufferedImage target = draw(500, 450, DisplayCanvas.Scaling.NEAREST);
+		assertEquals(WHITE, target.getRGB(0, 0) & WHITE);
+		assertEquals(WHITE, target.getRGB(499, 449) & WHITE);
+	}
+
+	@Test
+	void presentingStartsOnlyOnce() {
+		DisplayCanvas canvas = new DisplayCanvas(GPU.SCREEN_WIDTH, GPU.SCREEN_HEIGHT);
+		TripleBuffer frames = new TripleBuffer();
+		canvas.startPresenting(frames);
+		assertThrows(IllegalStateException.class, () -> canvas.startPresenting(frames));
+	}
+
+	private static BufferedImage draw(int width, int height, DisplayCanvas.Scaling scaling) {
+		BufferedImage frame = new BufferedImage(GPU.SCREEN_WIDTH, GPU.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		int[] white = new int[GPU.SCREEN_WIDTH * GPU.SCREEN_HEIGHT];
+		Arrays.fill(white, WHITE);
+		frame.setRGB(0, 0, GPU.SCREEN_WIDTH, GPU.SCREEN_HEIGHT, white, 0, GPU.SCREEN_WIDTH);
+		BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = target.createGraphics();
+		DisplayCanvas.drawScaled(graphics, frame, width, height, scaling);
+		graphics.dispose();
+		return target;
+	}
+}
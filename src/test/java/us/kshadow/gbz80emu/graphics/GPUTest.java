@@ -0,0 +1,170 @@
+package us.kshadow.gbz80emu.graphics;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.BG_PALETTE;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.LCD_CONTROL;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.OAM_DMA;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.OBJ_PALETTE_0;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.OBJ_PALETTE_1;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.SCROLL_X;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.SCROLL_Y;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.WINDOW_X;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.WINDOW_Y;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.MMU;
+
+/**
+ * Tests drawing the background, window and sprites into the display image.
+ */
+class GPUTest {
+
+	private static final int LIGHTEST = 0xe0f8d0;
+	private static final int LIGHT = 0x88c070;
+	private static final int DARK = 0x346856;
+	private static final int DARKEST = 0x081820;
+
+	private MMU mmu;
+	private GPU gpu;
+
+	@BeforeEach
+	void setup() {
+		GameBoy gameBoy = new GameBoy();
+		mmu = gameBoy.getMMU();
+		gpu = gameBoy.getGPU();
+		// LCD and background on, tile data at 0x8000, tile map at 0x9800.
+		mmu.writeByte(LCD_CONTROL, 0x91);
+		mmu.writeByte(BG_PALETTE, 0xE4);
+		// Tile 1 is solid color 1.
+		for (int row = 0; row < 8; row++) {
+			mmu.writeByte(0x8010 + row * 2, 0xFF);
+		}
+		// Tile 3 is solid color 3.
+		for (int address = 0x8030; address < 0x8040; address++) {
+			mmu.writeByte(address, 0xFF);
+		}
+	}
+
+	@Test
+	void scrollWrapsAroundBackground() {
+		// Last tile of the first row.
+		mmu.writeByte(0x9800 + 31, 0x01);
+		mmu.writeByte(SCROLL_X, 252);
+		gpu.renderScanLine(0);
+		int[] framebuffer = gpu.getFramebuffer();
+		assertEquals(LIGHT, framebuffer[3]);
+		assertEquals(LIGHTEST, framebuffer[4]);
+
+		// First tile of the second row, scrolled up to the top line.
+		mmu.writeByte(0x9800 + 32, 0x01);
+		mmu.writeByte(SCROLL_X, 0);
+		mmu.writeByte(SCROLL_Y, 8);
+		gpu.renderScanLine(0);
+		assertEquals(LIGHT, framebuffer[7]);
+		assertEquals(LIGHTEST, framebuffer[8]);
+	}
+
+	@Test
+	void changedTilesAreDecodedAgain() {
+		mmu.writeByte(0x9800, 0x01);
+		gpu.renderScanLine(0);
+		assertEquals(LIGHT, gpu.getFramebuffer()[0]);
+		// Color 2 on the top row of tile 1 only.
+		mmu.writeByte(0x8010, 0x00);
+		mmu.writeByte(0x8011, 0xFF);
+		gpu.renderScanLine(0);
+		assertEquals(DARK, gpu.getFramebuffer()[0]);
+		gpu.renderScanLine(1);
+		assertEquals(LIGHT, gpu.getFramebuffer()[GPU.SCREEN_WIDTH]);
+
+		// Tile 1 from 0x9000 is a different tile, at 0x9010.
+		mmu.writeByte(0x9010, 0xFF);
+		mmu.writeByte(LCD_CONTROL, 0x81);
+		gpu.renderScanLine(0);
+		assertEquals(LIGHT, gpu.getFramebuffer()[0]);
+	}
+
+	@Test
+	void framebufferBacksDisplayImage() {
+		mmu.writeByte(0x9800 + 33, 0x01);
+		gpu.renderScanLine(10);
+		assertEquals(GPU.SCREEN_WIDTH * GPU.SCREEN_HEIGHT, gpu.getFramebuffer().length);
+		assertEquals(LIGHT, gpu.getDisplayImage().getRGB(8, 10) & 0xFFFFFF);
+		assertEquals(gpu.getFramebuffer()[10 * GPU.SCREEN_WIDTH + 8], gpu.getDisplayImage().getRGB(8, 10) & 0xFFFFFF);
+	}
+
+	@Test
+	void windowStartsAtWXAndCountsItsOwnLines() {
+		// Window on, with its tile map at 0x9C00. Tile 2 has color 3 on row 1.
+		mmu.writeByte(LCD_CONTROL, 0xF1);
+		mmu.writeByte(0x8022, 0xFF);
+		mmu.writeByte(0x8023, 0xFF);
+		mmu.writeByte(0x9C00, 0x02);
+		mmu.writeByte(WINDOW_Y, 5);
+		mmu.writeByte(WINDOW_X, 27);
+		int[] framebuffer = gpu.getFramebuffer();
+		gpu.renderScanLine(4);
+		gpu.renderScanLine(5);
+
+		// The window is off for line 6, so line 7 carries on from its line 1.
+		mmu.writeByte(LCD_CONTROL, 0xD1);
+		gpu.renderScanLine(6);
+		mmu.writeByte(LCD_CONTROL, 0xF1);
+		gpu.renderScanLine(7);
+		assertEquals(LIGHTEST, framebuffer[7 * GPU.SCREEN_WIDTH + 19]);
+		assertEquals(DARKEST, framebuffer[7 * GPU.SCREEN_WIDTH + 20]);
+		assertEquals(DARKEST, framebuffer[7 * GPU.SCREEN_WIDTH + 27]);
+		assertEquals(LIGHTEST, framebuffer[7 * GPU.SCREEN_WIDTH + 28]);
+	}
+
+	@Test
+	void spritesOverlapByXAndUseTheirPalette() {
+		mmu.writeByte(LCD_CONTROL, 0x93);
+		mmu.writeByte(OBJ_PALETTE_0, 0xE4);
+		mmu.writeByte(OBJ_PALETTE_1, 0x90);
+		// Earlier in OAM, but further right than the second sprite.
+		writeSprite(0, 16, 18, 0x01, 0x00);
+		writeSprite(1, 16, 14, 0x03, 0x10);
+		mmu.writeByte(OAM_DMA, 0xC0);
+		gpu.renderScanLine(0);
+		int[] framebuffer = gpu.getFramebuffer();
+		assertEquals(LIGHTEST, framebuffer[5]);
+		assertEquals(DARK, framebuffer[6]);
+		assertEquals(DARK, framebuffer[13]);
+		assertEquals(LIGHT, framebuffer[14]);
+		assertEquals(LIGHT, framebuffer[17]);
+		assertEquals(LIGHTEST, framebuffer[18]);
+		// Both cover lines 0-7 only.
+		gpu.renderScanLine(8);
+		assertEquals(LIGHTEST, framebuffer[8 * GPU.SCREEN_WIDTH + 10]);
+	}
+
+	@Test
+	void onlyTenSpritesPerLineAndBehindBackground() {
+		mmu.writeByte(LCD_CONTROL, 0x93);
+		mmu.writeByte(OBJ_PALETTE_0, 0xE4);
+		// Eleven sprites side by side, drawn behind the background.
+		for (int sprite = 0; sprite < 11; sprite++) {
+			writeSprite(sprite, 16, 8 + sprite * 8, 0x03, 0x80);
+		}
+		mmu.writeByte(0x9800, 0x01);
+		mmu.writeByte(OAM_DMA, 0xC0);
+		gpu.renderScanLine(0);
+		int[] framebuffer = gpu.getFramebuffer();
+		assertEquals(LIGHT, framebuffer[0]);
+		assertEquals(DARKEST, framebuffer[8]);
+		assertEquals(DARKEST, framebuffer[79]);
+		assertEquals(LIGHTEST, framebuffer[80]);
+	}
+
+	// Writes a sprite's OAM entry to 0xC000, to be copied in by OAM DMA.
+	private void writeSprite(int sprite, int y, int x, int tile, int attributes) {
+		int address = 0xC000 + sprite * 4;
+		mmu.writeByte(address, y);
+		mmu.writeByte(address + 1, x);
+		mmu.writeByte(address + 2, tile);
+		mmu.writeByte(address + 3, attributes);
+	}
+}
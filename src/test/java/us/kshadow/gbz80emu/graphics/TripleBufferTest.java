@@ -0,0 +1,69 @@
+package us.kshadow.gbz80emu.graphics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests handing frames between a drawing and a presenting thread.
+ */
+class TripleBufferTest {
+
+	@Test
+	void latestPublishedFrameIsAcquired() {
+		TripleBuffer frames = new TripleBuffer();
+		BufferedImage initialFront = frames.acquire();
+		assertFalse(frames.hasNewFrame());
+
+		BufferedImage first = frames.getBackBuffer();
+		assertNotSame(initialFront, first);
+		BufferedImage second = frames.publish();
+		assertNotSame(first, second);
+		assertNotSame(initialFront, second);
+		assertTrue(frames.hasNewFrame());
+
+		// The first frame is dropped for the second, and drawn over next.
+		assertSame(first, frames.publish());
+		assertSame(second, frames.acquire());
+		assertFalse(frames.hasNewFrame());
+		assertSame(second, frames.acquire());
+		assertSame(initialFront, frames.publish());
+	}
+
+	@Test
+	void framesAreNeverSeenHalfDrawn() throws InterruptedException {
+		TripleBuffer frames = new TripleBuffer();
+		AtomicBoolean drawing = new AtomicBoolean(true);
+		Thread drawer = new Thread(() -> {
+			BufferedImage back = frames.getBackBuffer();
+			for (int frame = 1; frame <= 20000; frame++) {
+				Arrays.fill(pixels(back), frame);
+				back = frames.publish();
+			}
+			drawing.set(false);
+		});
+		drawer.start();
+
+		int lastFrame = 0;
+		while (drawing.get() || frames.hasNewFrame()) {
+			int[] front = pixels(frames.acquire());
+			int frame = front[0];
+			assertTrue(frame >= lastFrame);
+			for (int pixel : front) {
+				assertEquals(frame, pixel);
+			}
+			lastFrame = frame;
+		}
+		drawer.join();
+		assertEquals(20000, lastFrame);
+	}
+
+	private static int[] pixels(BufferedImage image) {
+		return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+	}
+}
@@ -14,7 +14,7 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class CartridgeTest {
 
-	private static final Cartridge testCartridge = Cartridge.getInstance();
+	private final Cartridge testCartridge = new Cartridge();
 
 	private static final char[] testTitle = new char[]{0x54, 0x45, 0x54, 0x52, 0x49, 0x53, 0x00, 0x00, 0x00, 0x00, 0x00,
 			0x00, 0x00, 0x00, 0x00, 0x00};
@@ -5,11 +5,13 @@ import java.io.IOException;
 import java.util.Arrays;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
 
 class MMUTest {
 
-	private static final MMU mmu = MMU.getInstance();
-	private final Cartridge testROM = Cartridge.getInstance();
+	private final GameBoy gameBoy = new GameBoy();
+	private final MMU mmu = gameBoy.getMMU();
+	private final Cartridge testROM = gameBoy.getCartridge();
 
 	public void setup() {
 		try {
@@ -20,6 +22,14 @@ class MMUTest {
 		}
 	}
 
+	private int[] readROM(int start, int end) {
+		int[] rom = new int[end - start];
+		for (int i = 0; i < rom.length; i++) {
+			rom[i] = testROM.readROM(start + i);
+		}
+		return rom;
+	}
+
 	@BeforeEach
 	public void cleanup() {
 		mmu.clearMemory();
@@ -40,8 +50,8 @@ class MMUTest {
 			readBank1[i] = mmu.readByte(i + 0x4000);
 		}
 
-		assertArrayEquals(Arrays.copyOfRange(testROM.getROM(), 0x0000, 0x4000), readBank0);
-		assertArrayEquals(Arrays.copyOfRange(testROM.getROM(), 0x4000, 0x8000), readBank1);
+		assertArrayEquals(readROM(0x0000, 0x4000), readBank0);
+		assertArrayEquals(readROM(0x4000, 0x8000), readBank1);
 	}
 
 	/**
@@ -51,7 +61,7 @@ class MMUTest {
 	@Test
 	void testWriteByteROMFails() {
 		setup();
-		for (int i = 0; i < testROM.getROM().length; i++) {
+		for (int i = 0; i < testROM.getROM().size(); i++) {
 			mmu.writeByte(i, 0x00);
 		}
 
@@ -63,7 +73,7 @@ class MMUTest {
 			readROMTest[i] = mmu.readByte(i);
 		}
 
-		assertArrayEquals(readROMTest, testROM.getROM());
+		assertArrayEquals(readROMTest, readROM(0x0000, testROM.getROM().size()));
 		assertFalse(Arrays.equals(readROMTest, emptyArr));
 	}
 
@@ -142,8 +152,12 @@ class MMUTest {
 		assertArrayEquals(wRam, wRamFull);
 		assertArrayEquals(Arrays.copyOfRange(wRam, 0, 0x1E00), echoRam);
 
-		for (int i = 0; i < 0x200; i++) {
-			mmu.writeByte(0xFE00 + i, 0x22); // OAM, zeroPage
+		// The I/O registers in between are skipped, writing 0xFF46 starts OAM DMA.
+		for (int i = 0; i < 0xA0; i++) {
+			mmu.writeByte(0xFE00 + i, 0x22); // OAM
+		}
+		for (int i = 0; i < 0x7F; i++) {
+			mmu.writeByte(0xFF80 + i, 0x22); // zeroPage
 		}
 
 		for (int i = 0; i < 0xA0; i++) {
@@ -156,4 +170,68 @@ class MMUTest {
 		assertArrayEquals(oam, oamFull);
 		assertArrayEquals(zeroPage, zeroPageFull);
 	}
+
+	/**
+	 * Checks that MBC bank switches are seen through the page table, for both ROM
+	 * banks and external RAM.
+	 */
+	@Test
+	void bankSwitchRemapsPages() throws IOException {
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+		assertEquals(testROM.readROM(0x4000), mmu.readByte(0x4000));
+
+		mmu.writeByte(0x2000, 0x03); // ROM bank 3
+		assertEquals(testROM.readROM(0xC123), mmu.readByte(0x4123));
+
+		assertEquals(0xFF, mmu.readByte(0xA000)); // RAM disabled
+		mmu.writeByte(0x0000, 0x0A);
+		mmu.writeByte(0xA000, 0x42);
+		assertEquals(0x42, mmu.readByte(0xA000));
+		mmu.writeByte(0x0000, 0x00);
+		assertEquals(0xFF, mmu.readByte(0xA000));
+	}
+
+	/**
+	 * Checks that OAM DMA copies from ROM and work RAM, and that sources at
+	 * 0xFE00 and up read the echo of work RAM rather than OAM or I/O.
+	 */
+	@Test
+	void oamDmaCopiesFromMemory() throws IOException {
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+		mmu.writeByte(0xFF46, 0x01);
+		for (int i = 0; i < 0xA0; i++) {
+			assertEquals(testROM.readROM(0x0100 + i), mmu.readByte(0xFE00 + i));
+		}
+
+		for (int i = 0; i < 0xA0; i++) {
+			mmu.writeByte(0xDF00 + i, i);
+		}
+		mmu.writeByte(0xFF46, 0xFF);
+		for (int i = 0; i < 0xA0; i++) {
+			assertEquals(i, mmu.readByte(0xFE00 + i));
+		}
+		assertEquals(0xFF, mmu.readByte(0xFF46));
+	}
+
+	/**
+	 * Checks that I/O registers are dispatched to their handlers, and that
+	 * registers nobody handles read as open bus.
+	 */
+	@Test
+	void ioRegistersDispatchToHandlers() {
+		assertEquals(0xFF, mmu.readByte(0xFF4C)); // unused on a DMG
+		mmu.writeByte(0xFF4C, 0x12);
+		assertEquals(0xFF, mmu.readByte(0xFF4C));
+
+		int[] register = new int[1];
+		mmu.registerIO(0xFF4C, address -> register[0], (address, value) -> register[0] = value ^ 0xFF);
+		mmu.writeByte(0xFF4C, 0x12);
+		assertEquals(0xED, mmu.readByte(0xFF4C));
+
+		mmu.writeByte(0xFF47, 0xE4); // BGP, through the GPU
+		assertEquals(0xE4, mmu.readByte(0xFF47));
+		assertThrows(IllegalArgumentException.class, () -> mmu.registerIO(0xFF80, null, null));
+	}
 }
@@ -0,0 +1,70 @@
+package us.kshadow.gbz80emu.memory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests sharing, reference counting and eviction of cached ROM images.
+ */
+class RomImageCacheTest {
+
+	private static final Path CPU_INSTRS = Path.of("test_roms/cpu_instrs.gb"); // 64KB
+	private static final Path INSTR_TIMING = Path.of("test_roms/instr_timing.gb"); // 32KB
+	private static final Path MEM_TIMING = Path.of("test_roms/mem_timing.gb"); // 64KB
+
+	@Test
+	void sameContentsShareOneImage() throws IOException {
+		RomImageCache cache = new RomImageCache(0x100000);
+		Path copy = Files.createTempFile("rom", ".gb");
+		try {
+			Files.copy(CPU_INSTRS, copy, StandardCopyOption.REPLACE_EXISTING);
+			RomImage image = cache.acquire(CPU_INSTRS);
+			assertSame(image, cache.acquire(CPU_INSTRS));
+			assertSame(image, cache.acquire(copy));
+			assertEquals(1, cache.size());
+			assertEquals(0x10000, cache.getCachedBytes());
+			// The header is parsed once, for everyone.
+			assertSame(image.getHeader(), cache.acquire(CPU_INSTRS).getHeader());
+			assertEquals(0x01, image.getHeader().mbcType());
+		} finally {
+			Files.deleteIfExists(copy);
+		}
+	}
+
+	@Test
+	void imagesInUseAreNeverEvicted() throws IOException {
+		RomImageCache cache = new RomImageCache(0);
+		RomImage image = cache.acquire(CPU_INSTRS);
+		assertSame(image, cache.acquire(CPU_INSTRS));
+		cache.release(image);
+		assertEquals(1, cache.size());
+		cache.release(image);
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getCachedBytes());
+		assertThrows(IllegalArgumentException.class, () -> cache.release(image));
+	}
+
+	@Test
+	void leastRecentlyUsedIsEvictedFirst() throws IOException {
+		RomImageCache cache = new RomImageCache(0x18000);
+		RomImage cpuInstrs = cache.acquire(CPU_INSTRS);
+		RomImage instrTiming = cache.acquire(INSTR_TIMING);
+		cache.release(cpuInstrs);
+		cache.release(instrTiming);
+		assertEquals(2, cache.size());
+
+		// Over the cap, so the unused cpu_instrs goes.
+		RomImage memTiming = cache.acquire(MEM_TIMING);
+		assertEquals(2, cache.size());
+		assertEquals(0x18000, cache.getCachedBytes());
+		assertSame(instrTiming, cache.acquire(INSTR_TIMING));
+		assertNotSame(cpuInstrs, cache.acquire(CPU_INSTRS));
+		cache.release(memTiming);
+	}
+}
@@ -0,0 +1,63 @@
+package us.kshadow.gbz80emu.memory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests mapping ROM files, and the bank views over them.
+ */
+class RomImageTest {
+
+	@Test
+	void banksAreReadOnlyViews() throws IOException {
+		RomImage rom = RomImage.map(Path.of("test_roms/cpu_instrs.gb"));
+		assertEquals(0x10000, rom.size());
+		assertEquals(4, rom.getBankCount());
+		ByteBuffer bank = rom.getBank(2);
+		assertTrue(bank.isReadOnly());
+		assertEquals(RomImage.BANK_SIZE, bank.remaining());
+		assertEquals(rom.read(0x8123), bank.get(0x123) & 0xFF);
+		assertThrows(IllegalArgumentException.class, () -> rom.getBank(4));
+	}
+
+	@Test
+	void sizeMustMatchHeader() throws IOException {
+		Path file = Files.createTempFile("rom", ".gb");
+		try {
+			// 32KB, but the header claims 64KB.
+			byte[] data = new byte[0x8000];
+			data[0x148] = 0x01;
+			Files.write(file, data);
+			assertThrows(IOException.class, () -> RomImage.map(file));
+
+			data[0x148] = 0x00;
+			Files.write(file, data);
+			assertEquals(0x8000, RomImage.map(file).size());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void globalChecksumIsChecked() throws IOException {
+		Path file = Files.createTempFile("rom", ".gb");
+		try {
+			// Sums to 0x0000, which the header says too.
+			byte[] data = new byte[0x8000];
+			Files.write(file, data);
+			assertTrue(RomImage.map(file).isCartridgeValid());
+
+			data[0x100] = 0x01;
+			Files.write(file, data);
+			assertFalse(RomImage.map(file).isCartridgeValid());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
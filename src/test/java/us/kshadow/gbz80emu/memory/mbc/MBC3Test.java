@@ -0,0 +1,133 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static us.kshadow.gbz80emu.memory.mbc.RealTimeClock.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.memory.Cartridge;
+import us.kshadow.gbz80emu.sysclock.Scheduler;
+
+/**
+ * Tests MBC3 banking, and its clock running off emulated cycles.
+ */
+class MBC3Test {
+
+	private final Scheduler scheduler = new Scheduler();
+	private final Cartridge cartridge = new Cartridge();
+	private MBC3 mbc;
+
+	@BeforeEach
+	void setup() throws IOException {
+		// MBC3+TIMER+RAM+BATTERY, 128KB ROM, 32KB RAM. Each bank starts with its
+		// number.
+		byte[] rom = new byte[0x20000];
+		for (int bank = 0; bank < 8; bank++) {
+			rom[bank * 0x4000] = (byte) bank;
+		}
+		rom[0x147] = 0x10;
+		rom[0x148] = 0x02;
+		rom[0x149] = 0x03;
+		Path file = Files.createTempFile("mbc3", ".gb");
+		try {
+			Files.write(file, rom);
+			cartridge.loadROM(file.toString());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+		mbc = new MBC3(cartridge, scheduler);
+		mbc.handleMBCWriteROM(0x0000, 0x0A);
+	}
+
+	@Test
+	void romAndRAMBanking() {
+		mbc.handleMBCWriteROM(0x2000, 0x05);
+		assertEquals(5, mbc.handleMBCReadROM(0x4000));
+		// Bank 0 selects bank 1.
+		mbc.handleMBCWriteROM(0x2000, 0x00);
+		assertEquals(1, mbc.handleMBCReadROM(0x4000));
+
+		mbc.handleMBCWriteROM(0x4000, 0x02);
+		mbc.handleMBCWriteRAM(0xA010, 0x42);
+		assertEquals(0x4010, mbc.getRAMBankOffset() + 0x10);
+		assertEquals(0x42, mbc.getRAM()[0x4010]);
+		mbc.handleMBCWriteROM(0x4000, 0x00);
+		assertEquals(0, mbc.handleMBCReadRAM(0xA010));
+	}
+
+	@Test
+	void clockCountsEmulatedCycles() {
+		runSeconds(61);
+		scheduler.addCycles(100);
+		// Nothing changes until latched.
+		assertEquals(0, readClock(SECONDS));
+		latch();
+		assertEquals(1, readClock(SECONDS));
+		assertEquals(1, readClock(MINUTES));
+
+		// Halted, the clock stops.
+		writeClock(DAYS_HIGH, 0x40);
+		runSeconds(10);
+		latch();
+		assertEquals(1, readClock(SECONDS));
+		writeClock(DAYS_HIGH, 0x00);
+
+		// Day counter overflow sets the carry.
+		writeClock(DAYS_LOW, 0xFF);
+		writeClock(DAYS_HIGH, 0x01);
+		runSeconds(60 * 60 * 24);
+		latch();
+		assertEquals(0, readClock(DAYS_LOW));
+		assertEquals(0x80, readClock(DAYS_HIGH));
+	}
+
+	@Test
+	void batteryKeepsRAMAndClock() throws IOException {
+		mbc.handleMBCWriteRAM(0xA000, 0x99);
+		runSeconds(60 * 60);
+		// As after a frame. The time run after that isn't published yet.
+		scheduler.publishCycle();
+		runSeconds(60);
+		ByteArrayOutputStream saved = new ByteArrayOutputStream();
+		mbc.saveBattery(saved);
+		assertEquals(0x8000 + SAVE_SIZE, saved.size());
+
+		MBC3 restored = new MBC3(cartridge, scheduler);
+		restored.loadBattery(new ByteArrayInputStream(saved.toByteArray()));
+		assertEquals(0x99, restored.getRAM()[0] & 0xFF);
+		restored.handleMBCWriteROM(0x0000, 0x0A);
+		restored.handleMBCWriteROM(0x6000, 0x00);
+		restored.handleMBCWriteROM(0x6000, 0x01);
+		restored.handleMBCWriteROM(0x4000, HOURS);
+		assertEquals(1, restored.handleMBCReadRAM(0xA000));
+		restored.handleMBCWriteROM(0x4000, MINUTES);
+		assertEquals(1, restored.handleMBCReadRAM(0xA000));
+	}
+
+	private void runSeconds(int seconds) {
+		for (int i = 0; i < seconds; i++) {
+			scheduler.addCycles(CYCLES_PER_SECOND);
+		}
+	}
+
+	private void latch() {
+		mbc.handleMBCWriteROM(0x6000, 0x00);
+		mbc.handleMBCWriteROM(0x6000, 0x01);
+	}
+
+	private int readClock(int register) {
+		mbc.handleMBCWriteROM(0x4000, register);
+		return mbc.handleMBCReadRAM(0xA000);
+	}
+
+	private void writeClock(int register, int value) {
+		mbc.handleMBCWriteROM(0x4000, register);
+		mbc.handleMBCWriteRAM(0xA000, value);
+	}
+}
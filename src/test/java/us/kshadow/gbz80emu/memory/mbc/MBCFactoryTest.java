@@ -0,0 +1,83 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.memory.Cartridge;
+import us.kshadow.gbz80emu.sysclock.Scheduler;
+
+/**
+ * Tests picking MBCs by cartridge type, and MBC5's 9 bit banking.
+ */
+class MBCFactoryTest {
+
+	private static final int[] LOGO = {0xCE, 0xED, 0x66, 0x66, 0xCC, 0x0D, 0x00, 0x0B, 0x03, 0x73, 0x00, 0x83, 0x00,
+			0x0C, 0x00, 0x0D, 0x00, 0x08, 0x11, 0x1F, 0x88, 0x89, 0x00, 0x0E, 0xDC, 0xCC, 0x6E, 0xE6, 0xDD, 0xDD, 0xD9,
+			0x99, 0xBB, 0xBB, 0x67, 0x63, 0x6E, 0x0E, 0xEC, 0xCC, 0xDD, 0xDC, 0x99, 0x9F, 0xBB, 0xB9, 0x33, 0x3E};
+
+	private final Scheduler scheduler = new Scheduler();
+
+	@Test
+	void picksMBCByType() throws IOException {
+		assertNull(MBCFactory.create(cartridge(new byte[0x8000], 0x00, 0x00), scheduler));
+		assertEquals(MBC1.class, MBCFactory.create(cartridge(new byte[0x10000], 0x01, 0x00), scheduler).getClass());
+		assertEquals(MBC2.class, MBCFactory.create(cartridge(new byte[0x10000], 0x06, 0x00), scheduler).getClass());
+		assertEquals(MBC3.class, MBCFactory.create(cartridge(new byte[0x10000], 0x13, 0x03), scheduler).getClass());
+		assertEquals(MBC5.class, MBCFactory.create(cartridge(new byte[0x10000], 0x1B, 0x04), scheduler).getClass());
+	}
+
+	@Test
+	void detectsMulticart() throws IOException {
+		byte[] rom = new byte[0x100000];
+		assertEquals(MBC1.class, MBCFactory.create(cartridge(rom, 0x01, 0x00), scheduler).getClass());
+		// Second game's header, with the logo.
+		for (int i = 0; i < LOGO.length; i++) {
+			rom[0x40104 + i] = (byte) LOGO[i];
+		}
+		assertEquals(MBC1M.class, MBCFactory.create(cartridge(rom, 0x01, 0x00), scheduler).getClass());
+	}
+
+	@Test
+	void mbc5BanksNineBits() throws IOException {
+		byte[] rom = new byte[0x800000];
+		rom[0x100 * 0x4000] = 0x12;
+		MBC mbc = MBCFactory.create(cartridge(rom, 0x19, 0x00), scheduler);
+		mbc.handleMBCWriteROM(0x3000, 0x01);
+		mbc.handleMBCWriteROM(0x2000, 0x00);
+		assertEquals(0x400000, mbc.getROMBankOffset(0x4000));
+		assertEquals(0x12, mbc.handleMBCReadROM(0x4000));
+		// Bank 0 isn't remapped to 1 on MBC5.
+		mbc.handleMBCWriteROM(0x3000, 0x00);
+		assertEquals(0, mbc.getROMBankOffset(0x4000));
+	}
+
+	@Test
+	void mbc2HasHalfByteRAM() throws IOException {
+		MBC mbc = MBCFactory.create(cartridge(new byte[0x10000], 0x06, 0x00), scheduler);
+		mbc.handleMBCWriteROM(0x0000, 0x0A);
+		mbc.handleMBCWriteRAM(0xA005, 0xAB);
+		assertEquals(0xFB, mbc.handleMBCReadRAM(0xA005));
+		// RAM repeats every 512 bytes.
+		assertEquals(0xFB, mbc.handleMBCReadRAM(0xA205));
+		assertEquals(-1, mbc.getRAMBankOffset());
+	}
+
+	private static Cartridge cartridge(byte[] rom, int type, int ramSize) throws IOException {
+		rom[0x147] = (byte) type;
+		rom[0x148] = (byte) Integer.numberOfTrailingZeros(rom.length / 0x8000);
+		rom[0x149] = (byte) ramSize;
+		Path file = Files.createTempFile("mbc", ".gb");
+		Cartridge cartridge = new Cartridge();
+		try {
+			Files.write(file, rom);
+			cartridge.loadROM(file.toString());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+		return cartridge;
+	}
+}
@@ -0,0 +1,77 @@
+package us.kshadow.gbz80emu.memory.mbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.MMU;
+
+/**
+ * Tests battery RAM persisting through a .sav file, one dirty page at a time.
+ */
+class SaveFileTest {
+
+	private Path rom;
+	private Path save;
+
+	@BeforeEach
+	void setup() throws IOException {
+		// MBC5+RAM+BATTERY, 32KB ROM, 8KB RAM.
+		byte[] data = new byte[0x8000];
+		data[0x147] = 0x1B;
+		data[0x149] = 0x02;
+		rom = Files.createTempFile("battery", ".gb");
+		Files.write(rom, data);
+		save = Files.createTempFile("battery", ".sav");
+		Files.delete(save);
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		Files.deleteIfExists(rom);
+		Files.deleteIfExists(save);
+	}
+
+	@Test
+	void onlyDirtyPagesAreFlushed() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM(rom.toString());
+		SaveFile saveFile = gameBoy.openSaveFile(save, Duration.ofHours(1));
+		assertEquals(0x2000, Files.size(save));
+
+		MMU mmu = gameBoy.getMMU();
+		mmu.writeByte(0x0000, 0x0A);
+		mmu.writeByte(0xA123, 0x55);
+		// Bypasses the MBC, so the page isn't marked dirty.
+		gameBoy.getMBC().getRAM()[0x1000] = 0x66;
+		saveFile.flush();
+		byte[] saved = Files.readAllBytes(save);
+		assertEquals(0x55, saved[0x123]);
+		assertEquals(0, saved[0x1000]);
+		gameBoy.closeSaveFile();
+
+		GameBoy restored = new GameBoy();
+		restored.loadROM(rom.toString());
+		restored.openSaveFile(save, Duration.ofHours(1));
+		restored.getMMU().writeByte(0x0000, 0x0A);
+		assertEquals(0x55, restored.getMMU().readByte(0xA123));
+		restored.closeSaveFile();
+	}
+
+	@Test
+	void closingStopsTrackingWrites() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM(rom.toString());
+		gameBoy.openSaveFile(save, Duration.ofHours(1));
+		assertNotNull(gameBoy.getMBC().getRAMWriteListener());
+		gameBoy.closeSaveFile();
+		assertNull(gameBoy.getMBC().getRAMWriteListener());
+	}
+}
@@ -7,7 +7,7 @@ import org.junit.jupiter.api.Test;
 
 class CPURegistersTest {
 
-	private static final CPURegisters reg = CPURegisters.getInstance();
+	private final CPURegisters reg = new CPURegisters();
 
 	@BeforeEach
 	public void cleanup() {
@@ -214,4 +214,56 @@ class CPURegistersTest {
 
 		assertThrows(IllegalArgumentException.class, () -> reg.write("HL", -1));
 	}
+
+	// Index based register file tests.
+	@Test
+	void checkIndexedRegistersMatchStringAccess() {
+		reg.set(CPURegisters.A, 0x12);
+		reg.set(CPURegisters.B, 0x34);
+		reg.set(CPURegisters.C, 0x56);
+		reg.set(CPURegisters.D, 0x78);
+		reg.set(CPURegisters.E, 0x9A);
+		reg.set(CPURegisters.H, 0xBC);
+		reg.set(CPURegisters.L, 0xDE);
+
+		assertEquals(0x12, reg.read("A"));
+		assertEquals(0x3456, reg.read("BC"));
+		assertEquals(0x789A, reg.read("DE"));
+		assertEquals(0xBCDE, reg.read("HL"));
+		assertEquals(0xBCDE, reg.getHL());
+		assertEquals(0x3456, reg.getPair(CPURegisters.BC));
+	}
+
+	@Test
+	void checkIndexedPairsSplitIntoRegisters() {
+		reg.setPair(CPURegisters.BC, 0x1234);
+		reg.setPair(CPURegisters.DE, 0x5678);
+		reg.setHL(0x9ABC);
+		reg.setPair(CPURegisters.AF, 0xDEFF);
+
+		assertEquals(0x12, reg.get(CPURegisters.B));
+		assertEquals(0x34, reg.get(CPURegisters.C));
+		assertEquals(0x56, reg.get(CPURegisters.D));
+		assertEquals(0x78, reg.get(CPURegisters.E));
+		assertEquals(0x9A, reg.get(CPURegisters.H));
+		assertEquals(0xBC, reg.get(CPURegisters.L));
+		assertEquals(0xDE, reg.get(CPURegisters.A));
+		assertEquals(0xDEF0, reg.getPair(CPURegisters.AF)); // lower 4 bits of F are always 0
+	}
+
+	@Test
+	void checkIndexedWritesAreMasked() {
+		reg.set(CPURegisters.A, 0x1FF);
+		assertEquals(0xFF, reg.get(CPURegisters.A));
+
+		reg.setSP(0x10000);
+		assertEquals(0, reg.getSP());
+
+		reg.setPC(0xFFFF);
+		reg.incPC();
+		assertEquals(0, reg.getPC());
+
+		reg.setPair(CPURegisters.HL, -1);
+		assertEquals(0xFFFF, reg.getHL());
+	}
 }
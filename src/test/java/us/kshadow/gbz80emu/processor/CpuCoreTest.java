@@ -0,0 +1,116 @@
+package us.kshadow.gbz80emu.processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.MMU;
+
+/**
+ * Verifies that the table driven CPU core behaves the same as the original
+ * switch based core, for every opcode on both pages.
+ */
+class CpuCoreTest {
+
+	private static final int CODE_ADDRESS = 0xC000;
+	private final GameBoy gameBoy = new GameBoy();
+	private final CPU cpu = gameBoy.getCPU();
+	private final CPURegisters reg = cpu.getRegisters();
+	private final MMU mmu = gameBoy.getMMU();
+
+	@BeforeEach
+	public void cleanup() {
+		mmu.clearMemory();
+		mmu.toggleBootROM(false);
+		reg.clearRegisters();
+	}
+
+	@Test
+	void baseOpcodesMatchSwitchCore() {
+		for (int opcode = 0; opcode < 256; opcode++) {
+			if (opcode != 0xCB) {
+				compareCores(opcode, -1);
+			}
+		}
+	}
+
+	@Test
+	void cbOpcodesMatchSwitchCore() {
+		for (int opcode = 0; opcode < 256; opcode++) {
+			compareCores(0xCB, opcode);
+		}
+	}
+
+	@Test
+	void tableMatchesOpcodeLengths() {
+		assertEquals(3, OpcodeTable.get(0xC3).length()); // JP u16
+		assertEquals(2, OpcodeTable.get(0x18).length()); // JR s8
+		assertEquals(1, OpcodeTable.get(0x00).length()); // NOP
+		assertEquals("BIT 7, (HL)", OpcodeTable.getCB(0x7E).mnemonic());
+		assertEquals(12, OpcodeTable.getCB(0x7E).cycles());
+	}
+
+	private void compareCores(int opcode, int cbOpcode) {
+		// A few different seeds, to cover both sides of conditional instructions.
+		for (int seed = 0; seed < 8; seed++) {
+			int[] expected = runOnce(new SwitchCpuCore(), opcode, cbOpcode, seed);
+			int[] actual = runOnce(new TableCpuCore(), opcode, cbOpcode, seed);
+			String name = cbOpcode < 0 ? OpcodeTable.get(opcode).mnemonic() : OpcodeTable.getCB(cbOpcode).mnemonic();
+			assertArrayEquals(expected, actual, name);
+		}
+	}
+
+	/**
+	 * Runs a single instruction from a random starting state, and returns the
+	 * resulting state of the CPU and the memory it could have touched.
+	 */
+	private int[] runOnce(CpuCore core, int opcode, int cbOpcode, int seed) {
+		Random random = new Random(seed * 31L + opcode * 257L + cbOpcode);
+		cleanup();
+		reg.setPair(CPURegisters.AF, random.nextInt(0x10000));
+		reg.setPair(CPURegisters.BC, randomWorkRamAddress(random));
+		reg.setPair(CPURegisters.DE, randomWorkRamAddress(random));
+		reg.setHL(randomWorkRamAddress(random));
+		reg.setSP(randomWorkRamAddress(random));
+		reg.setPC(CODE_ADDRESS);
+		cpu.setHalted(false);
+
+		int operand = randomWorkRamAddress(random);
+		mmu.writeByte(CODE_ADDRESS, opcode);
+		mmu.writeByte(CODE_ADDRESS + 1, cbOpcode >= 0 ? cbOpcode : operand & 0xFF);
+		mmu.writeByte(CODE_ADDRESS + 2, operand >> 8);
+		for (int address : new int[]{reg.getPair(CPURegisters.BC), reg.getPair(CPURegisters.DE), reg.getHL(),
+				reg.getSP(), operand}) {
+			mmu.writeByte(address, random.nextInt(0x100));
+		}
+
+		cpu.setCore(core);
+		int cycles;
+		try {
+			cycles = cpu.nextInstruction();
+		} catch (IllegalArgumentException e) {
+			return new int[]{-1};
+		}
+
+		return new int[]{cycles, reg.getPair(CPURegisters.AF), reg.getPair(CPURegisters.BC),
+				reg.getPair(CPURegisters.DE), reg.getHL(), reg.getSP(), reg.getPC(), cpu.isHalted() ? 1 : 0,
+				peek(reg.getSP()), peek(reg.getSP() + 1), peek(reg.getHL()), peek(reg.getPair(CPURegisters.BC)),
+				peek(reg.getPair(CPURegisters.DE)), peek(operand), mmu.readByte(0xFF00 + (operand & 0xFF))};
+	}
+
+	/**
+	 * Reads a byte from work RAM, registers can end up pointing anywhere after
+	 * 16-bit arithmetic.
+	 */
+	private int peek(int address) {
+		return address >= 0xC000 && address < 0xE000 ? mmu.readByte(address) : -1;
+	}
+
+	private int randomWorkRamAddress(Random random) {
+		// Stay clear of the instruction itself, and off the last byte so words fit.
+		return 0xC100 + random.nextInt(0x1E00);
+	}
+}
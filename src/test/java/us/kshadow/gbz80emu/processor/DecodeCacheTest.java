@@ -0,0 +1,120 @@
+package us.kshadow.gbz80emu.processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.INTERRUPT_ENABLE;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.INTERRUPT_FLAG;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.MMU;
+
+class DecodeCacheTest {
+
+	private final MMU mmu = new GameBoy().getMMU();
+	private DecodeCache decodeCache;
+
+	@BeforeEach
+	public void setup() {
+		mmu.clearMemory();
+		mmu.toggleBootROM(true);
+		decodeCache = new DecodeCache(mmu);
+	}
+
+	@AfterEach
+	public void cleanup() {
+		mmu.setWriteListener(null);
+	}
+
+	@Test
+	void decodesOperandsOnce() {
+		mmu.writeByte(0xC000, 0x21); // LD HL, 0x1234
+		mmu.writeWord(0xC001, 0x1234);
+		DecodedInstruction instruction = decodeCache.get(0xC000);
+		assertEquals(0x21, instruction.opcode());
+		assertEquals(0x1234, instruction.operand());
+		assertEquals(3, instruction.length());
+		assertSame(instruction, decodeCache.get(0xC000));
+	}
+
+	@Test
+	void writeToOperandDropsInstruction() {
+		mmu.writeByte(0xC000, 0x3E); // LD A, 0x01
+		mmu.writeByte(0xC001, 0x01);
+		assertEquals(0x01, decodeCache.get(0xC000).operand());
+
+		// Through echo RAM, which lands in the same work RAM.
+		mmu.writeByte(0xE001, 0x02);
+		assertEquals(0x02, decodeCache.get(0xC000).operand());
+	}
+
+	@Test
+	void uncachedRegionsAreSkipped() {
+		assertNull(decodeCache.get(0x0000)); // Boot ROM
+		assertNull(decodeCache.get(0x8000)); // Video RAM
+		mmu.writeByte(0xDFFF, 0x3E); // LD A, u8 running off the end of work RAM
+		assertNull(decodeCache.get(0xDFFF));
+	}
+
+	@Test
+	void ioWritesNextToHighRAMCodeAreIgnored() {
+		mmu.writeByte(0xFF80, 0x3E); // LD A, 0x01
+		mmu.writeByte(0xFF81, 0x01);
+		DecodedInstruction instruction = decodeCache.get(0xFF80);
+
+		// The I/O registers share the watched page with high RAM.
+		mmu.writeByte(INTERRUPT_FLAG, 0x01);
+		mmu.writeByte(0xFF7F, 0x00);
+		mmu.writeByte(INTERRUPT_ENABLE, 0x01);
+		assertSame(instruction, decodeCache.get(0xFF80));
+	}
+
+	@Test
+	void ramKeysFollowTheROM() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+		DecodeCache cache = new DecodeCache(gameBoy.getMMU());
+		int romSize = gameBoy.getCartridge().getROM().size();
+		assertEquals(0x0150, cache.getKey(0x0150));
+		assertEquals(romSize, cache.getKey(0xC000));
+		assertEquals(romSize + 0x3F80, cache.getKey(0xFF80));
+		assertEquals(-1, cache.getKey(0xFF00));
+	}
+
+	@Test
+	void loadingAnotherROMDropsCachedCode() throws IOException {
+		GameBoy cached = runTwoROMs(true);
+		GameBoy interpreted = runTwoROMs(false);
+		CPURegisters expected = interpreted.getCPU().getRegisters();
+		CPURegisters actual = cached.getCPU().getRegisters();
+		assertEquals(expected.getPC(), actual.getPC());
+		assertEquals(expected.getSP(), actual.getSP());
+		assertEquals(expected.getPair(CPURegisters.AF), actual.getPair(CPURegisters.AF));
+	}
+
+	/**
+	 * Runs one ROM and then another on the same machine, which shouldn't run any
+	 * code that was cached from the first.
+	 */
+	private static GameBoy runTwoROMs(boolean decodeCacheEnabled) throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.getCPU().setDecodeCacheEnabled(decodeCacheEnabled);
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+		runFrames(gameBoy, 10);
+		gameBoy.loadROM("test_roms/instr_timing.gb");
+		gameBoy.skipBootROM();
+		runFrames(gameBoy, 10);
+		return gameBoy;
+	}
+
+	private static void runFrames(GameBoy gameBoy, int frames) {
+		for (int i = 0; i < frames; i++) {
+			gameBoy.runFrame();
+		}
+	}
+}
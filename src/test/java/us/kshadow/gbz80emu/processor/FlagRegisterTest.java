@@ -2,12 +2,16 @@ package us.kshadow.gbz80emu.processor;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.processor.instructions.ALU;
 
 class FlagRegisterTest {
 
-	private static final FlagRegister fr = FlagRegister.getInstance();
+	private final FlagRegister fr = new FlagRegister();
 
 	@BeforeEach
 	public void resetFR() {
@@ -17,6 +21,11 @@ class FlagRegisterTest {
 		fr.setH(false);
 	}
 
+	@AfterEach
+	public void disableLazy() {
+		fr.setLazy(false);
+	}
+
 	@Test
 	void checkFlagAsByte() {
 		fr.setZ(true);
@@ -56,4 +65,92 @@ class FlagRegisterTest {
 		assertTrue(fr.isC());
 	}
 
+	@Test
+	void checkArithmeticFlags() {
+		for (boolean lazy : new boolean[]{false, true}) {
+			// ADD, with half carry out of bit 3 and carry out of bit 7.
+			assertFlags(0xB0, lazy, 0x3A, 0, alu -> alu.instructADD(0xC6)); // 0x00
+			assertFlags(0x00, lazy, 0x3C, 0, alu -> alu.instructADD(0x12)); // 0x4E
+			assertFlags(0x20, lazy, 0x0F, 0, alu -> alu.instructADD(0x01)); // 0x10
+			assertFlags(0x10, lazy, 0xF0, 0, alu -> alu.instructADD(0x20)); // 0x10
+
+			// ADC, where the carry in alone can cause either carry.
+			assertFlags(0x20, lazy, 0xE1, 1, alu -> alu.instructADC(0x0F)); // 0xF1
+			assertFlags(0x10, lazy, 0xE1, 1, alu -> alu.instructADC(0x3B)); // 0x1D
+			assertFlags(0xB0, lazy, 0xE1, 1, alu -> alu.instructADC(0x1E)); // 0x00
+			assertFlags(0x20, lazy, 0x0F, 1, alu -> alu.instructADC(0x00)); // 0x10
+			assertFlags(0xB0, lazy, 0xFF, 1, alu -> alu.instructADC(0x00)); // 0x00
+
+			// SUB and CP, with borrows from bit 4 and out of bit 7.
+			assertFlags(0xC0, lazy, 0x3E, 0, alu -> alu.instructSUB(0x3E, false)); // 0x00
+			assertFlags(0x60, lazy, 0x3E, 0, alu -> alu.instructSUB(0x0F, false)); // 0x2F
+			assertFlags(0x50, lazy, 0x3E, 0, alu -> alu.instructSUB(0x40, false)); // 0xFE
+			assertFlags(0x60, lazy, 0x10, 0, alu -> alu.instructSUB(0x01, true)); // 0x0F
+
+			// SBC, where the borrow in alone can cause either borrow.
+			assertFlags(0x40, lazy, 0x3B, 1, alu -> alu.instructSBC(0x2A)); // 0x10
+			assertFlags(0x70, lazy, 0x3B, 1, alu -> alu.instructSBC(0x4F)); // 0xEB
+			assertFlags(0xC0, lazy, 0x3B, 1, alu -> alu.instructSBC(0x3A)); // 0x00
+			assertFlags(0x60, lazy, 0x10, 1, alu -> alu.instructSBC(0x00)); // 0x0F
+			assertFlags(0x70, lazy, 0x0F, 1, alu -> alu.instructSBC(0x0F)); // 0xFF
+			assertFlags(0xF0, lazy, 0x00, 1, alu -> alu.instructSBC(0xFF)); // 0x00
+			assertFlags(0x50, lazy, 0x05, 1, alu -> alu.instructSBC(0xF0)); // 0x14
+		}
+	}
+
+	@Test
+	void checkLogicFlags() {
+		for (boolean lazy : new boolean[]{false, true}) {
+			// AND always sets H, and all of them clear C.
+			assertFlags(0x20, lazy, 0x5A, 1, alu -> alu.instructAND(0x3F)); // 0x1A
+			assertFlags(0xA0, lazy, 0x5A, 1, alu -> alu.instructAND(0x00)); // 0x00
+			assertFlags(0x00, lazy, 0x5A, 1, alu -> alu.instructOR(0x03)); // 0x5B
+			assertFlags(0x80, lazy, 0x00, 1, alu -> alu.instructOR(0x00)); // 0x00
+			assertFlags(0x80, lazy, 0xFF, 1, alu -> alu.instructXOR(0xFF)); // 0x00
+		}
+	}
+
+	@Test
+	void checkIncDecFlags() {
+		for (boolean lazy : new boolean[]{false, true}) {
+			// The carry flag is left as it was.
+			assertFlags(0xA0, lazy, 0xFF, 0, alu -> alu.instructINCu8(CPURegisters.A)); // 0x00
+			assertFlags(0xB0, lazy, 0xFF, 1, alu -> alu.instructINCu8(CPURegisters.A)); // 0x00
+			assertFlags(0x10, lazy, 0x50, 1, alu -> alu.instructINCu8(CPURegisters.A)); // 0x51
+			assertFlags(0x20, lazy, 0x0F, 0, alu -> alu.instructINCu8(CPURegisters.A)); // 0x10
+
+			// DEC sets H on a borrow from bit 4, which includes 0x00 and 0xX0.
+			assertFlags(0xC0, lazy, 0x01, 0, alu -> alu.instructDECu8(CPURegisters.A)); // 0x00
+			assertFlags(0x60, lazy, 0x00, 0, alu -> alu.instructDECu8(CPURegisters.A)); // 0xFF
+			assertFlags(0x70, lazy, 0x00, 1, alu -> alu.instructDECu8(CPURegisters.A)); // 0xFF
+			assertFlags(0x60, lazy, 0x10, 0, alu -> alu.instructDECu8(CPURegisters.A)); // 0x0F
+			assertFlags(0x70, lazy, 0xF0, 1, alu -> alu.instructDECu8(CPURegisters.A)); // 0xEF
+			assertFlags(0x40, lazy, 0x11, 0, alu -> alu.instructDECu8(CPURegisters.A)); // 0x10
+		}
+	}
+
+	@Test
+	void checkLazyFlagsKeptAfterSet() {
+		fr.setLazy(true);
+		fr.setFromOperation(FlagRegister.SUB, 0x10, 0x20, 0, 0xF0);
+		fr.setH(false); // Pending operation has to be worked out before this
+		assertFalse(fr.isZ());
+		assertTrue(fr.isN());
+		assertFalse(fr.isH());
+		assertTrue(fr.isC());
+	}
+
+	/**
+	 * Runs an instruction on register A with the given carry flag, and checks
+	 * the flags it leaves.
+	 */
+	private static void assertFlags(int expected, boolean lazy, int a, int carry, Consumer<ALU> instruction) {
+		CPURegisters reg = new CPURegisters();
+		reg.getFR().setLazy(lazy);
+		reg.getFR().setFlagsFromByte(carry != 0 ? 0x10 : 0x00);
+		reg.set(CPURegisters.A, a);
+		// Only (HL) goes through memory, which none of these use.
+		instruction.accept(new ALU(reg, null));
+		assertEquals(expected, reg.getFR().getFlagsAsByte(), String.format("A=0x%02X, lazy=%b", a, lazy));
+	}
 }
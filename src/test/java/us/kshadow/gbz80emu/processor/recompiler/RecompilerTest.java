@@ -0,0 +1,98 @@
+package us.kshadow.gbz80emu.processor.recompiler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.MMU;
+import us.kshadow.gbz80emu.processor.CPU;
+import us.kshadow.gbz80emu.processor.CPURegisters;
+
+/**
+ * Runs small programs out of work RAM, making sure compiled blocks give the
+ * same results as the interpreter.
+ */
+class RecompilerTest {
+
+	private static final int CODE_ADDRESS = 0xC000;
+	private final GameBoy gameBoy = new GameBoy();
+	private final CPU cpu = gameBoy.getCPU();
+	private final CPURegisters reg = cpu.getRegisters();
+	private final MMU mmu = gameBoy.getMMU();
+
+	// Sums 1 through 200 into HL, then halts.
+	private static final int[] SUM_LOOP = {0x21, 0x00, 0x00, // LD HL, 0x0000
+			0x06, 0x00, // LD B, 0x00
+			0x0E, 0xC8, // LD C, 200
+			0x09, // ADD HL, BC
+			0x0D, // DEC C
+			0x20, 0xFC, // JR NZ, -4
+			0x76}; // HALT
+
+	@BeforeEach
+	public void cleanup() {
+		mmu.clearMemory();
+		mmu.toggleBootROM(false);
+		reg.clearRegisters();
+		cpu.setHalted(false);
+	}
+
+	@AfterEach
+	public void disableRecompiler() {
+		cpu.setRecompilerEnabled(false);
+	}
+
+	@Test
+	void compiledLoopMatchesInterpreter() {
+		loadProgram(SUM_LOOP);
+		int interpretedCycles = runUntilHalted();
+		int interpretedHL = reg.getHL();
+
+		// Rerun the loop until it gets hot, the last pass runs compiled.
+		cpu.setRecompilerEnabled(true);
+		int compiledCycles = 0;
+		for (int pass = 0; pass <= Recompiler.HOT_THRESHOLD / 200; pass++) {
+			cleanup();
+			loadProgram(SUM_LOOP);
+			compiledCycles = runUntilHalted();
+		}
+
+		assertEquals(20100, interpretedHL);
+		assertEquals(interpretedHL, reg.getHL());
+		assertEquals(interpretedCycles, compiledCycles);
+	}
+
+	@Test
+	void writeToCodeInvalidatesBlock() {
+		// LD A, 0x01 ; INC A ; JR -3, which loops back to INC A until it gets hot.
+		loadProgram(new int[]{0x3E, 0x01, 0x3C, 0x18, 0xFD});
+		cpu.setRecompilerEnabled(true);
+		for (int i = 0; i < Recompiler.HOT_THRESHOLD * 4; i++) {
+			cpu.nextInstruction();
+		}
+
+		// Patch INC A into DEC A, the next pass has to see the new code.
+		mmu.writeByte(CODE_ADDRESS + 2, 0x3D);
+		reg.setPC(CODE_ADDRESS);
+		cpu.nextInstruction();
+		cpu.nextInstruction();
+		assertEquals(0x00, reg.get(CPURegisters.A));
+	}
+
+	private void loadProgram(int[] program) {
+		for (int i = 0; i < program.length; i++) {
+			mmu.writeByte(CODE_ADDRESS + i, program[i]);
+		}
+		reg.setPC(CODE_ADDRESS);
+	}
+
+	private int runUntilHalted() {
+		int cycles = 0;
+		while (!cpu.isHalted()) {
+			cycles += cpu.nextInstruction();
+		}
+		return cycles;
+	}
+}
@@ -0,0 +1,74 @@
+package us.kshadow.gbz80emu.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
+
+/**
+ * Tests rewinding through delta compressed snapshots.
+ */
+class RewindBufferTest {
+
+	private GameBoy gameBoy;
+
+	@BeforeEach
+	void setup() throws IOException {
+		gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+	}
+
+	@Test
+	void rewindRestoresSnapshotAtOrBeforeFrame() {
+		RewindBuffer rewind = new RewindBuffer(2, 10, Long.MAX_VALUE);
+		byte[] expected = null;
+		for (int frame = 1; frame <= 120; frame++) {
+			gameBoy.runFrame();
+			rewind.frameCompleted(gameBoy);
+			if (frame == 54) {
+				expected = snapshot();
+			}
+		}
+		assertEquals(60, rewind.size());
+
+		assertEquals(54, rewind.rewind(gameBoy, 55));
+		assertEquals(54, rewind.getFrame());
+		assertEquals(27, rewind.size());
+		assertArrayEquals(expected, snapshot());
+
+		// Snapshots taken after rewinding carry on from the restored one.
+		gameBoy.runFrame();
+		gameBoy.runFrame();
+		rewind.frameCompleted(gameBoy);
+		rewind.frameCompleted(gameBoy);
+		assertEquals(56, rewind.rewind(gameBoy, 56));
+	}
+
+	@Test
+	void oldestKeyframesAreEvicted() {
+		RewindBuffer rewind = new RewindBuffer(1, 5, 64 * 1024);
+		for (int frame = 1; frame <= 300; frame++) {
+			gameBoy.runFrame();
+			rewind.frameCompleted(gameBoy);
+		}
+		assertTrue(rewind.getStoredBytes() <= 64 * 1024);
+		long oldest = rewind.getOldestFrame();
+		assertTrue(oldest > 1);
+		// Every group starts at a keyframe, 5 snapshots apart.
+		assertEquals(1, oldest % 5);
+		assertThrows(IllegalArgumentException.class, () -> rewind.rewind(gameBoy, oldest - 1));
+		assertEquals(oldest, rewind.rewind(gameBoy, oldest));
+	}
+
+	private byte[] snapshot() {
+		ByteBuffer state = ByteBuffer.allocate(gameBoy.getMaxStateSize());
+		gameBoy.saveState(state);
+		return Arrays.copyOf(state.array(), state.position());
+	}
+}
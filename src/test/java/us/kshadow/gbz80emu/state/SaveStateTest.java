@@ -0,0 +1,72 @@
+package us.kshadow.gbz80emu.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
+
+/**
+ * Tests saving and restoring the whole machine.
+ */
+class SaveStateTest {
+
+	@Test
+	void restoredMachineRunsTheSame() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		gameBoy.skipBootROM();
+		gameBoy.getCPU().setRecompilerEnabled(true);
+		runFrames(gameBoy, 30);
+		ByteBuffer saved = ByteBuffer.allocate(gameBoy.getMaxStateSize());
+		gameBoy.saveState(saved);
+
+		runFrames(gameBoy, 30);
+		byte[] expected = snapshot(gameBoy);
+		int pc = gameBoy.getCPU().getRegisters().getPC();
+
+		saved.flip();
+		gameBoy.loadState(saved);
+		runFrames(gameBoy, 30);
+		assertEquals(pc, gameBoy.getCPU().getRegisters().getPC());
+		assertArrayEquals(expected, snapshot(gameBoy));
+	}
+
+	@Test
+	void rejectsStateOfAnotherROM() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		GameBoy other = new GameBoy();
+		other.loadROM("test_roms/instr_timing.gb");
+		ByteBuffer saved = ByteBuffer.allocate(gameBoy.getMaxStateSize());
+		gameBoy.saveState(saved);
+		saved.flip();
+		assertThrows(IllegalArgumentException.class, () -> other.loadState(saved));
+	}
+
+	@Test
+	void rejectsTruncatedState() throws IOException {
+		GameBoy gameBoy = new GameBoy();
+		gameBoy.loadROM("test_roms/cpu_instrs.gb");
+		ByteBuffer saved = ByteBuffer.allocate(gameBoy.getMaxStateSize());
+		gameBoy.saveState(saved);
+		saved.flip();
+		saved.limit(saved.limit() / 2);
+		assertThrows(IllegalArgumentException.class, () -> gameBoy.loadState(saved));
+	}
+
+	private static void runFrames(GameBoy gameBoy, int frames) {
+		for (int i = 0; i < frames; i++) {
+			gameBoy.runFrame();
+		}
+	}
+
+	private static byte[] snapshot(GameBoy gameBoy) {
+		ByteBuffer state = ByteBuffer.allocate(gameBoy.getMaxStateSize());
+		gameBoy.saveState(state);
+		return Arrays.copyOf(state.array(), state.position());
+	}
+}
@@ -0,0 +1,59 @@
+package us.kshadow.gbz80emu.sysclock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static us.kshadow.gbz80emu.constants.MemoryAddresses.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import us.kshadow.gbz80emu.GameBoy;
+import us.kshadow.gbz80emu.memory.MMU;
+
+class SystemTimerTest {
+
+	private final GameBoy gameBoy = new GameBoy();
+	private final MMU mmu = gameBoy.getMMU();
+	private final Scheduler scheduler = gameBoy.getScheduler();
+
+	@BeforeEach
+	public void setup() {
+		mmu.writeByte(TIMER_DIV_REGISTER, 0x00);
+		mmu.writeByte(INTERRUPT_FLAG, 0x00);
+	}
+
+	@AfterEach
+	public void stopTimer() {
+		mmu.writeByte(TIMER_TAC_REGISTER, 0x00);
+	}
+
+	@Test
+	void divCatchesUpOnRead() {
+		scheduler.advance(256 * 3 + 100);
+		assertEquals(3, mmu.readByte(TIMER_DIV_REGISTER));
+		scheduler.advance(156);
+		assertEquals(4, mmu.readByte(TIMER_DIV_REGISTER));
+	}
+
+	@Test
+	void overflowRequestsInterruptOnTime() {
+		mmu.writeByte(TIMER_TMA_REGISTER, 0x80);
+		mmu.writeByte(TIMER_TIMA_REGISTER, 0xFE);
+		mmu.writeByte(TIMER_TAC_REGISTER, 0x05); // Enabled, every 16 cycles
+
+		scheduler.advance(31);
+		assertEquals(0, mmu.readByte(INTERRUPT_FLAG) & 0x04);
+		scheduler.advance(1);
+		assertEquals(0x04, mmu.readByte(INTERRUPT_FLAG) & 0x04);
+		assertEquals(0x81, mmu.readByte(TIMER_TIMA_REGISTER));
+	}
+
+	@Test
+	void interruptFlagReadCatchesUp() {
+		mmu.writeByte(TIMER_TIMA_REGISTER, 0xFF);
+		mmu.writeByte(TIMER_TAC_REGISTER, 0x05);
+
+		// Cycles spent on interrupts don't run events, the flag read has to catch up.
+		scheduler.addCycles(16);
+		assertEquals(0x04, mmu.readByte(INTERRUPT_FLAG) & 0x04);
+	}
+}